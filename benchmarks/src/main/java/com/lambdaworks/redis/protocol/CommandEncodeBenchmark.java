@@ -0,0 +1,94 @@
+package com.lambdaworks.redis.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+
+/**
+ * building the arguments of a command with {@link CommandArgs} and encoding
+ * the command with {@link Command#encode(ByteBuf)}. the arguments are built
+ * per call since encoding consumes them.
+ *
+ * in the protocol package for the package private encode. run with:
+ * java -jar target/benchmarks.jar CommandEncodeBenchmark
+ *
+ * @author kriswang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandEncodeBenchmark {
+
+	private static final String KEY = "user:1234567890:profile";
+
+	private final Utf8StringCodec codec = new Utf8StringCodec();
+	private String value;
+	private ByteBuf out;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		this.value = sb.toString();
+		this.out = Unpooled.buffer(4096);
+	}
+
+	@Benchmark
+	public CommandArgs<String, String> argsKey() {
+		return new CommandArgs<String, String>(this.codec).addKey(KEY);
+	}
+
+	@Benchmark
+	public CommandArgs<String, String> argsKeyValue() {
+		return new CommandArgs<String, String>(this.codec).addKey(KEY).addValue(this.value);
+	}
+
+	@Benchmark
+	public CommandArgs<String, String> argsKeywordsAndNumbers() {
+		return new CommandArgs<String, String>(this.codec).addKey(KEY).add(0).add(-1).add(CommandKeyword.WITHSCORES)
+				.add(CommandKeyword.LIMIT).add(10).add(100);
+	}
+
+	@Benchmark
+	public ByteBuf encodeGet() {
+		return this.encode(new Command<String, String, String>(CommandType.GET, null,
+				new CommandArgs<String, String>(this.codec).addKey(KEY), false, null));
+	}
+
+	@Benchmark
+	public ByteBuf encodeSet() {
+		return this.encode(new Command<String, String, String>(CommandType.SET, null,
+				new CommandArgs<String, String>(this.codec).addKey(KEY).addValue(this.value), false, null));
+	}
+
+	@Benchmark
+	public ByteBuf encodePing() {
+		return this.encode(new Command<String, String, String>(CommandType.PING, null, null, false, null));
+	}
+
+	private ByteBuf encode(Command<String, String, String> command) {
+		this.out.clear();
+		command.encode(this.out);
+		return this.out;
+	}
+}
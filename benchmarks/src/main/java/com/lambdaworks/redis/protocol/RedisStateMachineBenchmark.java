@@ -0,0 +1,142 @@
+package com.lambdaworks.redis.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.IntegerOutput;
+import com.lambdaworks.redis.output.NestedMultiOutput;
+import com.lambdaworks.redis.output.PushOutput;
+import com.lambdaworks.redis.output.StatusOutput;
+import com.lambdaworks.redis.output.ValueListOutput;
+import com.lambdaworks.redis.output.ValueOutput;
+
+/**
+ * decoding of one reply of each type by {@link RedisStateMachine#decode}, the
+ * reply being entirely in the buffer. the output the reply is decoded into
+ * is created per call, as CommandHandler gets a new one per command.
+ *
+ * run with: java -jar target/benchmarks.jar RedisStateMachineBenchmark
+ *
+ * @author kriswang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisStateMachineBenchmark {
+
+	private static final String VALUE = repeat('v', 100);
+
+	private final Utf8StringCodec codec = new Utf8StringCodec();
+	private final RedisStateMachine<String, String> rsm = new RedisStateMachine<String, String>();
+
+	private ByteBuf status;
+	private ByteBuf error;
+	private ByteBuf integer;
+	private ByteBuf bulk;
+	private ByteBuf nullBulk;
+	private ByteBuf multiBulk;
+	private ByteBuf nested;
+	private ByteBuf map;
+	private ByteBuf push;
+
+	@Setup
+	public void setup() {
+		this.status = buffer("+OK\r\n");
+		this.error = buffer("-ERR unknown command 'FOO'\r\n");
+		this.integer = buffer(":1234567890\r\n");
+		this.bulk = buffer("$" + VALUE.length() + "\r\n" + VALUE + "\r\n");
+		this.nullBulk = buffer("$-1\r\n");
+		StringBuilder values = new StringBuilder("*10\r\n");
+		for (int i = 0; i < 10; i++) {
+			values.append("$").append(VALUE.length()).append("\r\n").append(VALUE).append("\r\n");
+		}
+		this.multiBulk = buffer(values.toString());
+		this.nested = buffer("*2\r\n*2\r\n$3\r\nfoo\r\n:1\r\n*2\r\n$3\r\nbar\r\n:2\r\n");
+		this.map = buffer("%2\r\n$6\r\nserver\r\n$5\r\nredis\r\n$5\r\nproto\r\n:3\r\n");
+		this.push = buffer(">2\r\n$10\r\ninvalidate\r\n*1\r\n$3\r\nkey\r\n");
+	}
+
+	@Benchmark
+	public Object status() {
+		return this.decode(this.status, new StatusOutput<String, String>(this.codec));
+	}
+
+	@Benchmark
+	public Object error() {
+		return this.decode(this.error, new StatusOutput<String, String>(this.codec));
+	}
+
+	@Benchmark
+	public Object integer() {
+		return this.decode(this.integer, new IntegerOutput<String, String>(this.codec));
+	}
+
+	@Benchmark
+	public Object bulk() {
+		return this.decode(this.bulk, new ValueOutput<String, String>(this.codec));
+	}
+
+	@Benchmark
+	public Object nullBulk() {
+		return this.decode(this.nullBulk, new ValueOutput<String, String>(this.codec));
+	}
+
+	@Benchmark
+	public Object multiBulk() {
+		return this.decode(this.multiBulk, new ValueListOutput<String, String>(this.codec));
+	}
+
+	@Benchmark
+	public Object nested() {
+		return this.decode(this.nested, new NestedMultiOutput<String, String>(this.codec));
+	}
+
+	@Benchmark
+	public Object map() {
+		return this.decode(this.map, new NestedMultiOutput<String, String>(this.codec));
+	}
+
+	@Benchmark
+	public Object push() {
+		return this.decode(this.push, new PushOutput<String, String>());
+	}
+
+	private Object decode(ByteBuf buffer, CommandOutput<String, String, ?> output) {
+		buffer.readerIndex(0);
+		buffer.markReaderIndex();
+		if (!this.rsm.decode(buffer, output)) {
+			throw new IllegalStateException("incomplete reply");
+		}
+		return output.get();
+	}
+
+	private static ByteBuf buffer(String reply) {
+		return Unpooled.copiedBuffer(reply, Charsets.ASCII);
+	}
+
+	private static String repeat(char c, int count) {
+		StringBuilder sb = new StringBuilder(count);
+		for (int i = 0; i < count; i++) {
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,105 @@
+package io.doeasy.redis.benchmark;
+
+import io.doeasy.redis.utils.CircularList;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * compares the lock-free CircularList against the old lock based one, under
+ * contended next() (every slave read) and with a writer adding/removing an
+ * item while readers rotate (slave up/down events).
+ *
+ * run with: java -jar target/benchmarks.jar CircularListBenchmark
+ *
+ * @author kriswang
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircularListBenchmark {
+
+	private static final String[] SLAVES = { "slave-1", "slave-2", "slave-3" };
+	private static final String EXTRA = "slave-4";
+
+	private CircularList<String> lockFree;
+	private LockingCircularList<String> locking;
+
+	@Setup
+	public void setup() {
+		this.lockFree = new CircularList<String>(SLAVES);
+		this.locking = new LockingCircularList<String>(SLAVES);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public String lockFreeNextUncontended() {
+		return this.lockFree.next();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public String lockingNextUncontended() {
+		return this.locking.next();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public String lockFreeNext() {
+		return this.lockFree.next();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public String lockingNext() {
+		return this.locking.next();
+	}
+
+	@Benchmark
+	@Group("lockFreeChurn")
+	@GroupThreads(7)
+	public String lockFreeChurnNext() {
+		return this.lockFree.next();
+	}
+
+	@Benchmark
+	@Group("lockFreeChurn")
+	@GroupThreads(1)
+	public void lockFreeChurnWrite() {
+		this.lockFree.add(EXTRA);
+		this.lockFree.remove(EXTRA);
+	}
+
+	@Benchmark
+	@Group("lockingChurn")
+	@GroupThreads(7)
+	public String lockingChurnNext() {
+		return this.locking.next();
+	}
+
+	@Benchmark
+	@Group("lockingChurn")
+	@GroupThreads(1)
+	public void lockingChurnWrite() {
+		this.locking.add(EXTRA);
+		this.locking.remove(EXTRA);
+	}
+
+}
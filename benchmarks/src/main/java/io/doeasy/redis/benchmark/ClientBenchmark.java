@@ -0,0 +1,103 @@
+package io.doeasy.redis.benchmark;
+
+import io.doeasy.redis.ClientFactory;
+import io.doeasy.redis.client.Client;
+import io.doeasy.redis.client.RedisClientPool;
+import io.doeasy.redis.client.SharedRedisClientPool;
+import io.doeasy.redis.config.HedgedReadConfig;
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.config.HotKeyConfig;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * cost of routing a command through {@link Client}: picking the node,
+ * borrowing a client, recording the load and metrics, plus the optional
+ * features. the nodes are in-process synthetic clients answering at once,
+ * so the time measured is the client's own.
+ *
+ * run with: java -jar target/benchmarks.jar ClientBenchmark
+ *
+ * @author kriswang
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientBenchmark {
+
+	private static final byte[] KEY = "key".getBytes();
+	private static final byte[] FIELD = "field".getBytes();
+	private static final byte[] VALUE = "value".getBytes();
+
+	@Param({ "none", "hotKeys", "hedgedReads" })
+	private String features;
+
+	private Client client;
+
+	@Setup
+	public void setup() {
+		final SyntheticRedisClientFactory clients = new SyntheticRedisClientFactory(0, 0);
+		ClientFactory<RedisClientPool> factory = new ClientFactory<RedisClientPool>() {
+			@Override
+			public RedisClientPool create(HostConfiguration hostConfiguration) {
+				return new SharedRedisClientPool(clients, hostConfiguration);
+			}
+		};
+		StaticSentinelServersManager manager = new StaticSentinelServersManager(new HostConfiguration("master", 6379),
+				new HostConfiguration("slave-1", 6379), new HostConfiguration("slave-2", 6379));
+		this.client = new Client(factory, manager, "benchmark");
+
+		if ("hotKeys".equals(this.features)) {
+			this.client.setHotKeyDetection(new HotKeyConfig());
+		} else if ("hedgedReads".equals(this.features)) {
+			this.client.setHedgedReads(new HedgedReadConfig());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.client.quit();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public byte[] get() {
+		return this.client.get(KEY);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public String set() {
+		return this.client.set(KEY, VALUE);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public byte[] hget() {
+		return this.client.hget(KEY, FIELD);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public byte[] getContended() {
+		return this.client.get(KEY);
+	}
+}
@@ -0,0 +1,319 @@
+package io.doeasy.redis.benchmark;
+
+import io.doeasy.redis.client.Client;
+import io.doeasy.redis.client.RedisClientFactory;
+import io.doeasy.redis.client.RedisClientPoolFactory;
+import io.doeasy.redis.client.balancer.RoundRobinReadBalancer;
+import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.config.WriteBufferConfig;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.doeasy.redis.stub.StubSentinelServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * measures what a sentinel failover costs to the users of {@link Client}.
+ * each round starts a stub master, two slaves and a sentinel, drives a
+ * steady load of INCR on one key per writer and GET from the readers, then
+ * crashes the master and, after the sentinel detection delay, promotes a
+ * slave and publishes +switch-master. reported per round:
+ * <ul>
+ * <li>the time from the crash to the first successful write, and until
+ * every writer succeeded again,</li>
+ * <li>the failed writes, the acknowledged writes which were lost and the
+ * writes applied without being acknowledged (failed but applied, or
+ * replayed twice), from the final value of the counters,</li>
+ * <li>the share of reads which succeeded from the crash to the end of the
+ * round, and the slowest write.</li>
+ * </ul>
+ * runs once with the plain Client and once with the write buffer.
+ *
+ * not a JMH benchmark, a failover is a one-off event. run with:
+ * java -cp target/benchmarks.jar io.doeasy.redis.benchmark.FailoverBenchmark
+ * [writers] [readers] [rounds] [detection ms] [observe ms]
+ *
+ * @author kriswang
+ *
+ */
+public class FailoverBenchmark {
+
+	private static final String MASTER_NAME = "mymaster";
+	private static final byte[] READ_KEY = "read".getBytes();
+
+	private final int writers;
+	private final int readers;
+	private final long detectionMillis;
+	private final long observeMillis;
+	private final boolean buffered;
+
+	private StubRedisServer master;
+	private StubRedisServer[] slaves;
+	private StubSentinelServer sentinel;
+	private SentinelServersManager manager;
+	private Client client;
+
+	private volatile boolean running;
+	private volatile long crash;
+	private AtomicLongArray acknowledged;
+	private AtomicLongArray recovered;
+	private final AtomicLong failedWrites = new AtomicLong();
+	private final AtomicLong maxWrite = new AtomicLong();
+	private final AtomicLong reads = new AtomicLong();
+	private final AtomicLong failedReads = new AtomicLong();
+
+	public FailoverBenchmark(int writers, int readers, long detectionMillis, long observeMillis, boolean buffered) {
+		this.writers = writers;
+		this.readers = readers;
+		this.detectionMillis = detectionMillis;
+		this.observeMillis = observeMillis;
+		this.buffered = buffered;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		long detectionMillis = args.length > 3 ? Long.parseLong(args[3]) : 100;
+		long observeMillis = args.length > 4 ? Long.parseLong(args[4]) : 1000;
+
+		System.out.println(String.format("%d writers, %d readers, %d rounds, detection %d ms, observe %d ms", writers,
+				readers, rounds, detectionMillis, observeMillis));
+		for (boolean buffered : new boolean[] { false, true }) {
+			List<Round> results = new ArrayList<Round>();
+			for (int i = 1; i <= rounds; i++) {
+				Round round = new FailoverBenchmark(writers, readers, detectionMillis, observeMillis, buffered).run();
+				System.out.println(String.format("%-8s round %d: %s", buffered ? "buffered" : "direct", i, round));
+				results.add(round);
+			}
+			System.out.println(String.format("%-8s summary: %s", buffered ? "buffered" : "direct", Round.summary(results)));
+		}
+	}
+
+	Round run() throws Exception {
+		this.setUp();
+		try {
+			this.running = true;
+			this.crash = Long.MAX_VALUE;
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int i = 0; i < this.writers; i++) {
+				threads.add(this.startWriter(i));
+			}
+			for (int i = 0; i < this.readers; i++) {
+				threads.add(this.startReader());
+			}
+
+			//steady state before the crash
+			TimeUnit.MILLISECONDS.sleep(200);
+			this.master.stop();
+			//writes started earlier may have been served
+			this.crash = System.nanoTime();
+			TimeUnit.MILLISECONDS.sleep(this.detectionMillis);
+			this.sentinel.failover(MASTER_NAME);
+			TimeUnit.MILLISECONDS.sleep(this.observeMillis);
+
+			this.running = false;
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			return this.result();
+		} finally {
+			this.tearDown();
+		}
+	}
+
+	private void setUp() throws InterruptedException {
+		this.master = new StubRedisServer(0);
+		this.master.start();
+		this.slaves = new StubRedisServer[] { new StubRedisServer(0, this.master), new StubRedisServer(0, this.master) };
+		for (StubRedisServer slave : this.slaves) {
+			slave.start();
+		}
+		this.sentinel = new StubSentinelServer(0).monitor(MASTER_NAME, this.master, this.slaves);
+		this.sentinel.start();
+
+		this.manager = new SentinelServersManager(Collections.singletonList(this.sentinel.getHostConfiguration()), 100);
+		this.manager.start();
+		this.client = new Client(new RedisClientPoolFactory(RedisClientFactory.INSTANCE), this.manager, MASTER_NAME,
+				RoundRobinReadBalancer.INSTANCE, null, this.buffered ? new WriteBufferConfig() : null);
+		await("SUBSCRIBE");
+
+		this.acknowledged = new AtomicLongArray(this.writers);
+		this.recovered = new AtomicLongArray(this.writers);
+		this.client.set(READ_KEY, "value".getBytes());
+	}
+
+	private void tearDown() {
+		this.client.quit();
+		this.manager.stop();
+		this.sentinel.close();
+		for (StubRedisServer slave : this.slaves) {
+			slave.close();
+		}
+		this.master.close();
+	}
+
+	private void await(String command) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.sentinel.getCommandCount(command) == 0 && System.currentTimeMillis() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		//counted before it is replied to
+		TimeUnit.MILLISECONDS.sleep(50);
+	}
+
+	private Thread startWriter(final int writer) {
+		final byte[] key = ("writer:" + writer).getBytes();
+		return this.start(new Runnable() {
+			@Override
+			public void run() {
+				while (running) {
+					long start = System.nanoTime();
+					try {
+						client.incr(key);
+						long end = System.nanoTime();
+						acknowledged.incrementAndGet(writer);
+						if (start >= crash) {
+							recovered.compareAndSet(writer, 0, end - crash);
+						}
+						maxWrite(end - start);
+					} catch (RuntimeException e) {
+						failedWrites.incrementAndGet();
+					}
+					pause();
+				}
+			}
+		}, "writer-" + writer);
+	}
+
+	private Thread startReader() {
+		return this.start(new Runnable() {
+			@Override
+			public void run() {
+				while (running) {
+					boolean observed = System.nanoTime() >= crash;
+					try {
+						client.get(READ_KEY);
+						if (observed) {
+							reads.incrementAndGet();
+						}
+					} catch (RuntimeException e) {
+						if (observed) {
+							reads.incrementAndGet();
+							failedReads.incrementAndGet();
+						}
+					}
+					pause();
+				}
+			}
+		}, "reader");
+	}
+
+	private Thread start(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * about a thousand commands per second per thread.
+	 */
+	private static void pause() {
+		try {
+			TimeUnit.MILLISECONDS.sleep(1);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void maxWrite(long nanos) {
+		long max;
+		while (nanos > (max = this.maxWrite.get()) && !this.maxWrite.compareAndSet(max, nanos)) {
+		}
+	}
+
+	private Round result() {
+		Round round = new Round();
+		round.firstWrite = Long.MAX_VALUE;
+		for (int i = 0; i < this.writers; i++) {
+			long recovered = this.recovered.get(i);
+			if (recovered == 0) {
+				//never recovered within the round
+				recovered = Long.MAX_VALUE;
+			}
+			round.firstWrite = Math.min(round.firstWrite, recovered);
+			round.allWriters = Math.max(round.allWriters, recovered);
+
+			byte[] value = this.client.get(("writer:" + i).getBytes());
+			long applied = value == null ? 0 : Long.parseLong(new String(value));
+			long acknowledged = this.acknowledged.get(i);
+			round.lost += Math.max(0, acknowledged - applied);
+			round.unacknowledged += Math.max(0, applied - acknowledged);
+		}
+		round.failedWrites = this.failedWrites.get();
+		round.maxWrite = this.maxWrite.get();
+		round.reads = this.reads.get();
+		round.failedReads = this.failedReads.get();
+		return round;
+	}
+
+	static class Round {
+		long firstWrite;
+		long allWriters;
+		long failedWrites;
+		long lost;
+		long unacknowledged;
+		long maxWrite;
+		long reads;
+		long failedReads;
+
+		double readAvailability() {
+			return this.reads == 0 ? 0 : 100.0 * (this.reads - this.failedReads) / this.reads;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("first write %s, all writers %s, failed writes %d, lost %d, unacknowledged %d, "
+					+ "reads %.2f%% (%d failed), max write %.2f ms", millis(this.firstWrite), millis(this.allWriters),
+					this.failedWrites, this.lost, this.unacknowledged, this.readAvailability(), this.failedReads,
+					this.maxWrite / 1e6);
+		}
+
+		static String summary(List<Round> rounds) {
+			long firstWrite = 0;
+			long worstFirstWrite = 0;
+			long allWriters = 0;
+			long failedWrites = 0;
+			long lost = 0;
+			long unacknowledged = 0;
+			long reads = 0;
+			long failedReads = 0;
+			for (Round round : rounds) {
+				if (round.allWriters == Long.MAX_VALUE) {
+					return "a round did not recover, " + round;
+				}
+				firstWrite += round.firstWrite;
+				worstFirstWrite = Math.max(worstFirstWrite, round.firstWrite);
+				allWriters = Math.max(allWriters, round.allWriters);
+				failedWrites += round.failedWrites;
+				lost += round.lost;
+				unacknowledged += round.unacknowledged;
+				reads += round.reads;
+				failedReads += round.failedReads;
+			}
+			return String.format("avg first write %s, worst first write %s, worst all writers %s, failed writes %d, "
+					+ "lost %d, unacknowledged %d, reads %.2f%%", millis(firstWrite / rounds.size()),
+					millis(worstFirstWrite), millis(allWriters), failedWrites, lost, unacknowledged,
+					reads == 0 ? 0 : 100.0 * (reads - failedReads) / reads);
+		}
+
+		private static String millis(long nanos) {
+			return nanos == Long.MAX_VALUE ? "never" : String.format("%.2f ms", nanos / 1e6);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package io.doeasy.redis.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * the ReentrantLock based round robin list CircularList used before it
+ * became lock-free, kept only as a baseline for {@link CircularListBenchmark}.
+ * 
+ * @author kriswang
+ *
+ * @param <T>
+ */
+public class LockingCircularList<T> implements Iterable<T> {
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final List<T> collection;
+	private int currentIndex;
+
+	public LockingCircularList(Collection<T> iterator) {
+		this.collection = new ArrayList<T>(iterator);
+	}
+
+	public LockingCircularList(@SuppressWarnings("unchecked") T... items) {
+		this(Arrays.asList(items));
+	}
+	
+	public int size() {
+		return this.collection.size();
+	}
+	
+	public boolean empty() {
+		return this.collection.size() == 0;
+	}
+	
+	public void add(T t) {
+		try {
+			this.lock.lock();
+			this.collection.add(t);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	public void remove(T t) {
+		try {
+			this.lock.lock();
+			this.collection.remove(t);
+			if(this.currentIndex >= this.collection.size()) {
+				this.currentIndex = 0;
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	public T next() {
+		try {
+			this.lock.lock();
+			
+			T item = this.collection.get(this.currentIndex);
+			
+			if(this.currentIndex >= (this.collection.size() - 1)) {
+				this.currentIndex = 0;
+			} else {
+				this.currentIndex++;
+			}
+			
+			return item;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the item at the given position, wrapped around the current
+	 * size, or null if the list is empty.
+	 */
+	public T get(int index) {
+		try {
+			this.lock.lock();
+			if (this.collection.isEmpty()) {
+				return null;
+			}
+			return this.collection.get(index % this.collection.size());
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return this.collection.iterator();
+	}
+
+}
@@ -0,0 +1,181 @@
+package io.doeasy.redis.benchmark;
+
+import io.doeasy.redis.client.Client;
+import io.doeasy.redis.client.MasterSwitcher;
+import io.doeasy.redis.client.RedisClientFactory;
+import io.doeasy.redis.client.RedisClientPoolFactory;
+import io.doeasy.redis.client.balancer.RoundRobinReadBalancer;
+import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.doeasy.redis.stub.StubSentinelServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * measures how long writes fail while {@link Client} follows a planned
+ * switchover, the master being switched back and forth between two stub
+ * nodes which both keep running. the demoted master refuses writes as soon
+ * as +switch-master is published, so the failed writes are the ones still
+ * sent to it before {@link MasterSwitcher} moved the writers to the new
+ * master. reported: the failed writes, the window from the first to the
+ * last failed write of a switch, the time from the publication to the
+ * first write served by the new master, and the slowest write. the crash of
+ * the master is measured by {@link FailoverBenchmark}.
+ *
+ * not a JMH benchmark, a switch is a one-off event and the result is a
+ * window rather than a throughput. run with:
+ * java -cp target/benchmarks.jar io.doeasy.redis.benchmark.MasterSwitchBenchmark
+ * [writers] [switches]
+ *
+ * @author kriswang
+ *
+ */
+public class MasterSwitchBenchmark {
+
+	private static final String MASTER_NAME = "mymaster";
+
+	private final int writers;
+	private final int switches;
+
+	private StubRedisServer[] nodes;
+	private StubSentinelServer sentinel;
+	private SentinelServersManager manager;
+	private Client client;
+
+	private volatile boolean running;
+	private final AtomicLong writes = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong firstFailure = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong lastFailure = new AtomicLong();
+	private final AtomicLong maxWrite = new AtomicLong();
+
+	public MasterSwitchBenchmark(int writers, int switches) {
+		this.writers = writers;
+		this.switches = switches;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int switches = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+		System.out.println(String.format("%d writers, %d switches", writers, switches));
+		new MasterSwitchBenchmark(writers, switches).run();
+	}
+
+	void run() throws Exception {
+		this.setUp();
+		try {
+			this.running = true;
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int i = 0; i < this.writers; i++) {
+				threads.add(this.startWriter(i));
+			}
+
+			long totalWindow = 0;
+			long worstWindow = 0;
+			long totalSwitch = 0;
+			long worstSwitch = 0;
+			long totalFailures = 0;
+			for (int i = 1; i <= this.switches; i++) {
+				TimeUnit.MILLISECONDS.sleep(100);
+				this.failures.set(0);
+				this.firstFailure.set(Long.MAX_VALUE);
+				this.lastFailure.set(0);
+
+				StubRedisServer next = this.nodes[i % this.nodes.length];
+				long served = next.getCommandCount("INCR");
+				long start = System.nanoTime();
+				this.sentinel.switchMaster(MASTER_NAME, next);
+				while (next.getCommandCount("INCR") == served && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)) {
+					Thread.yield();
+				}
+				long switched = System.nanoTime() - start;
+				TimeUnit.MILLISECONDS.sleep(100);
+
+				long failed = this.failures.get();
+				long window = failed == 0 ? 0 : this.lastFailure.get() - this.firstFailure.get();
+				totalWindow += window;
+				worstWindow = Math.max(worstWindow, window);
+				totalSwitch += switched;
+				worstSwitch = Math.max(worstSwitch, switched);
+				totalFailures += failed;
+			}
+
+			this.running = false;
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			System.out.println(String.format("writes=%d failed=%d avg window=%.2f ms worst window=%.2f ms "
+					+ "avg switch=%.2f ms worst switch=%.2f ms max write=%.2f ms", this.writes.get(), totalFailures,
+					totalWindow / 1e6 / this.switches, worstWindow / 1e6, totalSwitch / 1e6 / this.switches,
+					worstSwitch / 1e6, this.maxWrite.get() / 1e6));
+		} finally {
+			this.tearDown();
+		}
+	}
+
+	private void setUp() throws InterruptedException {
+		StubRedisServer master = new StubRedisServer(0);
+		master.start();
+		StubRedisServer slave = new StubRedisServer(0, master);
+		slave.start();
+		this.nodes = new StubRedisServer[] { master, slave };
+		this.sentinel = new StubSentinelServer(0).monitor(MASTER_NAME, master, slave);
+		this.sentinel.start();
+
+		this.manager = new SentinelServersManager(Collections.singletonList(this.sentinel.getHostConfiguration()), 100);
+		this.manager.start();
+		this.client = new Client(new RedisClientPoolFactory(RedisClientFactory.INSTANCE), this.manager, MASTER_NAME,
+				RoundRobinReadBalancer.INSTANCE, null, null);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.sentinel.getCommandCount("SUBSCRIBE") == 0 && System.currentTimeMillis() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		//counted before it is replied to
+		TimeUnit.MILLISECONDS.sleep(50);
+	}
+
+	private void tearDown() {
+		this.client.quit();
+		this.manager.stop();
+		this.sentinel.close();
+		for (StubRedisServer node : this.nodes) {
+			node.close();
+		}
+	}
+
+	private Thread startWriter(int writer) {
+		final byte[] key = ("writer:" + writer).getBytes();
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (running) {
+					long start = System.nanoTime();
+					try {
+						client.incr(key);
+						writes.incrementAndGet();
+					} catch (RuntimeException e) {
+						long now = System.nanoTime();
+						failures.incrementAndGet();
+						lastFailure.set(now);
+						firstFailure.compareAndSet(Long.MAX_VALUE, now);
+					}
+					maxWrite(System.nanoTime() - start);
+				}
+			}
+		}, "writer-" + writer);
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	private void maxWrite(long nanos) {
+		long max;
+		while (nanos > (max = this.maxWrite.get()) && !this.maxWrite.compareAndSet(max, nanos)) {
+		}
+	}
+}
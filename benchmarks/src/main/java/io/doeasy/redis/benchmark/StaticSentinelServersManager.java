@@ -0,0 +1,52 @@
+package io.doeasy.redis.benchmark;
+
+import io.doeasy.redis.client.sentinel.SentinelClient;
+import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.model.RedisNodeInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * reports a fixed master and slaves without asking any sentinel, and no
+ * sentinel to subscribe to, so that a Client can be built without a
+ * network.
+ *
+ * @author kriswang
+ *
+ */
+public class StaticSentinelServersManager extends SentinelServersManager {
+
+	private final HostConfiguration master;
+	private final List<RedisNodeInfo> slaves = new ArrayList<RedisNodeInfo>();
+
+	public StaticSentinelServersManager(HostConfiguration master, HostConfiguration... slaves) {
+		//never connected
+		super(Collections.singletonList(new HostConfiguration("sentinel", 26379)), 1000);
+		this.master = master;
+		for (HostConfiguration slave : slaves) {
+			RedisNodeInfo node = new RedisNodeInfo();
+			node.setIp(slave.getHost());
+			node.setPort(slave.getPort());
+			node.setFlags("slave");
+			this.slaves.add(node);
+		}
+	}
+
+	@Override
+	public HostConfiguration getMaster(String masterName) {
+		return this.master;
+	}
+
+	@Override
+	public List<RedisNodeInfo> getSlaveNodes(String masterName) {
+		return this.slaves;
+	}
+
+	@Override
+	public List<SentinelClient> getAvailibleSentinelServers() {
+		return Collections.emptyList();
+	}
+}
@@ -0,0 +1,92 @@
+package io.doeasy.redis.benchmark;
+
+import io.doeasy.redis.ClientFactory;
+import io.doeasy.redis.client.RedisClient;
+import io.doeasy.redis.config.HostConfiguration;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * creates in-memory {@link RedisClient}s that take a fixed time to connect
+ * and to answer a command, and fail with a connection error once quit.
+ * PING answers PONG, INFO reports role:master, other commands "OK", 1 or
+ * true depending on their return type.
+ *
+ * @author kriswang
+ *
+ */
+public class SyntheticRedisClientFactory implements ClientFactory<RedisClient> {
+
+	private final long connectMillis;
+	private final long commandNanos;
+
+	public SyntheticRedisClientFactory(long connectMillis, long commandMicros) {
+		this.connectMillis = connectMillis;
+		this.commandNanos = TimeUnit.MICROSECONDS.toNanos(commandMicros);
+	}
+
+	@Override
+	public RedisClient create(final HostConfiguration hostConfiguration) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(this.connectMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JedisConnectionException(e);
+		}
+		return (RedisClient) Proxy.newProxyInstance(RedisClient.class.getClassLoader(),
+				new Class<?>[] { RedisClient.class }, new InvocationHandler() {
+
+					private volatile boolean closed;
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						String name = method.getName();
+						if ("toString".equals(name)) {
+							return "SyntheticRedisClient(" + hostConfiguration + ")";
+						}
+						if ("hashCode".equals(name)) {
+							return System.identityHashCode(proxy);
+						}
+						if ("equals".equals(name)) {
+							return proxy == args[0];
+						}
+						if ("quit".equals(name)) {
+							this.closed = true;
+							return "OK";
+						}
+						if (this.closed) {
+							throw new JedisConnectionException("connection to " + hostConfiguration + " is closed");
+						}
+						if (commandNanos > 0) {
+							LockSupport.parkNanos(commandNanos);
+						}
+						if ("ping".equals(name)) {
+							return "PONG";
+						}
+						if ("info".equals(name)) {
+							return "# Replication\r\nrole:master\r\n";
+						}
+						return reply(method.getReturnType());
+					}
+				});
+	}
+
+	private static Object reply(Class<?> type) {
+		if (type == String.class) {
+			return "OK";
+		}
+		if (type == Long.class || type == long.class) {
+			return 1L;
+		}
+		if (type == Boolean.class || type == boolean.class) {
+			return Boolean.TRUE;
+		}
+		return null;
+	}
+}
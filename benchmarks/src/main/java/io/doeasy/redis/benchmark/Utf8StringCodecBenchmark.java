@@ -0,0 +1,79 @@
+package io.doeasy.redis.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+
+/**
+ * encoding and decoding of keys and values by {@link Utf8StringCodec}, for
+ * ascii and multi-byte strings of a few sizes. the codec keeps its decoding
+ * buffer between calls, so one is used per thread as per connection.
+ *
+ * run with: java -jar target/benchmarks.jar Utf8StringCodecBenchmark
+ *
+ * @author kriswang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Utf8StringCodecBenchmark {
+
+	@Param({ "16", "1024" })
+	private int length;
+
+	@Param({ "false", "true" })
+	private boolean multiByte;
+
+	private final Utf8StringCodec codec = new Utf8StringCodec();
+	private String string;
+	private ByteBuffer bytes;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder(this.length);
+		for (int i = 0; i < this.length; i++) {
+			sb.append(this.multiByte && i % 2 == 0 ? '\u00e9' : (char) ('a' + i % 26));
+		}
+		this.string = sb.toString();
+		this.bytes = ByteBuffer.wrap(this.codec.encodeValue(this.string));
+	}
+
+	@Benchmark
+	public byte[] encodeKey() {
+		return this.codec.encodeKey(this.string);
+	}
+
+	@Benchmark
+	public byte[] encodeValue() {
+		return this.codec.encodeValue(this.string);
+	}
+
+	@Benchmark
+	public String decodeKey() {
+		this.bytes.rewind();
+		return this.codec.decodeKey(this.bytes);
+	}
+
+	@Benchmark
+	public String decodeValue() {
+		this.bytes.rewind();
+		return this.codec.decodeValue(this.bytes);
+	}
+}
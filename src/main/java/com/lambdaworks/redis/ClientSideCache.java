@@ -0,0 +1,176 @@
+package com.lambdaworks.redis;
+
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.lambdaworks.redis.protocol.Charsets;
+
+/**
+ * Cache of the values read with GET through one connection, kept up to date
+ * by the server with CLIENT TRACKING: the server remembers the keys the
+ * connection read and pushes an invalidation when one of them changes, so
+ * the connection only receives invalidations for keys it actually read.
+ *
+ * The connection is switched to RESP3 for the push replies. The least
+ * recently used keys are evicted beyond the maximum size. Values are shared
+ * between the callers, they must not be modified.
+ */
+public class ClientSideCache<K, V> implements RedisPushListener {
+    private static final byte[] INVALIDATE = "invalidate".getBytes(Charsets.ASCII);
+    private static final Object NULL = new Object();
+
+    private final RedisAsyncConnection<K, V> connection;
+    private final Map<ByteBuffer, Object> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Enable tracking on the connection, it should not be used to read keys
+     * other than through this cache since their invalidations are ignored.
+     *
+     * @param connection    Connection the values are read through.
+     * @param maximumSize   Number of keys kept.
+     */
+    public ClientSideCache(RedisAsyncConnection<K, V> connection, final int maximumSize) {
+        this.connection = connection;
+        this.entries = new LinkedHashMap<ByteBuffer, Object>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Object> eldest) {
+                if (size() > maximumSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        connection.addPushListener(this);
+        connection.hello(3);
+        connection.clientTracking(true);
+    }
+
+    /**
+     * Get the value of a key from the cache, or from the server if it is not
+     * cached yet.
+     *
+     * @param key   Key.
+     *
+     * @return The value.
+     */
+    @SuppressWarnings("unchecked")
+    public Future<V> get(K key) {
+        final ByteBuffer wrapped = ByteBuffer.wrap(connection.codec.encodeKey(key).clone());
+        final Loading loading = new Loading();
+        synchronized (entries) {
+            Object cached = entries.get(wrapped);
+            if (cached != null && !(cached instanceof Loading)) {
+                hits.incrementAndGet();
+                return ImmediateEventExecutor.INSTANCE.newSucceededFuture(cached == NULL ? null : (V) cached);
+            }
+            entries.put(wrapped, loading);
+        }
+        misses.incrementAndGet();
+
+        // completed once the value is cached, a read following this one is a hit
+        final Promise<V> result = GlobalEventExecutor.INSTANCE.newPromise();
+        connection.get(key).addListener(new FutureListener<V>() {
+            @Override
+            public void operationComplete(Future<V> future) throws Exception {
+                synchronized (entries) {
+                    // an invalidation received meanwhile removed the placeholder
+                    if (entries.get(wrapped) == loading) {
+                        if (future.isSuccess()) {
+                            V value = future.getNow();
+                            entries.put(wrapped, value == null ? NULL : value);
+                        } else {
+                            entries.remove(wrapped);
+                        }
+                    }
+                }
+                if (future.isSuccess()) {
+                    result.setSuccess(future.getNow());
+                } else {
+                    result.setFailure(future.cause());
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Stop caching, disable tracking on the connection.
+     */
+    public void close() {
+        connection.removePushListener(this);
+        connection.clientTracking(false);
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public void push(List<Object> message) {
+        if (message.size() < 2 || !(message.get(0) instanceof byte[])
+                || !Arrays.equals(INVALIDATE, (byte[]) message.get(0))) {
+            return;
+        }
+        Object keys = message.get(1);
+        synchronized (entries) {
+            if (!(keys instanceof List)) {
+                // the whole database was flushed
+                invalidations.addAndGet(entries.size());
+                entries.clear();
+                return;
+            }
+            for (Object key : (List<?>) keys) {
+                if (entries.remove(ByteBuffer.wrap((byte[]) key)) != null) {
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Placeholder of a key being read, replaced by the value unless it was
+     * invalidated before the reply.
+     */
+    private static class Loading {
+    }
+}
@@ -8,6 +8,7 @@ import static com.lambdaworks.redis.protocol.CommandKeyword.BEFORE;
 import static com.lambdaworks.redis.protocol.CommandKeyword.ENCODING;
 import static com.lambdaworks.redis.protocol.CommandKeyword.FLUSH;
 import static com.lambdaworks.redis.protocol.CommandKeyword.GETNAME;
+import static com.lambdaworks.redis.protocol.CommandKeyword.ID;
 import static com.lambdaworks.redis.protocol.CommandKeyword.IDLETIME;
 import static com.lambdaworks.redis.protocol.CommandKeyword.KILL;
 import static com.lambdaworks.redis.protocol.CommandKeyword.LEN;
@@ -17,12 +18,15 @@ import static com.lambdaworks.redis.protocol.CommandKeyword.LOAD;
 import static com.lambdaworks.redis.protocol.CommandKeyword.NO;
 import static com.lambdaworks.redis.protocol.CommandKeyword.NOSAVE;
 import static com.lambdaworks.redis.protocol.CommandKeyword.NOT;
+import static com.lambdaworks.redis.protocol.CommandKeyword.OFF;
+import static com.lambdaworks.redis.protocol.CommandKeyword.ON;
 import static com.lambdaworks.redis.protocol.CommandKeyword.ONE;
 import static com.lambdaworks.redis.protocol.CommandKeyword.OR;
 import static com.lambdaworks.redis.protocol.CommandKeyword.REFCOUNT;
 import static com.lambdaworks.redis.protocol.CommandKeyword.RESET;
 import static com.lambdaworks.redis.protocol.CommandKeyword.RESETSTAT;
 import static com.lambdaworks.redis.protocol.CommandKeyword.SETNAME;
+import static com.lambdaworks.redis.protocol.CommandKeyword.TRACKING;
 import static com.lambdaworks.redis.protocol.CommandKeyword.WITHSCORES;
 import static com.lambdaworks.redis.protocol.CommandKeyword.XOR;
 import static com.lambdaworks.redis.protocol.CommandType.*;
@@ -40,8 +44,10 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -67,6 +73,7 @@ import com.lambdaworks.redis.output.MapValueListOutput;
 import com.lambdaworks.redis.output.MapValueOutput;
 import com.lambdaworks.redis.output.MultiOutput;
 import com.lambdaworks.redis.output.NestedMultiOutput;
+import com.lambdaworks.redis.output.PushOutput;
 import com.lambdaworks.redis.output.ScoredValueListOutput;
 import com.lambdaworks.redis.output.StatusOutput;
 import com.lambdaworks.redis.output.StringListOutput;
@@ -74,6 +81,7 @@ import com.lambdaworks.redis.output.ValueListOutput;
 import com.lambdaworks.redis.output.ValueOutput;
 import com.lambdaworks.redis.output.ValueSetOutput;
 import com.lambdaworks.redis.output.ValueSetScanOutput;
+import com.lambdaworks.redis.protocol.Charsets;
 import com.lambdaworks.redis.protocol.Command;
 import com.lambdaworks.redis.protocol.CommandArgs;
 import com.lambdaworks.redis.protocol.CommandKeyword;
@@ -109,8 +117,12 @@ public class RedisAsyncConnection<K, V> extends ChannelInboundHandlerAdapter {
     private boolean closed;
     private EventLoopGroup eventLoopGroup;
     private RedisClient redisClient;
+    private int protocol;
+    private boolean tracking;
+    private final Queue<RedisPushListener> pushListeners = new ConcurrentLinkedQueue<RedisPushListener>();
 
     private volatile boolean reconnect;
+    private boolean batching;
 
     public void setReconnect(boolean reconnect) {
         this.reconnect = reconnect;
@@ -240,6 +252,27 @@ public class RedisAsyncConnection<K, V> extends ChannelInboundHandlerAdapter {
         return dispatch(CLIENT, new StatusOutput<K, V>(codec), args);
     }
 
+    public Future<Long> clientId() {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(ID);
+        return dispatch(CLIENT, new IntegerOutput<K, V>(codec), args);
+    }
+
+    /**
+     * Enable or disable server assisted client side caching: once enabled the
+     * server pushes an "invalidate" message with the keys changed since this
+     * connection read them, see {@link #addPushListener}. Requires a RESP3
+     * connection, see {@link #hello(int)}. Tracking is enabled again after a
+     * reconnect and the listeners receive an invalidation of all keys, with a
+     * null key list, since invalidations may have been missed meanwhile.
+     */
+    public String clientTracking(boolean enabled) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(TRACKING).add(enabled ? ON : OFF);
+        Future<String> cmd = dispatch(CLIENT, new StatusOutput<K, V>(codec), args);
+        String status = await(cmd, timeout, unit);
+        if ("OK".equals(status)) this.tracking = enabled;
+        return status;
+    }
+
     public Future<List<String>> configGet(String parameter) {
         CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(GET).add(parameter);
         return dispatch(CONFIG, new StringListOutput<K, V>(codec), args);
@@ -361,6 +394,20 @@ public class RedisAsyncConnection<K, V> extends ChannelInboundHandlerAdapter {
         return dispatch(GETSET, new ValueOutput<K, V>(codec), key, value);
     }
 
+    /**
+     * Switch the connection to the given protocol version, 3 for RESP3 and
+     * its out of band push replies. Negotiated again after a reconnect.
+     *
+     * @return The server properties as a flattened list of name/value pairs.
+     */
+    public List<Object> hello(int protocol) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(protocol);
+        Future<List<Object>> cmd = dispatch(HELLO, new NestedMultiOutput<K, V>(codec), args);
+        List<Object> properties = await(cmd, timeout, unit);
+        this.protocol = protocol;
+        return properties;
+    }
+
     public Future<Long> hdel(K key, K... fields) {
         CommandArgs<K, V> args = new CommandArgs<K, V>(codec).addKey(key).addMapKeys(fields);
         return dispatch(HDEL, new IntegerOutput<K, V>(codec), args);
@@ -1049,11 +1096,21 @@ public class RedisAsyncConnection<K, V> extends ChannelInboundHandlerAdapter {
         return dispatch(SENTINEL, new ValueListOutput<K, V>(codec), args);
     }
 
+    public Future<Map<K, V>> master(K key) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add("master").addKey(key);
+        return dispatch(SENTINEL, new MapOutput<K, V>(codec), args);
+    }
+
     public Future<List<Map<K, V>>> slaves(K key) {
         CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add("slaves").addKey(key);
         return dispatch(SENTINEL, new ListMapOutput<K, V>(codec), args);
     }
 
+    public Future<List<Map<K, V>>> sentinels(K key) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add("sentinels").addKey(key);
+        return dispatch(SENTINEL, new ListMapOutput<K, V>(codec), args);
+    }
+
     public Future<ListScanResult<V>> sscan(K key, long startValue) {
         CommandArgs<K, V> args = new CommandArgs<K, V>(codec).addKey(key).add(startValue);
         return dispatch(SSCAN, new ValueSetScanOutput<K, V>(codec), args);
@@ -1151,11 +1208,25 @@ public class RedisAsyncConnection<K, V> extends ChannelInboundHandlerAdapter {
             tmp.add(new Command<K, V, String>(AUTH, new StatusOutput<K, V>(codec), args, false, ctx.executor().<String>newPromise()));
         }
 
+        if (protocol != 0) {
+            CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(protocol);
+            tmp.add(new Command<K, V, List<Object>>(HELLO, new NestedMultiOutput<K, V>(codec), args, false, ctx.executor().<List<Object>>newPromise()));
+        }
+
         if (db != 0) {
             CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(db);
             tmp.add(new Command<K, V, String>(SELECT, new StatusOutput<K, V>(codec), args, false, ctx.executor().<String>newPromise()));
         }
 
+        if (tracking) {
+            CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(TRACKING).add(ON);
+            tmp.add(new Command<K, V, String>(CLIENT, new StatusOutput<K, V>(codec), args, false, ctx.executor().<String>newPromise()));
+            List<Object> all = new ArrayList<Object>(2);
+            all.add("invalidate".getBytes(Charsets.ASCII));
+            all.add(null);
+            push(all);
+        }
+
         tmp.addAll(queue);
         queue.clear();
 
@@ -1219,7 +1290,11 @@ public class RedisAsyncConnection<K, V> extends ChannelInboundHandlerAdapter {
             queue.put(cmd);
 
             if (channel != null) {
-                channel.writeAndFlush(cmd);
+                if (batching) {
+                    channel.write(cmd);
+                } else {
+                    channel.writeAndFlush(cmd);
+                }
             }
         } catch (InterruptedException e) {
             throw new RedisCommandInterruptedException(e);
@@ -1233,6 +1308,24 @@ public class RedisAsyncConnection<K, V> extends ChannelInboundHandlerAdapter {
         return promise;
     }
 
+    /**
+     * Dispatch all commands issued by the supplied runnable with a single flush.
+     * Commands of other threads wait until the batch is dispatched.
+     *
+     * @param commands Issues the commands through this connection.
+     */
+    public synchronized void dispatchBatch(Runnable commands) {
+        batching = true;
+        try {
+            commands.run();
+        } finally {
+            batching = false;
+            if (channel != null) {
+                channel.flush();
+            }
+        }
+    }
+
     public <T> T await(Future<T> cmd, long timeout, TimeUnit unit) {
         if (!cmd.awaitUninterruptibly(timeout, unit)) {
             Promise<T> promise = (Promise<T>)cmd;
@@ -1250,6 +1343,29 @@ public class RedisAsyncConnection<K, V> extends ChannelInboundHandlerAdapter {
         return redisClient;
     }
 
+    public void addPushListener(RedisPushListener listener) {
+        pushListeners.add(listener);
+    }
+
+    public void removePushListener(RedisPushListener listener) {
+        pushListeners.remove(listener);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof PushOutput) {
+            push(((PushOutput<K, V>) msg).get());
+        } else {
+            super.channelRead(ctx, msg);
+        }
+    }
+
+    private void push(List<Object> message) {
+        for (RedisPushListener listener : pushListeners) {
+            listener.push(message);
+        }
+    }
+
     @SuppressWarnings("hiding")
 	protected <K, V, T> CommandOutput<K, V, T> newScriptOutput(RedisCodec<K, V> codec, ScriptOutputType type) {
         switch (type) {
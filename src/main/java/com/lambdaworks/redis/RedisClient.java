@@ -199,7 +199,10 @@ public class RedisClient {
         for (Channel c : channels) {
             ChannelPipeline pipeline = c.pipeline();
             RedisAsyncConnection<?, ?> connection = pipeline.get(RedisAsyncConnection.class);
-            connection.close();
+            // still connecting, the channel is closed below
+            if (connection != null) {
+                connection.close();
+            }
         }
         return channels.close();
     }
@@ -129,6 +129,14 @@ public class RedisConnection<K, V> {
         return await(c.clientList());
     }
 
+    public Long clientId() {
+        return await(c.clientId());
+    }
+
+    public String clientTracking(boolean enabled) {
+        return c.clientTracking(enabled);
+    }
+
     public List<String> configGet(String parameter) {
         return await(c.configGet(parameter));
     }
@@ -269,6 +277,10 @@ public class RedisConnection<K, V> {
         return await(c.getset(key, value));
     }
 
+    public List<Object> hello(int protocol) {
+        return c.hello(protocol);
+    }
+
     public Long hdel(K key, K... fields) {
         return await(c.hdel(key, fields));
     }
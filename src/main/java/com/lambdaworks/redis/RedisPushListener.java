@@ -0,0 +1,17 @@
+package com.lambdaworks.redis;
+
+import java.util.List;
+
+/**
+ * Interface for listeners of the out of band push replies of a RESP3
+ * connection, see {@link RedisAsyncConnection#hello(int)}.
+ */
+public interface RedisPushListener {
+    /**
+     * Push received from the server.
+     *
+     * @param message   Kind of push (e.g. "invalidate") followed by its payload,
+     *                  strings as byte[], nested replies as lists.
+     */
+    void push(List<Object> message);
+}
@@ -0,0 +1,60 @@
+// Copyright (C) 2011 - Will Glozer.  All rights reserved.
+
+package com.lambdaworks.redis.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link RedisCodec} that passes keys and values through as raw byte arrays.
+ *
+ * @author Will Glozer
+ */
+public class ByteArrayCodec extends RedisCodec<byte[], byte[]> {
+    public static final ByteArrayCodec INSTANCE = new ByteArrayCodec();
+
+    @Override
+    public byte[] decodeKey(ByteBuffer bytes) {
+        return getBytes(bytes);
+    }
+
+    @Override
+    public byte[] decodeValue(ByteBuffer bytes) {
+        return getBytes(bytes);
+    }
+
+    @Override
+    public byte[] encodeKey(byte[] key) {
+        return key;
+    }
+
+    @Override
+    public byte[] encodeValue(byte[] value) {
+        return value;
+    }
+
+    @Override
+    public byte[] encodeMapValue(byte[] value) {
+        return value;
+    }
+
+    @Override
+    public byte[] encodeMapKey(byte[] key) {
+        return key;
+    }
+
+    @Override
+    public byte[] decodeMapValue(ByteBuffer bytes) {
+        return getBytes(bytes);
+    }
+
+    @Override
+    public byte[] decodeMapKey(ByteBuffer bytes) {
+        return getBytes(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        byte[] b = new byte[buffer.remaining()];
+        buffer.get(b);
+        return b;
+    }
+}
@@ -39,6 +39,14 @@ public class NestedMultiOutput<K, V> extends CommandOutput<K, V, List<Object>> {
         output.add(new RedisException(decodeAscii(error)));
     }
 
+    @Override
+    public void multi(int count, int depth) {
+        // a nested list is otherwise only created with its first element
+        if (count == 0 && depth > 1) {
+            output.add(new ArrayList<Object>());
+        }
+    }
+
     @Override
     public void complete(int depth) {
         if (depth > this.depth) {
@@ -0,0 +1,25 @@
+package com.lambdaworks.redis.output;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Out of band push reply of a RESP3 connection, e.g. the invalidation of a
+ * key tracked with CLIENT TRACKING: the kind of push followed by its payload.
+ * Strings are kept as raw bytes since the payload mixes keys and values.
+ */
+public class PushOutput<K, V> extends NestedMultiOutput<K, V> {
+    public PushOutput() {
+        super(null);
+    }
+
+    @Override
+    public void set(ByteBuffer bytes) {
+        if (bytes == null) {
+            output.add(null);
+            return;
+        }
+        byte[] array = new byte[bytes.remaining()];
+        bytes.get(array);
+        output.add(array);
+    }
+}
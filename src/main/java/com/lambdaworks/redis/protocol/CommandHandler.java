@@ -2,6 +2,7 @@
 
 package com.lambdaworks.redis.protocol;
 
+import com.lambdaworks.redis.output.PushOutput;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandler;
@@ -12,7 +13,8 @@ import java.util.concurrent.BlockingQueue;
 
 /**
  * A netty {@link ChannelHandler} responsible for writing redis commands and
- * reading responses from the server.
+ * reading responses from the server. Out of band push replies are passed on
+ * to the next handler as a {@link PushOutput}.
  *
  * @author Will Glozer
  */
@@ -21,6 +23,7 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler {
     protected BlockingQueue<Command<K, V, ?>> queue;
     protected ByteBuf buffer;
     protected RedisStateMachine<K, V> rsm;
+    protected PushOutput<K, V> push;
 
     /**
      * Initialize a new instance that handles commands from the supplied queue.
@@ -69,6 +72,18 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler {
 
     protected void decode(ChannelHandlerContext ctx, ByteBuf buffer) throws InterruptedException {
         while (true) {
+            if (rsm.isPush(buffer)) {
+                if (push == null) {
+                    push = new PushOutput<K, V>();
+                }
+                if (!rsm.decode(buffer, push)) {
+                    break;
+                }
+                ctx.fireChannelRead(push);
+                push = null;
+                continue;
+            }
+
             Command<K, V, ?> cmd = queue.peek();
             if (cmd == null
                     || !rsm.decode(buffer, cmd.getOutput())) {
@@ -9,9 +9,9 @@ package com.lambdaworks.redis.protocol;
  */
 public enum CommandKeyword {
     AFTER, AGGREGATE, ALPHA, AND, ASC, BEFORE, BY, COUNT, DESC, ENCODING, FLUSH,
-    GETNAME, IDLETIME, KILL, LEN, LIMIT, LIST, LOAD, MAX, MIN, NO, NOSAVE, NOT,
-    ONE, OR, REFCOUNT, RESET, RESETSTAT, SETNAME, STORE, SUM, WEIGHTS,
-    WITHSCORES, XOR, NODES;
+    GETNAME, ID, IDLETIME, KILL, LEN, LIMIT, LIST, LOAD, MAX, MIN, NO, NOSAVE, NOT,
+    OFF, ON, ONE, OR, REFCOUNT, RESET, RESETSTAT, SETNAME, STORE, SUM, TRACKING,
+    WEIGHTS, WITHSCORES, XOR, NODES;
 
     public byte[] bytes;
 
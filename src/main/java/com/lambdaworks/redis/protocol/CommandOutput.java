@@ -97,6 +97,16 @@ public abstract class CommandOutput<K, V, T> {
         return error;
     }
 
+    /**
+     * Mark the start of a multi-bulk reply, before its elements are set.
+     *
+     * @param count Number of elements, -1 for a null multi-bulk reply.
+     * @param depth Depth of the multi-bulk reply, 1 for the output itself.
+     */
+    public void multi(int count, int depth) {
+        // nothing to do by default
+    }
+
     /**
      * Mark the command output complete.
      *
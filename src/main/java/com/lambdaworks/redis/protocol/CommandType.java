@@ -10,7 +10,7 @@ package com.lambdaworks.redis.protocol;
 public enum CommandType {
     // Connection
 
-    AUTH, ECHO, PING, QUIT, SELECT,
+    AUTH, ECHO, HELLO, PING, QUIT, SELECT,
 
     // Server
 
@@ -60,7 +60,8 @@ public enum CommandType {
 
     ZADD, ZCARD, ZCOUNT, ZINCRBY, ZINTERSTORE, ZRANGE, ZRANGEBYSCORE,
     ZRANK, ZREM, ZREMRANGEBYRANK, ZREMRANGEBYSCORE, ZREVRANGE,
-    ZREVRANGEBYSCORE, ZREVRANK, ZSCORE, ZUNIONSTORE,
+    ZREVRANGEBYSCORE, ZREVRANK, ZSCORE, ZUNIONSTORE, ZLEXCOUNT, ZRANGEBYLEX,
+    ZREMRANGEBYLEX,
 
     TIME,
 
@@ -111,7 +111,11 @@ public class ConnectionWatchdog extends ChannelInboundHandlerAdapter{
             @Override
             public void operationComplete(ChannelFuture future) throws Exception {
                 if (future.channel().attr(SHUTDOWN_KEY).get() != null) {
+                    // the client was shut down while reconnecting, its channel
+                    // group no longer held this connection
                     future.channel().pipeline().remove(ConnectionWatchdog.this);
+                    connection.close();
+                    future.channel().close();
                     return;
                 }
 
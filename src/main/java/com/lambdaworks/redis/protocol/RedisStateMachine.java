@@ -15,13 +15,19 @@ import static com.lambdaworks.redis.protocol.RedisStateMachine.State.Type.*;
  * State machine that decodes redis server responses encoded according to the
  * <a href="http://redis.io/topics/protocol">Unified Request Protocol</a>.
  *
+ * The RESP3 types a connection receives after HELLO 3 are decoded as their
+ * closest RESP2 counterpart: null as a null bulk string, boolean as integer,
+ * double and big number as status, map (flattened to key/value pairs) and set
+ * as multi-bulk. Out of band push replies are decoded like multi-bulk replies,
+ * {@link #isPush} tells them apart from command replies.
+ *
  * @author Will Glozer
  */
 public class RedisStateMachine<K, V> {
     private static final ByteBuffer QUEUED = buffer("QUEUED");
 
     static class State {
-        enum Type { SINGLE, ERROR, INTEGER, BULK, MULTI, BYTES }
+        enum Type { SINGLE, ERROR, INTEGER, BULK, MULTI, BYTES, MAP, PUSH, NULL, BOOLEAN }
         Type type  = null;
         int  count = -1;
     }
@@ -35,6 +41,22 @@ public class RedisStateMachine<K, V> {
         stack = new LinkedList<State>();
     }
 
+    /**
+     * Check whether the reply being decoded, or the next one in the buffer if
+     * none is, is an out of band push rather than the reply of a command.
+     *
+     * @param buffer    Buffer containing data from the server.
+     *
+     * @return true if the reply is a push.
+     */
+    public boolean isPush(ByteBuf buffer) {
+        State reply = stack.peekLast();
+        if (reply == null || reply.type == null) {
+            return buffer.isReadable() && buffer.getByte(buffer.readerIndex()) == '>';
+        }
+        return reply.type == PUSH;
+    }
+
     /**
      * Attempt to decode a redis response and return a flag indicating whether a complete
      * response was read.
@@ -82,6 +104,14 @@ public class RedisStateMachine<K, V> {
                     if ((end = findLineEnd(buffer)) == -1) break loop;
                     output.set(readLong(buffer, buffer.readerIndex(), end));
                     break;
+                case NULL:
+                    if (readLine(buffer) == null) break loop;
+                    output.set((ByteBuffer) null);
+                    break;
+                case BOOLEAN:
+                    if ((bytes = readLine(buffer)) == null) break loop;
+                    output.set(bytes.get() == 't' ? 1 : 0);
+                    break;
                 case BULK:
                     if ((end = findLineEnd(buffer)) == -1) break loop;
                     length = (int) readLong(buffer, buffer.readerIndex(), end);
@@ -95,11 +125,14 @@ public class RedisStateMachine<K, V> {
                     }
                     break;
                 case MULTI:
+                case MAP:
+                case PUSH:
                     if (state.count == -1) {
                         if ((end = findLineEnd(buffer)) == -1) break loop;
                         length = (int) readLong(buffer, buffer.readerIndex(), end);
-                        state.count = length;
+                        state.count = state.type == MAP && length > 0 ? length * 2 : length;
                         buffer.markReaderIndex();
+                        output.multi(length, stack.size());
                     }
 
                     if (state.count <= 0) break;
@@ -133,6 +166,13 @@ public class RedisStateMachine<K, V> {
             case ':': return INTEGER;
             case '$': return BULK;
             case '*': return MULTI;
+            case '%': return MAP;
+            case '~': return MULTI;
+            case '>': return PUSH;
+            case '_': return NULL;
+            case '#': return BOOLEAN;
+            case ',': return SINGLE;
+            case '(': return SINGLE;
             default:  throw new RedisException("Invalid first byte");
         }
     }
@@ -2,6 +2,7 @@
 
 package com.lambdaworks.redis.pubsub;
 
+import com.lambdaworks.redis.codec.ByteArrayCodec;
 import com.lambdaworks.redis.codec.RedisCodec;
 import com.lambdaworks.redis.protocol.CommandOutput;
 
@@ -62,8 +63,9 @@ public class PubSubOutput<K, V> extends CommandOutput<K, V, V> {
                     channel = decodeAscii(bytes);
                     break;
                 }
-                if (channel.startsWith("__keyspace@")
-                        || channel.startsWith("__keyevent@")) {
+                // raw bytes stay raw, a byte[] listener can not take a String
+                if (!(codec instanceof ByteArrayCodec)
+                        && (channel.startsWith("__keyspace@") || channel.startsWith("__keyevent@"))) {
                     output = (V)decodeAscii(bytes);
                 } else {
                     output = codec.decodeValue(bytes);
@@ -0,0 +1,1194 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.client.balancer.NodeLoad;
+import io.doeasy.redis.client.balancer.ReadBalancer;
+import io.doeasy.redis.client.balancer.RoundRobinReadBalancer;
+import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.config.ReplicationLagConfig;
+import io.doeasy.redis.model.ClientType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Getter;
+import redis.clients.jedis.BinaryClient.LIST_POSITION;
+import redis.clients.jedis.SortingParams;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * asynchronous HA client, commands are routed to the master or to a slave by
+ * the same rules as {@link Client} and return a future immediately, so one
+ * thread can have any number of commands outstanding.
+ * 
+ * the topology (master switch, slaves going up and down) is tracked by an
+ * underlying {@link Client} whose nodes are reached through one multiplexed
+ * {@link NettyRedisClient} each, the blocking client returned by
+ * {@link #getClient()} shares these connections.
+ * 
+ * @author kriswang
+ *
+ */
+public class AsyncClient implements AsyncRedisClient {
+
+	@Getter
+	private final Client client;
+
+	public AsyncClient(NettyRedisClientFactory factory, SentinelServersManager manager, String masterName) {
+		this(factory, manager, masterName, RoundRobinReadBalancer.INSTANCE);
+	}
+
+	public AsyncClient(NettyRedisClientFactory factory, SentinelServersManager manager, String masterName,
+			ReadBalancer readBalancer) {
+		this(factory, manager, masterName, readBalancer, null);
+	}
+
+	public AsyncClient(NettyRedisClientFactory factory, SentinelServersManager manager, String masterName,
+			ReadBalancer readBalancer, ReplicationLagConfig replicationLag) {
+		this(new Client(new SharedRedisClientPoolFactory(factory), manager, masterName, readBalancer, replicationLag));
+	}
+
+	/**
+	 * routes the commands through the given client, for subclasses which
+	 * change how commands are executed.
+	 */
+	AsyncClient(Client client) {
+		this.client = client;
+	}
+
+	public String quit() {
+		return this.client.quit();
+	}
+
+	/**
+	 * sends the command to the master or a slave, the time until the reply
+	 * arrives is recorded in the load of the node for the read balancer.
+	 */
+	<T> ListenableFuture<T> doExecute(ClientType type, AsyncClientFunction<T> function) {
+		try {
+			RedisClientPool pool = this.client.select(type);
+			final NodeLoad load = pool.getLoad();
+			final long start = load.start();
+			RedisClient client = pool.getResource();
+			ListenableFuture<T> future;
+			try {
+				future = function.execute(((NettyRedisClient) client).getAsync());
+			} catch (RuntimeException e) {
+				load.complete(start, true);
+				throw e;
+			} finally {
+				pool.returnResourceObject(client);
+			}
+			Futures.addCallback(future, new FutureCallback<T>() {
+				@Override
+				public void onSuccess(T result) {
+					load.complete(start, false);
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					load.complete(start, NettyRedisClient.translate(t) instanceof JedisConnectionException);
+				}
+			});
+			return future;
+		} catch (Exception e) {
+			return Futures.immediateFailedFuture(e);
+		}
+	}
+
+	@Override
+	public ListenableFuture<String> ping() {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<String>() {
+			@Override
+			public ListenableFuture<String> execute(AsyncRedisClient client) {
+				return client.ping();
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<String> info(final String section) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<String>() {
+			@Override
+			public ListenableFuture<String> execute(AsyncRedisClient client) {
+				return client.info(section);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> mget(final byte[]... keys) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<List<byte[]>>() {
+			@Override
+			public ListenableFuture<List<byte[]>> execute(AsyncRedisClient client) {
+				return client.mget(keys);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<String> set(final byte[] key, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<String>() {
+			@Override
+			public ListenableFuture<String> execute(AsyncRedisClient client) {
+				return client.set(key, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> get(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.get(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Boolean> exists(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Boolean>() {
+			@Override
+			public ListenableFuture<Boolean> execute(AsyncRedisClient client) {
+				return client.exists(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> persist(final byte[] key) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.persist(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<String> type(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<String>() {
+			@Override
+			public ListenableFuture<String> execute(AsyncRedisClient client) {
+				return client.type(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> expire(final byte[] key, final int seconds) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.expire(key, seconds);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> expireAt(final byte[] key, final long unixTime) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.expireAt(key, unixTime);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> ttl(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.ttl(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Boolean> setbit(final byte[] key, final long offset, final boolean value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Boolean>() {
+			@Override
+			public ListenableFuture<Boolean> execute(AsyncRedisClient client) {
+				return client.setbit(key, offset, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Boolean> setbit(final byte[] key, final long offset, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Boolean>() {
+			@Override
+			public ListenableFuture<Boolean> execute(AsyncRedisClient client) {
+				return client.setbit(key, offset, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Boolean> getbit(final byte[] key, final long offset) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Boolean>() {
+			@Override
+			public ListenableFuture<Boolean> execute(AsyncRedisClient client) {
+				return client.getbit(key, offset);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> setrange(final byte[] key, final long offset, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.setrange(key, offset, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> getrange(final byte[] key, final long startOffset, final long endOffset) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.getrange(key, startOffset, endOffset);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> getSet(final byte[] key, final byte[] value) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.getSet(key, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> setnx(final byte[] key, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.setnx(key, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<String> setex(final byte[] key, final int seconds, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<String>() {
+			@Override
+			public ListenableFuture<String> execute(AsyncRedisClient client) {
+				return client.setex(key, seconds, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> decrBy(final byte[] key, final long integer) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.decrBy(key, integer);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> decr(final byte[] key) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.decr(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> incrBy(final byte[] key, final long integer) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.incrBy(key, integer);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Double> incrByFloat(final byte[] key, final double value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Double>() {
+			@Override
+			public ListenableFuture<Double> execute(AsyncRedisClient client) {
+				return client.incrByFloat(key, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> incr(final byte[] key) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.incr(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> append(final byte[] key, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.append(key, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> substr(final byte[] key, final int start, final int end) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.substr(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> hset(final byte[] key, final byte[] field, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.hset(key, field, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> hget(final byte[] key, final byte[] field) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.hget(key, field);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> hsetnx(final byte[] key, final byte[] field, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.hsetnx(key, field, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<String> hmset(final byte[] key, final Map<byte[], byte[]> hash) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<String>() {
+			@Override
+			public ListenableFuture<String> execute(AsyncRedisClient client) {
+				return client.hmset(key, hash);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> hmget(final byte[] key, final byte[]... fields) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<List<byte[]>>() {
+			@Override
+			public ListenableFuture<List<byte[]>> execute(AsyncRedisClient client) {
+				return client.hmget(key, fields);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> hincrBy(final byte[] key, final byte[] field, final long value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.hincrBy(key, field, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Double> hincrByFloat(final byte[] key, final byte[] field, final double value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Double>() {
+			@Override
+			public ListenableFuture<Double> execute(AsyncRedisClient client) {
+				return client.hincrByFloat(key, field, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Boolean> hexists(final byte[] key, final byte[] field) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Boolean>() {
+			@Override
+			public ListenableFuture<Boolean> execute(AsyncRedisClient client) {
+				return client.hexists(key, field);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> hdel(final byte[] key, final byte[]... fields) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.hdel(key, fields);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> hlen(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.hlen(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> hkeys(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.hkeys(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Collection<byte[]>> hvals(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Collection<byte[]>>() {
+			@Override
+			public ListenableFuture<Collection<byte[]>> execute(AsyncRedisClient client) {
+				return client.hvals(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Map<byte[], byte[]>> hgetAll(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Map<byte[], byte[]>>() {
+			@Override
+			public ListenableFuture<Map<byte[], byte[]>> execute(AsyncRedisClient client) {
+				return client.hgetAll(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> rpush(final byte[] key, final byte[]... values) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.rpush(key, values);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> lpush(final byte[] key, final byte[]... values) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.lpush(key, values);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> llen(final byte[] key) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.llen(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> lrange(final byte[] key, final long start, final long end) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<List<byte[]>>() {
+			@Override
+			public ListenableFuture<List<byte[]>> execute(AsyncRedisClient client) {
+				return client.lrange(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<String> ltrim(final byte[] key, final long start, final long end) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<String>() {
+			@Override
+			public ListenableFuture<String> execute(AsyncRedisClient client) {
+				return client.ltrim(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> lindex(final byte[] key, final long index) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.lindex(key, index);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<String> lset(final byte[] key, final long index, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<String>() {
+			@Override
+			public ListenableFuture<String> execute(AsyncRedisClient client) {
+				return client.lset(key, index, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> lrem(final byte[] key, final long count, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.lrem(key, count, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> lpop(final byte[] key) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.lpop(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> rpop(final byte[] key) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.rpop(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> sadd(final byte[] key, final byte[]... members) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.sadd(key, members);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> smembers(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.smembers(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> srem(final byte[] key, final byte[]... members) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.srem(key, members);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> spop(final byte[] key) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.spop(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> scard(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.scard(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Boolean> sismember(final byte[] key, final byte[] member) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Boolean>() {
+			@Override
+			public ListenableFuture<Boolean> execute(AsyncRedisClient client) {
+				return client.sismember(key, member);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> srandmember(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.srandmember(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> srandmember(final byte[] key, final int count) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<List<byte[]>>() {
+			@Override
+			public ListenableFuture<List<byte[]>> execute(AsyncRedisClient client) {
+				return client.srandmember(key, count);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> strlen(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.strlen(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zadd(final byte[] key, final double score, final byte[] member) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zadd(key, score, member);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zadd(final byte[] key, final Map<byte[], Double> scoreMembers) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zadd(key, scoreMembers);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrange(final byte[] key, final long start, final long end) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrange(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zrem(final byte[] key, final byte[]... members) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zrem(key, members);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Double> zincrby(final byte[] key, final double score, final byte[] member) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Double>() {
+			@Override
+			public ListenableFuture<Double> execute(AsyncRedisClient client) {
+				return client.zincrby(key, score, member);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zrank(final byte[] key, final byte[] member) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zrank(key, member);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zrevrank(final byte[] key, final byte[] member) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zrevrank(key, member);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrevrange(final byte[] key, final long start, final long end) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrevrange(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrangeWithScores(final byte[] key, final long start, final long end) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<Tuple>>() {
+			@Override
+			public ListenableFuture<Set<Tuple>> execute(AsyncRedisClient client) {
+				return client.zrangeWithScores(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrevrangeWithScores(final byte[] key, final long start, final long end) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<Tuple>>() {
+			@Override
+			public ListenableFuture<Set<Tuple>> execute(AsyncRedisClient client) {
+				return client.zrevrangeWithScores(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zcard(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zcard(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Double> zscore(final byte[] key, final byte[] member) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Double>() {
+			@Override
+			public ListenableFuture<Double> execute(AsyncRedisClient client) {
+				return client.zscore(key, member);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> sort(final byte[] key) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<List<byte[]>>() {
+			@Override
+			public ListenableFuture<List<byte[]>> execute(AsyncRedisClient client) {
+				return client.sort(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> sort(final byte[] key, final SortingParams sortingParameters) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<List<byte[]>>() {
+			@Override
+			public ListenableFuture<List<byte[]>> execute(AsyncRedisClient client) {
+				return client.sort(key, sortingParameters);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zcount(final byte[] key, final double min, final double max) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zcount(key, min, max);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zcount(final byte[] key, final byte[] min, final byte[] max) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zcount(key, min, max);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByScore(final byte[] key, final double min, final double max) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrangeByScore(key, min, max);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByScore(final byte[] key, final byte[] min, final byte[] max) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrangeByScore(key, min, max);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(final byte[] key, final double max, final double min) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrevrangeByScore(key, max, min);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByScore(final byte[] key, final double min, final double max, final int offset, final int count) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrangeByScore(key, min, max, offset, count);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(final byte[] key, final byte[] max, final byte[] min) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrevrangeByScore(key, max, min);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByScore(final byte[] key, final byte[] min, final byte[] max, final int offset, final int count) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrangeByScore(key, min, max, offset, count);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(final byte[] key, final double max, final double min, final int offset, final int count) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrevrangeByScore(key, max, min, offset, count);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(final byte[] key, final double min, final double max) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<Tuple>>() {
+			@Override
+			public ListenableFuture<Set<Tuple>> execute(AsyncRedisClient client) {
+				return client.zrangeByScoreWithScores(key, min, max);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(final byte[] key, final double max, final double min) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<Tuple>>() {
+			@Override
+			public ListenableFuture<Set<Tuple>> execute(AsyncRedisClient client) {
+				return client.zrevrangeByScoreWithScores(key, max, min);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(final byte[] key, final double min, final double max, final int offset, final int count) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<Tuple>>() {
+			@Override
+			public ListenableFuture<Set<Tuple>> execute(AsyncRedisClient client) {
+				return client.zrangeByScoreWithScores(key, min, max, offset, count);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(final byte[] key, final byte[] max, final byte[] min, final int offset, final int count) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrevrangeByScore(key, max, min, offset, count);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(final byte[] key, final byte[] min, final byte[] max) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<Tuple>>() {
+			@Override
+			public ListenableFuture<Set<Tuple>> execute(AsyncRedisClient client) {
+				return client.zrangeByScoreWithScores(key, min, max);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(final byte[] key, final byte[] max, final byte[] min) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<Tuple>>() {
+			@Override
+			public ListenableFuture<Set<Tuple>> execute(AsyncRedisClient client) {
+				return client.zrevrangeByScoreWithScores(key, max, min);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(final byte[] key, final byte[] min, final byte[] max, final int offset, final int count) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<Tuple>>() {
+			@Override
+			public ListenableFuture<Set<Tuple>> execute(AsyncRedisClient client) {
+				return client.zrangeByScoreWithScores(key, min, max, offset, count);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(final byte[] key, final double max, final double min, final int offset, final int count) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<Tuple>>() {
+			@Override
+			public ListenableFuture<Set<Tuple>> execute(AsyncRedisClient client) {
+				return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(final byte[] key, final byte[] max, final byte[] min, final int offset, final int count) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<Tuple>>() {
+			@Override
+			public ListenableFuture<Set<Tuple>> execute(AsyncRedisClient client) {
+				return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zremrangeByRank(final byte[] key, final long start, final long end) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zremrangeByRank(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zremrangeByScore(final byte[] key, final double start, final double end) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zremrangeByScore(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zremrangeByScore(final byte[] key, final byte[] start, final byte[] end) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zremrangeByScore(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zlexcount(final byte[] key, final byte[] min, final byte[] max) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zlexcount(key, min, max);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByLex(final byte[] key, final byte[] min, final byte[] max) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrangeByLex(key, min, max);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByLex(final byte[] key, final byte[] min, final byte[] max, final int offset, final int count) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Set<byte[]>>() {
+			@Override
+			public ListenableFuture<Set<byte[]>> execute(AsyncRedisClient client) {
+				return client.zrangeByLex(key, min, max, offset, count);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> zremrangeByLex(final byte[] key, final byte[] min, final byte[] max) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.zremrangeByLex(key, min, max);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> linsert(final byte[] key, final LIST_POSITION where, final byte[] pivot, final byte[] value) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.linsert(key, where, pivot, value);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> lpushx(final byte[] key, final byte[]... values) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.lpushx(key, values);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> rpushx(final byte[] key, final byte[]... values) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.rpushx(key, values);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> blpop(final byte[] arg) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<List<byte[]>>() {
+			@Override
+			public ListenableFuture<List<byte[]>> execute(AsyncRedisClient client) {
+				return client.blpop(arg);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> brpop(final byte[] arg) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<List<byte[]>>() {
+			@Override
+			public ListenableFuture<List<byte[]>> execute(AsyncRedisClient client) {
+				return client.brpop(arg);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> del(final byte[] key) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.del(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<byte[]> echo(final byte[] arg) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<byte[]>() {
+			@Override
+			public ListenableFuture<byte[]> execute(AsyncRedisClient client) {
+				return client.echo(arg);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> move(final byte[] key, final int dbIndex) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.move(key, dbIndex);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> bitcount(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.bitcount(key);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> bitcount(final byte[] key, final long start, final long end) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.bitcount(key, start, end);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> pfadd(final byte[] key, final byte[]... elements) {
+		return this.doExecute(ClientType.MASTER, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.pfadd(key, elements);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Long> pfcount(final byte[] key) {
+		return this.doExecute(ClientType.SLAVE, new AsyncClientFunction<Long>() {
+			@Override
+			public ListenableFuture<Long> execute(AsyncRedisClient client) {
+				return client.pfcount(key);
+			}
+		});
+	}
+}
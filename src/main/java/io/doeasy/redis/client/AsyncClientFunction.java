@@ -0,0 +1,15 @@
+package io.doeasy.redis.client;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * 
+ * @author kriswang
+ *
+ * @param <T>
+ */
+public interface AsyncClientFunction<T> {
+
+	public ListenableFuture<T> execute(AsyncRedisClient client);
+
+}
@@ -0,0 +1,241 @@
+package io.doeasy.redis.client;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import redis.clients.jedis.BinaryClient.LIST_POSITION;
+import redis.clients.jedis.BinaryJedisCommands;
+import redis.clients.jedis.SortingParams;
+import redis.clients.jedis.Tuple;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * asynchronous counterpart of {@link BinaryJedisCommands}, every command
+ * returns immediately with a future of the reply.
+ * 
+ * @author kriswang
+ *
+ */
+public interface AsyncRedisClient {
+
+	public ListenableFuture<String> ping();
+
+	public ListenableFuture<String> info(String section);
+
+	public ListenableFuture<List<byte[]>> mget(byte[]... keys);
+
+	public ListenableFuture<String> set(byte[] key, byte[] value);
+
+	public ListenableFuture<byte[]> get(byte[] key);
+
+	public ListenableFuture<Boolean> exists(byte[] key);
+
+	public ListenableFuture<Long> persist(byte[] key);
+
+	public ListenableFuture<String> type(byte[] key);
+
+	public ListenableFuture<Long> expire(byte[] key, int seconds);
+
+	public ListenableFuture<Long> expireAt(byte[] key, long unixTime);
+
+	public ListenableFuture<Long> ttl(byte[] key);
+
+	public ListenableFuture<Boolean> setbit(byte[] key, long offset, boolean value);
+
+	public ListenableFuture<Boolean> setbit(byte[] key, long offset, byte[] value);
+
+	public ListenableFuture<Boolean> getbit(byte[] key, long offset);
+
+	public ListenableFuture<Long> setrange(byte[] key, long offset, byte[] value);
+
+	public ListenableFuture<byte[]> getrange(byte[] key, long startOffset, long endOffset);
+
+	public ListenableFuture<byte[]> getSet(byte[] key, byte[] value);
+
+	public ListenableFuture<Long> setnx(byte[] key, byte[] value);
+
+	public ListenableFuture<String> setex(byte[] key, int seconds, byte[] value);
+
+	public ListenableFuture<Long> decrBy(byte[] key, long integer);
+
+	public ListenableFuture<Long> decr(byte[] key);
+
+	public ListenableFuture<Long> incrBy(byte[] key, long integer);
+
+	public ListenableFuture<Double> incrByFloat(byte[] key, double value);
+
+	public ListenableFuture<Long> incr(byte[] key);
+
+	public ListenableFuture<Long> append(byte[] key, byte[] value);
+
+	public ListenableFuture<byte[]> substr(byte[] key, int start, int end);
+
+	public ListenableFuture<Long> hset(byte[] key, byte[] field, byte[] value);
+
+	public ListenableFuture<byte[]> hget(byte[] key, byte[] field);
+
+	public ListenableFuture<Long> hsetnx(byte[] key, byte[] field, byte[] value);
+
+	public ListenableFuture<String> hmset(byte[] key, Map<byte[], byte[]> hash);
+
+	public ListenableFuture<List<byte[]>> hmget(byte[] key, byte[]... fields);
+
+	public ListenableFuture<Long> hincrBy(byte[] key, byte[] field, long value);
+
+	public ListenableFuture<Double> hincrByFloat(byte[] key, byte[] field, double value);
+
+	public ListenableFuture<Boolean> hexists(byte[] key, byte[] field);
+
+	public ListenableFuture<Long> hdel(byte[] key, byte[]... fields);
+
+	public ListenableFuture<Long> hlen(byte[] key);
+
+	public ListenableFuture<Set<byte[]>> hkeys(byte[] key);
+
+	public ListenableFuture<Collection<byte[]>> hvals(byte[] key);
+
+	public ListenableFuture<Map<byte[], byte[]>> hgetAll(byte[] key);
+
+	public ListenableFuture<Long> rpush(byte[] key, byte[]... values);
+
+	public ListenableFuture<Long> lpush(byte[] key, byte[]... values);
+
+	public ListenableFuture<Long> llen(byte[] key);
+
+	public ListenableFuture<List<byte[]>> lrange(byte[] key, long start, long end);
+
+	public ListenableFuture<String> ltrim(byte[] key, long start, long end);
+
+	public ListenableFuture<byte[]> lindex(byte[] key, long index);
+
+	public ListenableFuture<String> lset(byte[] key, long index, byte[] value);
+
+	public ListenableFuture<Long> lrem(byte[] key, long count, byte[] value);
+
+	public ListenableFuture<byte[]> lpop(byte[] key);
+
+	public ListenableFuture<byte[]> rpop(byte[] key);
+
+	public ListenableFuture<Long> sadd(byte[] key, byte[]... members);
+
+	public ListenableFuture<Set<byte[]>> smembers(byte[] key);
+
+	public ListenableFuture<Long> srem(byte[] key, byte[]... members);
+
+	public ListenableFuture<byte[]> spop(byte[] key);
+
+	public ListenableFuture<Long> scard(byte[] key);
+
+	public ListenableFuture<Boolean> sismember(byte[] key, byte[] member);
+
+	public ListenableFuture<byte[]> srandmember(byte[] key);
+
+	public ListenableFuture<List<byte[]>> srandmember(byte[] key, int count);
+
+	public ListenableFuture<Long> strlen(byte[] key);
+
+	public ListenableFuture<Long> zadd(byte[] key, double score, byte[] member);
+
+	public ListenableFuture<Long> zadd(byte[] key, Map<byte[], Double> scoreMembers);
+
+	public ListenableFuture<Set<byte[]>> zrange(byte[] key, long start, long end);
+
+	public ListenableFuture<Long> zrem(byte[] key, byte[]... members);
+
+	public ListenableFuture<Double> zincrby(byte[] key, double score, byte[] member);
+
+	public ListenableFuture<Long> zrank(byte[] key, byte[] member);
+
+	public ListenableFuture<Long> zrevrank(byte[] key, byte[] member);
+
+	public ListenableFuture<Set<byte[]>> zrevrange(byte[] key, long start, long end);
+
+	public ListenableFuture<Set<Tuple>> zrangeWithScores(byte[] key, long start, long end);
+
+	public ListenableFuture<Set<Tuple>> zrevrangeWithScores(byte[] key, long start, long end);
+
+	public ListenableFuture<Long> zcard(byte[] key);
+
+	public ListenableFuture<Double> zscore(byte[] key, byte[] member);
+
+	public ListenableFuture<List<byte[]>> sort(byte[] key);
+
+	public ListenableFuture<List<byte[]>> sort(byte[] key, SortingParams sortingParameters);
+
+	public ListenableFuture<Long> zcount(byte[] key, double min, double max);
+
+	public ListenableFuture<Long> zcount(byte[] key, byte[] min, byte[] max);
+
+	public ListenableFuture<Set<byte[]>> zrangeByScore(byte[] key, double min, double max);
+
+	public ListenableFuture<Set<byte[]>> zrangeByScore(byte[] key, byte[] min, byte[] max);
+
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(byte[] key, double max, double min);
+
+	public ListenableFuture<Set<byte[]>> zrangeByScore(byte[] key, double min, double max, int offset, int count);
+
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(byte[] key, byte[] max, byte[] min);
+
+	public ListenableFuture<Set<byte[]>> zrangeByScore(byte[] key, byte[] min, byte[] max, int offset, int count);
+
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(byte[] key, double max, double min, int offset, int count);
+
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(byte[] key, double min, double max);
+
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(byte[] key, double max, double min);
+
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(byte[] key, double min, double max, int offset, int count);
+
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(byte[] key, byte[] max, byte[] min, int offset, int count);
+
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(byte[] key, byte[] min, byte[] max);
+
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(byte[] key, byte[] max, byte[] min);
+
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(byte[] key, byte[] min, byte[] max, int offset, int count);
+
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(byte[] key, double max, double min, int offset, int count);
+
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(byte[] key, byte[] max, byte[] min, int offset, int count);
+
+	public ListenableFuture<Long> zremrangeByRank(byte[] key, long start, long end);
+
+	public ListenableFuture<Long> zremrangeByScore(byte[] key, double start, double end);
+
+	public ListenableFuture<Long> zremrangeByScore(byte[] key, byte[] start, byte[] end);
+
+	public ListenableFuture<Long> zlexcount(byte[] key, byte[] min, byte[] max);
+
+	public ListenableFuture<Set<byte[]>> zrangeByLex(byte[] key, byte[] min, byte[] max);
+
+	public ListenableFuture<Set<byte[]>> zrangeByLex(byte[] key, byte[] min, byte[] max, int offset, int count);
+
+	public ListenableFuture<Long> zremrangeByLex(byte[] key, byte[] min, byte[] max);
+
+	public ListenableFuture<Long> linsert(byte[] key, LIST_POSITION where, byte[] pivot, byte[] value);
+
+	public ListenableFuture<Long> lpushx(byte[] key, byte[]... values);
+
+	public ListenableFuture<Long> rpushx(byte[] key, byte[]... values);
+
+	public ListenableFuture<List<byte[]>> blpop(byte[] arg);
+
+	public ListenableFuture<List<byte[]>> brpop(byte[] arg);
+
+	public ListenableFuture<Long> del(byte[] key);
+
+	public ListenableFuture<byte[]> echo(byte[] arg);
+
+	public ListenableFuture<Long> move(byte[] key, int dbIndex);
+
+	public ListenableFuture<Long> bitcount(byte[] key);
+
+	public ListenableFuture<Long> bitcount(byte[] key, long start, long end);
+
+	public ListenableFuture<Long> pfadd(byte[] key, byte[]... elements);
+
+	public ListenableFuture<Long> pfcount(byte[] key);
+}
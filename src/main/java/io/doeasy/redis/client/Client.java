@@ -1,26 +1,48 @@
 package io.doeasy.redis.client;
 
+import io.doeasy.redis.ClientFactory;
+import io.doeasy.redis.client.balancer.LagAwareReadBalancer;
+import io.doeasy.redis.client.balancer.NodeLoad;
+import io.doeasy.redis.client.balancer.ReadBalancer;
+import io.doeasy.redis.client.balancer.RoundRobinReadBalancer;
 import io.doeasy.redis.client.sentinel.SentinelClient;
+import io.doeasy.redis.client.sentinel.SentinelListener;
 import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.config.HedgedReadConfig;
 import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.config.HotKeyConfig;
+import io.doeasy.redis.config.NearCacheConfig;
+import io.doeasy.redis.config.ReadCoalescingConfig;
+import io.doeasy.redis.config.ReplicationLagConfig;
+import io.doeasy.redis.config.WriteBufferConfig;
 import io.doeasy.redis.model.ClientType;
+import io.doeasy.redis.model.HotKey;
+import io.doeasy.redis.model.RedisNodeInfo;
+import io.doeasy.redis.model.TopologyEvent;
 import io.doeasy.redis.utils.CircularList;
-import io.netty.channel.nio.NioEventLoopGroup;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
-import org.springframework.util.CollectionUtils;
 
 import lombok.extern.log4j.Log4j;
 import redis.clients.jedis.BinaryClient.LIST_POSITION;
+import redis.clients.jedis.Protocol.Command;
 import redis.clients.jedis.SortingParams;
 import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisConnectionException;
 
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.lambdaworks.redis.pubsub.RedisPubSubAdapter;
 import com.lambdaworks.redis.pubsub.RedisPubSubConnection;
 
@@ -32,190 +54,670 @@ import com.lambdaworks.redis.pubsub.RedisPubSubConnection;
 @Log4j
 public class Client implements RedisClient {
 
-	private RedisClientFactory factory;
+	private final ClientFactory<? extends RedisClientPool> factory;
+	private final ReadBalancer readBalancer;
 	private SentinelServersManager manager;
-	private RedisClient master;
-	private CircularList<RedisClient> slaves;
+	private final MasterSwitcher masterSwitcher;
+	private volatile CircularList<RedisClientPool> slaves;
 	private final String masterName;
-	private int cpuNums = Runtime.getRuntime().availableProcessors();
-	private List<RedisPubSubConnection<String, String>> pubsubList = new CopyOnWriteArrayList<RedisPubSubConnection<String, String>>();
-	private List<com.lambdaworks.redis.RedisClient> clients = new CopyOnWriteArrayList<com.lambdaworks.redis.RedisClient>();
-	private List<NioEventLoopGroup> groups = new CopyOnWriteArrayList<NioEventLoopGroup>();
+	/**
+	 * the subscription to the events of each sentinel, guarded by itself.
+	 */
+	private final Map<HostConfiguration, com.lambdaworks.redis.RedisClient> subscriptions = new HashMap<HostConfiguration, com.lambdaworks.redis.RedisClient>();
+	private boolean unsubscribed;
+
+	private final SentinelListener sentinelListener = new SentinelListener() {
+		@Override
+		public void sentinelAdded(HostConfiguration sentinel) {
+			subscribe(sentinel);
+		}
+
+		@Override
+		public void sentinelRetired(HostConfiguration sentinel) {
+			unsubscribe(sentinel);
+		}
+	};
+	private final ClientResources resources;
+	private ScheduledFuture<?> lagSampler;
+	private final WriteBuffer writeBuffer;
+	private volatile ReadCoalescer readCoalescer;
+	private volatile NearCache nearCache;
+	private volatile HotKeyDetector hotKeyDetector;
+	private volatile HedgedReads hedgedReads;
+	private final ClientMetrics metrics = new ClientMetrics();
+	private final TopologyEventProcessor topologyEvents;
 
 	public Client(RedisClientFactory factory, SentinelServersManager manager, String masterName) {
+		this(new RedisClientPoolFactory(factory), manager, masterName);
+	}
+
+	/**
+	 * @param factory creates the connection pool of each redis node, a
+	 * {@link RedisClientPoolFactory} for jedis clients or a
+	 * {@link SharedRedisClientPoolFactory} for thread-safe clients.
+	 */
+	public Client(ClientFactory<? extends RedisClientPool> factory, SentinelServersManager manager, String masterName) {
+		this(factory, manager, masterName, RoundRobinReadBalancer.INSTANCE);
+	}
+
+	/**
+	 * @param readBalancer picks the slave of each read command.
+	 */
+	public Client(ClientFactory<? extends RedisClientPool> factory, SentinelServersManager manager, String masterName,
+			ReadBalancer readBalancer) {
+		this(factory, manager, masterName, readBalancer, null);
+	}
+
+	/**
+	 * @param replicationLag if not null, the replication lag of the slaves is
+	 * sampled periodically and slaves lagging more than allowed are skipped
+	 * by the read balancer.
+	 */
+	public Client(ClientFactory<? extends RedisClientPool> factory, SentinelServersManager manager, String masterName,
+			ReadBalancer readBalancer, ReplicationLagConfig replicationLag) {
+		this(factory, manager, masterName, readBalancer, replicationLag, null);
+	}
+
+	/**
+	 * @param writeBuffer if not null, writes issued while the master is not
+	 * reachable are buffered and replayed once it is, see {@link WriteBuffer}.
+	 */
+	public Client(ClientFactory<? extends RedisClientPool> factory, SentinelServersManager manager, String masterName,
+			ReadBalancer readBalancer, ReplicationLagConfig replicationLag, WriteBufferConfig writeBuffer) {
+		this(factory, manager, masterName, readBalancer, replicationLag, writeBuffer, null);
+	}
+
+	/**
+	 * @param resources the threads of the sentinel subscriptions and of the
+	 * background tasks, not shut down by {@link #quit()}. if null, those of
+	 * the manager are shared.
+	 */
+	public Client(ClientFactory<? extends RedisClientPool> factory, SentinelServersManager manager, String masterName,
+			ReadBalancer readBalancer, ReplicationLagConfig replicationLag, WriteBufferConfig writeBuffer,
+			ClientResources resources) {
 		this.factory = factory;
+		this.resources = resources == null ? manager.getResources() : resources;
+		this.readBalancer = replicationLag == null ? readBalancer : new LagAwareReadBalancer(readBalancer, replicationLag);
 		this.manager = manager;
 		this.masterName = masterName;
-		this.updateMaster();
+		this.masterSwitcher = new MasterSwitcher(factory, manager.getMaster(masterName),
+				this.resources.getComputationExecutor());
+		this.writeBuffer = writeBuffer == null ? null : new WriteBuffer(this, writeBuffer,
+				this.resources.getComputationExecutor());
+		this.topologyEvents = new TopologyEventProcessor(this, manager, masterName);
 		this.updateSlaves();
 		monitorMasterOrSlavesChanged();
+		if (replicationLag != null) {
+			this.startReplicationLagSampling(replicationLag.getSampleInterval());
+		}
 	}
 	
 	@Override
 	public String quit() {
 		
+		this.topologyEvents.close();
+		if (this.lagSampler != null) {
+			this.lagSampler.cancel(true);
+		}
+		if (this.writeBuffer != null) {
+			this.writeBuffer.close();
+		}
+		this.setNearCache(null);
+		this.setHotKeyDetection(null);
+		this.setHedgedReads(null);
 		this.quitMaster();
 		this.quitSlaves();
 		
-		if(!CollectionUtils.isEmpty(pubsubList)) {
-			for(RedisPubSubConnection<String, String> pubsub : pubsubList) {
-				pubsub.close();
-			}
-		}
-		
-		if(!CollectionUtils.isEmpty(clients)) {
-			for(com.lambdaworks.redis.RedisClient client : clients) {
+		this.manager.removeSentinelListener(this.sentinelListener);
+		synchronized (this.subscriptions) {
+			this.unsubscribed = true;
+			for (com.lambdaworks.redis.RedisClient client : this.subscriptions.values()) {
 				client.shutdown();
 			}
-		}
-		
-		if(!CollectionUtils.isEmpty(groups)) {
-			for(NioEventLoopGroup group : groups) {
-				group.shutdownGracefully();
-			}
+			this.subscriptions.clear();
 		}
 		
 		return "OK";
 	}
 
+	@Override
+	public String ping() {
+		return this.doExecute(ClientType.MASTER, Command.PING, new ClientFunction<String>() {
+			@Override
+			public String execute(RedisClient client) {
+				return client.ping();
+			}
+		});
+	}
+
+	@Override
+	public String info(final String section) {
+		return this.doExecute(ClientType.MASTER, Command.INFO, new ClientFunction<String>() {
+			@Override
+			public String execute(RedisClient client) {
+				return client.info(section);
+			}
+		});
+	}
+
+	@Override
+	public List<byte[]> mget(final byte[]... keys) {
+		return this.doExecute(ClientType.SLAVE, Command.MGET, new ClientFunction<List<byte[]>>() {
+			@Override
+			public List<byte[]> execute(RedisClient client) {
+				return client.mget(keys);
+			}
+		});
+	}
+
+	/**
+	 * coalesces the get/hget/exists of concurrent threads into MGET/HMGET
+	 * pipelines to one slave, see {@link ReadCoalescer}.
+	 * @param config null disables the coalescing.
+	 */
+	public void setReadCoalescing(ReadCoalescingConfig config) {
+		this.readCoalescer = config == null ? null : new ReadCoalescer(this, config);
+	}
+
+	/**
+	 * @return the latencies and failures of the commands run so far.
+	 */
+	public ClientMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * sends a slave read to a second slave as well when the first one is slow
+	 * to answer, see {@link HedgedReads}.
+	 * @param config null disables the hedging.
+	 */
+	public synchronized void setHedgedReads(HedgedReadConfig config) {
+		this.hedgedReads = config == null ? null : new HedgedReads(this, config,
+				this.resources.getComputationExecutor(), this.resources.getBlockingExecutor());
+	}
+
+	/**
+	 * @return the hedging of slave reads and its counters, null if it is not
+	 * enabled.
+	 */
+	public HedgedReads getHedgedReads() {
+		return this.hedgedReads;
+	}
+
+	/**
+	 * caches the values read by get and hget until the master notifies a
+	 * change of their key, see {@link NearCache}.
+	 * @param config null disables the cache.
+	 */
+	public synchronized void setNearCache(NearCacheConfig config) {
+		if (this.nearCache != null) {
+			this.nearCache.close();
+		}
+		this.nearCache = config == null ? null : new NearCache(config, this.getMaster().getHostConfiguration(),
+				this.resources.getEventLoopGroup());
+	}
+
+	/**
+	 * @return the near cache and its counters, null if it is not enabled.
+	 */
+	public NearCache getNearCache() {
+		return this.nearCache;
+	}
+
+	/**
+	 * counts the accesses of the single key commands to detect the hot keys,
+	 * and caches the values read from the hottest ones for a short time if a
+	 * promotion rate is set, see {@link HotKeyDetector}.
+	 * @param config null disables the detection.
+	 */
+	public synchronized void setHotKeyDetection(HotKeyConfig config) {
+		if (this.hotKeyDetector != null) {
+			this.hotKeyDetector.close();
+		}
+		this.hotKeyDetector = config == null ? null : new HotKeyDetector(config,
+				this.resources.getComputationExecutor());
+	}
+
+	/**
+	 * @return the detector and its counters, null if it is not enabled.
+	 */
+	public HotKeyDetector getHotKeyDetector() {
+		return this.hotKeyDetector;
+	}
+
+	/**
+	 * @return the hottest keys of the last window and their rates, hottest
+	 * first, empty if the detection is not enabled.
+	 */
+	public List<HotKey> getHotKeys() {
+		HotKeyDetector detector = this.hotKeyDetector;
+		return detector == null ? Collections.<HotKey> emptyList() : detector.getHotKeys();
+	}
+
+	/**
+	 * sends the commands issued by the function in two pipelines, one to the
+	 * master for the writes and one to a slave for the reads, each written
+	 * with a single flush. e.g.
+	 * <pre>
+	 * client.pipelined(new PipelineFunction() {
+	 *     public void execute(AsyncRedisClient batch) {
+	 *         batch.set(key, value);
+	 *         batch.get(other);
+	 *     }
+	 * });
+	 * </pre>
+	 * @return the replies in the order the commands were issued, a failed
+	 * command is represented by its exception.
+	 */
+	public List<Object> pipelined(PipelineFunction function) {
+		PipelinedBatch batch = new PipelinedBatch(this);
+		function.execute(batch);
+		return batch.execute();
+	}
+
+	/**
+	 * subscribes to the events of the sentinels, and of the ones added later
+	 * on, until they are retired.
+	 */
 	private void monitorMasterOrSlavesChanged() {
-		for (final SentinelClient sentinelClient : this.manager.getAvailibleSentinelServers()) {
-			
-			NioEventLoopGroup group = new NioEventLoopGroup(cpuNums - 1);
-			
-			com.lambdaworks.redis.RedisClient client = new com.lambdaworks.redis.RedisClient(group, sentinelClient.getHost(), sentinelClient.getPort(), sentinelClient.getTimeout());
+		this.manager.addSentinelListener(this.sentinelListener);
+		for (SentinelClient sentinelClient : this.manager.getAvailibleSentinelServers()) {
+			this.subscribe(SentinelServersManager.configuration(sentinelClient));
+		}
+	}
 
-			RedisPubSubConnection<String, String> pubsub = client.connectPubSub();
+	private void subscribe(final HostConfiguration sentinel) {
+		synchronized (this.subscriptions) {
+			if (this.unsubscribed || this.subscriptions.containsKey(sentinel)) {
+				return;
+			}
+			com.lambdaworks.redis.RedisClient client = new com.lambdaworks.redis.RedisClient(this.resources.getEventLoopGroup(),
+					sentinel.getHost(), sentinel.getPort(), sentinel.getTimeout());
+
+			RedisPubSubConnection<String, String> pubsub;
+			try {
+				pubsub = client.connectPubSub();
+			} catch (RuntimeException e) {
+				client.shutdown();
+				throw e;
+			}
 			pubsub.addListener(new RedisPubSubAdapter<String>() {
 				
 				public void subscribed(String channel, long count) {
 					log.info(String.format("subscribed to channel: %s from Sentinel %s:%s", channel,
-							sentinelClient.getHost(), sentinelClient.getPort()));
+							sentinel.getHost(), sentinel.getPort()));
 				}
 
 				public void message(String channel, String msg) {
-					if ("+slave".equals(channel)) {
-						log.info(String.format("received message [%s] from channel '+slave', slave added...", msg));
-						onSlaveAdded(msg);
-					}
-					if ("+sdown".equals(channel)) {
-						log.info(String.format("received message [%s] from channel '+sdown', slave down...", msg));
-						onSlaveDown(msg);
-					}
-					if ("-sdown".equals(channel)) {
-						log.info(String.format("received message [%s] from channel '-sdown', slave restart...", msg));
-						onSlaveUp(msg);
-					}
-					if ("+switch-master".equals(channel)) {
-						log.info(String.format("received message [%s] from channel '+switch-master', switch master...", msg));
-						updateMaster();
-					}
+					//applied off the I/O thread
+					topologyEvents.publish(new TopologyEvent(channel, msg, sentinel, System.nanoTime()));
 				}
 			});
 			pubsub.subscribe("+switch-master", "+sdown", "-sdown", "+slave");
-			pubsubList.add(pubsub);
-			clients.add(client);
-			groups.add(group);
+			this.subscriptions.put(sentinel, client);
+		}
+	}
+
+	private void unsubscribe(HostConfiguration sentinel) {
+		com.lambdaworks.redis.RedisClient client;
+		synchronized (this.subscriptions) {
+			client = this.subscriptions.remove(sentinel);
+		}
+		if (client != null) {
+			client.shutdown();
+			log.info("unsubscribed from retired Sentinel " + sentinel);
+		}
+	}
+
+	/**
+	 * @return the sentinels whose events are received.
+	 */
+	Set<HostConfiguration> getSubscribedSentinels() {
+		synchronized (this.subscriptions) {
+			return new HashSet<HostConfiguration>(this.subscriptions.keySet());
 		}
 	}
 	
+	/**
+	 * applies an event published by a sentinel, called by the
+	 * {@link TopologyEventProcessor} one event at a time.
+	 */
+	void onTopologyEvent(TopologyEvent event) {
+		String channel = event.getChannel();
+		String msg = event.getMessage();
+		if ("+slave".equals(channel)) {
+			log.info(String.format("received message [%s] from channel '+slave', slave added...", msg));
+			onSlaveAdded(msg);
+		}
+		if ("+sdown".equals(channel)) {
+			log.info(String.format("received message [%s] from channel '+sdown', slave down...", msg));
+			onSlaveDown(msg);
+		}
+		if ("-sdown".equals(channel)) {
+			log.info(String.format("received message [%s] from channel '-sdown', slave restart...", msg));
+			onSlaveUp(msg);
+		}
+		if ("+switch-master".equals(channel)) {
+			log.info(String.format("received message [%s] from channel '+switch-master', switch master...", msg));
+			onSwitchMaster(msg);
+		}
+		this.manager.refreshTopologyAsync(masterName);
+	}
+
 	private void onSlaveAdded(String message) {
-		String[] parts = message.split(" ");
-		if(parts.length > 4 && "slave".equals(parts[0])) {
-			String host = parts[2];
-			String port = parts[3];
-			this.slaves.add(this.factory.create(new HostConfiguration(host, Integer.parseInt(port))));
+		HostConfiguration configuration = this.parseSlave(message);
+		if (configuration != null && this.findSlave(configuration) == null) {
+			this.slaves.add(this.createPool(configuration));
 		}
 	}
 	
 	public void onSlaveDown(String message) {
-		String[] parts = message.split(" ");
-		if(parts.length > 4 && "slave".equals(parts[0])) {
-			String host = parts[2];
-			String port = parts[3];
-			this.slaves.remove(this.factory.create(new HostConfiguration(host, Integer.parseInt(port))));
+		HostConfiguration configuration = this.parseSlave(message);
+		RedisClientPool down = configuration == null ? null : this.findSlave(configuration);
+		if (down != null) {
+			this.slaves.remove(down);
+			this.destroyPool(down);
 		}
 	}
 	
 	private void onSlaveUp(String message) {
+		HostConfiguration configuration = this.parseSlave(message);
+		//every sentinel reports it
+		if (configuration != null && this.findSlave(configuration) == null) {
+			this.slaves.add(this.createPool(configuration));
+		}
+	}
+
+	/**
+	 * the message is "slave &lt;ip:port&gt; &lt;ip&gt; &lt;port&gt; @ &lt;master name&gt; &lt;master ip&gt; &lt;master port&gt;".
+	 * @return null if it is not about a slave of this master.
+	 */
+	private HostConfiguration parseSlave(String message) {
 		String[] parts = message.split(" ");
-		if(parts.length > 4 && "slave".equals(parts[0])) {
-			String host = parts[2];
-			String port = parts[3];
-			this.slaves.add(this.factory.create(new HostConfiguration(host, Integer.parseInt(port))));
+		if (parts.length > 4 && "slave".equals(parts[0]) && (parts.length < 6 || masterName.equals(parts[5]))) {
+			return new HostConfiguration(parts[2], Integer.parseInt(parts[3]));
 		}
+		return null;
 	}
 
-	private void updateMaster() {
-		this.quitMaster();
-		this.master = this.factory.create(this.manager.getMaster(masterName));
+	private RedisClientPool findSlave(HostConfiguration configuration) {
+		for (RedisClientPool slave : this.slaves) {
+			if (slave.getHostConfiguration().equals(configuration)) {
+				return slave;
+			}
+		}
+		return null;
+	}
 
+	/**
+	 * the message is "&lt;master name&gt; &lt;old ip&gt; &lt;old port&gt; &lt;new ip&gt; &lt;new port&gt;",
+	 * the new master is asked to sentinel if it can not be parsed.
+	 */
+	private void onSwitchMaster(String message) {
+		String[] parts = message.split(" ");
+		HostConfiguration configuration;
+		if (parts.length >= 5) {
+			if (!masterName.equals(parts[0])) {
+				return;
+			}
+			configuration = new HostConfiguration(parts[3], Integer.parseInt(parts[4]));
+		} else {
+			configuration = this.manager.refreshTopology(masterName).getMaster();
+		}
+		final HostConfiguration target = configuration;
+		Futures.addCallback(this.masterSwitcher.switchTo(configuration), new FutureCallback<RedisClientPool>() {
+			@Override
+			public void onSuccess(RedisClientPool master) {
+				topologyEvents.switched(target);
+				if (writeBuffer != null) {
+					writeBuffer.replayNow();
+				}
+				resubscribeNearCache(master);
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				log.error("Failed to switch the master of " + masterName, t);
+				topologyEvents.switchFailed(target);
+			}
+		});
+	}
+
+	private synchronized void resubscribeNearCache(RedisClientPool master) {
+		if (this.nearCache == null) {
+			return;
+		}
+		try {
+			this.nearCache.subscribe(master.getHostConfiguration());
+		} catch (RuntimeException e) {
+			log.error("Failed to subscribe to the keyspace notifications of " + master
+					+ ", near cache disabled until the next master switch", e);
+		}
 	}
 
 	private void updateSlaves() {
 		this.quitSlaves();
 
-		List<RedisClient> slaveClients = new ArrayList<RedisClient>();
+		List<RedisClientPool> slavePools = new ArrayList<RedisClientPool>();
 
-		for (HostConfiguration configuration : this.manager.getSlaves(masterName)) {
-			slaveClients.add(this.factory.create(configuration));
+		for (RedisNodeInfo slave : this.manager.getSlaveNodes(masterName)) {
+			RedisClientPool pool = this.createPool(new HostConfiguration(slave.getIp(), slave.getPort()));
+			pool.getReplication().update(slave);
+			slavePools.add(pool);
 		}
 
-		this.slaves = new CircularList<RedisClient>(slaveClients);
+		this.slaves = new CircularList<RedisClientPool>(slavePools);
 	}
 
-	private void quitMaster() {
-		if (this.master != null) {
-			try {
-				this.master.quit();
-			} catch (Exception e) {
-				log.error("Failed while closing the connection to master", e);
-			}
+	private void startReplicationLagSampling(long interval) {
+		this.lagSampler = this.resources.getComputationExecutor().scheduleWithFixedDelay(new ReplicationLagMonitor(this),
+				0, interval, TimeUnit.MILLISECONDS);
+	}
+
+	private RedisClientPool createPool(HostConfiguration configuration) {
+		return this.factory.create(configuration);
+	}
+
+	private void destroyPool(RedisClientPool pool) {
+		try {
+			pool.destroy();
+		} catch (Exception e) {
+			log.error("Failed while closing the connections to " + pool.getHostConfiguration(), e);
 		}
 	}
 
+	private void quitMaster() {
+		this.masterSwitcher.close();
+	}
+
 	private void quitSlaves() {
 		if (this.slaves != null) {
-			for (RedisClient slave : this.slaves) {
-				try {
-					slave.quit();
-				} catch (Exception e) {
-					log.error("Failed while closing the connection to the slave", e);
-				}
+			for (RedisClientPool slave : this.slaves) {
+				this.destroyPool(slave);
+			}
+		}
+	}
+
+	/**
+	 * runs a command on the master or on one slave, its latency and failure
+	 * are recorded in the metrics.
+	 */
+	<T> T doExecute(ClientType type, Command command, ClientFunction<T> function) {
+		long start = System.nanoTime();
+		try {
+			return this.route(type, function);
+		} catch (RuntimeException e) {
+			this.metrics.failed(type, command, e);
+			throw e;
+		} finally {
+			this.metrics.completed(type, command, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * runs the function on the master or on one slave, writes go through the
+	 * write buffer and reads are hedged when they are enabled.
+	 */
+	<T> T route(ClientType type, ClientFunction<T> function) {
+		if (type == ClientType.MASTER && this.writeBuffer != null) {
+			return this.writeBuffer.write(function);
+		}
+		HedgedReads hedged = this.hedgedReads;
+		if (type == ClientType.SLAVE && hedged != null) {
+			return hedged.execute(function);
+		}
+		return this.execute(this.select(type), function);
+	}
+
+	/**
+	 * runs a command on a single key, the access is counted by the hot key
+	 * detection and a write drops the values of the key cached by it.
+	 */
+	<T> T doExecute(ClientType type, Command command, byte[] key, ClientFunction<T> function) {
+		HotKeyDetector detector = this.hotKeyDetector;
+		if (detector == null) {
+			return this.doExecute(type, command, function);
+		}
+		detector.record(key);
+		try {
+			return this.doExecute(type, command, function);
+		} finally {
+			if (type == ClientType.MASTER) {
+				detector.invalidate(key);
 			}
 		}
 	}
 
-	<T> T doExecute(ClientType type, ClientFunction<T> function) {
-		RedisClient client;
+	/**
+	 * borrows a client of the pool for the duration of the function, the
+	 * client is returned to its pool afterwards, or discarded if its
+	 * connection broke. the time taken is recorded in the load of the node
+	 * for the read balancer and in the metrics.
+	 */
+	<T> T execute(RedisClientPool pool, ClientFunction<T> function) {
+		NodeLoad load = pool.getLoad();
+		long start = load.start();
+		RedisClient client = null;
+		boolean broken = false;
+		try {
+			client = pool.getResource();
+			return function.execute(client);
+		} catch (JedisConnectionException e) {
+			broken = true;
+			this.metrics.failed(pool.getHostConfiguration(), e);
+			throw e;
+		} catch (RuntimeException e) {
+			this.metrics.failed(pool.getHostConfiguration(), e);
+			throw e;
+		} finally {
+			load.complete(start, broken);
+			this.metrics.completed(pool.getHostConfiguration(), System.nanoTime() - start);
+			if (client != null) {
+				if (broken) {
+					pool.returnBrokenResource(client);
+				} else {
+					pool.returnResourceObject(client);
+				}
+			}
+		}
+	}
 
+	/**
+	 * picks the pool of the node a command of the given type is routed to.
+	 */
+	RedisClientPool select(ClientType type) {
 		switch (type) {
 		case SLAVE:
-			client = this.getSlave();
-			break;
+			return this.getSlave();
 		default:
-			client = master;
-			break;
+			return this.getMaster();
 		}
+	}
 
-		return function.execute(client);
+	/**
+	 * reads the value of a key, or a field of a hash, through the hot key
+	 * cache, the near cache and the read coalescer when they are enabled.
+	 */
+	private byte[] read(final byte[] key, final byte[] field, final ClientFunction<byte[]> function) {
+		HotKeyDetector detector = this.hotKeyDetector;
+		if (detector == null) {
+			return this.readThrough(key, field, function);
+		}
+		detector.record(key);
+		return detector.read(key, field, new Supplier<byte[]>() {
+			@Override
+			public byte[] get() {
+				return readThrough(key, field, function);
+			}
+		});
+	}
+
+	private byte[] readThrough(final byte[] key, final byte[] field, final ClientFunction<byte[]> function) {
+		NearCache cache = this.nearCache;
+		if (cache == null) {
+			return this.load(key, field, function);
+		}
+		return cache.get(key, field, new Supplier<byte[]>() {
+			@Override
+			public byte[] get() {
+				return load(key, field, function);
+			}
+		});
+	}
+
+	private byte[] load(byte[] key, byte[] field, ClientFunction<byte[]> function) {
+		ReadCoalescer coalescer = this.readCoalescer;
+		if (coalescer == null) {
+			return this.doExecute(ClientType.SLAVE, field == null ? Command.GET : Command.HGET, function);
+		}
+		return field == null ? coalescer.get(key, function) : coalescer.hget(key, field, function);
 	}
 
-	RedisClient getSlave() {
+	RedisClientPool getMaster() {
+		return this.masterSwitcher.getMaster();
+	}
+
+	TopologyEventProcessor getTopologyEvents() {
+		return this.topologyEvents;
+	}
+
+	WriteBuffer getWriteBuffer() {
+		return this.writeBuffer;
+	}
+
+	CircularList<RedisClientPool> getSlaves() {
+		return this.slaves;
+	}
+
+	RedisClientPool getSlave() {
 		if (this.slaves.empty()) {
-			return this.master;
-		} else {
-			return this.slaves.next();
+			return this.getMaster();
 		}
+		RedisClientPool slave = this.readBalancer.select(this.slaves);
+		return slave != null ? slave : this.getMaster();
+	}
+
+	/**
+	 * @return the slave the read balancer picks among the slaves other than
+	 * the given one, null if there is none or the read would go to the master.
+	 */
+	RedisClientPool getSlave(RedisClientPool excluded) {
+		List<RedisClientPool> others = new ArrayList<RedisClientPool>();
+		for (RedisClientPool slave : this.slaves) {
+			if (slave != excluded) {
+				others.add(slave);
+			}
+		}
+		return others.isEmpty() ? null : this.readBalancer.select(new CircularList<RedisClientPool>(others));
 	}
 
 	@Override
 	public String set(final byte[] key, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<String>() {
+		return this.doExecute(ClientType.MASTER, Command.SET, key, new ClientFunction<String>() {
             @Override
             public String execute(RedisClient client) {
             	if(log.isDebugEnabled()) {
-            		log.debug(String.format("set key, value %s, %s to master %", key, value, master));
+            		log.debug(String.format("set key, value %s, %s to master %s", key, value, getMaster()));
             	}
                 return client.set(key, value);
             }
@@ -224,30 +726,40 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] get(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<byte[]>() {
+		ClientFunction<byte[]> function = new ClientFunction<byte[]>() {
 			@Override
 			public byte[] execute(RedisClient client) {
 				if(log.isDebugEnabled()) {
-            		log.debug(String.format("get key %s from slave %", key, master));
+            		log.debug(String.format("get key %s from slave %s", key, getMaster()));
             	}
 				return client.get(key);
 			}
-		});
+		};
+		return this.read(key, null, function);
 	}
 
 	@Override
 	public Boolean exists(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Boolean>(){
+		ClientFunction<Boolean> function = new ClientFunction<Boolean>(){
 			@Override
 			public Boolean execute(RedisClient client) {
 				return client.exists(key);
 			}
-		});
+		};
+		ReadCoalescer coalescer = this.readCoalescer;
+		if (coalescer == null) {
+			return this.doExecute(ClientType.SLAVE, Command.EXISTS, key, function);
+		}
+		HotKeyDetector detector = this.hotKeyDetector;
+		if (detector != null) {
+			detector.record(key);
+		}
+		return coalescer.exists(key, function);
 	}
 
 	@Override
 	public Long persist(final byte[] key) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.PERSIST, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.persist(key);
@@ -257,7 +769,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public String type(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<String>(){
+		return this.doExecute(ClientType.SLAVE, Command.TYPE, key, new ClientFunction<String>(){
 			@Override
 			public String execute(RedisClient client) {
 				return client.type(key);
@@ -267,7 +779,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long expire(final byte[] key, final int seconds) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.EXPIRE, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.expire(key, seconds);
@@ -277,7 +789,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long expireAt(final byte[] key, final long unixTime) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>() {
+		return this.doExecute(ClientType.MASTER, Command.EXPIREAT, key, new ClientFunction<Long>() {
 			@Override
 			public Long execute(RedisClient client) {
 				return client.expireAt(key, unixTime);
@@ -287,7 +799,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long ttl(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.TTL, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.ttl(key);
@@ -297,7 +809,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Boolean setbit(final byte[] key, final long offset, final boolean value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Boolean>(){
+		return this.doExecute(ClientType.MASTER, Command.SETBIT, key, new ClientFunction<Boolean>(){
 			@Override
 			public Boolean execute(RedisClient client) {
 				return client.setbit(key, offset, value);
@@ -307,7 +819,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Boolean setbit(final byte[] key, final long offset, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Boolean>(){
+		return this.doExecute(ClientType.MASTER, Command.SETBIT, key, new ClientFunction<Boolean>(){
 			@Override
 			public Boolean execute(RedisClient client) {
 				return client.setbit(key, offset, value);
@@ -318,7 +830,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Boolean getbit(final byte[] key, final long offset) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Boolean>() {
+		return this.doExecute(ClientType.SLAVE, Command.GETBIT, key, new ClientFunction<Boolean>() {
 			public Boolean execute(RedisClient client) {
 				return client.getbit(key, offset);
 			}
@@ -327,7 +839,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long setrange(final byte[] key, final long offset, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.SETRANGE, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.setrange(key, offset, value);
@@ -337,7 +849,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] getrange(final byte[] key, final long startOffset, final long endOffset) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<byte[]>(){
+		return this.doExecute(ClientType.SLAVE, Command.GETRANGE, key, new ClientFunction<byte[]>(){
 			@Override
 			public byte[] execute(RedisClient client) {
 				return client.getrange(key, startOffset, endOffset);
@@ -347,7 +859,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] getSet(final byte[] key, final byte[] value) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<byte[]>(){
+		return this.doExecute(ClientType.SLAVE, Command.GETSET, key, new ClientFunction<byte[]>(){
 			@Override
 			public byte[] execute(RedisClient client) {
 				return client.getSet(key, value);
@@ -357,7 +869,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long setnx(final byte[] key, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.SETNX, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.setnx(key, value);
@@ -367,7 +879,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public String setex(final byte[] key, final int seconds, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<String>(){
+		return this.doExecute(ClientType.MASTER, Command.SETEX, key, new ClientFunction<String>(){
 			@Override
 			public String execute(RedisClient client) {
 				return client.setex(key, seconds, value);
@@ -377,7 +889,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long decrBy(final byte[] key, final long integer) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.DECRBY, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.decrBy(key, integer);
@@ -387,7 +899,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long decr(final byte[] key) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.DECR, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.decr(key);
@@ -397,7 +909,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long incrBy(final byte[] key, final long integer) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.INCRBY, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.incrBy(key, integer);
@@ -407,7 +919,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Double incrByFloat(final byte[] key, final double value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Double>(){
+		return this.doExecute(ClientType.MASTER, Command.INCRBYFLOAT, key, new ClientFunction<Double>(){
 			@Override
 			public Double execute(RedisClient client) {
 				return client.incrByFloat(key, value);
@@ -417,7 +929,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long incr(final byte[] key) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.INCR, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.incr(key);
@@ -427,7 +939,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long append(final byte[] key, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.APPEND, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.append(key, value);
@@ -437,7 +949,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] substr(final byte[] key, final int start, final int end) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<byte[]>(){
+		return this.doExecute(ClientType.MASTER, Command.SUBSTR, key, new ClientFunction<byte[]>(){
 			@Override
 			public byte[] execute(RedisClient client) {
 				return client.substr(key, start, end);
@@ -447,7 +959,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long hset(final byte[] key, final byte[] field, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.HSET, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.hset(key, field, value);
@@ -457,17 +969,18 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] hget(final byte[] key, final byte[] field) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<byte[]>(){
+		ClientFunction<byte[]> function = new ClientFunction<byte[]>(){
 			@Override
 			public byte[] execute(RedisClient client) {
 				return client.hget(key, field);
 			}
-		});
+		};
+		return this.read(key, field, function);
 	}
 
 	@Override
 	public Long hsetnx(final byte[] key, final byte[] field, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.HSETNX, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.hsetnx(key, field, value);
@@ -477,7 +990,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public String hmset(final byte[] key, final Map<byte[], byte[]> hash) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<String>(){
+		return this.doExecute(ClientType.MASTER, Command.HMSET, key, new ClientFunction<String>(){
 			@Override
 			public String execute(RedisClient client) {
 				return client.hmset(key, hash);
@@ -487,7 +1000,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public List<byte[]> hmget(final byte[] key, final byte[]... fields) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<List<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.HMGET, key, new ClientFunction<List<byte[]>>(){
 			@Override
 			public List<byte[]> execute(RedisClient client) {
 				return client.hmget(key, fields);
@@ -497,7 +1010,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long hincrBy(final byte[] key, final byte[] field, final long value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.HINCRBY, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.hincrBy(key, field, value);
@@ -507,7 +1020,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Double hincrByFloat(final byte[] key, final byte[] field, final double value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Double>(){
+		return this.doExecute(ClientType.MASTER, Command.HINCRBYFLOAT, key, new ClientFunction<Double>(){
 			@Override
 			public Double execute(RedisClient client) {
 				return client.hincrByFloat(key, field, value);
@@ -517,7 +1030,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Boolean hexists(final byte[] key, final byte[] field) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Boolean>(){
+		return this.doExecute(ClientType.SLAVE, Command.HEXISTS, key, new ClientFunction<Boolean>(){
 			@Override
 			public Boolean execute(RedisClient client) {
 				return client.hexists(key, field);
@@ -527,7 +1040,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long hdel(final byte[] key, final byte[]... field) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.HDEL, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.hdel(key, field);
@@ -537,7 +1050,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long hlen(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.HLEN, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.hlen(key);
@@ -547,7 +1060,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> hkeys(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.HKEYS, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.hkeys(key);
@@ -557,7 +1070,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Collection<byte[]> hvals(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Collection<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.HVALS, key, new ClientFunction<Collection<byte[]>>(){
 			@Override
 			public Collection<byte[]> execute(RedisClient client) {
 				return client.hvals(key);
@@ -567,7 +1080,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Map<byte[], byte[]> hgetAll(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Map<byte[], byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.HGETALL, key, new ClientFunction<Map<byte[], byte[]>>(){
 			@Override
 			public  Map<byte[], byte[]> execute(RedisClient client) {
 				return client.hgetAll(key);
@@ -577,7 +1090,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long rpush(final byte[] key, final byte[]... args) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.RPUSH, key, new ClientFunction<Long>(){
 			@Override
 			public  Long execute(RedisClient client) {
 				return client.rpush(key, args);
@@ -587,7 +1100,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long lpush(final byte[] key, final byte[]... args) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.LPUSH, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.lpush(key, args);
@@ -597,7 +1110,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long llen(final byte[] key) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.LLEN, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.llen(key);
@@ -607,7 +1120,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public List<byte[]> lrange(final byte[] key, final long start, final long end) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<List<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.LRANGE, key, new ClientFunction<List<byte[]>>(){
 			@Override
 			public List<byte[]> execute(RedisClient client) {
 				return client.lrange(key, start, end);
@@ -617,7 +1130,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public String ltrim(final byte[] key, final long start, final long end) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<String>(){
+		return this.doExecute(ClientType.MASTER, Command.LTRIM, key, new ClientFunction<String>(){
 			@Override
 			public String execute(RedisClient client) {
 				return client.ltrim(key, start, end);
@@ -627,7 +1140,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] lindex(final byte[] key, final long index) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<byte[]>(){
+		return this.doExecute(ClientType.MASTER, Command.LINDEX, key, new ClientFunction<byte[]>(){
 			@Override
 			public byte[] execute(RedisClient client) {
 				return client.lindex(key, index);
@@ -637,7 +1150,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public String lset(final byte[] key, final long index, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<String>(){
+		return this.doExecute(ClientType.MASTER, Command.LSET, key, new ClientFunction<String>(){
 			@Override
 			public String execute(RedisClient client) {
 				return client.lset(key, index, value);
@@ -647,7 +1160,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long lrem(final byte[] key, final long count, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.LREM, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.lrem(key, count, value);
@@ -657,7 +1170,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] lpop(final byte[] key) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<byte[]>(){
+		return this.doExecute(ClientType.MASTER, Command.LPOP, key, new ClientFunction<byte[]>(){
 			@Override
 			public byte[] execute(RedisClient client) {
 				return client.lpop(key);
@@ -667,7 +1180,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] rpop(final byte[] key) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<byte[]>(){
+		return this.doExecute(ClientType.MASTER, Command.RPOP, key, new ClientFunction<byte[]>(){
 			@Override
 			public byte[] execute(RedisClient client) {
 				return client.rpop(key);
@@ -677,7 +1190,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long sadd(final byte[] key, final byte[]... member) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.SADD, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.sadd(key, member);
@@ -687,7 +1200,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> smembers(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.SMEMBERS, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.smembers(key);
@@ -697,7 +1210,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long srem(final byte[] key, final byte[]... member) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.SREM, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.srem(key, member);
@@ -707,7 +1220,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] spop(final byte[] key) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<byte[]>(){
+		return this.doExecute(ClientType.MASTER, Command.SPOP, key, new ClientFunction<byte[]>(){
 			@Override
 			public byte[] execute(RedisClient client) {
 				return client.spop(key);
@@ -717,7 +1230,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long scard(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.SCARD, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.scard(key);
@@ -727,7 +1240,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Boolean sismember(final byte[] key, final byte[] member) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Boolean>(){
+		return this.doExecute(ClientType.SLAVE, Command.SISMEMBER, key, new ClientFunction<Boolean>(){
 			@Override
 			public Boolean execute(RedisClient client) {
 				return client.sismember(key, member);
@@ -737,7 +1250,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] srandmember(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<byte[]>(){
+		return this.doExecute(ClientType.SLAVE, Command.SRANDMEMBER, key, new ClientFunction<byte[]>(){
 			@Override
 			public byte[] execute(RedisClient client) {
 				return client.srandmember(key);
@@ -747,7 +1260,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public List<byte[]> srandmember(final byte[] key, final int count) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<List<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.SRANDMEMBER, key, new ClientFunction<List<byte[]>>(){
 			@Override
 			public List<byte[]> execute(RedisClient client) {
 				return client.srandmember(key, count);
@@ -757,7 +1270,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long strlen(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.STRLEN, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.strlen(key);
@@ -767,7 +1280,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zadd(final byte[] key, final double score, final byte[] member) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.ZADD, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zadd(key, score, member);
@@ -777,7 +1290,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zadd(final byte[] key, final Map<byte[], Double> scoreMembers) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.ZADD, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zadd(key, scoreMembers);
@@ -787,7 +1300,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrange(final byte[] key, final long start, final long end) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGE, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrange(key, start, end);
@@ -797,7 +1310,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zrem(final byte[] key, final byte[]... member) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.ZREM, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zrem(key, member);
@@ -807,7 +1320,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Double zincrby(final byte[] key, final double score, final byte[] member) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Double>(){
+		return this.doExecute(ClientType.MASTER, Command.ZINCRBY, key, new ClientFunction<Double>(){
 			@Override
 			public Double execute(RedisClient client) {
 				return client.zincrby(key, score, member);
@@ -817,7 +1330,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zrank(final byte[] key, final byte[] member) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANK, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zrank(key, member);
@@ -827,7 +1340,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zrevrank(final byte[] key, final byte[] member) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANK, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zrevrank(key, member);
@@ -837,7 +1350,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrevrange(final byte[] key, final long start, final long end) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANGE, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrevrange(key, start, end);
@@ -847,7 +1360,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<Tuple> zrangeWithScores(final byte[] key, final long start, final long end) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<Tuple>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGE, key, new ClientFunction<Set<Tuple>>(){
 			@Override
 			public Set<Tuple> execute(RedisClient client) {
 				return client.zrangeWithScores(key, start, end);
@@ -857,7 +1370,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<Tuple> zrevrangeWithScores(final byte[] key, final long start, final long end) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<Tuple>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANGE, key, new ClientFunction<Set<Tuple>>(){
 			@Override
 			public Set<Tuple> execute(RedisClient client) {
 				return client.zrevrangeWithScores(key, start, end);
@@ -867,7 +1380,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zcard(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZCARD, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zcard(key);
@@ -877,7 +1390,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Double zscore(final byte[] key, final byte[] member) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Double>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZSCORE, key, new ClientFunction<Double>(){
 			@Override
 			public Double execute(RedisClient client) {
 				return client.zscore(key, member);
@@ -887,7 +1400,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public List<byte[]> sort(final byte[] key) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<List<byte[]>>(){
+		return this.doExecute(ClientType.MASTER, Command.SORT, key, new ClientFunction<List<byte[]>>(){
 			@Override
 			public List<byte[]> execute(RedisClient client) {
 				return client.sort(key);
@@ -897,7 +1410,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public List<byte[]> sort(final byte[] key, final SortingParams sortingParameters) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<List<byte[]>>(){
+		return this.doExecute(ClientType.MASTER, Command.SORT, key, new ClientFunction<List<byte[]>>(){
 			@Override
 			public List<byte[]> execute(RedisClient client) {
 				return client.sort(key, sortingParameters);
@@ -907,7 +1420,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zcount(final byte[] key, final double min, final double max) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZCOUNT, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zcount(key, min, max);
@@ -917,7 +1430,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zcount(final byte[] key, final byte[] min, final byte[] max) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZCOUNT, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zcount(key, min, max);
@@ -927,7 +1440,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrangeByScore(final byte[] key, final double min, final double max) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGEBYSCORE, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrangeByScore(key, min, max);
@@ -937,7 +1450,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrangeByScore(final byte[] key,final  byte[] min,final  byte[] max) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGEBYSCORE, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrangeByScore(key, min, max);
@@ -947,7 +1460,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrevrangeByScore(final byte[] key,final  double max, final double min) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANGEBYSCORE, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrevrangeByScore(key, max, min);
@@ -957,7 +1470,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrangeByScore(final byte[] key, final double min, final double max, final int offset, final int count) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGEBYSCORE, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrangeByScore(key, min, max, offset, count);
@@ -967,7 +1480,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrevrangeByScore(final byte[] key, final byte[] max, final byte[] min) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANGEBYSCORE, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrevrangeByScore(key, max, min);
@@ -977,7 +1490,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrangeByScore(final byte[] key, final byte[] min, final byte[] max, final int offset, final int count) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGEBYSCORE, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrangeByScore(key, min, max, offset, count);
@@ -987,7 +1500,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrevrangeByScore(final byte[] key, final double max, final double min, final int offset,final  int count) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANGEBYSCORE, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrevrangeByScore(key, max, min, offset, count);
@@ -997,7 +1510,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final double min, final double max) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<Tuple>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGEBYSCORE, key, new ClientFunction<Set<Tuple>>(){
 			@Override
 			public Set<Tuple> execute(RedisClient client) {
 				return client.zrangeByScoreWithScores(key, min, max);
@@ -1007,7 +1520,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final double max, final double min) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<Tuple>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANGEBYSCORE, key, new ClientFunction<Set<Tuple>>(){
 			@Override
 			public Set<Tuple> execute(RedisClient client) {
 				return client.zrevrangeByScoreWithScores(key, max, min);
@@ -1017,7 +1530,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final byte[] key,final double min, final double max, final int offset, final int count) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<Tuple>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGEBYSCORE, key, new ClientFunction<Set<Tuple>>(){
 			@Override
 			public Set<Tuple> execute(RedisClient client) {
 				return client.zrangeByScoreWithScores(key, min, max, offset, count);
@@ -1027,7 +1540,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrevrangeByScore(final byte[] key, final byte[] max, final byte[] min, final int offset, final int count) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANGEBYSCORE, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrevrangeByScore(key, max, min, offset, count);
@@ -1037,7 +1550,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final byte[] min, final byte[] max) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<Tuple>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGEBYSCORE, key, new ClientFunction<Set<Tuple>>(){
 			@Override
 			public Set<Tuple> execute(RedisClient client) {
 				return client.zrangeByScoreWithScores(key, min, max);
@@ -1047,7 +1560,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final byte[] max, final byte[] min) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<Tuple>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANGEBYSCORE, key, new ClientFunction<Set<Tuple>>(){
 			@Override
 			public Set<Tuple> execute(RedisClient client) {
 				return client.zrevrangeByScoreWithScores(key, max, min);
@@ -1057,7 +1570,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final byte[] min, final byte[] max, final int offset, final int count) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<Tuple>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGEBYSCORE, key, new ClientFunction<Set<Tuple>>(){
 			@Override
 			public Set<Tuple> execute(RedisClient client) {
 				return client.zrangeByScoreWithScores(key, min, max, offset, count);
@@ -1067,7 +1580,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final double max, final double min, final int offset, final int count) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<Tuple>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANGEBYSCORE, key, new ClientFunction<Set<Tuple>>(){
 			@Override
 			public Set<Tuple> execute(RedisClient client) {
 				return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
@@ -1077,7 +1590,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final byte[] max, final byte[] min, final int offset, final int count) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<Tuple>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZREVRANGEBYSCORE, key, new ClientFunction<Set<Tuple>>(){
 			@Override
 			public Set<Tuple> execute(RedisClient client) {
 				return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
@@ -1087,7 +1600,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zremrangeByRank(final byte[] key, final long start, final long end) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>() {
+		return this.doExecute(ClientType.MASTER, Command.ZREMRANGEBYRANK, key, new ClientFunction<Long>() {
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zremrangeByRank(key, start, end);
@@ -1097,7 +1610,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zremrangeByScore(final byte[] key, final double start, final double end) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.ZREMRANGEBYSCORE, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zremrangeByScore(key, start, end);
@@ -1107,7 +1620,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zremrangeByScore(final byte[] key, final byte[] start, final byte[] end) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.ZREMRANGEBYSCORE, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zremrangeByScore(key, start, end);
@@ -1117,7 +1630,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zlexcount(final byte[] key, final byte[] min, final byte[] max) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZLEXCOUNT, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zlexcount(key, min, max);
@@ -1127,7 +1640,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrangeByLex(final byte[] key, final byte[] min, final byte[] max) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGEBYLEX, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrangeByLex(key, min, max);
@@ -1137,7 +1650,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Set<byte[]> zrangeByLex(final byte[] key, final byte[] min, final byte[] max, final int offset, final int count) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Set<byte[]>>(){
+		return this.doExecute(ClientType.SLAVE, Command.ZRANGEBYLEX, key, new ClientFunction<Set<byte[]>>(){
 			@Override
 			public Set<byte[]> execute(RedisClient client) {
 				return client.zrangeByLex(key, min, max, offset, count);
@@ -1147,7 +1660,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long zremrangeByLex(final byte[] key, final byte[] min, final byte[] max) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.ZREMRANGEBYLEX, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.zremrangeByLex(key, min, max);
@@ -1157,7 +1670,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long linsert(final byte[] key, final LIST_POSITION where, final byte[] pivot, final byte[] value) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.LINSERT, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.linsert(key, where, pivot, value);
@@ -1167,7 +1680,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long lpushx(final byte[] key, final byte[]... arg) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.LPUSHX, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.lpushx(key, arg);
@@ -1177,7 +1690,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long rpushx(final byte[] key, final byte[]... arg) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.RPUSHX, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.rpushx(key, arg);
@@ -1187,7 +1700,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public List<byte[]> blpop(final byte[] arg) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<List<byte[]>>(){
+		return this.doExecute(ClientType.MASTER, Command.BLPOP, new ClientFunction<List<byte[]>>(){
 			@SuppressWarnings("deprecation")
 			@Override
 			public List<byte[]> execute(RedisClient client) {
@@ -1199,7 +1712,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public List<byte[]> brpop(final byte[] arg) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<List<byte[]>>(){
+		return this.doExecute(ClientType.MASTER, Command.BRPOP, new ClientFunction<List<byte[]>>(){
 			@SuppressWarnings("deprecation")
 			@Override
 			public List<byte[]> execute(RedisClient client) {
@@ -1211,7 +1724,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long del(final byte[] key) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.DEL, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.del(key);
@@ -1221,7 +1734,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public byte[] echo(final byte[] arg) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<byte[]>(){
+		return this.doExecute(ClientType.MASTER, Command.ECHO, new ClientFunction<byte[]>(){
 			@Override
 			public byte[] execute(RedisClient client) {
 				return client.echo(arg);
@@ -1231,7 +1744,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long move(final byte[] key, final int dbIndex) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.MOVE, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.move(key, dbIndex);
@@ -1241,7 +1754,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long bitcount(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.BITCOUNT, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.bitcount(key);
@@ -1251,7 +1764,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long bitcount(final byte[] key, final long start, final long end) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.BITCOUNT, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.bitcount(key, start, end);
@@ -1261,7 +1774,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public Long pfadd(final byte[] key, final byte[]... elements) {
-		return this.doExecute(ClientType.MASTER, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.MASTER, Command.PFADD, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.pfadd(key, elements);
@@ -1271,7 +1784,7 @@ public class Client implements RedisClient {
 
 	@Override
 	public long pfcount(final byte[] key) {
-		return this.doExecute(ClientType.SLAVE, new ClientFunction<Long>(){
+		return this.doExecute(ClientType.SLAVE, Command.PFCOUNT, key, new ClientFunction<Long>(){
 			@Override
 			public Long execute(RedisClient client) {
 				return client.pfcount(key);
@@ -0,0 +1,111 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.model.ClientType;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import redis.clients.jedis.Protocol.Command;
+
+/**
+ * latencies and failures of the commands run by a {@link Client}, by
+ * command, by type of node and by node. the latency of a command is the
+ * time seen by the caller (buffering and hedging included), the latency of
+ * a node the time a connection to it was borrowed.
+ *
+ * the stats of a command or a node are created on its first use, recording
+ * does not allocate afterwards.
+ *
+ * @author kriswang
+ *
+ */
+public class ClientMetrics {
+
+	private static final Command[] COMMANDS = Command.values();
+
+	private final AtomicReferenceArray<LatencyStats> commands = new AtomicReferenceArray<LatencyStats>(
+			COMMANDS.length);
+	private final LatencyStats[] types = new LatencyStats[ClientType.values().length];
+	private final ConcurrentMap<HostConfiguration, LatencyStats> nodes = new ConcurrentHashMap<HostConfiguration, LatencyStats>();
+
+	ClientMetrics() {
+		for (int i = 0; i < this.types.length; i++) {
+			this.types[i] = new LatencyStats();
+		}
+	}
+
+	void completed(ClientType type, Command command, long nanos) {
+		this.types[type.ordinal()].record(nanos);
+		this.command(command).record(nanos);
+	}
+
+	void failed(ClientType type, Command command, RuntimeException e) {
+		this.types[type.ordinal()].failed(e);
+		this.command(command).failed(e);
+	}
+
+	void completed(HostConfiguration node, long nanos) {
+		this.node(node).record(nanos);
+	}
+
+	void failed(HostConfiguration node, RuntimeException e) {
+		this.node(node).failed(e);
+	}
+
+	/**
+	 * @return the stats of the commands run at least once.
+	 */
+	public Map<Command, LatencyStats> getCommandStats() {
+		Map<Command, LatencyStats> stats = new EnumMap<Command, LatencyStats>(Command.class);
+		for (int i = 0; i < COMMANDS.length; i++) {
+			LatencyStats command = this.commands.get(i);
+			if (command != null) {
+				stats.put(COMMANDS[i], command);
+			}
+		}
+		return stats;
+	}
+
+	public LatencyStats getTypeStats(ClientType type) {
+		return this.types[type.ordinal()];
+	}
+
+	/**
+	 * @return the stats of each node a command was sent to, including the
+	 * nodes no longer in use.
+	 */
+	public Map<HostConfiguration, LatencyStats> getNodeStats() {
+		return Collections.unmodifiableMap(this.nodes);
+	}
+
+	private LatencyStats command(Command command) {
+		LatencyStats stats = this.commands.get(command.ordinal());
+		if (stats == null) {
+			this.commands.compareAndSet(command.ordinal(), null, new LatencyStats());
+			stats = this.commands.get(command.ordinal());
+		}
+		return stats;
+	}
+
+	private LatencyStats node(HostConfiguration node) {
+		LatencyStats stats = this.nodes.get(node);
+		if (stats == null) {
+			LatencyStats created = new LatencyStats();
+			stats = this.nodes.putIfAbsent(node, created);
+			if (stats == null) {
+				stats = created;
+			}
+		}
+		return stats;
+	}
+
+	@Override
+	public String toString() {
+		return "ClientMetrics(commands=" + this.getCommandStats() + ", nodes=" + this.nodes + ")";
+	}
+}
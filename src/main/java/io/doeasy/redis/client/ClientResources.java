@@ -0,0 +1,106 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.ClientResourcesConfig;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * threads shared by the {@link Client}s, their {@link
+ * io.doeasy.redis.client.sentinel.SentinelServersManager} and the netty
+ * clients rather than created per client and per sentinel: one event loop
+ * group for the connections, one scheduled executor for the periodic and
+ * background tasks, which also serves as timer, and one bounded executor for
+ * the commands waiting on a pooled connection on behalf of a caller.
+ *
+ * a SentinelServersManager creates its own unless given one, and its
+ * clients share it. resources given to a client or a manager are not shut
+ * down by them, call {@link #shutdown()} once they are all closed.
+ *
+ * @author kriswang
+ *
+ */
+public class ClientResources {
+
+	private final EventLoopGroup eventLoopGroup;
+	private final ScheduledThreadPoolExecutor scheduler;
+	private final ListeningScheduledExecutorService executor;
+	private final ThreadPoolExecutor blocking;
+	private final long shutdownTimeout;
+
+	public ClientResources() {
+		this(new ClientResourcesConfig());
+	}
+
+	public ClientResources(ClientResourcesConfig config) {
+		//threads start as the channels register, up to ioThreads
+		this.eventLoopGroup = new NioEventLoopGroup(config.getIoThreads(), new DefaultThreadFactory("redis-io", true));
+		this.scheduler = new ScheduledThreadPoolExecutor(config.getComputationThreads(), new ThreadFactoryBuilder()
+				.setDaemon(true).setNameFormat("redis-computation-%d").build());
+		this.scheduler.setRemoveOnCancelPolicy(true);
+		this.executor = MoreExecutors.listeningDecorator(this.scheduler);
+		//no queue: a command the threads cannot take is rejected, not delayed
+		this.blocking = new ThreadPoolExecutor(0, config.getBlockingThreads(), 60, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), new ThreadFactoryBuilder().setDaemon(true)
+						.setNameFormat("redis-blocking-%d").build());
+		this.shutdownTimeout = config.getShutdownTimeout();
+	}
+
+	public EventLoopGroup getEventLoopGroup() {
+		return this.eventLoopGroup;
+	}
+
+	/**
+	 * runs the periodic and background tasks, tasks blocking on the network
+	 * should have a timeout.
+	 */
+	public ListeningScheduledExecutorService getComputationExecutor() {
+		return this.executor;
+	}
+
+	/**
+	 * runs the commands which wait on their connection while the caller
+	 * waits for them, e.g. the hedged reads. rejects the commands beyond its
+	 * threads, the caller should then run them itself.
+	 */
+	public ExecutorService getBlockingExecutor() {
+		return this.blocking;
+	}
+
+	public boolean isShutdown() {
+		return this.scheduler.isShutdown();
+	}
+
+	/**
+	 * stops the threads, after giving the running tasks the shutdown timeout
+	 * to complete.
+	 */
+	public void shutdown() {
+		this.scheduler.shutdown();
+		this.blocking.shutdown();
+		this.eventLoopGroup.shutdownGracefully(0, this.shutdownTimeout, TimeUnit.MILLISECONDS);
+		try {
+			if (!this.scheduler.awaitTermination(this.shutdownTimeout, TimeUnit.MILLISECONDS)) {
+				this.scheduler.shutdownNow();
+			}
+			if (!this.blocking.awaitTermination(this.shutdownTimeout, TimeUnit.MILLISECONDS)) {
+				this.blocking.shutdownNow();
+			}
+			this.eventLoopGroup.terminationFuture().await(this.shutdownTimeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			this.scheduler.shutdownNow();
+			this.blocking.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+}
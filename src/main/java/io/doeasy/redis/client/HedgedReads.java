@@ -0,0 +1,244 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.HedgedReadConfig;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * hedges the slave reads: a read is sent to the slave picked by the read
+ * balancer, and if it has not answered after the configured percentile of
+ * its recent latency, to another slave picked by the balancer as well,
+ * skipping the slaves it would skip, e.g. the lagging ones. reads the
+ * balancer sends to the master are not hedged.
+ *
+ * both reads run on the blocking executor of the client resources, the
+ * caller gets whichever reply comes first, or the failure once both failed.
+ * the other read completes in the background and gives its connection back
+ * to its pool. when the blocking executor is full the caller reads from the
+ * first slave itself, without hedge. the hedges are timed by the
+ * computation executor. the number of hedges is capped by a budget: each
+ * read saves a fraction of a hedge, a hedge is only sent if a whole one was
+ * saved.
+ *
+ * @author kriswang
+ *
+ */
+public class HedgedReads {
+
+	private static final long TOKEN = 1000;
+
+	private final Client client;
+	private final double percentile;
+	private final long minDelay;
+	private final long deposit;
+	private final long maxTokens;
+	private final AtomicLong tokens;
+	private final ListeningScheduledExecutorService timer;
+	private final Executor reads;
+
+	private final AtomicLong hedges = new AtomicLong();
+	private final AtomicLong wins = new AtomicLong();
+	private final AtomicLong denied = new AtomicLong();
+
+	/**
+	 * @param timer sends the hedges, shared with the other background tasks.
+	 * @param reads runs the reads, bounded.
+	 */
+	HedgedReads(Client client, HedgedReadConfig config, ListeningScheduledExecutorService timer, Executor reads) {
+		this.client = client;
+		this.percentile = config.getPercentile();
+		this.minDelay = TimeUnit.MICROSECONDS.toNanos(config.getMinDelay());
+		this.deposit = Math.round(config.getBudget() * TOKEN);
+		this.maxTokens = Math.max(1, config.getMaxBurst()) * TOKEN;
+		this.tokens = new AtomicLong(this.maxTokens);
+		this.timer = timer;
+		this.reads = reads;
+	}
+
+	<T> T execute(ClientFunction<T> function) {
+		RedisClientPool first = this.client.getSlave();
+		if (first == this.client.getMaster() || this.client.getSlaves().size() < 2) {
+			return this.client.execute(first, function);
+		}
+		this.save();
+
+		HedgedRead<T> read = new HedgedRead<T>(first, function);
+		if (!read.send(first, false)) {
+			return this.client.execute(first, function);
+		}
+		long delay = Math.max(this.minDelay, first.getLoad().getLatencyPercentile(this.percentile));
+		ScheduledFuture<?> hedge = this.timer.schedule(read, delay, TimeUnit.NANOSECONDS);
+		try {
+			return Uninterruptibles.getUninterruptibly(read.reply);
+		} catch (ExecutionException e) {
+			throw Throwables.propagate(e.getCause());
+		} finally {
+			hedge.cancel(false);
+		}
+	}
+
+	/**
+	 * the balance may slightly exceed the maximum burst under contention.
+	 */
+	void save() {
+		if (this.deposit > 0 && this.tokens.get() < this.maxTokens) {
+			this.tokens.addAndGet(this.deposit);
+		}
+	}
+
+	boolean spend() {
+		for (;;) {
+			long current = this.tokens.get();
+			if (current < TOKEN) {
+				return false;
+			}
+			if (this.tokens.compareAndSet(current, current - TOKEN)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of reads sent to a second slave.
+	 */
+	public long getHedgeCount() {
+		return this.hedges.get();
+	}
+
+	/**
+	 * @return the number of hedged reads answered by the second slave, before
+	 * the first one or after it failed.
+	 */
+	public long getHedgeWinCount() {
+		return this.wins.get();
+	}
+
+	/**
+	 * @return the number of reads which would have been hedged but for the
+	 * budget.
+	 */
+	public long getBudgetExceededCount() {
+		return this.denied.get();
+	}
+
+	@Override
+	public String toString() {
+		return "HedgedReads(hedges=" + this.getHedgeCount() + ", wins=" + this.getHedgeWinCount()
+				+ ", budgetExceeded=" + this.getBudgetExceededCount() + ")";
+	}
+
+	/**
+	 * a read sent to a first slave, and to a second one once the first is
+	 * late, if the first read has not completed meanwhile and the budget
+	 * allows it. the reply is set by the first successful read, or by the
+	 * failure of the first read once no other read is pending.
+	 */
+	private class HedgedRead<T> implements Runnable {
+		private final RedisClientPool first;
+		private final ClientFunction<T> function;
+		private final SettableFuture<T> reply = SettableFuture.create();
+		private int pending;
+		private boolean stopped;
+		private Throwable failure;
+
+		private HedgedRead(RedisClientPool first, ClientFunction<T> function) {
+			this.first = first;
+			this.function = function;
+		}
+
+		/**
+		 * sends the hedge, called by the timer.
+		 */
+		@Override
+		public void run() {
+			RedisClientPool second;
+			synchronized (this) {
+				if (this.stopped || this.reply.isDone()) {
+					return;
+				}
+				this.stopped = true;
+				second = client.getSlave(this.first);
+				if (second == null) {
+					return;
+				}
+				if (!spend()) {
+					denied.incrementAndGet();
+					return;
+				}
+			}
+			//counted before the hedge may answer
+			hedges.incrementAndGet();
+			if (!this.send(second, true)) {
+				hedges.decrementAndGet();
+				tokens.addAndGet(TOKEN);
+			}
+		}
+
+		/**
+		 * @return false if the blocking executor rejected the read.
+		 */
+		private boolean send(final RedisClientPool pool, final boolean hedge) {
+			synchronized (this) {
+				this.pending++;
+			}
+			try {
+				reads.execute(new Runnable() {
+					@Override
+					public void run() {
+						read(pool, hedge);
+					}
+				});
+				return true;
+			} catch (RejectedExecutionException e) {
+				this.failed(null, hedge);
+				return false;
+			}
+		}
+
+		private void read(RedisClientPool pool, boolean hedge) {
+			T result;
+			try {
+				result = client.execute(pool, this.function);
+			} catch (Throwable t) {
+				this.failed(t, hedge);
+				return;
+			}
+			this.succeeded(result, hedge);
+		}
+
+		private synchronized void succeeded(T result, boolean hedge) {
+			//counted before the caller may see the reply
+			if (!this.reply.isDone() && hedge) {
+				wins.incrementAndGet();
+			}
+			this.reply.set(result);
+		}
+
+		/**
+		 * no hedge is sent once the first read failed, the failure of the
+		 * first read is reported rather than the hedge's.
+		 */
+		private synchronized void failed(Throwable t, boolean hedge) {
+			this.pending--;
+			if (t != null && (this.failure == null || !hedge)) {
+				this.failure = t;
+			}
+			if (!hedge) {
+				this.stopped = true;
+			}
+			if (this.pending == 0 && this.stopped && this.failure != null) {
+				this.reply.setException(this.failure);
+			}
+		}
+	}
+}
@@ -0,0 +1,307 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.HotKeyConfig;
+import io.doeasy.redis.model.HotKey;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lombok.extern.log4j.Log4j;
+import redis.clients.util.SafeEncoder;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * detects the keys taking a disproportionate share of the traffic. each
+ * access is counted in a count-min sketch: a few rows of counters, each
+ * indexed by another hash of the key, the estimate of a key being the
+ * smallest of its counters. it can only overestimate a key, by the accesses
+ * of the keys sharing all its counters. the keys with the highest estimates
+ * are kept as candidates, and at the end of each window the top of the
+ * candidates becomes the reported hot keys and the counting starts over.
+ *
+ * the values read by get and hget from the hot keys above the promotion
+ * rate are cached for a short time, so that a burst on one key does not
+ * saturate the slave it is read from. a write through the same client drops
+ * them, writes of other clients are only seen once the time to live elapsed.
+ *
+ * @author kriswang
+ *
+ */
+@Log4j
+public class HotKeyDetector {
+
+	/**
+	 * slot of the value of a string key among the cached fields of a hash.
+	 */
+	private static final ByteBuffer VALUE = ByteBuffer.allocate(0);
+
+	private final int depth;
+	private final int width;
+	private final int topN;
+	private final int capacity;
+	private final int sampleRate;
+	private final double scale;
+	private final double promoteRate;
+	private final ScheduledFuture<?> rotation;
+	private final Cache<ByteBuffer, ConcurrentMap<ByteBuffer, Optional<byte[]>>> values;
+	private volatile Window current;
+	private volatile List<HotKey> hotKeys = Collections.emptyList();
+	private volatile Set<ByteBuffer> promoted = Collections.emptySet();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param executor ends the windows, shared with the other background tasks.
+	 */
+	HotKeyDetector(HotKeyConfig config, ScheduledExecutorService executor) {
+		this.depth = Math.max(1, config.getDepth());
+		this.width = Math.max(1, config.getWidth());
+		this.topN = Math.max(1, config.getTopN());
+		//more candidates than reported, so that a key rising late in the window can still make it
+		this.capacity = this.topN * 4;
+		this.sampleRate = Math.max(1, config.getSampleRate());
+		this.scale = this.sampleRate * 1000.0 / config.getWindow();
+		this.promoteRate = config.getPromoteRate();
+		this.values = CacheBuilder.newBuilder().maximumSize(this.topN)
+				.expireAfterWrite(config.getPromoteTtl(), TimeUnit.MILLISECONDS).build();
+		this.current = new Window();
+
+		this.rotation = executor.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					rotate();
+				} catch (RuntimeException e) {
+					log.error("Failed to rotate the hot key window", e);
+				}
+			}
+		}, config.getWindow(), config.getWindow(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * counts an access to the key.
+	 */
+	void record(byte[] key) {
+		if (this.sampleRate > 1 && ThreadLocalRandom.current().nextInt(this.sampleRate) != 0) {
+			return;
+		}
+		Window window = this.current;
+		//the rows are indexed by h1 + i * h2, the two halves of one hash
+		long hash = hash(key);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		long estimate = Long.MAX_VALUE;
+		for (int i = 0; i < this.depth; i++) {
+			int index = ((h1 + i * h2) & Integer.MAX_VALUE) % this.width;
+			estimate = Math.min(estimate, window.counters.incrementAndGet(i * this.width + index));
+		}
+		window.offer(key, estimate);
+	}
+
+	/**
+	 * 64 bit fnv-1a of the key, mixed by the murmur3 finalizer so that the
+	 * high half is as spread as the low one. allocates nothing, it runs on
+	 * every command.
+	 */
+	static long hash(byte[] key) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : key) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * reads the value of a key, or a field of a hash, from the local cache if
+	 * the key is promoted.
+	 * @param field null for the value of a string key.
+	 * @param loader reads the value on a miss.
+	 */
+	byte[] read(byte[] key, byte[] field, Supplier<byte[]> loader) {
+		ByteBuffer wrappedKey = ByteBuffer.wrap(key);
+		if (!this.promoted.contains(wrappedKey)) {
+			return loader.get();
+		}
+		ByteBuffer slot = field == null ? VALUE : ByteBuffer.wrap(field);
+
+		ConcurrentMap<ByteBuffer, Optional<byte[]>> entry = this.values.getIfPresent(wrappedKey);
+		if (entry != null) {
+			Optional<byte[]> cached = entry.get(slot);
+			if (cached != null) {
+				this.hits.incrementAndGet();
+				return cached.isPresent() ? cached.get().clone() : null;
+			}
+		} else {
+			ConcurrentMap<ByteBuffer, Optional<byte[]>> created = new ConcurrentHashMap<ByteBuffer, Optional<byte[]>>();
+			entry = this.values.asMap().putIfAbsent(ByteBuffer.wrap(key.clone()), created);
+			if (entry == null) {
+				entry = created;
+			}
+		}
+
+		this.misses.incrementAndGet();
+		byte[] value = loader.get();
+		//an entry dropped by a write during the read is not in the cache anymore
+		if (this.values.getIfPresent(wrappedKey) == entry) {
+			entry.put(slot == VALUE ? VALUE : ByteBuffer.wrap(field.clone()),
+					Optional.fromNullable(value == null ? null : value.clone()));
+		}
+		return value;
+	}
+
+	/**
+	 * drops the cached values of a key after a write.
+	 */
+	void invalidate(byte[] key) {
+		if (!this.promoted.isEmpty()) {
+			this.values.invalidate(ByteBuffer.wrap(key));
+		}
+	}
+
+	void close() {
+		this.rotation.cancel(false);
+		this.promoted = Collections.emptySet();
+		this.values.invalidateAll();
+	}
+
+	/**
+	 * ends the current window: its top candidates become the hot keys.
+	 */
+	void rotate() {
+		Window finished = this.current;
+		this.current = new Window();
+
+		List<Map.Entry<ByteBuffer, Long>> candidates = new ArrayList<Map.Entry<ByteBuffer, Long>>(
+				finished.candidates.entrySet());
+		Collections.sort(candidates, new Comparator<Map.Entry<ByteBuffer, Long>>() {
+			@Override
+			public int compare(Map.Entry<ByteBuffer, Long> o1, Map.Entry<ByteBuffer, Long> o2) {
+				return o2.getValue().compareTo(o1.getValue());
+			}
+		});
+
+		List<HotKey> hot = new ArrayList<HotKey>();
+		Set<ByteBuffer> promote = new HashSet<ByteBuffer>();
+		for (Map.Entry<ByteBuffer, Long> candidate : candidates.subList(0, Math.min(this.topN, candidates.size()))) {
+			double rate = candidate.getValue() * this.scale;
+			boolean promoted = this.promoteRate > 0 && rate >= this.promoteRate;
+			if (promoted) {
+				promote.add(candidate.getKey());
+				if (!this.promoted.contains(candidate.getKey())) {
+					log.info(String.format("hot key %s promoted to the local cache, %.0f accesses/s",
+							SafeEncoder.encode(candidate.getKey().array()), rate));
+				}
+			}
+			hot.add(new HotKey(candidate.getKey().array().clone(), rate, promoted));
+		}
+
+		Set<ByteBuffer> demoted = this.promoted;
+		this.promoted = promote;
+		for (ByteBuffer key : demoted) {
+			if (!promote.contains(key)) {
+				this.values.invalidate(key);
+			}
+		}
+		this.hotKeys = Collections.unmodifiableList(hot);
+	}
+
+	/**
+	 * @return the hottest keys of the last complete window, hottest first.
+	 */
+	public List<HotKey> getHotKeys() {
+		return this.hotKeys;
+	}
+
+	/**
+	 * @return the number of reads of promoted keys served by the local cache.
+	 */
+	public long getHitCount() {
+		return this.hits.get();
+	}
+
+	/**
+	 * @return the number of reads of promoted keys that went to redis.
+	 */
+	public long getMissCount() {
+		return this.misses.get();
+	}
+
+	@Override
+	public String toString() {
+		return "HotKeyDetector(hotKeys=" + this.hotKeys.size() + ", promoted=" + this.promoted.size() + ", hits="
+				+ this.getHitCount() + ", misses=" + this.getMissCount() + ")";
+	}
+
+	/**
+	 * the counters and candidates of one window.
+	 */
+	private class Window {
+		private final AtomicLongArray counters = new AtomicLongArray(depth * width);
+		private final ConcurrentMap<ByteBuffer, Long> candidates = new ConcurrentHashMap<ByteBuffer, Long>();
+
+		/**
+		 * smallest estimate among the candidates once there are as many as
+		 * kept, a key has to exceed it to become a candidate.
+		 */
+		private volatile long floor;
+
+		private void offer(byte[] key, long estimate) {
+			if (estimate <= this.floor) {
+				return;
+			}
+			if (this.candidates.replace(ByteBuffer.wrap(key), estimate) != null) {
+				return;
+			}
+			synchronized (this) {
+				if (this.candidates.size() >= capacity) {
+					Map.Entry<ByteBuffer, Long> coldest = this.coldest();
+					if (coldest.getValue() >= estimate) {
+						this.floor = coldest.getValue();
+						return;
+					}
+					this.candidates.remove(coldest.getKey());
+				}
+				//the key is copied, the caller may reuse its array
+				this.candidates.putIfAbsent(ByteBuffer.wrap(key.clone()), estimate);
+				if (this.candidates.size() >= capacity) {
+					this.floor = this.coldest().getValue();
+				}
+			}
+		}
+
+		private Map.Entry<ByteBuffer, Long> coldest() {
+			Map.Entry<ByteBuffer, Long> coldest = null;
+			for (Map.Entry<ByteBuffer, Long> candidate : this.candidates.entrySet()) {
+				if (coldest == null || candidate.getValue() < coldest.getValue()) {
+					coldest = candidate;
+				}
+			}
+			return coldest;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package io.doeasy.redis.client;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * exposes a jedis {@link Pipeline} as an {@link AsyncRedisClient}: every
+ * command is forwarded to the pipeline method of the same signature, the
+ * returned futures are completed by {@link #sync()}. commands the pipeline
+ * does not offer fail with {@link UnsupportedOperationException}.
+ * 
+ * @author kriswang
+ *
+ */
+class JedisPipelineAdapter implements InvocationHandler {
+
+	private static final Map<Method, Method> METHODS = new ConcurrentHashMap<Method, Method>();
+
+	/**
+	 * the pipeline of this jedis version decodes their reply with the wrong type.
+	 */
+	private static final Set<String> WRONG_REPLY_TYPE = ImmutableSet.of("getrange", "substr");
+
+	private final Pipeline pipeline;
+	private final List<Pending> pending = new ArrayList<Pending>();
+
+	JedisPipelineAdapter(Pipeline pipeline) {
+		this.pipeline = pipeline;
+	}
+
+	AsyncRedisClient asAsyncClient() {
+		return (AsyncRedisClient) Proxy.newProxyInstance(AsyncRedisClient.class.getClassLoader(),
+				new Class<?>[] { AsyncRedisClient.class }, this);
+	}
+
+	/**
+	 * sends the pipeline and completes the futures of its commands, a data
+	 * error only fails the future of its command.
+	 */
+	@SuppressWarnings("unchecked")
+	void sync() {
+		this.pipeline.sync();
+		for (Pending command : this.pending) {
+			try {
+				command.future.set(command.response.get());
+			} catch (JedisException e) {
+				//the response wraps the error reply of the command
+				command.future.setException(e.getCause() instanceof JedisException ? e.getCause() : e);
+			}
+		}
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (method.getDeclaringClass() == Object.class) {
+			return method.invoke(this, args);
+		}
+		Method target = pipelineMethod(method);
+		if (target == null) {
+			return Futures.immediateFailedFuture(new UnsupportedOperationException(method.getName()
+					+ " can not be pipelined on a jedis client"));
+		}
+		try {
+			Pending command = new Pending((Response<?>) target.invoke(this.pipeline, args));
+			this.pending.add(command);
+			return command.future;
+		} catch (InvocationTargetException e) {
+			return Futures.immediateFailedFuture(e.getCause());
+		}
+	}
+
+	private static Method pipelineMethod(Method method) {
+		Method target = METHODS.get(method);
+		if (target == null) {
+			if (WRONG_REPLY_TYPE.contains(method.getName())) {
+				return null;
+			}
+			try {
+				target = Pipeline.class.getMethod(method.getName(), method.getParameterTypes());
+			} catch (NoSuchMethodException e) {
+				return null;
+			}
+			METHODS.put(method, target);
+		}
+		return target;
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static class Pending {
+		private final Response<?> response;
+		private final SettableFuture future = SettableFuture.create();
+
+		Pending(Response<?> response) {
+			this.response = response;
+		}
+	}
+}
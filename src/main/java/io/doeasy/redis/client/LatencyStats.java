@@ -0,0 +1,76 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.utils.LatencyHistogram;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.lambdaworks.redis.RedisTimeoutException;
+
+/**
+ * latency histogram and failure counters of the commands of one kind (a
+ * command name, a type of node or a node).
+ *
+ * @author kriswang
+ *
+ */
+public class LatencyStats {
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+
+	void record(long nanos) {
+		this.latency.record(nanos);
+	}
+
+	void failed(Throwable e) {
+		if (isTimeout(e)) {
+			this.timeouts.incrementAndGet();
+		} else {
+			this.errors.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the latencies in nanoseconds, failed commands included.
+	 */
+	public LatencyHistogram getLatency() {
+		return this.latency;
+	}
+
+	/**
+	 * @return the number of commands which failed, timeouts excluded.
+	 */
+	public long getErrorCount() {
+		return this.errors.get();
+	}
+
+	/**
+	 * @return the number of commands which timed out waiting for the reply.
+	 */
+	public long getTimeoutCount() {
+		return this.timeouts.get();
+	}
+
+	/**
+	 * a read timeout of a jedis connection, or a reply a netty client waited
+	 * for in vain, wrapped or not.
+	 */
+	static boolean isTimeout(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof SocketTimeoutException || cause instanceof TimeoutException
+					|| cause instanceof RedisTimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyStats(latency=" + this.latency + ", errors=" + this.getErrorCount() + ", timeouts="
+				+ this.getTimeoutCount() + ")";
+	}
+}
@@ -0,0 +1,240 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.ClientFactory;
+import io.doeasy.redis.config.HostConfiguration;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.extern.log4j.Log4j;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * holds the pool of the current master and replaces it make-before-break:
+ * the pool of the new master is opened and validated (PING, then role:master
+ * in INFO replication) in the background while commands still go to the old
+ * master, then swapped in atomically. the old pool is closed once its
+ * commands in flight completed, or after its timeout.
+ *
+ * switches run one at a time in the order they were requested, on the
+ * shared executor of the client resources. a switch to the current master
+ * (sent by every sentinel) is a no-op.
+ *
+ * @author kriswang
+ *
+ */
+@Log4j
+public class MasterSwitcher {
+
+	static final int VALIDATE_ATTEMPTS = 5;
+	static final long VALIDATE_BACKOFF = 100; //ms, grows linearly per attempt
+
+	private final ClientFactory<? extends RedisClientPool> factory;
+	private final Executor executor;
+	private final Queue<Switch> pending = new ConcurrentLinkedQueue<Switch>();
+	private final AtomicBoolean switching = new AtomicBoolean();
+	private volatile RedisClientPool master;
+	private volatile boolean closed;
+
+	private final Runnable drain = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				drain();
+			} finally {
+				switching.set(false);
+			}
+			//a switch requested after the queue was found empty
+			schedule();
+		}
+	};
+
+	/**
+	 * @param executor runs the switches, shared with the other background tasks.
+	 */
+	public MasterSwitcher(ClientFactory<? extends RedisClientPool> factory, HostConfiguration master, Executor executor) {
+		this.factory = factory;
+		this.executor = executor;
+		this.master = factory.create(master);
+	}
+
+	public RedisClientPool getMaster() {
+		return this.master;
+	}
+
+	/**
+	 * @return the pool of the master in use once the switch is done, the
+	 * future fails if the new master could not be validated, the old master
+	 * is kept then.
+	 */
+	public ListenableFuture<RedisClientPool> switchTo(HostConfiguration configuration) {
+		Switch next = new Switch(configuration);
+		this.pending.add(next);
+		if (this.closed) {
+			this.failPending();
+		} else {
+			this.schedule();
+		}
+		return next.done;
+	}
+
+	/**
+	 * fails the switches not started yet, a switch in progress is undone
+	 * once its pool is validated.
+	 */
+	public void close() {
+		synchronized (this) {
+			this.closed = true;
+			destroy(this.master);
+		}
+		this.failPending();
+	}
+
+	/**
+	 * starts draining the queued switches unless they are drained already.
+	 */
+	private void schedule() {
+		if (this.pending.isEmpty() || !this.switching.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			this.executor.execute(this.drain);
+		} catch (RejectedExecutionException e) {
+			this.switching.set(false);
+			this.failPending();
+		}
+	}
+
+	private void drain() {
+		Switch next;
+		while (!this.closed && (next = this.pending.poll()) != null) {
+			try {
+				next.done.set(this.doSwitch(next.configuration));
+			} catch (InterruptedException e) {
+				next.done.setException(e);
+				Thread.currentThread().interrupt();
+				return;
+			} catch (Exception e) {
+				next.done.setException(e);
+			}
+		}
+	}
+
+	private void failPending() {
+		Switch next;
+		while ((next = this.pending.poll()) != null) {
+			next.done.setException(new JedisException("switcher closed, not switching to " + next.configuration));
+		}
+	}
+
+	private RedisClientPool doSwitch(HostConfiguration configuration) throws InterruptedException {
+		RedisClientPool current = this.master;
+		if (current != null && current.getHostConfiguration().equals(configuration)) {
+			return current;
+		}
+
+		log.info("connecting to new master " + configuration + "...");
+		RedisClientPool pool = this.factory.create(configuration);
+		try {
+			validate(pool);
+		} catch (JedisException e) {
+			log.error("new master " + configuration + " could not be validated, keeping " + current, e);
+			destroy(pool);
+			throw e;
+		}
+
+		synchronized (this) {
+			if (this.closed) {
+				destroy(pool);
+				throw new JedisException("switcher closed while switching to " + configuration);
+			}
+			this.master = pool;
+		}
+		log.info("switched master from " + current + " to " + pool);
+
+		if (current != null) {
+			drain(current);
+		}
+		return pool;
+	}
+
+	/**
+	 * checks the node answers and already got promoted, sentinel announces
+	 * the switch right after sending SLAVEOF NO ONE so the role can lag.
+	 */
+	private static void validate(RedisClientPool pool) throws InterruptedException {
+		JedisException failure = null;
+		for (int attempt = 1; attempt <= VALIDATE_ATTEMPTS; attempt++) {
+			RedisClient client = null;
+			boolean broken = false;
+			try {
+				client = pool.getResource();
+				if (!"PONG".equals(client.ping())) {
+					throw new JedisException("unexpected PING reply");
+				}
+				String role = ReplicationLagMonitor.parse(client.info("replication")).get("role");
+				if ("master".equals(role)) {
+					return;
+				}
+				failure = new JedisException("node reports role " + role);
+			} catch (JedisConnectionException e) {
+				broken = true;
+				failure = e;
+			} catch (JedisException e) {
+				failure = e;
+			} finally {
+				if (client != null) {
+					if (broken) {
+						pool.returnBrokenResource(client);
+					} else {
+						pool.returnResourceObject(client);
+					}
+				}
+			}
+			if (attempt < VALIDATE_ATTEMPTS) {
+				TimeUnit.MILLISECONDS.sleep(VALIDATE_BACKOFF * attempt);
+			}
+		}
+		throw failure;
+	}
+
+	/**
+	 * waits for the commands sent to the old master to complete before its
+	 * pool is closed, they are not retried on the new master.
+	 */
+	private static void drain(RedisClientPool old) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + old.getHostConfiguration().getTimeout();
+		while (old.getLoad().getInflight() > 0 && System.currentTimeMillis() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+		destroy(old);
+	}
+
+	private static void destroy(RedisClientPool pool) {
+		if (pool == null) {
+			return;
+		}
+		try {
+			pool.destroy();
+		} catch (Exception e) {
+			log.error("Failed while closing the connections to " + pool.getHostConfiguration(), e);
+		}
+	}
+
+	private static class Switch {
+		private final HostConfiguration configuration;
+		private final SettableFuture<RedisClientPool> done = SettableFuture.create();
+
+		private Switch(HostConfiguration configuration) {
+			this.configuration = configuration;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.config.NearCacheConfig;
+import io.netty.channel.EventLoopGroup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.log4j.Log4j;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.primitives.Bytes;
+import com.lambdaworks.redis.codec.ByteArrayCodec;
+import com.lambdaworks.redis.pubsub.RedisPubSubAdapter;
+import com.lambdaworks.redis.pubsub.RedisPubSubConnection;
+
+/**
+ * caches the values read by {@link Client#get(byte[])} and
+ * {@link Client#hget(byte[], byte[])}, bounded in size (least recently used
+ * keys are evicted first) and in time. a key is dropped as soon as the
+ * master publishes a keyspace notification for it, which requires
+ * notify-keyspace-events to include K and the events of the cached types
+ * on the redis side (e.g. "K$hgx").
+ *
+ * the values are read from slaves, a write notified by the master before a
+ * lagging slave applied it can leave the old value cached until the time to
+ * live. nothing is cached until the subscription is confirmed, and the cache
+ * is cleared each time it is confirmed again (after a reconnect or a master
+ * switch) since notifications may have been missed meanwhile.
+ *
+ * @author kriswang
+ *
+ */
+@Log4j
+public class NearCache {
+
+	/**
+	 * slot of the value of a string key among the cached fields of a hash.
+	 */
+	private static final ByteBuffer VALUE = ByteBuffer.allocate(0);
+
+	/**
+	 * ends the "__keyspace@&lt;db&gt;__:" prefix of the keyspace channels.
+	 */
+	private static final byte[] KEYSPACE_SEPARATOR = { '_', '_', ':' };
+
+	private final Cache<ByteBuffer, Entry> entries;
+	private final EventLoopGroup group;
+	private com.lambdaworks.redis.RedisClient subscriber;
+	private RedisPubSubConnection<byte[], byte[]> pubsub;
+	private volatile boolean subscribed;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+
+	/**
+	 * @param group runs the subscription, not shut down on close.
+	 */
+	NearCache(NearCacheConfig config, HostConfiguration master, EventLoopGroup group) {
+		this.group = group;
+		this.entries = CacheBuilder.newBuilder().maximumSize(config.getMaximumSize())
+				.expireAfterWrite(config.getTimeToLive(), TimeUnit.MILLISECONDS)
+				.removalListener(new RemovalListener<ByteBuffer, Entry>() {
+					@Override
+					public void onRemoval(RemovalNotification<ByteBuffer, Entry> notification) {
+						if (notification.wasEvicted()) {
+							evictions.incrementAndGet();
+						}
+					}
+				}).build();
+		this.subscribe(master);
+	}
+
+	/**
+	 * @param field null for the value of a string key.
+	 * @param loader reads the value on a miss.
+	 */
+	byte[] get(byte[] key, byte[] field, Supplier<byte[]> loader) {
+		ByteBuffer wrappedKey = ByteBuffer.wrap(key);
+		ByteBuffer slot = field == null ? VALUE : ByteBuffer.wrap(field);
+
+		Entry entry = this.entries.getIfPresent(wrappedKey);
+		if (entry != null) {
+			Optional<byte[]> cached = entry.values.get(slot);
+			if (cached != null) {
+				this.hits.incrementAndGet();
+				return cached.isPresent() ? cached.get().clone() : null;
+			}
+		} else if (this.subscribed) {
+			//the key is copied, the caller may reuse its array
+			Entry created = new Entry();
+			entry = this.entries.asMap().putIfAbsent(ByteBuffer.wrap(key.clone()), created);
+			if (entry == null) {
+				entry = created;
+			}
+		}
+
+		this.misses.incrementAndGet();
+		byte[] value = loader.get();
+		//an entry invalidated during the read is not in the cache anymore
+		if (entry != null && this.entries.getIfPresent(wrappedKey) == entry) {
+			entry.values.put(slot == VALUE ? VALUE : ByteBuffer.wrap(field.clone()),
+					Optional.fromNullable(value == null ? null : value.clone()));
+		}
+		return value;
+	}
+
+	/**
+	 * listens to the keyspace notifications of the given master instead of
+	 * the current one, after a master switch.
+	 */
+	synchronized void subscribe(HostConfiguration master) {
+		this.unsubscribe();
+
+		com.lambdaworks.redis.RedisClient client = new com.lambdaworks.redis.RedisClient(this.group, master.getHost(),
+				master.getPort(), master.getTimeout());
+		try {
+			this.pubsub = client.connectPubSub(ByteArrayCodec.INSTANCE);
+		} catch (RuntimeException e) {
+			client.shutdown();
+			throw e;
+		}
+		this.subscriber = client;
+		this.pubsub.addListener(new RedisPubSubAdapter<byte[]>() {
+			@Override
+			public void psubscribed(String pattern, long count) {
+				log.info(String.format("subscribed to %s, near cache enabled", pattern));
+				entries.invalidateAll();
+				subscribed = true;
+			}
+
+			@Override
+			public void message(String pattern, String channel, byte[] event) {
+				invalidate(channel);
+			}
+		});
+		this.pubsub.psubscribe("__keyspace@" + master.getDatabase() + "__:*");
+	}
+
+	synchronized void close() {
+		this.unsubscribe();
+	}
+
+	private void unsubscribe() {
+		this.subscribed = false;
+		this.entries.invalidateAll();
+		if (this.pubsub != null) {
+			this.pubsub.close();
+			this.subscriber.shutdown();
+			this.pubsub = null;
+			this.subscriber = null;
+		}
+	}
+
+	/**
+	 * @param channel "__keyspace@&lt;db&gt;__:&lt;key&gt;". lettuce hands the
+	 * channels over as strings of one char per byte whatever the codec, the
+	 * bytes are taken back before the key is cut out, so utf-8 and binary
+	 * keys are matched byte for byte.
+	 */
+	private void invalidate(String channel) {
+		byte[] raw = new byte[channel.length()];
+		for (int i = 0; i < raw.length; i++) {
+			raw[i] = (byte) channel.charAt(i);
+		}
+		int separator = Bytes.indexOf(raw, KEYSPACE_SEPARATOR);
+		if (separator < 0) {
+			return;
+		}
+		int start = separator + KEYSPACE_SEPARATOR.length;
+		if (this.entries.asMap().remove(ByteBuffer.wrap(raw, start, raw.length - start)) != null) {
+			this.invalidations.incrementAndGet();
+		}
+	}
+
+	public long getHitCount() {
+		return this.hits.get();
+	}
+
+	public long getMissCount() {
+		return this.misses.get();
+	}
+
+	/**
+	 * @return the number of keys dropped because the cache was full or their
+	 * time to live elapsed.
+	 */
+	public long getEvictionCount() {
+		return this.evictions.get();
+	}
+
+	/**
+	 * @return the number of keys dropped on a keyspace notification.
+	 */
+	public long getInvalidationCount() {
+		return this.invalidations.get();
+	}
+
+	public long size() {
+		return this.entries.size();
+	}
+
+	@Override
+	public String toString() {
+		return "NearCache(size=" + this.size() + ", hits=" + this.getHitCount() + ", misses=" + this.getMissCount()
+				+ ", evictions=" + this.getEvictionCount() + ", invalidations=" + this.getInvalidationCount() + ")";
+	}
+
+	/**
+	 * the cached value of a string key, or fields of a hash key.
+	 */
+	private static class Entry {
+		private final ConcurrentMap<ByteBuffer, Optional<byte[]>> values = new ConcurrentHashMap<ByteBuffer, Optional<byte[]>>();
+	}
+}
@@ -0,0 +1,766 @@
+package io.doeasy.redis.client;
+
+import static com.lambdaworks.redis.protocol.CommandKeyword.LIMIT;
+import static com.lambdaworks.redis.protocol.CommandType.LPUSHX;
+import static com.lambdaworks.redis.protocol.CommandType.RPUSHX;
+import static com.lambdaworks.redis.protocol.CommandType.SETBIT;
+import static com.lambdaworks.redis.protocol.CommandType.SORT;
+import static com.lambdaworks.redis.protocol.CommandType.ZLEXCOUNT;
+import static com.lambdaworks.redis.protocol.CommandType.ZRANGEBYLEX;
+import static com.lambdaworks.redis.protocol.CommandType.ZREMRANGEBYLEX;
+import io.doeasy.redis.config.HostConfiguration;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Getter;
+import redis.clients.jedis.BinaryClient.LIST_POSITION;
+import redis.clients.jedis.BinaryJedisCommands;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.SortingParams;
+import redis.clients.jedis.Tuple;
+import redis.clients.util.JedisByteHashMap;
+import redis.clients.util.SafeEncoder;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.lambdaworks.redis.ClientSideCache;
+import com.lambdaworks.redis.RedisAsyncConnection;
+import com.lambdaworks.redis.ScoredValue;
+import com.lambdaworks.redis.codec.ByteArrayCodec;
+import com.lambdaworks.redis.codec.RedisCodec;
+import com.lambdaworks.redis.output.IntegerOutput;
+import com.lambdaworks.redis.output.ValueListOutput;
+import com.lambdaworks.redis.protocol.CommandArgs;
+
+/**
+ * non-blocking client of one redis node. all callers share one multiplexed
+ * {@link RedisAsyncConnection}, commands are pipelined on it and replies are
+ * converted to the types returned by {@link BinaryJedisCommands}.
+ * blocking commands (BLPOP, BRPOP) are not supported, they would stall every
+ * other caller of the connection.
+ * 
+ * @author kriswang
+ *
+ */
+public class NettyAsyncRedisClient implements AsyncRedisClient {
+
+	private static final String BLOCKING_UNSUPPORTED = "blocking commands are not supported on a multiplexed connection";
+
+	private static final Function<Boolean, Long> BOOLEAN_TO_LONG = new Function<Boolean, Long>() {
+		@Override
+		public Long apply(Boolean input) {
+			return input == null ? null : (input ? 1L : 0L);
+		}
+	};
+
+	private static final Function<Long, Boolean> LONG_TO_BOOLEAN = new Function<Long, Boolean>() {
+		@Override
+		public Boolean apply(Long input) {
+			return input == null ? null : input == 1L;
+		}
+	};
+
+	private static final Function<String, Double> STRING_TO_DOUBLE = new Function<String, Double>() {
+		@Override
+		public Double apply(String input) {
+			return input == null ? null : Double.valueOf(input);
+		}
+	};
+
+	private static final Function<List<byte[]>, Set<byte[]>> LIST_TO_SET = new Function<List<byte[]>, Set<byte[]>>() {
+		@Override
+		public Set<byte[]> apply(List<byte[]> input) {
+			return new LinkedHashSet<byte[]>(input);
+		}
+	};
+
+	private static final Function<Set<byte[]>, List<byte[]>> SET_TO_LIST = new Function<Set<byte[]>, List<byte[]>>() {
+		@Override
+		public List<byte[]> apply(Set<byte[]> input) {
+			return new ArrayList<byte[]>(input);
+		}
+	};
+
+	private static final Function<List<byte[]>, Collection<byte[]>> LIST_TO_COLLECTION = new Function<List<byte[]>, Collection<byte[]>>() {
+		@Override
+		public Collection<byte[]> apply(List<byte[]> input) {
+			return input;
+		}
+	};
+
+	private static final Function<Map<byte[], byte[]>, Map<byte[], byte[]>> TO_BYTE_MAP = new Function<Map<byte[], byte[]>, Map<byte[], byte[]>>() {
+		@Override
+		public Map<byte[], byte[]> apply(Map<byte[], byte[]> input) {
+			Map<byte[], byte[]> map = new JedisByteHashMap();
+			map.putAll(input);
+			return map;
+		}
+	};
+
+	private static final Function<List<ScoredValue<byte[]>>, Set<Tuple>> TO_TUPLES = new Function<List<ScoredValue<byte[]>>, Set<Tuple>>() {
+		@Override
+		public Set<Tuple> apply(List<ScoredValue<byte[]>> input) {
+			Set<Tuple> tuples = new LinkedHashSet<Tuple>();
+			for (ScoredValue<byte[]> scoredValue : input) {
+				tuples.add(new Tuple(scoredValue.value, scoredValue.score));
+			}
+			return tuples;
+		}
+	};
+
+	@Getter
+	private final HostConfiguration hostConfiguration;
+
+	private final com.lambdaworks.redis.RedisClient redisClient;
+	private final RedisAsyncConnection<byte[], byte[]> connection;
+	private final RedisCodec<byte[], byte[]> codec = ByteArrayCodec.INSTANCE;
+	private volatile ClientSideCache<byte[], byte[]> cache;
+
+	public NettyAsyncRedisClient(EventLoopGroup group, HostConfiguration hostConfiguration) {
+		this.hostConfiguration = hostConfiguration;
+		this.redisClient = new com.lambdaworks.redis.RedisClient(group, hostConfiguration.getHost(),
+				hostConfiguration.getPort(), hostConfiguration.getTimeout());
+		this.connection = this.redisClient.connectAsync(this.codec);
+		if (hostConfiguration.getDatabase() != Protocol.DEFAULT_DATABASE) {
+			this.connection.select(hostConfiguration.getDatabase());
+		}
+	}
+
+	/**
+	 * closes the connection, pending commands fail with "Connection closed".
+	 */
+	public void close() {
+		this.redisClient.shutdown();
+	}
+
+	/**
+	 * serves {@link #get(byte[])} from a cache kept up to date by the server,
+	 * see {@link ClientSideCache}. requires redis 6 or later.
+	 * @param maximumSize number of keys kept.
+	 */
+	public void enableTracking(int maximumSize) {
+		if (this.cache == null) {
+			this.cache = new ClientSideCache<byte[], byte[]>(this.connection, maximumSize);
+		}
+	}
+
+	/**
+	 * @return the cache of this client, null if tracking is not enabled.
+	 */
+	public ClientSideCache<byte[], byte[]> getCache() {
+		return this.cache;
+	}
+
+	@Override
+	public ListenableFuture<String> ping() {
+		return adapt(connection.ping());
+	}
+
+	/**
+	 * sends the commands issued by the runnable on this client with a single
+	 * flush, see {@link RedisAsyncConnection#dispatchBatch(Runnable)}.
+	 */
+	public void batch(Runnable commands) {
+		this.connection.dispatchBatch(commands);
+	}
+
+	@Override
+	public ListenableFuture<String> info(String section) {
+		return adapt(connection.info(section));
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> mget(byte[]... keys) {
+		return adapt(connection.mget(keys));
+	}
+
+	@Override
+	public ListenableFuture<String> set(byte[] key, byte[] value) {
+		return adapt(connection.set(key, value));
+	}
+
+	@Override
+	public ListenableFuture<byte[]> get(byte[] key) {
+		ClientSideCache<byte[], byte[]> cache = this.cache;
+		return adapt(cache != null ? cache.get(key) : connection.get(key));
+	}
+
+	@Override
+	public ListenableFuture<Boolean> exists(byte[] key) {
+		return adapt(connection.exists(key));
+	}
+
+	@Override
+	public ListenableFuture<Long> persist(byte[] key) {
+		return Futures.transform(adapt(connection.persist(key)), BOOLEAN_TO_LONG);
+	}
+
+	@Override
+	public ListenableFuture<String> type(byte[] key) {
+		return adapt(connection.type(key));
+	}
+
+	@Override
+	public ListenableFuture<Long> expire(byte[] key, int seconds) {
+		return Futures.transform(adapt(connection.expire(key, seconds)), BOOLEAN_TO_LONG);
+	}
+
+	@Override
+	public ListenableFuture<Long> expireAt(byte[] key, long unixTime) {
+		return Futures.transform(adapt(connection.expireat(key, unixTime)), BOOLEAN_TO_LONG);
+	}
+
+	@Override
+	public ListenableFuture<Long> ttl(byte[] key) {
+		return adapt(connection.ttl(key));
+	}
+
+	@Override
+	public ListenableFuture<Boolean> setbit(byte[] key, long offset, boolean value) {
+		return Futures.transform(adapt(connection.setbit(key, offset, value ? 1 : 0)), LONG_TO_BOOLEAN);
+	}
+
+	@Override
+	public ListenableFuture<Boolean> setbit(byte[] key, long offset, byte[] value) {
+		return Futures.transform(adapt(connection.dispatch(SETBIT, new IntegerOutput<byte[], byte[]>(codec), args(key).add(offset).addValue(value))), LONG_TO_BOOLEAN);
+	}
+
+	@Override
+	public ListenableFuture<Boolean> getbit(byte[] key, long offset) {
+		return Futures.transform(adapt(connection.getbit(key, offset)), LONG_TO_BOOLEAN);
+	}
+
+	@Override
+	public ListenableFuture<Long> setrange(byte[] key, long offset, byte[] value) {
+		return adapt(connection.setrange(key, offset, value));
+	}
+
+	@Override
+	public ListenableFuture<byte[]> getrange(byte[] key, long startOffset, long endOffset) {
+		return adapt(connection.getrange(key, startOffset, endOffset));
+	}
+
+	@Override
+	public ListenableFuture<byte[]> getSet(byte[] key, byte[] value) {
+		return adapt(connection.getset(key, value));
+	}
+
+	@Override
+	public ListenableFuture<Long> setnx(byte[] key, byte[] value) {
+		return Futures.transform(adapt(connection.setnx(key, value)), BOOLEAN_TO_LONG);
+	}
+
+	@Override
+	public ListenableFuture<String> setex(byte[] key, int seconds, byte[] value) {
+		return adapt(connection.setex(key, seconds, value));
+	}
+
+	@Override
+	public ListenableFuture<Long> decrBy(byte[] key, long integer) {
+		return adapt(connection.decrby(key, integer));
+	}
+
+	@Override
+	public ListenableFuture<Long> decr(byte[] key) {
+		return adapt(connection.decr(key));
+	}
+
+	@Override
+	public ListenableFuture<Long> incrBy(byte[] key, long integer) {
+		return adapt(connection.incrby(key, integer));
+	}
+
+	@Override
+	public ListenableFuture<Double> incrByFloat(byte[] key, double value) {
+		return Futures.transform(adapt(connection.incrbyfloat(key, String.valueOf(value))), STRING_TO_DOUBLE);
+	}
+
+	@Override
+	public ListenableFuture<Long> incr(byte[] key) {
+		return adapt(connection.incr(key));
+	}
+
+	@Override
+	public ListenableFuture<Long> append(byte[] key, byte[] value) {
+		return adapt(connection.append(key, value));
+	}
+
+	@Override
+	public ListenableFuture<byte[]> substr(byte[] key, int start, int end) {
+		return adapt(connection.getrange(key, start, end));
+	}
+
+	@Override
+	public ListenableFuture<Long> hset(byte[] key, byte[] field, byte[] value) {
+		return Futures.transform(adapt(connection.hset(key, field, value)), BOOLEAN_TO_LONG);
+	}
+
+	@Override
+	public ListenableFuture<byte[]> hget(byte[] key, byte[] field) {
+		return adapt(connection.hget(key, field));
+	}
+
+	@Override
+	public ListenableFuture<Long> hsetnx(byte[] key, byte[] field, byte[] value) {
+		return Futures.transform(adapt(connection.hsetnx(key, field, value)), BOOLEAN_TO_LONG);
+	}
+
+	@Override
+	public ListenableFuture<String> hmset(byte[] key, Map<byte[], byte[]> hash) {
+		return adapt(connection.hmset(key, hash));
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> hmget(byte[] key, byte[]... fields) {
+		return adapt(connection.hmget(key, fields));
+	}
+
+	@Override
+	public ListenableFuture<Long> hincrBy(byte[] key, byte[] field, long value) {
+		return adapt(connection.hincrby(key, field, value));
+	}
+
+	@Override
+	public ListenableFuture<Double> hincrByFloat(byte[] key, byte[] field, double value) {
+		return Futures.transform(adapt(connection.hincrbyfloat(key, field, String.valueOf(value))), STRING_TO_DOUBLE);
+	}
+
+	@Override
+	public ListenableFuture<Boolean> hexists(byte[] key, byte[] field) {
+		return adapt(connection.hexists(key, field));
+	}
+
+	@Override
+	public ListenableFuture<Long> hdel(byte[] key, byte[]... fields) {
+		return adapt(connection.hdel(key, fields));
+	}
+
+	@Override
+	public ListenableFuture<Long> hlen(byte[] key) {
+		return adapt(connection.hlen(key));
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> hkeys(byte[] key) {
+		return adapt(connection.hkeys(key));
+	}
+
+	@Override
+	public ListenableFuture<Collection<byte[]>> hvals(byte[] key) {
+		return Futures.transform(adapt(connection.hvals(key)), LIST_TO_COLLECTION);
+	}
+
+	@Override
+	public ListenableFuture<Map<byte[], byte[]>> hgetAll(byte[] key) {
+		return Futures.transform(adapt(connection.hgetall(key)), TO_BYTE_MAP);
+	}
+
+	@Override
+	public ListenableFuture<Long> rpush(byte[] key, byte[]... values) {
+		return adapt(connection.rpush(key, values));
+	}
+
+	@Override
+	public ListenableFuture<Long> lpush(byte[] key, byte[]... values) {
+		return adapt(connection.lpush(key, values));
+	}
+
+	@Override
+	public ListenableFuture<Long> llen(byte[] key) {
+		return adapt(connection.llen(key));
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> lrange(byte[] key, long start, long end) {
+		return adapt(connection.lrange(key, start, end));
+	}
+
+	@Override
+	public ListenableFuture<String> ltrim(byte[] key, long start, long end) {
+		return adapt(connection.ltrim(key, start, end));
+	}
+
+	@Override
+	public ListenableFuture<byte[]> lindex(byte[] key, long index) {
+		return adapt(connection.lindex(key, index));
+	}
+
+	@Override
+	public ListenableFuture<String> lset(byte[] key, long index, byte[] value) {
+		return adapt(connection.lset(key, index, value));
+	}
+
+	@Override
+	public ListenableFuture<Long> lrem(byte[] key, long count, byte[] value) {
+		return adapt(connection.lrem(key, count, value));
+	}
+
+	@Override
+	public ListenableFuture<byte[]> lpop(byte[] key) {
+		return adapt(connection.lpop(key));
+	}
+
+	@Override
+	public ListenableFuture<byte[]> rpop(byte[] key) {
+		return adapt(connection.rpop(key));
+	}
+
+	@Override
+	public ListenableFuture<Long> sadd(byte[] key, byte[]... members) {
+		return adapt(connection.sadd(key, members));
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> smembers(byte[] key) {
+		return adapt(connection.smembers(key));
+	}
+
+	@Override
+	public ListenableFuture<Long> srem(byte[] key, byte[]... members) {
+		return adapt(connection.srem(key, members));
+	}
+
+	@Override
+	public ListenableFuture<byte[]> spop(byte[] key) {
+		return adapt(connection.spop(key));
+	}
+
+	@Override
+	public ListenableFuture<Long> scard(byte[] key) {
+		return adapt(connection.scard(key));
+	}
+
+	@Override
+	public ListenableFuture<Boolean> sismember(byte[] key, byte[] member) {
+		return adapt(connection.sismember(key, member));
+	}
+
+	@Override
+	public ListenableFuture<byte[]> srandmember(byte[] key) {
+		return adapt(connection.srandmember(key));
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> srandmember(byte[] key, int count) {
+		return Futures.transform(adapt(connection.srandmember(key, count)), SET_TO_LIST);
+	}
+
+	@Override
+	public ListenableFuture<Long> strlen(byte[] key) {
+		return adapt(connection.strlen(key));
+	}
+
+	@Override
+	public ListenableFuture<Long> zadd(byte[] key, double score, byte[] member) {
+		return adapt(connection.zadd(key, score, member));
+	}
+
+	@Override
+	public ListenableFuture<Long> zadd(byte[] key, Map<byte[], Double> scoreMembers) {
+		return adapt(connection.zadd(key, scoresAndValues(scoreMembers)));
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrange(byte[] key, long start, long end) {
+		return Futures.transform(adapt(connection.zrange(key, start, end)), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Long> zrem(byte[] key, byte[]... members) {
+		return adapt(connection.zrem(key, members));
+	}
+
+	@Override
+	public ListenableFuture<Double> zincrby(byte[] key, double score, byte[] member) {
+		return adapt(connection.zincrby(key, score, member));
+	}
+
+	@Override
+	public ListenableFuture<Long> zrank(byte[] key, byte[] member) {
+		return adapt(connection.zrank(key, member));
+	}
+
+	@Override
+	public ListenableFuture<Long> zrevrank(byte[] key, byte[] member) {
+		return adapt(connection.zrevrank(key, member));
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrevrange(byte[] key, long start, long end) {
+		return Futures.transform(adapt(connection.zrevrange(key, start, end)), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrangeWithScores(byte[] key, long start, long end) {
+		return Futures.transform(adapt(connection.zrangeWithScores(key, start, end)), TO_TUPLES);
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrevrangeWithScores(byte[] key, long start, long end) {
+		return Futures.transform(adapt(connection.zrevrangeWithScores(key, start, end)), TO_TUPLES);
+	}
+
+	@Override
+	public ListenableFuture<Long> zcard(byte[] key) {
+		return adapt(connection.zcard(key));
+	}
+
+	@Override
+	public ListenableFuture<Double> zscore(byte[] key, byte[] member) {
+		return adapt(connection.zscore(key, member));
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> sort(byte[] key) {
+		return adapt(connection.sort(key));
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> sort(byte[] key, SortingParams sortingParameters) {
+		return adapt(connection.dispatch(SORT, new ValueListOutput<byte[], byte[]>(codec), args(key, sortingParameters.getParams())));
+	}
+
+	@Override
+	public ListenableFuture<Long> zcount(byte[] key, double min, double max) {
+		return adapt(connection.zcount(key, min, max));
+	}
+
+	@Override
+	public ListenableFuture<Long> zcount(byte[] key, byte[] min, byte[] max) {
+		return adapt(connection.zcount(key, string(min), string(max)));
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByScore(byte[] key, double min, double max) {
+		return Futures.transform(adapt(connection.zrangebyscore(key, min, max)), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByScore(byte[] key, byte[] min, byte[] max) {
+		return Futures.transform(adapt(connection.zrangebyscore(key, string(min), string(max))), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(byte[] key, double max, double min) {
+		return Futures.transform(adapt(connection.zrevrangebyscore(key, max, min)), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByScore(byte[] key, double min, double max, int offset, int count) {
+		return Futures.transform(adapt(connection.zrangebyscore(key, min, max, offset, count)), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(byte[] key, byte[] max, byte[] min) {
+		return Futures.transform(adapt(connection.zrevrangebyscore(key, string(max), string(min))), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByScore(byte[] key, byte[] min, byte[] max, int offset, int count) {
+		return Futures.transform(adapt(connection.zrangebyscore(key, string(min), string(max), offset, count)), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(byte[] key, double max, double min, int offset, int count) {
+		return Futures.transform(adapt(connection.zrevrangebyscore(key, max, min, offset, count)), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(byte[] key, double min, double max) {
+		return Futures.transform(adapt(connection.zrangebyscoreWithScores(key, min, max)), TO_TUPLES);
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(byte[] key, double max, double min) {
+		return Futures.transform(adapt(connection.zrevrangebyscoreWithScores(key, max, min)), TO_TUPLES);
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(byte[] key, double min, double max, int offset, int count) {
+		return Futures.transform(adapt(connection.zrangebyscoreWithScores(key, min, max, offset, count)), TO_TUPLES);
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrevrangeByScore(byte[] key, byte[] max, byte[] min, int offset, int count) {
+		return Futures.transform(adapt(connection.zrevrangebyscore(key, string(max), string(min), offset, count)), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(byte[] key, byte[] min, byte[] max) {
+		return Futures.transform(adapt(connection.zrangebyscoreWithScores(key, string(min), string(max))), TO_TUPLES);
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(byte[] key, byte[] max, byte[] min) {
+		return Futures.transform(adapt(connection.zrevrangebyscoreWithScores(key, string(max), string(min))), TO_TUPLES);
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrangeByScoreWithScores(byte[] key, byte[] min, byte[] max, int offset, int count) {
+		return Futures.transform(adapt(connection.zrangebyscoreWithScores(key, string(min), string(max), offset, count)), TO_TUPLES);
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(byte[] key, double max, double min, int offset, int count) {
+		return Futures.transform(adapt(connection.zrevrangebyscoreWithScores(key, max, min, offset, count)), TO_TUPLES);
+	}
+
+	@Override
+	public ListenableFuture<Set<Tuple>> zrevrangeByScoreWithScores(byte[] key, byte[] max, byte[] min, int offset, int count) {
+		return Futures.transform(adapt(connection.zrevrangebyscoreWithScores(key, string(max), string(min), offset, count)), TO_TUPLES);
+	}
+
+	@Override
+	public ListenableFuture<Long> zremrangeByRank(byte[] key, long start, long end) {
+		return adapt(connection.zremrangebyrank(key, start, end));
+	}
+
+	@Override
+	public ListenableFuture<Long> zremrangeByScore(byte[] key, double start, double end) {
+		return adapt(connection.zremrangebyscore(key, start, end));
+	}
+
+	@Override
+	public ListenableFuture<Long> zremrangeByScore(byte[] key, byte[] start, byte[] end) {
+		return adapt(connection.zremrangebyscore(key, string(start), string(end)));
+	}
+
+	@Override
+	public ListenableFuture<Long> zlexcount(byte[] key, byte[] min, byte[] max) {
+		return adapt(connection.dispatch(ZLEXCOUNT, new IntegerOutput<byte[], byte[]>(codec), args(key).add(min).add(max)));
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByLex(byte[] key, byte[] min, byte[] max) {
+		return Futures.transform(adapt(connection.dispatch(ZRANGEBYLEX, new ValueListOutput<byte[], byte[]>(codec), args(key).add(min).add(max))), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Set<byte[]>> zrangeByLex(byte[] key, byte[] min, byte[] max, int offset, int count) {
+		return Futures.transform(adapt(connection.dispatch(ZRANGEBYLEX, new ValueListOutput<byte[], byte[]>(codec), args(key).add(min).add(max).add(LIMIT).add(offset).add(count))), LIST_TO_SET);
+	}
+
+	@Override
+	public ListenableFuture<Long> zremrangeByLex(byte[] key, byte[] min, byte[] max) {
+		return adapt(connection.dispatch(ZREMRANGEBYLEX, new IntegerOutput<byte[], byte[]>(codec), args(key).add(min).add(max)));
+	}
+
+	@Override
+	public ListenableFuture<Long> linsert(byte[] key, LIST_POSITION where, byte[] pivot, byte[] value) {
+		return adapt(connection.linsert(key, where == LIST_POSITION.BEFORE, pivot, value));
+	}
+
+	@Override
+	public ListenableFuture<Long> lpushx(byte[] key, byte[]... values) {
+		return adapt(connection.dispatch(LPUSHX, new IntegerOutput<byte[], byte[]>(codec), key, values));
+	}
+
+	@Override
+	public ListenableFuture<Long> rpushx(byte[] key, byte[]... values) {
+		return adapt(connection.dispatch(RPUSHX, new IntegerOutput<byte[], byte[]>(codec), key, values));
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> blpop(byte[] arg) {
+		throw new UnsupportedOperationException(BLOCKING_UNSUPPORTED);
+	}
+
+	@Override
+	public ListenableFuture<List<byte[]>> brpop(byte[] arg) {
+		throw new UnsupportedOperationException(BLOCKING_UNSUPPORTED);
+	}
+
+	@Override
+	public ListenableFuture<Long> del(byte[] key) {
+		return adapt(connection.del(key));
+	}
+
+	@Override
+	public ListenableFuture<byte[]> echo(byte[] arg) {
+		return adapt(connection.echo(arg));
+	}
+
+	@Override
+	public ListenableFuture<Long> move(byte[] key, int dbIndex) {
+		return Futures.transform(adapt(connection.move(key, dbIndex)), BOOLEAN_TO_LONG);
+	}
+
+	@Override
+	public ListenableFuture<Long> bitcount(byte[] key) {
+		return adapt(connection.bitcount(key));
+	}
+
+	@Override
+	public ListenableFuture<Long> bitcount(byte[] key, long start, long end) {
+		return adapt(connection.bitcount(key, start, end));
+	}
+
+	@Override
+	public ListenableFuture<Long> pfadd(byte[] key, byte[]... elements) {
+		return adapt(connection.pfadd(key, elements));
+	}
+
+	@Override
+	public ListenableFuture<Long> pfcount(byte[] key) {
+		return adapt(connection.pfcount(key));
+	}
+
+	private CommandArgs<byte[], byte[]> args(byte[] key) {
+		return new CommandArgs<byte[], byte[]>(codec).addKey(key);
+	}
+
+	private CommandArgs<byte[], byte[]> args(byte[] key, Collection<byte[]> params) {
+		CommandArgs<byte[], byte[]> args = args(key);
+		for (byte[] param : params) {
+			args.add(param);
+		}
+		return args;
+	}
+
+	private static Object[] scoresAndValues(Map<byte[], Double> scoreMembers) {
+		Object[] scoresAndValues = new Object[scoreMembers.size() * 2];
+		int i = 0;
+		for (Map.Entry<byte[], Double> entry : scoreMembers.entrySet()) {
+			scoresAndValues[i++] = entry.getValue();
+			scoresAndValues[i++] = entry.getKey();
+		}
+		return scoresAndValues;
+	}
+
+	private static String string(byte[] bytes) {
+		return SafeEncoder.encode(bytes);
+	}
+
+	/**
+	 * bridges the netty future of a dispatched command to a guava one.
+	 */
+	static <T> ListenableFuture<T> adapt(Future<T> future) {
+		final SettableFuture<T> result = SettableFuture.create();
+		future.addListener(new FutureListener<T>() {
+			@Override
+			public void operationComplete(Future<T> future) throws Exception {
+				if (future.isSuccess()) {
+					result.set(future.getNow());
+				} else {
+					result.setException(future.cause());
+				}
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "NettyAsyncRedisClient(" + this.hostConfiguration + ")";
+	}
+}
@@ -0,0 +1,636 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.HostConfiguration;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lombok.Getter;
+import redis.clients.jedis.BinaryClient.LIST_POSITION;
+import redis.clients.jedis.SortingParams;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.lambdaworks.redis.RedisCommandInterruptedException;
+import com.lambdaworks.redis.RedisConnectionClosedException;
+import com.lambdaworks.redis.RedisConnectionException;
+import com.lambdaworks.redis.RedisException;
+import com.lambdaworks.redis.RedisTimeoutException;
+
+/**
+ * blocking {@link RedisClient} on top of a {@link NettyAsyncRedisClient}. unlike
+ * {@link GenericRedisClient} it is thread-safe, any number of threads share the
+ * one multiplexed connection of the node. errors are reported with the jedis
+ * exception types so the HA layer handles both clients alike.
+ * 
+ * @author kriswang
+ *
+ */
+public class NettyRedisClient implements RedisClient {
+
+	@Getter
+	private final NettyAsyncRedisClient async;
+
+	private final long timeout;
+
+	public NettyRedisClient(NettyAsyncRedisClient async) {
+		this.async = async;
+		this.timeout = async.getHostConfiguration().getTimeout();
+	}
+
+	public HostConfiguration getHostConfiguration() {
+		return this.async.getHostConfiguration();
+	}
+
+	@Override
+	public String quit() {
+		this.async.close();
+		return "OK";
+	}
+
+	@Override
+	public String ping() {
+		return await(this.async.ping());
+	}
+
+	@Override
+	public String info(String section) {
+		return await(this.async.info(section));
+	}
+
+	@Override
+	public List<byte[]> mget(byte[]... keys) {
+		return await(this.async.mget(keys));
+	}
+
+	@Override
+	public String set(byte[] key, byte[] value) {
+		return await(this.async.set(key, value));
+	}
+
+	@Override
+	public byte[] get(byte[] key) {
+		return await(this.async.get(key));
+	}
+
+	@Override
+	public Boolean exists(byte[] key) {
+		return await(this.async.exists(key));
+	}
+
+	@Override
+	public Long persist(byte[] key) {
+		return await(this.async.persist(key));
+	}
+
+	@Override
+	public String type(byte[] key) {
+		return await(this.async.type(key));
+	}
+
+	@Override
+	public Long expire(byte[] key, int seconds) {
+		return await(this.async.expire(key, seconds));
+	}
+
+	@Override
+	public Long expireAt(byte[] key, long unixTime) {
+		return await(this.async.expireAt(key, unixTime));
+	}
+
+	@Override
+	public Long ttl(byte[] key) {
+		return await(this.async.ttl(key));
+	}
+
+	@Override
+	public Boolean setbit(byte[] key, long offset, boolean value) {
+		return await(this.async.setbit(key, offset, value));
+	}
+
+	@Override
+	public Boolean setbit(byte[] key, long offset, byte[] value) {
+		return await(this.async.setbit(key, offset, value));
+	}
+
+	@Override
+	public Boolean getbit(byte[] key, long offset) {
+		return await(this.async.getbit(key, offset));
+	}
+
+	@Override
+	public Long setrange(byte[] key, long offset, byte[] value) {
+		return await(this.async.setrange(key, offset, value));
+	}
+
+	@Override
+	public byte[] getrange(byte[] key, long startOffset, long endOffset) {
+		return await(this.async.getrange(key, startOffset, endOffset));
+	}
+
+	@Override
+	public byte[] getSet(byte[] key, byte[] value) {
+		return await(this.async.getSet(key, value));
+	}
+
+	@Override
+	public Long setnx(byte[] key, byte[] value) {
+		return await(this.async.setnx(key, value));
+	}
+
+	@Override
+	public String setex(byte[] key, int seconds, byte[] value) {
+		return await(this.async.setex(key, seconds, value));
+	}
+
+	@Override
+	public Long decrBy(byte[] key, long integer) {
+		return await(this.async.decrBy(key, integer));
+	}
+
+	@Override
+	public Long decr(byte[] key) {
+		return await(this.async.decr(key));
+	}
+
+	@Override
+	public Long incrBy(byte[] key, long integer) {
+		return await(this.async.incrBy(key, integer));
+	}
+
+	@Override
+	public Double incrByFloat(byte[] key, double value) {
+		return await(this.async.incrByFloat(key, value));
+	}
+
+	@Override
+	public Long incr(byte[] key) {
+		return await(this.async.incr(key));
+	}
+
+	@Override
+	public Long append(byte[] key, byte[] value) {
+		return await(this.async.append(key, value));
+	}
+
+	@Override
+	public byte[] substr(byte[] key, int start, int end) {
+		return await(this.async.substr(key, start, end));
+	}
+
+	@Override
+	public Long hset(byte[] key, byte[] field, byte[] value) {
+		return await(this.async.hset(key, field, value));
+	}
+
+	@Override
+	public byte[] hget(byte[] key, byte[] field) {
+		return await(this.async.hget(key, field));
+	}
+
+	@Override
+	public Long hsetnx(byte[] key, byte[] field, byte[] value) {
+		return await(this.async.hsetnx(key, field, value));
+	}
+
+	@Override
+	public String hmset(byte[] key, Map<byte[], byte[]> hash) {
+		return await(this.async.hmset(key, hash));
+	}
+
+	@Override
+	public List<byte[]> hmget(byte[] key, byte[]... fields) {
+		return await(this.async.hmget(key, fields));
+	}
+
+	@Override
+	public Long hincrBy(byte[] key, byte[] field, long value) {
+		return await(this.async.hincrBy(key, field, value));
+	}
+
+	@Override
+	public Double hincrByFloat(byte[] key, byte[] field, double value) {
+		return await(this.async.hincrByFloat(key, field, value));
+	}
+
+	@Override
+	public Boolean hexists(byte[] key, byte[] field) {
+		return await(this.async.hexists(key, field));
+	}
+
+	@Override
+	public Long hdel(byte[] key, byte[]... fields) {
+		return await(this.async.hdel(key, fields));
+	}
+
+	@Override
+	public Long hlen(byte[] key) {
+		return await(this.async.hlen(key));
+	}
+
+	@Override
+	public Set<byte[]> hkeys(byte[] key) {
+		return await(this.async.hkeys(key));
+	}
+
+	@Override
+	public Collection<byte[]> hvals(byte[] key) {
+		return await(this.async.hvals(key));
+	}
+
+	@Override
+	public Map<byte[], byte[]> hgetAll(byte[] key) {
+		return await(this.async.hgetAll(key));
+	}
+
+	@Override
+	public Long rpush(byte[] key, byte[]... values) {
+		return await(this.async.rpush(key, values));
+	}
+
+	@Override
+	public Long lpush(byte[] key, byte[]... values) {
+		return await(this.async.lpush(key, values));
+	}
+
+	@Override
+	public Long llen(byte[] key) {
+		return await(this.async.llen(key));
+	}
+
+	@Override
+	public List<byte[]> lrange(byte[] key, long start, long end) {
+		return await(this.async.lrange(key, start, end));
+	}
+
+	@Override
+	public String ltrim(byte[] key, long start, long end) {
+		return await(this.async.ltrim(key, start, end));
+	}
+
+	@Override
+	public byte[] lindex(byte[] key, long index) {
+		return await(this.async.lindex(key, index));
+	}
+
+	@Override
+	public String lset(byte[] key, long index, byte[] value) {
+		return await(this.async.lset(key, index, value));
+	}
+
+	@Override
+	public Long lrem(byte[] key, long count, byte[] value) {
+		return await(this.async.lrem(key, count, value));
+	}
+
+	@Override
+	public byte[] lpop(byte[] key) {
+		return await(this.async.lpop(key));
+	}
+
+	@Override
+	public byte[] rpop(byte[] key) {
+		return await(this.async.rpop(key));
+	}
+
+	@Override
+	public Long sadd(byte[] key, byte[]... members) {
+		return await(this.async.sadd(key, members));
+	}
+
+	@Override
+	public Set<byte[]> smembers(byte[] key) {
+		return await(this.async.smembers(key));
+	}
+
+	@Override
+	public Long srem(byte[] key, byte[]... members) {
+		return await(this.async.srem(key, members));
+	}
+
+	@Override
+	public byte[] spop(byte[] key) {
+		return await(this.async.spop(key));
+	}
+
+	@Override
+	public Long scard(byte[] key) {
+		return await(this.async.scard(key));
+	}
+
+	@Override
+	public Boolean sismember(byte[] key, byte[] member) {
+		return await(this.async.sismember(key, member));
+	}
+
+	@Override
+	public byte[] srandmember(byte[] key) {
+		return await(this.async.srandmember(key));
+	}
+
+	@Override
+	public List<byte[]> srandmember(byte[] key, int count) {
+		return await(this.async.srandmember(key, count));
+	}
+
+	@Override
+	public Long strlen(byte[] key) {
+		return await(this.async.strlen(key));
+	}
+
+	@Override
+	public Long zadd(byte[] key, double score, byte[] member) {
+		return await(this.async.zadd(key, score, member));
+	}
+
+	@Override
+	public Long zadd(byte[] key, Map<byte[], Double> scoreMembers) {
+		return await(this.async.zadd(key, scoreMembers));
+	}
+
+	@Override
+	public Set<byte[]> zrange(byte[] key, long start, long end) {
+		return await(this.async.zrange(key, start, end));
+	}
+
+	@Override
+	public Long zrem(byte[] key, byte[]... members) {
+		return await(this.async.zrem(key, members));
+	}
+
+	@Override
+	public Double zincrby(byte[] key, double score, byte[] member) {
+		return await(this.async.zincrby(key, score, member));
+	}
+
+	@Override
+	public Long zrank(byte[] key, byte[] member) {
+		return await(this.async.zrank(key, member));
+	}
+
+	@Override
+	public Long zrevrank(byte[] key, byte[] member) {
+		return await(this.async.zrevrank(key, member));
+	}
+
+	@Override
+	public Set<byte[]> zrevrange(byte[] key, long start, long end) {
+		return await(this.async.zrevrange(key, start, end));
+	}
+
+	@Override
+	public Set<Tuple> zrangeWithScores(byte[] key, long start, long end) {
+		return await(this.async.zrangeWithScores(key, start, end));
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeWithScores(byte[] key, long start, long end) {
+		return await(this.async.zrevrangeWithScores(key, start, end));
+	}
+
+	@Override
+	public Long zcard(byte[] key) {
+		return await(this.async.zcard(key));
+	}
+
+	@Override
+	public Double zscore(byte[] key, byte[] member) {
+		return await(this.async.zscore(key, member));
+	}
+
+	@Override
+	public List<byte[]> sort(byte[] key) {
+		return await(this.async.sort(key));
+	}
+
+	@Override
+	public List<byte[]> sort(byte[] key, SortingParams sortingParameters) {
+		return await(this.async.sort(key, sortingParameters));
+	}
+
+	@Override
+	public Long zcount(byte[] key, double min, double max) {
+		return await(this.async.zcount(key, min, max));
+	}
+
+	@Override
+	public Long zcount(byte[] key, byte[] min, byte[] max) {
+		return await(this.async.zcount(key, min, max));
+	}
+
+	@Override
+	public Set<byte[]> zrangeByScore(byte[] key, double min, double max) {
+		return await(this.async.zrangeByScore(key, min, max));
+	}
+
+	@Override
+	public Set<byte[]> zrangeByScore(byte[] key, byte[] min, byte[] max) {
+		return await(this.async.zrangeByScore(key, min, max));
+	}
+
+	@Override
+	public Set<byte[]> zrevrangeByScore(byte[] key, double max, double min) {
+		return await(this.async.zrevrangeByScore(key, max, min));
+	}
+
+	@Override
+	public Set<byte[]> zrangeByScore(byte[] key, double min, double max, int offset, int count) {
+		return await(this.async.zrangeByScore(key, min, max, offset, count));
+	}
+
+	@Override
+	public Set<byte[]> zrevrangeByScore(byte[] key, byte[] max, byte[] min) {
+		return await(this.async.zrevrangeByScore(key, max, min));
+	}
+
+	@Override
+	public Set<byte[]> zrangeByScore(byte[] key, byte[] min, byte[] max, int offset, int count) {
+		return await(this.async.zrangeByScore(key, min, max, offset, count));
+	}
+
+	@Override
+	public Set<byte[]> zrevrangeByScore(byte[] key, double max, double min, int offset, int count) {
+		return await(this.async.zrevrangeByScore(key, max, min, offset, count));
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(byte[] key, double min, double max) {
+		return await(this.async.zrangeByScoreWithScores(key, min, max));
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(byte[] key, double max, double min) {
+		return await(this.async.zrevrangeByScoreWithScores(key, max, min));
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(byte[] key, double min, double max, int offset, int count) {
+		return await(this.async.zrangeByScoreWithScores(key, min, max, offset, count));
+	}
+
+	@Override
+	public Set<byte[]> zrevrangeByScore(byte[] key, byte[] max, byte[] min, int offset, int count) {
+		return await(this.async.zrevrangeByScore(key, max, min, offset, count));
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(byte[] key, byte[] min, byte[] max) {
+		return await(this.async.zrangeByScoreWithScores(key, min, max));
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(byte[] key, byte[] max, byte[] min) {
+		return await(this.async.zrevrangeByScoreWithScores(key, max, min));
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(byte[] key, byte[] min, byte[] max, int offset, int count) {
+		return await(this.async.zrangeByScoreWithScores(key, min, max, offset, count));
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(byte[] key, double max, double min, int offset, int count) {
+		return await(this.async.zrevrangeByScoreWithScores(key, max, min, offset, count));
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(byte[] key, byte[] max, byte[] min, int offset, int count) {
+		return await(this.async.zrevrangeByScoreWithScores(key, max, min, offset, count));
+	}
+
+	@Override
+	public Long zremrangeByRank(byte[] key, long start, long end) {
+		return await(this.async.zremrangeByRank(key, start, end));
+	}
+
+	@Override
+	public Long zremrangeByScore(byte[] key, double start, double end) {
+		return await(this.async.zremrangeByScore(key, start, end));
+	}
+
+	@Override
+	public Long zremrangeByScore(byte[] key, byte[] start, byte[] end) {
+		return await(this.async.zremrangeByScore(key, start, end));
+	}
+
+	@Override
+	public Long zlexcount(byte[] key, byte[] min, byte[] max) {
+		return await(this.async.zlexcount(key, min, max));
+	}
+
+	@Override
+	public Set<byte[]> zrangeByLex(byte[] key, byte[] min, byte[] max) {
+		return await(this.async.zrangeByLex(key, min, max));
+	}
+
+	@Override
+	public Set<byte[]> zrangeByLex(byte[] key, byte[] min, byte[] max, int offset, int count) {
+		return await(this.async.zrangeByLex(key, min, max, offset, count));
+	}
+
+	@Override
+	public Long zremrangeByLex(byte[] key, byte[] min, byte[] max) {
+		return await(this.async.zremrangeByLex(key, min, max));
+	}
+
+	@Override
+	public Long linsert(byte[] key, LIST_POSITION where, byte[] pivot, byte[] value) {
+		return await(this.async.linsert(key, where, pivot, value));
+	}
+
+	@Override
+	public Long lpushx(byte[] key, byte[]... values) {
+		return await(this.async.lpushx(key, values));
+	}
+
+	@Override
+	public Long rpushx(byte[] key, byte[]... values) {
+		return await(this.async.rpushx(key, values));
+	}
+
+	@Override
+	public List<byte[]> blpop(byte[] arg) {
+		return await(this.async.blpop(arg));
+	}
+
+	@Override
+	public List<byte[]> brpop(byte[] arg) {
+		return await(this.async.brpop(arg));
+	}
+
+	@Override
+	public Long del(byte[] key) {
+		return await(this.async.del(key));
+	}
+
+	@Override
+	public byte[] echo(byte[] arg) {
+		return await(this.async.echo(arg));
+	}
+
+	@Override
+	public Long move(byte[] key, int dbIndex) {
+		return await(this.async.move(key, dbIndex));
+	}
+
+	@Override
+	public Long bitcount(byte[] key) {
+		return await(this.async.bitcount(key));
+	}
+
+	@Override
+	public Long bitcount(byte[] key, long start, long end) {
+		return await(this.async.bitcount(key, start, end));
+	}
+
+	@Override
+	public Long pfadd(byte[] key, byte[]... elements) {
+		return await(this.async.pfadd(key, elements));
+	}
+
+	@Override
+	public long pfcount(byte[] key) {
+		return await(this.async.pfcount(key));
+	}
+
+	private <T> T await(ListenableFuture<T> future) {
+		try {
+			return future.get(this.timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new JedisConnectionException("Timed out waiting for " + this.getHostConfiguration(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JedisConnectionException(e);
+		} catch (ExecutionException e) {
+			throw translate(e.getCause());
+		}
+	}
+
+	static JedisException translate(Throwable cause) {
+		if (cause instanceof JedisException) {
+			return (JedisException) cause;
+		}
+		if (cause instanceof RedisConnectionException || cause instanceof RedisConnectionClosedException
+				|| cause instanceof RedisTimeoutException
+				|| cause instanceof RedisCommandInterruptedException) {
+			return new JedisConnectionException(cause);
+		}
+		if (cause instanceof RedisException) {
+			return new JedisDataException(cause.getMessage(), cause);
+		}
+		return new JedisException(cause);
+	}
+
+	@Override
+	public String toString() {
+		return "NettyRedisClient(" + this.getHostConfiguration() + ")";
+	}
+}
@@ -0,0 +1,75 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.ClientFactory;
+import io.doeasy.redis.config.HostConfiguration;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+/**
+ * creates {@link NettyRedisClient}s, all of them run on the event loop group
+ * of this factory, preferably the one of the {@link ClientResources} shared
+ * with the clients and the sentinel connections. the clients are
+ * thread-safe, use them through a {@link SharedRedisClientPoolFactory}
+ * rather than a pooled one.
+ * 
+ * @author kriswang
+ *
+ */
+public class NettyRedisClientFactory implements ClientFactory<NettyRedisClient> {
+
+	private final EventLoopGroup group;
+	private final boolean ownsGroup;
+	private int trackingCacheSize;
+
+	/**
+	 * creates an event loop group of its own, released by {@link #shutdown()}.
+	 */
+	public NettyRedisClientFactory() {
+		this(new NioEventLoopGroup(), true);
+	}
+
+	/**
+	 * runs the clients on the event loop group of the resources, which are
+	 * not shut down by this factory.
+	 */
+	public NettyRedisClientFactory(ClientResources resources) {
+		this(resources.getEventLoopGroup(), false);
+	}
+
+	public NettyRedisClientFactory(EventLoopGroup group) {
+		this(group, false);
+	}
+
+	private NettyRedisClientFactory(EventLoopGroup group, boolean ownsGroup) {
+		this.group = group;
+		this.ownsGroup = ownsGroup;
+	}
+
+	/**
+	 * enables server assisted caching of GET on the clients created
+	 * afterwards, see {@link NettyAsyncRedisClient#enableTracking(int)}.
+	 * @param maximumSize number of keys cached per node, 0 disables it.
+	 */
+	public void setTrackingCacheSize(int maximumSize) {
+		this.trackingCacheSize = maximumSize;
+	}
+
+	@Override
+	public NettyRedisClient create(HostConfiguration hostConfiguration) {
+		NettyAsyncRedisClient client = new NettyAsyncRedisClient(this.group, hostConfiguration);
+		if (this.trackingCacheSize > 0) {
+			client.enableTracking(this.trackingCacheSize);
+		}
+		return new NettyRedisClient(client);
+	}
+
+	/**
+	 * releases the event loop group if it was created by this factory, call it
+	 * after all clients created by this factory have been closed.
+	 */
+	public void shutdown() {
+		if (this.ownsGroup) {
+			this.group.shutdownGracefully();
+		}
+	}
+}
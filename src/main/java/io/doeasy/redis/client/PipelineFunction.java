@@ -0,0 +1,16 @@
+package io.doeasy.redis.client;
+
+/**
+ * issues the commands of one pipelined batch, see
+ * {@link Client#pipelined(PipelineFunction)}. the futures returned by the
+ * batch are completed once the batch has been sent, waiting on one of them
+ * inside this function never returns.
+ * 
+ * @author kriswang
+ *
+ */
+public interface PipelineFunction {
+
+	public void execute(AsyncRedisClient batch);
+
+}
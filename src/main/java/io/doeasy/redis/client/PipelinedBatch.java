@@ -0,0 +1,166 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.model.ClientType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * records the commands of a {@link PipelineFunction} with the routing of
+ * {@link AsyncClient}, then sends the master-bound and the slave-bound
+ * commands as one pipeline each, over one connection of the master and of
+ * one slave.
+ *
+ * @author kriswang
+ *
+ */
+class PipelinedBatch extends AsyncClient {
+
+	private final List<Command<?>> commands = new ArrayList<Command<?>>();
+
+	PipelinedBatch(Client client) {
+		super(client);
+	}
+
+	@Override
+	<T> ListenableFuture<T> doExecute(ClientType type, AsyncClientFunction<T> function) {
+		Command<T> command = new Command<T>(type, function);
+		this.commands.add(command);
+		return command.result;
+	}
+
+	/**
+	 * @return the reply of every command in the order they were issued, or
+	 * the exception it failed with.
+	 */
+	List<Object> execute() {
+		this.execute(ClientType.MASTER);
+		this.execute(ClientType.SLAVE);
+
+		List<Object> replies = new ArrayList<Object>(this.commands.size());
+		for (Command<?> command : this.commands) {
+			try {
+				replies.add(command.result.get());
+			} catch (ExecutionException e) {
+				replies.add(e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JedisConnectionException(e);
+			}
+		}
+		return replies;
+	}
+
+	private void execute(ClientType type) {
+		final List<Command<?>> group = new ArrayList<Command<?>>();
+		for (Command<?> command : this.commands) {
+			if (command.type == type) {
+				group.add(command);
+			}
+		}
+		if (group.isEmpty()) {
+			return;
+		}
+
+		RedisClientPool pool = this.getClient().select(type);
+		try {
+			this.getClient().execute(pool, new ClientFunction<Void>() {
+				@Override
+				public Void execute(RedisClient client) {
+					send(client, group);
+					return null;
+				}
+			});
+		} catch (RuntimeException e) {
+			for (Command<?> command : group) {
+				command.result.setException(e);
+			}
+		}
+	}
+
+	private static void send(RedisClient client, final List<Command<?>> group) {
+		if (client instanceof NettyRedisClient) {
+			final NettyAsyncRedisClient async = ((NettyRedisClient) client).getAsync();
+			async.batch(new Runnable() {
+				@Override
+				public void run() {
+					for (Command<?> command : group) {
+						command.dispatch(async);
+					}
+				}
+			});
+			await(group, async.getHostConfiguration().getTimeout());
+		} else if (client instanceof Jedis) {
+			JedisPipelineAdapter pipeline = new JedisPipelineAdapter(((Jedis) client).pipelined());
+			AsyncRedisClient async = pipeline.asAsyncClient();
+			for (Command<?> command : group) {
+				command.dispatch(async);
+			}
+			pipeline.sync();
+		} else {
+			throw new UnsupportedOperationException("can not pipeline commands on " + client);
+		}
+	}
+
+	/**
+	 * waits for the replies of the group, a timeout fails the whole group as
+	 * if the connection broke.
+	 */
+	private static void await(List<Command<?>> group, long timeout) {
+		long deadline = System.currentTimeMillis() + timeout;
+		for (Command<?> command : group) {
+			try {
+				command.result.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				throw new JedisConnectionException("Timed out waiting for the pipelined replies", e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JedisConnectionException(e);
+			} catch (ExecutionException e) {
+				//reported by the command
+			}
+		}
+	}
+
+	private static class Command<T> {
+		private final ClientType type;
+		private final AsyncClientFunction<T> function;
+		private final SettableFuture<T> result = SettableFuture.create();
+
+		Command(ClientType type, AsyncClientFunction<T> function) {
+			this.type = type;
+			this.function = function;
+		}
+
+		void dispatch(AsyncRedisClient client) {
+			ListenableFuture<T> reply;
+			try {
+				reply = this.function.execute(client);
+			} catch (RuntimeException e) {
+				reply = Futures.immediateFailedFuture(e);
+			}
+			Futures.addCallback(reply, new FutureCallback<T>() {
+				@Override
+				public void onSuccess(T value) {
+					result.set(value);
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					result.setException(NettyRedisClient.translate(t));
+				}
+			});
+		}
+	}
+}
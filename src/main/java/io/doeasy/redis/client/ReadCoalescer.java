@@ -0,0 +1,312 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.ReadCoalescingConfig;
+import io.doeasy.redis.model.ClientType;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.exceptions.JedisException;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * coalesces the get/hget/exists calls of concurrent threads: the gets of a
+ * batch are sent as one MGET, the hgets of one hash as one HMGET and the
+ * exists as they are, all in one pipeline to one slave (see
+ * {@link Client#pipelined(PipelineFunction)}), and the replies are handed
+ * back to the waiting callers.
+ *
+ * a read issued while no other read is running is sent right away, so a
+ * lightly loaded client does not pay for the window. otherwise the first
+ * read opens a batch and waits up to the window, or until the batch is
+ * full, for other reads to join.
+ *
+ * @author kriswang
+ *
+ */
+class ReadCoalescer {
+
+	private enum Kind {
+		GET(Command.GET), HGET(Command.HGET), EXISTS(Command.EXISTS);
+
+		private final Command command;
+
+		private Kind(Command command) {
+			this.command = command;
+		}
+	}
+
+	private final Client client;
+	private final long window;
+	private final int maxBatchSize;
+	private final AtomicInteger active = new AtomicInteger();
+	private final Object lock = new Object();
+	private Batch open;
+
+	ReadCoalescer(Client client, ReadCoalescingConfig config) {
+		this.client = client;
+		this.window = TimeUnit.MICROSECONDS.toNanos(config.getWindow());
+		this.maxBatchSize = Math.max(1, config.getMaxBatchSize());
+	}
+
+	byte[] get(byte[] key, ClientFunction<byte[]> direct) {
+		return this.read(new Read<byte[]>(Kind.GET, key, null, direct));
+	}
+
+	byte[] hget(byte[] key, byte[] field, ClientFunction<byte[]> direct) {
+		return this.read(new Read<byte[]>(Kind.HGET, key, field, direct));
+	}
+
+	Boolean exists(byte[] key, ClientFunction<Boolean> direct) {
+		return this.read(new Read<Boolean>(Kind.EXISTS, key, null, direct));
+	}
+
+	private <T> T read(Read<T> read) {
+		try {
+			if (this.active.incrementAndGet() == 1) {
+				//nothing to coalesce with
+				return this.client.doExecute(ClientType.SLAVE, read.kind.command, read.direct);
+			}
+
+			long start = System.nanoTime();
+			try {
+				return this.coalesce(read);
+			} catch (RuntimeException e) {
+				this.client.getMetrics().failed(ClientType.SLAVE, read.kind.command, e);
+				throw e;
+			} finally {
+				this.client.getMetrics().completed(ClientType.SLAVE, read.kind.command, System.nanoTime() - start);
+			}
+		} finally {
+			this.active.decrementAndGet();
+		}
+	}
+
+	/**
+	 * adds the read to the open batch, or opens one and sends it at the end
+	 * of the window.
+	 */
+	private <T> T coalesce(Read<T> read) {
+		Batch batch;
+		boolean leader = false;
+		synchronized (this.lock) {
+			if (this.open == null) {
+				this.open = new Batch(Thread.currentThread());
+				leader = true;
+			}
+			batch = this.open;
+			batch.reads.add(read);
+			if (batch.reads.size() >= this.maxBatchSize) {
+				this.open = null;
+				batch.full = true;
+			}
+		}
+
+		if (leader) {
+			long deadline = System.nanoTime() + this.window;
+			long remaining;
+			while (!batch.full && (remaining = deadline - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(this, remaining);
+			}
+			synchronized (this.lock) {
+				if (this.open == batch) {
+					this.open = null;
+				}
+			}
+			batch.execute(this.client);
+		} else if (batch.full) {
+			LockSupport.unpark(batch.leader);
+		}
+		return read.await();
+	}
+
+	private static class Batch {
+		private final Thread leader;
+		private final List<Read<?>> reads = new ArrayList<Read<?>>();
+		private volatile boolean full;
+
+		Batch(Thread leader) {
+			this.leader = leader;
+		}
+
+		/**
+		 * runs once the batch is closed, no read is added anymore.
+		 */
+		void execute(Client client) {
+			try {
+				if (this.reads.size() == 1) {
+					this.reads.get(0).execute(client);
+				} else {
+					this.pipeline(client);
+				}
+			} catch (RuntimeException e) {
+				for (Read<?> read : this.reads) {
+					read.fail(e);
+				}
+			}
+		}
+
+		private void pipeline(Client client) {
+			final Map<ByteBuffer, List<Read<?>>> gets = new LinkedHashMap<ByteBuffer, List<Read<?>>>();
+			final Map<ByteBuffer, Map<ByteBuffer, List<Read<?>>>> hgets = new LinkedHashMap<ByteBuffer, Map<ByteBuffer, List<Read<?>>>>();
+			final Map<ByteBuffer, List<Read<?>>> exists = new LinkedHashMap<ByteBuffer, List<Read<?>>>();
+			for (Read<?> read : this.reads) {
+				switch (read.kind) {
+				case GET:
+					group(gets, read.key).add(read);
+					break;
+				case HGET:
+					Map<ByteBuffer, List<Read<?>>> fields = hgets.get(ByteBuffer.wrap(read.key));
+					if (fields == null) {
+						fields = new LinkedHashMap<ByteBuffer, List<Read<?>>>();
+						hgets.put(ByteBuffer.wrap(read.key), fields);
+					}
+					group(fields, read.field).add(read);
+					break;
+				default:
+					group(exists, read.key).add(read);
+				}
+			}
+
+			final List<ListenableFuture<List<byte[]>>> mget = new ArrayList<ListenableFuture<List<byte[]>>>(1);
+			final Map<ByteBuffer, ListenableFuture<List<byte[]>>> hmgets = new LinkedHashMap<ByteBuffer, ListenableFuture<List<byte[]>>>();
+			final Map<ByteBuffer, ListenableFuture<Boolean>> existsReplies = new LinkedHashMap<ByteBuffer, ListenableFuture<Boolean>>();
+			client.pipelined(new PipelineFunction() {
+				@Override
+				public void execute(AsyncRedisClient batch) {
+					if (!gets.isEmpty()) {
+						mget.add(batch.mget(keys(gets.keySet())));
+					}
+					for (Map.Entry<ByteBuffer, Map<ByteBuffer, List<Read<?>>>> hash : hgets.entrySet()) {
+						hmgets.put(hash.getKey(), batch.hmget(hash.getKey().array(), keys(hash.getValue().keySet())));
+					}
+					for (ByteBuffer key : exists.keySet()) {
+						existsReplies.put(key, batch.exists(key.array()));
+					}
+				}
+			});
+
+			if (!gets.isEmpty()) {
+				complete(gets, mget.get(0));
+			}
+			for (Map.Entry<ByteBuffer, Map<ByteBuffer, List<Read<?>>>> hash : hgets.entrySet()) {
+				complete(hash.getValue(), hmgets.get(hash.getKey()));
+			}
+			for (Map.Entry<ByteBuffer, List<Read<?>>> key : exists.entrySet()) {
+				Object reply = reply(existsReplies.get(key.getKey()));
+				for (Read<?> read : key.getValue()) {
+					read.complete(reply);
+				}
+			}
+		}
+
+		/**
+		 * hands the values of a MGET/HMGET to the reads of the keys, in order.
+		 */
+		private static void complete(Map<ByteBuffer, List<Read<?>>> keys, ListenableFuture<List<byte[]>> future) {
+			Object reply = reply(future);
+			int index = 0;
+			for (List<Read<?>> reads : keys.values()) {
+				Object value = reply instanceof List ? ((List<?>) reply).get(index++) : reply;
+				for (Read<?> read : reads) {
+					read.complete(value);
+				}
+			}
+		}
+
+		/**
+		 * @return the value of the completed future, or the exception it
+		 * failed with.
+		 */
+		private static Object reply(ListenableFuture<?> future) {
+			try {
+				return future.get();
+			} catch (ExecutionException e) {
+				return e.getCause();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return new JedisException(e);
+			}
+		}
+
+		private static List<Read<?>> group(Map<ByteBuffer, List<Read<?>>> groups, byte[] key) {
+			ByteBuffer wrapped = ByteBuffer.wrap(key);
+			List<Read<?>> group = groups.get(wrapped);
+			if (group == null) {
+				group = new ArrayList<Read<?>>();
+				groups.put(wrapped, group);
+			}
+			return group;
+		}
+
+		private static byte[][] keys(Iterable<ByteBuffer> wrapped) {
+			List<byte[]> keys = new ArrayList<byte[]>();
+			for (ByteBuffer key : wrapped) {
+				keys.add(key.array());
+			}
+			return keys.toArray(new byte[keys.size()][]);
+		}
+	}
+
+	private static class Read<T> {
+		private final Kind kind;
+		private final byte[] key;
+		private final byte[] field;
+		private final ClientFunction<T> direct;
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile Object reply;
+
+		Read(Kind kind, byte[] key, byte[] field, ClientFunction<T> direct) {
+			this.kind = kind;
+			this.key = key;
+			this.field = field;
+			this.direct = direct;
+		}
+
+		void execute(Client client) {
+			try {
+				this.complete(client.route(ClientType.SLAVE, this.direct));
+			} catch (RuntimeException e) {
+				this.fail(e);
+			}
+		}
+
+		/**
+		 * only called by the leader of the batch, the first reply wins.
+		 */
+		void complete(Object reply) {
+			if (this.done.getCount() == 0) {
+				return;
+			}
+			this.reply = reply;
+			this.done.countDown();
+		}
+
+		void fail(RuntimeException e) {
+			this.complete(e);
+		}
+
+		@SuppressWarnings("unchecked")
+		T await() {
+			Uninterruptibles.awaitUninterruptibly(this.done);
+			if (this.reply instanceof RuntimeException) {
+				throw (RuntimeException) this.reply;
+			}
+			if (this.reply instanceof Throwable) {
+				throw new JedisException((Throwable) this.reply);
+			}
+			return (T) this.reply;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.ClientFactory;
+import io.doeasy.redis.client.balancer.NodeLoad;
+import io.doeasy.redis.client.balancer.ReplicationLag;
+import io.doeasy.redis.config.HostConfiguration;
+import lombok.Getter;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.util.Pool;
+
+/**
+ * bounded pool of {@link RedisClient}s connected to one redis node. a pooled
+ * client is only used by one thread at a time, borrow it with
+ * {@link #getResource()} and give it back with {@link #returnResourceObject(Object)},
+ * or {@link #returnBrokenResource(Object)} if the connection failed.
+ * 
+ * @author kriswang
+ *
+ */
+public class RedisClientPool extends Pool<RedisClient> {
+
+	@Getter
+	private final HostConfiguration hostConfiguration;
+
+	@Getter
+	private final NodeLoad load = new NodeLoad();
+
+	@Getter
+	private final ReplicationLag replication = new ReplicationLag();
+
+	public RedisClientPool(GenericObjectPoolConfig poolConfig, ClientFactory<? extends RedisClient> factory,
+			HostConfiguration hostConfiguration) {
+		super(poolConfig, new RedisClientPooledObjectFactory(factory, hostConfiguration));
+		this.hostConfiguration = hostConfiguration;
+	}
+
+	/**
+	 * for subclasses which do not keep an internal object pool.
+	 */
+	protected RedisClientPool(HostConfiguration hostConfiguration) {
+		super();
+		this.hostConfiguration = hostConfiguration;
+	}
+
+	@Override
+	public String toString() {
+		return "RedisClientPool(" + this.hostConfiguration + ")";
+	}
+}
@@ -0,0 +1,35 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.ClientFactory;
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.config.RedisClientPoolConfig;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+/**
+ * creates a bounded {@link RedisClientPool} per redis node, for clients which
+ * must not be used by more than one thread at a time such as
+ * {@link GenericRedisClient}.
+ * 
+ * @author kriswang
+ *
+ */
+public class RedisClientPoolFactory implements ClientFactory<RedisClientPool> {
+
+	private final ClientFactory<? extends RedisClient> factory;
+	private final GenericObjectPoolConfig poolConfig;
+
+	public RedisClientPoolFactory(ClientFactory<? extends RedisClient> factory) {
+		this(factory, new RedisClientPoolConfig());
+	}
+
+	public RedisClientPoolFactory(ClientFactory<? extends RedisClient> factory, GenericObjectPoolConfig poolConfig) {
+		this.factory = factory;
+		this.poolConfig = poolConfig;
+	}
+
+	@Override
+	public RedisClientPool create(HostConfiguration hostConfiguration) {
+		return new RedisClientPool(this.poolConfig, this.factory, hostConfiguration);
+	}
+}
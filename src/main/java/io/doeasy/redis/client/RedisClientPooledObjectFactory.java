@@ -0,0 +1,59 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.ClientFactory;
+import io.doeasy.redis.config.HostConfiguration;
+import lombok.extern.log4j.Log4j;
+
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+
+/**
+ * creates, validates and destroys the clients of a {@link RedisClientPool}.
+ * 
+ * @author kriswang
+ *
+ */
+@Log4j
+class RedisClientPooledObjectFactory implements PooledObjectFactory<RedisClient> {
+
+	private final ClientFactory<? extends RedisClient> factory;
+	private final HostConfiguration hostConfiguration;
+
+	RedisClientPooledObjectFactory(ClientFactory<? extends RedisClient> factory, HostConfiguration hostConfiguration) {
+		this.factory = factory;
+		this.hostConfiguration = hostConfiguration;
+	}
+
+	@Override
+	public PooledObject<RedisClient> makeObject() throws Exception {
+		RedisClient client = this.factory.create(this.hostConfiguration);
+		return new DefaultPooledObject<RedisClient>(client);
+	}
+
+	@Override
+	public void destroyObject(PooledObject<RedisClient> pooledObject) throws Exception {
+		try {
+			pooledObject.getObject().quit();
+		} catch (Exception e) {
+			log.error("Failed while closing the connection to " + this.hostConfiguration, e);
+		}
+	}
+
+	@Override
+	public boolean validateObject(PooledObject<RedisClient> pooledObject) {
+		try {
+			return "PONG".equals(pooledObject.getObject().ping());
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	@Override
+	public void activateObject(PooledObject<RedisClient> pooledObject) throws Exception {
+	}
+
+	@Override
+	public void passivateObject(PooledObject<RedisClient> pooledObject) throws Exception {
+	}
+}
@@ -1,5 +1,7 @@
 package io.doeasy.redis.client;
 
+import java.util.List;
+
 /**
  * 
  * @author kriswang
@@ -7,4 +9,10 @@ package io.doeasy.redis.client;
  */
 public interface RedisOperations {
 	public String quit();
+
+	public String ping();
+
+	public String info(String section);
+
+	public List<byte[]> mget(byte[]... keys);
 }
@@ -0,0 +1,142 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.utils.CircularList;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.extern.log4j.Log4j;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * samples the replication lag of every slave of a {@link Client}: the master
+ * reports the acknowledged offset and the seconds since the last ack of each
+ * slave, the slave its own offset and the state of its link to the master.
+ *
+ * @author kriswang
+ *
+ */
+@Log4j
+class ReplicationLagMonitor implements Runnable {
+
+	private static final String SECTION = "replication";
+
+	private final Client client;
+
+	ReplicationLagMonitor(Client client) {
+		this.client = client;
+	}
+
+	@Override
+	public void run() {
+		try {
+			this.sample();
+		} catch (Exception e) {
+			//never let an exception cancel the scheduled sampling
+			log.error("Failed to sample the replication lag of the slaves.", e);
+		}
+	}
+
+	void sample() {
+		CircularList<RedisClientPool> slaves = this.client.getSlaves();
+		if (slaves.empty()) {
+			return;
+		}
+
+		Map<String, String> master;
+		try {
+			master = parse(info(this.client.getMaster()));
+		} catch (Exception e) {
+			log.warn("Could not read the replication offset of master " + this.client.getMaster().getHostConfiguration()
+					+ ", keeping the last sampled lag of the slaves.");
+			return;
+		}
+		long masterOffset = toLong(master.get("master_repl_offset"), 0);
+		Map<String, Map<String, String>> acks = slaveAcks(master);
+
+		for (RedisClientPool slave : slaves) {
+			HostConfiguration configuration = slave.getHostConfiguration();
+			try {
+				Map<String, String> replica = parse(info(slave));
+				Map<String, String> ack = acks.get(configuration.getHost() + ":" + configuration.getPort());
+
+				long offset = toLong(replica.get("slave_repl_offset"), ack == null ? masterOffset : toLong(ack.get("offset"), masterOffset));
+				long seconds = ack == null ? toLong(replica.get("master_last_io_seconds_ago"), 0) : toLong(ack.get("lag"), 0);
+				boolean linkUp = "up".equals(replica.get("master_link_status")) && !"1".equals(replica.get("master_sync_in_progress"));
+
+				slave.getReplication().update(masterOffset - offset, seconds, linkUp);
+			} catch (Exception e) {
+				log.warn("Could not read the replication offset of slave " + configuration + ", not reading from it.");
+				slave.getReplication().failed();
+			}
+			if (log.isDebugEnabled()) {
+				log.debug(String.format("replication lag of slave %s is %s", configuration, slave.getReplication()));
+			}
+		}
+	}
+
+	private static String info(RedisClientPool pool) {
+		RedisClient client = pool.getResource();
+		boolean broken = false;
+		try {
+			return client.info(SECTION);
+		} catch (JedisConnectionException e) {
+			broken = true;
+			throw e;
+		} finally {
+			if (broken) {
+				pool.returnBrokenResource(client);
+			} else {
+				pool.returnResourceObject(client);
+			}
+		}
+	}
+
+	/**
+	 * parses the "field:value" lines of an INFO reply.
+	 */
+	static Map<String, String> parse(String info) {
+		Map<String, String> fields = new HashMap<String, String>();
+		for (String line : info.split("\r\n")) {
+			int colon = line.indexOf(':');
+			if (colon > 0 && !line.startsWith("#")) {
+				fields.put(line.substring(0, colon), line.substring(colon + 1).trim());
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * @return the "slaveN:ip=..,port=..,state=..,offset=..,lag=.." entries of
+	 * the master, by "ip:port".
+	 */
+	static Map<String, Map<String, String>> slaveAcks(Map<String, String> master) {
+		Map<String, Map<String, String>> acks = new HashMap<String, Map<String, String>>();
+		for (Map.Entry<String, String> entry : master.entrySet()) {
+			if (!entry.getKey().matches("slave\\d+")) {
+				continue;
+			}
+			Map<String, String> ack = new HashMap<String, String>();
+			for (String pair : entry.getValue().split(",")) {
+				int equals = pair.indexOf('=');
+				if (equals > 0) {
+					ack.put(pair.substring(0, equals), pair.substring(equals + 1));
+				}
+			}
+			acks.put(ack.get("ip") + ":" + ack.get("port"), ack);
+		}
+		return acks;
+	}
+
+	private static long toLong(String value, long defaultValue) {
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+}
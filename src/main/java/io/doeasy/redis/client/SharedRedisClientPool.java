@@ -0,0 +1,69 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.ClientFactory;
+import io.doeasy.redis.config.HostConfiguration;
+import lombok.extern.log4j.Log4j;
+
+/**
+ * a {@link RedisClientPool} that hands the same thread-safe client to every
+ * borrower, for clients that multiplex all callers over one connection such
+ * as {@link NettyRedisClient}. returning or breaking a client is a no-op, the
+ * client reconnects by itself.
+ * 
+ * @author kriswang
+ *
+ */
+@Log4j
+public class SharedRedisClientPool extends RedisClientPool {
+
+	private final RedisClient client;
+	private volatile boolean closed;
+
+	public SharedRedisClientPool(ClientFactory<? extends RedisClient> factory, HostConfiguration hostConfiguration) {
+		super(hostConfiguration);
+		this.client = factory.create(hostConfiguration);
+	}
+
+	@Override
+	public RedisClient getResource() {
+		return this.client;
+	}
+
+	@Override
+	public void returnResourceObject(RedisClient resource) {
+	}
+
+	@Override
+	public void returnResource(RedisClient resource) {
+	}
+
+	@Override
+	public void returnBrokenResource(RedisClient resource) {
+	}
+
+	@Override
+	protected void returnBrokenResourceObject(RedisClient resource) {
+	}
+
+	@Override
+	public boolean isClosed() {
+		return this.closed;
+	}
+
+	@Override
+	protected void closeInternalPool() {
+		if (!this.closed) {
+			this.closed = true;
+			try {
+				this.client.quit();
+			} catch (Exception e) {
+				log.error("Failed while closing the connection to " + this.getHostConfiguration(), e);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SharedRedisClientPool(" + this.getHostConfiguration() + ")";
+	}
+}
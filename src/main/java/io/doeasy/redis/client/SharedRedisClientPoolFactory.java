@@ -0,0 +1,25 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.ClientFactory;
+import io.doeasy.redis.config.HostConfiguration;
+
+/**
+ * creates a {@link SharedRedisClientPool} per redis node, for thread-safe
+ * clients such as {@link NettyRedisClient}.
+ * 
+ * @author kriswang
+ *
+ */
+public class SharedRedisClientPoolFactory implements ClientFactory<RedisClientPool> {
+
+	private final ClientFactory<? extends RedisClient> factory;
+
+	public SharedRedisClientPoolFactory(ClientFactory<? extends RedisClient> factory) {
+		this.factory = factory;
+	}
+
+	@Override
+	public RedisClientPool create(HostConfiguration hostConfiguration) {
+		return new SharedRedisClientPool(this.factory, hostConfiguration);
+	}
+}
@@ -0,0 +1,290 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.model.TopologyEvent;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.log4j.Log4j;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * applies the events published by the sentinels to a {@link Client} on a
+ * thread of its own, one at a time and in the order they were received
+ * from all the sentinels. the netty threads decoding the subscriptions only
+ * queue the events, so they never wait for a pool to be opened or closed,
+ * nor for a sentinel to answer.
+ *
+ * every sentinel publishes the same +switch-master, so a switch to the
+ * master being switched to, or already switched to, is dropped. when the
+ * switch then fails, e.g. the new master could not be validated yet, the
+ * last switch dropped meanwhile is applied again, and the next ones are not
+ * dropped any more. a switch to another master is
+ * applied at once, and the config epoch is then asked to the publishing
+ * sentinel on its heart beat connection, without waiting for it: a switch
+ * found older than one applied before, e.g. published late by a lagging
+ * sentinel, is undone by switching to the master the sentinels agree on.
+ * the slave events are applied as they come, applying them twice is
+ * harmless.
+ *
+ * @author kriswang
+ *
+ */
+@Log4j
+class TopologyEventProcessor {
+
+	private final Client client;
+	private final SentinelServersManager manager;
+	private final String masterName;
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong applied = new AtomicLong();
+	private final AtomicLong duplicates = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong stale = new AtomicLong();
+	private final AtomicLong failedSwitches = new AtomicLong();
+
+	//only used by the processing thread
+	private long configEpoch = -1;
+	private String switchedTo;
+	private String switching;
+	private TopologyEvent droppedWhileSwitching;
+
+	TopologyEventProcessor(Client client, SentinelServersManager manager, String name) {
+		this.client = client;
+		this.manager = manager;
+		this.masterName = name;
+		//unbounded, so that queuing never blocks
+		this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("topology-events-" + name + "-%d").build());
+	}
+
+	/**
+	 * queues the event, returns at once.
+	 */
+	void publish(final TopologyEvent event) {
+		try {
+			this.executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					apply(event);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			log.debug("closed, dropping " + event);
+		}
+	}
+
+	/**
+	 * @return the number of events received but not applied yet.
+	 */
+	int getPending() {
+		return this.executor.getQueue().size();
+	}
+
+	long getAppliedCount() {
+		return this.applied.get();
+	}
+
+	/**
+	 * @return the number of events dropped as already applied.
+	 */
+	long getDuplicateCount() {
+		return this.duplicates.get();
+	}
+
+	long getFailedCount() {
+		return this.failed.get();
+	}
+
+	/**
+	 * @return the number of switches undone as older than one applied before.
+	 */
+	long getStaleCount() {
+		return this.stale.get();
+	}
+
+	/**
+	 * @return the number of switches the client failed to do.
+	 */
+	long getFailedSwitchCount() {
+		return this.failedSwitches.get();
+	}
+
+	/**
+	 * called by the client once it switched to the master, from any thread.
+	 */
+	void switched(HostConfiguration master) {
+		final String target = target(master);
+		this.onProcessingThread(new Runnable() {
+			@Override
+			public void run() {
+				switchedTo = target;
+				if (target.equals(switching)) {
+					switching = null;
+					droppedWhileSwitching = null;
+				}
+			}
+		});
+	}
+
+	/**
+	 * called by the client when the switch to the master failed, from any
+	 * thread. the old master is still in use.
+	 */
+	void switchFailed(HostConfiguration master) {
+		this.failedSwitches.incrementAndGet();
+		final String target = target(master);
+		this.onProcessingThread(new Runnable() {
+			@Override
+			public void run() {
+				if (!target.equals(switching)) {
+					return;
+				}
+				TopologyEvent again = droppedWhileSwitching;
+				switching = null;
+				droppedWhileSwitching = null;
+				if (again != null) {
+					log.info("retrying the switch of " + masterName + " to " + target + " also reported by "
+							+ again.getSentinel());
+					apply(again);
+				}
+			}
+		});
+	}
+
+	void close() {
+		this.executor.shutdownNow();
+		try {
+			this.executor.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void apply(TopologyEvent event) {
+		if (log.isDebugEnabled()) {
+			log.debug(String.format("applying %s after %d us in queue", event,
+					TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - event.getReceived())));
+		}
+		try {
+			if (this.isDuplicate(event)) {
+				this.duplicates.incrementAndGet();
+				log.debug("dropping duplicate " + event);
+				return;
+			}
+			this.client.onTopologyEvent(event);
+			this.applied.incrementAndGet();
+		} catch (Exception e) {
+			//the following events still apply
+			this.failed.incrementAndGet();
+			log.error("Failed to apply " + event, e);
+		}
+	}
+
+	private boolean isDuplicate(TopologyEvent event) {
+		if (!"+switch-master".equals(event.getChannel())) {
+			return false;
+		}
+		String[] parts = event.getMessage().split(" ");
+		if (parts.length < 5 || !this.masterName.equals(parts[0])) {
+			//left to the client
+			return false;
+		}
+		String target = parts[3] + ":" + parts[4];
+		if (target.equals(this.switching)) {
+			this.droppedWhileSwitching = event;
+			return true;
+		}
+		if (this.switching == null && target.equals(this.switchedTo)) {
+			return true;
+		}
+		this.switching = target;
+		this.droppedWhileSwitching = null;
+		if (event.getSentinel() != null) {
+			this.checkConfigEpoch(event.getSentinel(), target);
+		}
+		return false;
+	}
+
+	private void onProcessingThread(Runnable task) {
+		try {
+			this.executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			log.debug("closed, dropping the result of a switch of " + this.masterName);
+		}
+	}
+
+	private static String target(HostConfiguration master) {
+		return master.getHost() + ":" + master.getPort();
+	}
+
+	/**
+	 * asks the sentinel which published the switch for its config epoch, and
+	 * queues the check of the switch once it answered.
+	 */
+	private void checkConfigEpoch(final HostConfiguration sentinel, final String target) {
+		Futures.addCallback(this.manager.getConfigEpoch(sentinel, this.masterName), new FutureCallback<Long>() {
+			@Override
+			public void onSuccess(final Long epoch) {
+				try {
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							checkSwitch(target, epoch);
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					log.debug("closed, not checking the switch to " + target);
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				log.debug("sentinel " + sentinel + " did not tell the config epoch of " + masterName + ": " + t);
+			}
+		});
+	}
+
+	/**
+	 * undoes the switch to the target if it is the last one applied but is
+	 * older than a switch applied before it.
+	 */
+	private void checkSwitch(String target, long epoch) {
+		if (epoch >= this.configEpoch) {
+			this.configEpoch = epoch;
+			return;
+		}
+		String last = this.switching != null ? this.switching : this.switchedTo;
+		if (epoch < 0 || !target.equals(last)) {
+			return;
+		}
+		this.stale.incrementAndGet();
+		this.switching = null;
+		this.switchedTo = null;
+		this.droppedWhileSwitching = null;
+		log.warn(String.format("switch of %s to %s is from epoch %d, older than %d, asking the sentinels for the master",
+				this.masterName, target, epoch, this.configEpoch));
+		final String[] stale = target.split(":");
+		this.manager.getResources().getComputationExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					HostConfiguration master = manager.resolveMaster(masterName);
+					//no sentinel to ask for the epoch of this one
+					publish(new TopologyEvent("+switch-master", String.format("%s %s %s %s %d", masterName, stale[0],
+							stale[1], master.getHost(), master.getPort()), null, System.nanoTime()));
+				} catch (RuntimeException e) {
+					log.error("Failed to resolve the master of " + masterName + " after a stale switch", e);
+				}
+			}
+		});
+	}
+}
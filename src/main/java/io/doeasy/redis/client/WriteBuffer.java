@@ -0,0 +1,274 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.WriteBufferConfig;
+import io.doeasy.redis.config.WriteBufferConfig.OverflowPolicy;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.log4j.Log4j;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * buffers the writes of a {@link Client} while its master is not reachable.
+ * once a write failed on a broken connection, the following writes are not
+ * sent but queued, up to {@link WriteBufferConfig#getCapacity()} writes for
+ * at most {@link WriteBufferConfig#getMaxWait()} ms each, and their callers
+ * block. the queue is replayed in order as soon as the master answers PING
+ * again, usually after the master switch.
+ *
+ * only writes which were never sent are replayed: the write which detected
+ * the failure, and a replayed write whose connection breaks, fail as before
+ * since they may have been applied.
+ *
+ * the retries run on the shared computation executor, one replay at a time
+ * so that the writes keep their order.
+ *
+ * @author kriswang
+ *
+ */
+@Log4j
+class WriteBuffer {
+
+	private final Client client;
+	private final WriteBufferConfig config;
+	private final LinkedList<BufferedWrite<?>> queue = new LinkedList<BufferedWrite<?>>();
+	private final ScheduledExecutorService executor;
+	private final ScheduledFuture<?> retries;
+	private final AtomicBoolean replaying = new AtomicBoolean();
+	private volatile boolean buffering;
+
+	private final Runnable replay = new Runnable() {
+		@Override
+		public void run() {
+			//the other replay drains the queue
+			if (!replaying.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				replay();
+			} catch (Exception e) {
+				log.error("Failed to replay the buffered writes.", e);
+			} finally {
+				replaying.set(false);
+			}
+		}
+	};
+
+	/**
+	 * @param executor runs the retries, shared with the other background tasks.
+	 */
+	WriteBuffer(Client client, WriteBufferConfig config, ScheduledExecutorService executor) {
+		this.client = client;
+		this.config = config;
+		this.executor = executor;
+		this.retries = executor.scheduleWithFixedDelay(this.replay, config.getRetryInterval(),
+				config.getRetryInterval(), TimeUnit.MILLISECONDS);
+	}
+
+	<T> T write(ClientFunction<T> function) {
+		if (!this.buffering) {
+			try {
+				return this.client.execute(this.client.getMaster(), function);
+			} catch (JedisConnectionException e) {
+				this.startBuffering();
+				throw e;
+			}
+		}
+		return this.buffer(function);
+	}
+
+	/**
+	 * replays the buffer now rather than at the next retry.
+	 */
+	void replayNow() {
+		if (this.buffering) {
+			try {
+				this.executor.execute(this.replay);
+			} catch (RejectedExecutionException e) {
+				log.debug("executor shut down, replaying at the next retry");
+			}
+		}
+	}
+
+	/**
+	 * @return the writes waiting for the master.
+	 */
+	synchronized int size() {
+		return this.queue.size();
+	}
+
+	void close() {
+		this.retries.cancel(true);
+		synchronized (this) {
+			for (BufferedWrite<?> write : this.queue) {
+				write.fail(new JedisConnectionException("client closed while the write was buffered"));
+			}
+			this.queue.clear();
+			this.buffering = false;
+		}
+	}
+
+	private synchronized void startBuffering() {
+		if (!this.buffering) {
+			log.warn("master " + this.client.getMaster().getHostConfiguration()
+					+ " is not reachable, buffering writes until it answers again...");
+			this.buffering = true;
+		}
+	}
+
+	private <T> T buffer(ClientFunction<T> function) {
+		BufferedWrite<T> write = new BufferedWrite<T>(function);
+		boolean buffered = false;
+		synchronized (this) {
+			if (this.buffering) {
+				if (this.queue.size() >= this.config.getCapacity()) {
+					this.overflow();
+				}
+				this.queue.add(write);
+				buffered = true;
+			}
+		}
+		if (!buffered) {
+			//the buffer was drained meanwhile
+			return this.client.execute(this.client.getMaster(), function);
+		}
+		return write.await(this.config.getMaxWait());
+	}
+
+	private void overflow() {
+		if (this.config.getOverflowPolicy() == OverflowPolicy.FAIL_OLDEST) {
+			for (Iterator<BufferedWrite<?>> it = this.queue.iterator(); it.hasNext();) {
+				BufferedWrite<?> oldest = it.next();
+				if (oldest.fail(new JedisConnectionException("write evicted from the full write buffer"))) {
+					it.remove();
+					return;
+				}
+			}
+		}
+		throw new JedisConnectionException("master is not reachable and the write buffer is full ("
+				+ this.config.getCapacity() + " writes)");
+	}
+
+	private void replay() {
+		if (!this.buffering || !this.masterAnswers()) {
+			return;
+		}
+		for (;;) {
+			BufferedWrite<?> write;
+			synchronized (this) {
+				write = this.queue.peek();
+				if (write == null) {
+					this.buffering = false;
+					log.info("master " + this.client.getMaster().getHostConfiguration() + " answers again, buffered writes replayed.");
+					return;
+				}
+			}
+			boolean connected = !write.claim() || write.run(this.client, this.client.getMaster());
+			this.remove(write);
+			if (!connected) {
+				return;
+			}
+		}
+	}
+
+	private boolean masterAnswers() {
+		try {
+			return "PONG".equals(this.client.execute(this.client.getMaster(), new ClientFunction<String>() {
+				@Override
+				public String execute(RedisClient client) {
+					return client.ping();
+				}
+			}));
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private synchronized void remove(BufferedWrite<?> write) {
+		this.queue.remove(write);
+	}
+
+	/**
+	 * one buffered write and the result handed to its waiting caller.
+	 */
+	private class BufferedWrite<T> {
+
+		private static final int WAITING = 0;
+		private static final int RUNNING = 1;
+		private static final int DONE = 2;
+
+		private final ClientFunction<T> function;
+		private final AtomicInteger state = new AtomicInteger(WAITING);
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile T result;
+		private volatile RuntimeException error;
+
+		BufferedWrite(ClientFunction<T> function) {
+			this.function = function;
+		}
+
+		boolean claim() {
+			return this.state.compareAndSet(WAITING, RUNNING);
+		}
+
+		/**
+		 * @return false if the connection to the master broke.
+		 */
+		boolean run(Client client, RedisClientPool master) {
+			try {
+				this.result = client.execute(master, this.function);
+				return true;
+			} catch (JedisConnectionException e) {
+				this.error = e;
+				return false;
+			} catch (RuntimeException e) {
+				this.error = e;
+				return true;
+			} finally {
+				this.state.set(DONE);
+				this.done.countDown();
+			}
+		}
+
+		boolean fail(RuntimeException e) {
+			if (this.state.compareAndSet(WAITING, DONE)) {
+				this.error = e;
+				this.done.countDown();
+				return true;
+			}
+			return false;
+		}
+
+		T await(long maxWait) {
+			boolean completed;
+			try {
+				completed = this.done.await(maxWait, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				completed = false;
+			}
+			if (!completed) {
+				if (this.fail(new JedisConnectionException("master not reachable within " + maxWait + " ms"))) {
+					remove(this);
+				} else {
+					//being replayed right now
+					Uninterruptibles.awaitUninterruptibly(this.done);
+				}
+			}
+			if (this.error != null) {
+				throw this.error;
+			}
+			return this.result;
+		}
+	}
+}
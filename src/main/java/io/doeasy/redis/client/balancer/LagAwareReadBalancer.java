@@ -0,0 +1,48 @@
+package io.doeasy.redis.client.balancer;
+
+import io.doeasy.redis.client.RedisClientPool;
+import io.doeasy.redis.config.ReplicationLagConfig;
+import io.doeasy.redis.utils.CircularList;
+
+/**
+ * skips the slaves whose {@link ReplicationLag} exceeds the configured
+ * bounds. the delegate is asked again, at most once per slave, until it
+ * picks a slave in sync. if none is found the read goes to the master, or
+ * to the least lagging slave seen when falling back to the master is
+ * disabled. with a random delegate a slave in sync may be missed, the read
+ * is then served by the fallback.
+ * 
+ * @author kriswang
+ *
+ */
+public class LagAwareReadBalancer implements ReadBalancer {
+
+	private final ReadBalancer delegate;
+	private final ReplicationLagConfig config;
+
+	public LagAwareReadBalancer(ReadBalancer delegate, ReplicationLagConfig config) {
+		this.delegate = delegate;
+		this.config = config;
+	}
+
+	@Override
+	public RedisClientPool select(CircularList<RedisClientPool> slaves) {
+		RedisClientPool leastLagging = null;
+		int attempts = slaves.size();
+		for (int i = 0; i < attempts; i++) {
+			RedisClientPool slave = this.delegate.select(slaves);
+			if (slave == null) {
+				break;
+			}
+			ReplicationLag lag = slave.getReplication();
+			if (!lag.exceeds(this.config)) {
+				return slave;
+			}
+			if (lag.isLinkUp() && (leastLagging == null || lag.getBytes() < leastLagging.getReplication().getBytes())) {
+				leastLagging = slave;
+			}
+		}
+		return this.config.isFallbackToMaster() ? null : leastLagging;
+	}
+
+}
@@ -0,0 +1,156 @@
+package io.doeasy.redis.client.balancer;
+
+import io.doeasy.redis.utils.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Ticker;
+
+/**
+ * load of one redis node as seen by this client: the number of commands in
+ * flight and a peak-sensitive moving average of their latency. a sample
+ * above the average replaces it immediately, below it is blended in, and the
+ * average decays towards zero while the node is not used, so a node that was
+ * slow once gets probed again later.
+ * 
+ * the latencies of the successful commands are also kept in a histogram of
+ * the last period (the one before if the current one has too few samples)
+ * for the percentiles.
+ * 
+ * updates are not synchronized, concurrent samples may overwrite each other
+ * which only slightly skews the average.
+ * 
+ * @author kriswang
+ *
+ */
+public class NodeLoad {
+
+	/**
+	 * time after which the weight of an old sample dropped to 1/e.
+	 */
+	private static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	/**
+	 * latency recorded for a command which failed on a broken connection.
+	 */
+	private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * number of samples of the current period from which its percentiles are
+	 * used rather than those of the previous one.
+	 */
+	private static final long MIN_SAMPLES = 100;
+
+	private final Ticker ticker;
+	private final AtomicInteger inflight = new AtomicInteger();
+	private volatile double latency;
+	private volatile long lastUpdate;
+	private volatile LatencyHistogram recent = new LatencyHistogram();
+	private volatile LatencyHistogram previous;
+	private volatile long recentStart;
+
+	public NodeLoad() {
+		this(Ticker.systemTicker());
+	}
+
+	/**
+	 * reads the time from the given ticker, e.g. a fake one in tests.
+	 */
+	NodeLoad(Ticker ticker) {
+		this.ticker = ticker;
+		this.lastUpdate = ticker.read();
+		this.recentStart = this.lastUpdate;
+	}
+
+	/**
+	 * records a command being sent.
+	 * @return the start time to pass to {@link #complete(long, boolean)}.
+	 */
+	public long start() {
+		this.inflight.incrementAndGet();
+		return this.ticker.read();
+	}
+
+	/**
+	 * records the reply (or failure) of a command started with {@link #start()}.
+	 */
+	public void complete(long start, boolean failed) {
+		this.inflight.decrementAndGet();
+		long now = this.ticker.read();
+		long sample = now - start;
+		if (failed) {
+			sample = Math.max(sample, FAILURE_PENALTY_NANOS);
+		} else {
+			this.recentHistogram(now).record(sample);
+		}
+
+		double current = this.latency;
+		if (sample > current) {
+			this.latency = sample;
+		} else {
+			double weight = this.weight(now);
+			this.latency = current * weight + sample * (1 - weight);
+		}
+		this.lastUpdate = now;
+	}
+
+	/**
+	 * @param percentile between 0 and 100.
+	 * @return the latency in nanoseconds under which the given percentage of
+	 * the recent successful commands completed, 0 if there was none.
+	 */
+	public long getLatencyPercentile(double percentile) {
+		LatencyHistogram recent = this.recent;
+		LatencyHistogram previous = this.previous;
+		if (recent.getCount() < MIN_SAMPLES && previous != null) {
+			return previous.getValueAtPercentile(percentile);
+		}
+		return recent.getValueAtPercentile(percentile);
+	}
+
+	public int getInflight() {
+		return this.inflight.get();
+	}
+
+	/**
+	 * @return the average latency in nanoseconds.
+	 */
+	public double getLatency() {
+		return this.decayed(this.ticker.read());
+	}
+
+	/**
+	 * @return the expected cost of sending one more command to this node.
+	 */
+	public double cost() {
+		return (this.getLatency() + 1) * (this.getInflight() + 1);
+	}
+
+	private LatencyHistogram recentHistogram(long now) {
+		if (now - this.recentStart > DECAY_NANOS) {
+			synchronized (this) {
+				if (now - this.recentStart > DECAY_NANOS) {
+					this.previous = this.recent;
+					this.recent = new LatencyHistogram();
+					this.recentStart = now;
+				}
+			}
+		}
+		return this.recent;
+	}
+
+	private double decayed(long now) {
+		return this.latency * this.weight(now);
+	}
+
+	private double weight(long now) {
+		long elapsed = Math.max(0, now - this.lastUpdate);
+		return Math.exp(-elapsed / DECAY_NANOS);
+	}
+
+	@Override
+	public String toString() {
+		return "NodeLoad(inflight=" + this.getInflight() + ", latency=" + (long) this.getLatency() + "ns)";
+	}
+}
@@ -0,0 +1,41 @@
+package io.doeasy.redis.client.balancer;
+
+import io.doeasy.redis.client.RedisClientPool;
+import io.doeasy.redis.utils.CircularList;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * picks two slaves at random and sends the read to the one with the lower
+ * {@link NodeLoad#cost()}, i.e. latency weighted by outstanding commands.
+ * slow or stalled slaves quickly get a smaller share of the reads, while the
+ * random sampling avoids all clients herding onto the same best slave.
+ * 
+ * @author kriswang
+ *
+ */
+public class PowerOfTwoChoicesReadBalancer implements ReadBalancer {
+
+	@Override
+	public RedisClientPool select(CircularList<RedisClientPool> slaves) {
+		int size = slaves.size();
+		if (size < 2) {
+			return slaves.get(0);
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int i = random.nextInt(size);
+		int j = random.nextInt(size - 1);
+		if (j >= i) {
+			j++;
+		}
+
+		RedisClientPool first = slaves.get(i);
+		RedisClientPool second = slaves.get(j);
+		if (first == null || second == null) {
+			return first == null ? second : first;
+		}
+		return first.getLoad().cost() <= second.getLoad().cost() ? first : second;
+	}
+
+}
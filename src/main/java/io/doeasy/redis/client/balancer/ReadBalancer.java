@@ -0,0 +1,22 @@
+package io.doeasy.redis.client.balancer;
+
+import io.doeasy.redis.client.RedisClientPool;
+import io.doeasy.redis.utils.CircularList;
+
+/**
+ * strategy picking the slave a read command is sent to. implementations must
+ * be thread-safe, {@link #select(CircularList)} is called for every read.
+ * 
+ * @author kriswang
+ *
+ */
+public interface ReadBalancer {
+
+	/**
+	 * @param slaves the slaves currently available, never empty.
+	 * @return the chosen slave, or null if none could be picked, the read is
+	 * sent to the master then.
+	 */
+	public RedisClientPool select(CircularList<RedisClientPool> slaves);
+
+}
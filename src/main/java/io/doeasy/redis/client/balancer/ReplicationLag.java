@@ -0,0 +1,70 @@
+package io.doeasy.redis.client.balancer;
+
+import io.doeasy.redis.config.ReplicationLagConfig;
+import io.doeasy.redis.model.RedisNodeInfo;
+
+/**
+ * replication lag of one slave, last sampled from INFO replication of the
+ * master and of the slave itself. a slave that was never sampled is assumed
+ * to be in sync.
+ * 
+ * @author kriswang
+ *
+ */
+public class ReplicationLag {
+
+	private volatile long bytes;
+	private volatile long seconds;
+	private volatile boolean linkUp = true;
+	private volatile long sampledAt;
+
+	public void update(long bytes, long seconds, boolean linkUp) {
+		this.bytes = Math.max(0, bytes);
+		this.seconds = Math.max(0, seconds);
+		this.linkUp = linkUp;
+		this.sampledAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * seeds the lag with what sentinel reports for the slave, until it is
+	 * sampled directly.
+	 */
+	public void update(RedisNodeInfo slave) {
+		Long downTime = slave.getMasterLinkDownTime();
+		this.update(0, downTime == null ? 0 : downTime / 1000, !"err".equals(slave.getMasterLinkStatus()));
+	}
+
+	/**
+	 * the slave could not be sampled, it is not read from until the next
+	 * successful sample.
+	 */
+	public void failed() {
+		this.linkUp = false;
+		this.sampledAt = System.currentTimeMillis();
+	}
+
+	public boolean exceeds(ReplicationLagConfig config) {
+		return !this.linkUp || this.bytes > config.getMaxLagBytes() || this.seconds > config.getMaxLagSeconds();
+	}
+
+	public long getBytes() {
+		return this.bytes;
+	}
+
+	public long getSeconds() {
+		return this.seconds;
+	}
+
+	public boolean isLinkUp() {
+		return this.linkUp;
+	}
+
+	public long getSampledAt() {
+		return this.sampledAt;
+	}
+
+	@Override
+	public String toString() {
+		return "ReplicationLag(bytes=" + this.bytes + ", seconds=" + this.seconds + ", linkUp=" + this.linkUp + ")";
+	}
+}
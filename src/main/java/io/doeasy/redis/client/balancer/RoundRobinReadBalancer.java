@@ -0,0 +1,21 @@
+package io.doeasy.redis.client.balancer;
+
+import io.doeasy.redis.client.RedisClientPool;
+import io.doeasy.redis.utils.CircularList;
+
+/**
+ * sends reads to all slaves in turn, regardless of how they perform.
+ * 
+ * @author kriswang
+ *
+ */
+public class RoundRobinReadBalancer implements ReadBalancer {
+
+	public static final RoundRobinReadBalancer INSTANCE = new RoundRobinReadBalancer();
+
+	@Override
+	public RedisClientPool select(CircularList<RedisClientPool> slaves) {
+		return slaves.next();
+	}
+
+}
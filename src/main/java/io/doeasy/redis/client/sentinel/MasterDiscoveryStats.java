@@ -0,0 +1,65 @@
+package io.doeasy.redis.client.sentinel;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * how often the sentinels agreed on the master, see
+ * {@link SentinelServersManager#resolveMaster(String)}.
+ *
+ * @author kriswang
+ *
+ */
+public class MasterDiscoveryStats {
+
+	private final AtomicLong resolutions = new AtomicLong();
+	private final AtomicLong disagreements = new AtomicLong();
+	private final AtomicLong withoutQuorum = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+
+	void resolved(boolean disagreement, boolean quorum) {
+		this.resolutions.incrementAndGet();
+		if (disagreement) {
+			this.disagreements.incrementAndGet();
+		}
+		if (!quorum) {
+			this.withoutQuorum.incrementAndGet();
+		}
+	}
+
+	void failed() {
+		this.failures.incrementAndGet();
+	}
+
+	public long getResolutions() {
+		return this.resolutions.get();
+	}
+
+	/**
+	 * @return the resolutions in which the sentinels which answered did not
+	 * all report the same master.
+	 */
+	public long getDisagreements() {
+		return this.disagreements.get();
+	}
+
+	/**
+	 * @return the resolutions in which fewer sentinels than the quorum
+	 * reported the chosen master.
+	 */
+	public long getWithoutQuorum() {
+		return this.withoutQuorum.get();
+	}
+
+	/**
+	 * @return the resolutions in which no sentinel answered.
+	 */
+	public long getFailures() {
+		return this.failures.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("resolutions=%d disagreements=%d withoutQuorum=%d failures=%d", this.getResolutions(),
+				this.getDisagreements(), this.getWithoutQuorum(), this.getFailures());
+	}
+}
@@ -0,0 +1,168 @@
+package io.doeasy.redis.client.sentinel;
+
+import io.doeasy.redis.client.sentinel.exception.SentinelServerNotAvailibleException;
+import io.doeasy.redis.config.HostConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.extern.log4j.Log4j;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * the answers of the sentinels asked for the address of one master. the
+ * result is the address of the highest config epoch, set as soon as a
+ * quorum of sentinels reported it. once every sentinel answered or the time
+ * is up without a quorum, the address of the highest epoch is only used if
+ * no other address has as high an epoch and it is higher than the epoch of
+ * the master known before. otherwise the master known before is kept, or
+ * the resolution fails if there is none. the stats are recorded once every
+ * sentinel answered or the time is up.
+ *
+ * @author kriswang
+ *
+ */
+@Log4j
+class MasterVotes {
+
+	private final String masterName;
+	private final int quorum;
+	private final int expected;
+	private final MasterDiscoveryStats stats;
+	private final HostConfiguration previous;
+	private final long previousEpoch;
+	private final SettableFuture<HostConfiguration> result = SettableFuture.create();
+
+	//guarded by this
+	private final Map<HostConfiguration, Integer> votes = new HashMap<HostConfiguration, Integer>();
+	private final Map<HostConfiguration, Long> epochs = new HashMap<HostConfiguration, Long>();
+	private int answered;
+	private boolean closed;
+
+	/**
+	 * @param previous the master known before, null if none.
+	 * @param previousEpoch its config epoch, -1 if not known.
+	 */
+	MasterVotes(String masterName, int quorum, int expected, MasterDiscoveryStats stats, HostConfiguration previous,
+			long previousEpoch) {
+		this.masterName = masterName;
+		this.quorum = quorum;
+		this.expected = expected;
+		this.stats = stats;
+		this.previous = previous;
+		this.previousEpoch = previousEpoch;
+	}
+
+	ListenableFuture<HostConfiguration> getResult() {
+		return this.result;
+	}
+
+	/**
+	 * @param epoch -1 if not reported.
+	 */
+	synchronized void vote(HostConfiguration master, long epoch) {
+		Integer votes = this.votes.get(master);
+		this.votes.put(master, votes == null ? 1 : votes + 1);
+		Long current = this.epochs.get(master);
+		this.epochs.put(master, current == null ? epoch : Math.max(current, epoch));
+		this.answered++;
+		this.decide(this.answered == this.expected);
+	}
+
+	synchronized void failed(String sentinel, Throwable cause) {
+		log.warn("sentinel " + sentinel + " did not tell the master of " + this.masterName + ": " + cause);
+		this.answered++;
+		this.decide(this.answered == this.expected);
+	}
+
+	/**
+	 * @return the highest config epoch reported with the address, -1 if none.
+	 */
+	synchronized long getEpoch(HostConfiguration master) {
+		Long epoch = this.epochs.get(master);
+		return epoch == null ? -1 : epoch;
+	}
+
+	/**
+	 * called once the time is up.
+	 */
+	synchronized void expire() {
+		this.decide(true);
+	}
+
+	private void decide(boolean last) {
+		HostConfiguration best = this.best();
+		boolean quorum = best != null && this.votes.get(best) >= this.quorum;
+		//before the result, which the caller may be waiting for
+		if (last && !this.closed) {
+			this.closed = true;
+			if (best == null) {
+				this.stats.failed();
+			} else {
+				if (this.votes.size() > 1) {
+					log.warn("sentinels disagree on the master of " + this.masterName + ": " + this.votes);
+				}
+				this.stats.resolved(this.votes.size() > 1, quorum);
+			}
+		}
+		if (this.result.isDone()) {
+			return;
+		}
+		if (quorum) {
+			this.result.set(best);
+		} else if (last && best != null && this.newer(best)) {
+			log.warn(String.format("no quorum of %d sentinels on the master of %s, using %s of epoch %d, votes %s",
+					this.quorum, this.masterName, best, this.epochs.get(best), this.votes));
+			this.result.set(best);
+		} else if (last && this.previous != null) {
+			log.warn(String.format("no quorum of %d sentinels on the master of %s, keeping %s, votes %s",
+					this.quorum, this.masterName, this.previous, this.votes));
+			this.result.set(this.previous);
+		} else if (last && best != null) {
+			this.result.setException(new SentinelServerNotAvailibleException("No quorum of " + this.quorum
+					+ " sentinels on the master of " + this.masterName + ", votes " + this.votes));
+		} else if (last) {
+			this.result.setException(new SentinelServerNotAvailibleException("No sentinel told the master of "
+					+ this.masterName));
+		}
+	}
+
+	/**
+	 * @return true if the epoch of the address is higher than the one of the
+	 * master known before and than the ones of the other addresses.
+	 */
+	private boolean newer(HostConfiguration best) {
+		long epoch = this.epochs.get(best);
+		if (epoch <= this.previousEpoch) {
+			return false;
+		}
+		for (Map.Entry<HostConfiguration, Long> other : this.epochs.entrySet()) {
+			if (!other.getKey().equals(best) && other.getValue() >= epoch) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the address of the highest epoch, of the most votes among
+	 * equal epochs.
+	 */
+	private HostConfiguration best() {
+		HostConfiguration best = null;
+		for (Map.Entry<HostConfiguration, Integer> entry : this.votes.entrySet()) {
+			HostConfiguration master = entry.getKey();
+			if (best == null) {
+				best = master;
+				continue;
+			}
+			int order = Long.compare(this.epochs.get(master), this.epochs.get(best));
+			if (order > 0 || (order == 0 && entry.getValue() > this.votes.get(best))) {
+				best = master;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,275 @@
+package io.doeasy.redis.client.sentinel;
+
+import io.doeasy.redis.config.SentinelHeartbeatConfig;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lombok.extern.log4j.Log4j;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.lambdaworks.redis.RedisAsyncConnection;
+
+/**
+ * pings one sentinel on a non-blocking connection of its own, apart from the
+ * connection of the {@link SentinelClient} used for the queries, and keeps
+ * the round trip and failure statistics. the connection also serves the
+ * queries sent to every sentinel at once, see
+ * {@link SentinelServersManager#resolveMaster(String)}. a ping still unanswered when the
+ * next round starts is not sent again, the sentinel misses every round until
+ * it answers.
+ *
+ * @author kriswang
+ *
+ */
+@Log4j
+public class SentinelHeartbeat {
+
+	private final SentinelClient sentinel;
+	private final String address;
+	private final SentinelHeartbeatConfig config;
+	private final com.lambdaworks.redis.RedisClient client;
+	private volatile RedisAsyncConnection<String, String> connection;
+
+	//guarded by this
+	private ListenableFuture<Long> pending;
+	private boolean available = true;
+	private long pings;
+	private long failures;
+	private int consecutiveFailures;
+	private int consecutiveSuccesses;
+	private long lastRtt = -1;
+	private double averageRtt = -1;
+	private String lastError;
+
+	/**
+	 * @param address ip:port of the sentinel, resolved once.
+	 */
+	SentinelHeartbeat(SentinelClient sentinel, String address, SentinelHeartbeatConfig config, EventLoopGroup group) {
+		this.sentinel = sentinel;
+		this.address = address;
+		this.config = config;
+		this.client = new com.lambdaworks.redis.RedisClient(group, sentinel.getHost(), sentinel.getPort(),
+				(int) config.getTimeout());
+	}
+
+	public SentinelClient getSentinel() {
+		return this.sentinel;
+	}
+
+	String getAddress() {
+		return this.address;
+	}
+
+	/**
+	 * sends a ping, connecting first on the executor if needed.
+	 *
+	 * @return the round trip in ns, or null if the previous ping is still
+	 * unanswered.
+	 */
+	synchronized ListenableFuture<Long> ping(Executor executor) {
+		if (this.pending != null && !this.pending.isDone()) {
+			return null;
+		}
+		final long start = System.nanoTime();
+		this.pings++;
+		this.pending = Futures.transform(this.connection(executor),
+				new AsyncFunction<RedisAsyncConnection<String, String>, Long>() {
+					@Override
+					public ListenableFuture<Long> apply(RedisAsyncConnection<String, String> connection) {
+						return Futures.transform(listenable(connection.ping()), new Function<String, Long>() {
+							@Override
+							public Long apply(String pong) {
+								return System.nanoTime() - start;
+							}
+						});
+					}
+				});
+		return this.pending;
+	}
+
+	/**
+	 * asks SENTINEL MASTER on the same connection, connecting first on the
+	 * executor if needed.
+	 *
+	 * @return the state of the master as reported by the sentinel, e.g. ip,
+	 * port and config-epoch.
+	 */
+	ListenableFuture<Map<String, String>> master(final String masterName, Executor executor) {
+		return Futures.transform(this.connection(executor),
+				new AsyncFunction<RedisAsyncConnection<String, String>, Map<String, String>>() {
+					@Override
+					public ListenableFuture<Map<String, String>> apply(RedisAsyncConnection<String, String> connection) {
+						return listenable(connection.master(masterName));
+					}
+				});
+	}
+
+	/**
+	 * asks SENTINEL SENTINELS on the same connection, connecting first on
+	 * the executor if needed.
+	 *
+	 * @return the other sentinels monitoring the master, e.g. their ip and
+	 * port.
+	 */
+	ListenableFuture<List<Map<String, String>>> sentinels(final String masterName, Executor executor) {
+		return Futures.transform(this.connection(executor),
+				new AsyncFunction<RedisAsyncConnection<String, String>, List<Map<String, String>>>() {
+					@Override
+					public ListenableFuture<List<Map<String, String>>> apply(
+							RedisAsyncConnection<String, String> connection) {
+						return listenable(connection.sentinels(masterName));
+					}
+				});
+	}
+
+	private ListenableFuture<RedisAsyncConnection<String, String>> connection(Executor executor) {
+		RedisAsyncConnection<String, String> connection = this.connection;
+		if (connection != null) {
+			return Futures.immediateFuture(connection);
+		}
+		final SettableFuture<RedisAsyncConnection<String, String>> result = SettableFuture.create();
+		//connecting blocks up to the timeout
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					result.set(connect());
+				} catch (RuntimeException e) {
+					result.setException(e);
+				}
+			}
+		});
+		return result;
+	}
+
+	private RedisAsyncConnection<String, String> connect() {
+		//not under the lock of the statistics
+		synchronized (this.client) {
+			if (this.connection == null) {
+				this.connection = this.client.connectAsync();
+			}
+			return this.connection;
+		}
+	}
+
+	private static <T> ListenableFuture<T> listenable(Future<T> future) {
+		final SettableFuture<T> result = SettableFuture.create();
+		future.addListener(new GenericFutureListener<Future<T>>() {
+			@Override
+			public void operationComplete(Future<T> future) throws Exception {
+				if (future.isSuccess()) {
+					result.set(future.getNow());
+				} else {
+					result.setException(future.cause());
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * counts the pending ping as failed if it is still unanswered.
+	 *
+	 * @return true if the sentinel became unavailable.
+	 */
+	synchronized boolean expire() {
+		if (this.pending == null || this.pending.isDone()) {
+			return false;
+		}
+		return this.failure(new TimeoutException("no answer within " + this.config.getTimeout() + " ms"));
+	}
+
+	/**
+	 * @return true if the sentinel became available.
+	 */
+	synchronized boolean success(long rtt) {
+		this.lastRtt = rtt;
+		this.averageRtt = this.averageRtt < 0 ? rtt : this.config.getRttWeight() * rtt
+				+ (1 - this.config.getRttWeight()) * this.averageRtt;
+		this.consecutiveFailures = 0;
+		this.consecutiveSuccesses++;
+		if (!this.available && this.consecutiveSuccesses >= this.config.getRecoveryThreshold()) {
+			this.available = true;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the sentinel became unavailable.
+	 */
+	synchronized boolean failure(Throwable cause) {
+		this.failures++;
+		this.consecutiveSuccesses = 0;
+		this.consecutiveFailures++;
+		this.lastError = String.valueOf(cause);
+		if (log.isDebugEnabled()) {
+			log.debug("sentinel node [" + this.sentinel + "] missed a heart beat: " + cause);
+		}
+		if (this.available && this.consecutiveFailures >= this.config.getFailureThreshold()) {
+			this.available = false;
+			return true;
+		}
+		return false;
+	}
+
+	public synchronized boolean isAvailable() {
+		return this.available;
+	}
+
+	public synchronized long getPingCount() {
+		return this.pings;
+	}
+
+	public synchronized long getFailureCount() {
+		return this.failures;
+	}
+
+	public synchronized int getConsecutiveFailures() {
+		return this.consecutiveFailures;
+	}
+
+	/**
+	 * @return the round trip of the last answered ping in us, -1 if none.
+	 */
+	public synchronized long getLastRtt() {
+		return this.lastRtt < 0 ? -1 : TimeUnit.NANOSECONDS.toMicros(this.lastRtt);
+	}
+
+	/**
+	 * @return the moving average of the round trips in us, -1 if none.
+	 */
+	public synchronized long getAverageRtt() {
+		return this.averageRtt < 0 ? -1 : TimeUnit.NANOSECONDS.toMicros((long) this.averageRtt);
+	}
+
+	public synchronized String getLastError() {
+		return this.lastError;
+	}
+
+	void close() {
+		RedisAsyncConnection<String, String> connection = this.connection;
+		if (connection != null) {
+			connection.close();
+		}
+		this.client.shutdownAsync();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s:%d available=%s rtt=%dus avg=%dus pings=%d failures=%d", this.sentinel.getHost(),
+				this.sentinel.getPort(), this.isAvailable(), this.getLastRtt(), this.getAverageRtt(),
+				this.getPingCount(), this.getFailureCount());
+	}
+}
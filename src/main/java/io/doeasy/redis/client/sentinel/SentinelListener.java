@@ -0,0 +1,19 @@
+package io.doeasy.redis.client.sentinel;
+
+import io.doeasy.redis.config.HostConfiguration;
+
+/**
+ * notified by {@link SentinelServersManager} when a sentinel is added to the
+ * rotation or retired from it, e.g. to follow its events. called outside
+ * the locks of the manager, by the thread adding or retiring the sentinel.
+ *
+ * @author kriswang
+ *
+ */
+public interface SentinelListener {
+
+	public void sentinelAdded(HostConfiguration sentinel);
+
+	public void sentinelRetired(HostConfiguration sentinel);
+
+}
@@ -1,28 +1,60 @@
 package io.doeasy.redis.client.sentinel;
 
+import io.doeasy.redis.client.ClientResources;
 import io.doeasy.redis.client.sentinel.exception.SentinelServerNotAvailibleException;
 import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.config.MasterDiscoveryConfig;
+import io.doeasy.redis.config.SentinelHeartbeatConfig;
 import io.doeasy.redis.model.RedisNodeInfo;
+import io.doeasy.redis.model.TopologySnapshot;
 import io.doeasy.redis.utils.CircularList;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.log4j.Log4j;
 
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
-import redis.clients.jedis.HostAndPort;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
  * Sentinel server heart beat checker, must provide at least sentinel server,
  * two or more sentinel servers will be recommended.
+ * 
+ * also caches the topology of each master name asked for as a versioned
+ * {@link TopologySnapshot}, so that looking up the master or the slaves
+ * does not go to sentinel.
+ * 
+ * the sentinels given are only the first ones known: the others monitoring
+ * the same masters are added as the sentinels report them, see
+ * {@link #setSentinelDiscovery(boolean)}.
  * @author kriswang
  * 
  */
@@ -35,14 +67,78 @@ public class SentinelServersManager {
 	 */
 	private final Collection<HostConfiguration> sentinelHosts;
 	
-	private final ScheduledThreadPoolExecutor threadPool;
+	/**
+	 * threads of the heart beat and of the clients using this manager.
+	 */
+	@Getter
+	private final ClientResources resources;
+	
+	private final boolean ownsResources;
+	
+	private ScheduledFuture<?> heartbeat;
 	
 	/**
 	 * heart beat checking interval, must be set. (MILLISECONDS)
 	 */
 	private final int interval;
 	
-	private CircularList<SentinelClient> sentinelServers;
+	private final SentinelHeartbeatConfig heartbeatConfig;
+
+	private final MasterDiscoveryConfig discoveryConfig;
+
+	@Getter
+	private final MasterDiscoveryStats masterDiscoveryStats = new MasterDiscoveryStats();
+
+	/**
+	 * one per sentinel, whether it is available or not.
+	 */
+	@Getter
+	private final List<SentinelHeartbeat> heartbeats = new CopyOnWriteArrayList<SentinelHeartbeat>();
+
+	/**
+	 * last snapshot per master name, replaced on change.
+	 */
+	private final ConcurrentMap<String, TopologySnapshot> topologies = new ConcurrentHashMap<String, TopologySnapshot>();
+
+	private final ConcurrentMap<String, List<TopologyListener>> topologyListeners = new ConcurrentHashMap<String, List<TopologyListener>>();
+
+	private final List<SentinelListener> sentinelListeners = new CopyOnWriteArrayList<SentinelListener>();
+
+	private final Set<String> refreshing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/**
+	 * highest config epoch of the masters resolved so far, per master name.
+	 */
+	private final ConcurrentMap<String, Long> resolvedEpochs = new ConcurrentHashMap<String, Long>();
+
+	/**
+	 * interval of the background poll of the topologies, set before
+	 * {@link #start()}. (MILLISECONDS)
+	 */
+	@Getter
+	@Setter
+	private long topologyRefreshInterval = 10000;
+
+	private ScheduledFuture<?> topologyPoll;
+
+	/**
+	 * whether the sentinels reported by the others are added to the rotation
+	 * and retired once no longer reported, at each poll of the topologies.
+	 * set before {@link #start()}.
+	 */
+	@Getter
+	@Setter
+	private boolean sentinelDiscovery = true;
+
+	/**
+	 * ip:port of the sentinels given to the constructor, never retired.
+	 */
+	private final Set<String> seeds = new HashSet<String>();
+
+	/**
+	 * the available sentinels, in the order they are asked.
+	 */
+	private volatile CircularList<SentinelClient> sentinelServers;
 
 	@Getter
 	private List<SentinelClient> availibleSentinelServers = new CopyOnWriteArrayList<SentinelClient>();
@@ -51,101 +147,584 @@ public class SentinelServersManager {
 	private List<SentinelClient> unavailibleSentinelServers = new CopyOnWriteArrayList<SentinelClient>();
 
 	public SentinelServersManager(Collection<HostConfiguration> sentinelServers, int interval) {
+		this(sentinelServers, interval, null);
+	}
+
+	public SentinelServersManager(Collection<HostConfiguration> sentinelServers, int interval, ClientResources resources) {
+		this(sentinelServers, interval, null, resources);
+	}
+
+	public SentinelServersManager(Collection<HostConfiguration> sentinelServers, int interval,
+			SentinelHeartbeatConfig heartbeatConfig, ClientResources resources) {
+		this(sentinelServers, interval, heartbeatConfig, null, resources);
+	}
+
+	/**
+	 * @param heartbeatConfig the defaults if null.
+	 * @param discoveryConfig the defaults if null.
+	 * @param resources shared with other managers, not shut down by
+	 * {@link #stop()}. if null, the manager creates its own.
+	 */
+	public SentinelServersManager(Collection<HostConfiguration> sentinelServers, int interval,
+			SentinelHeartbeatConfig heartbeatConfig, MasterDiscoveryConfig discoveryConfig, ClientResources resources) {
 		Assert.notEmpty(sentinelServers, "Must provide at least sentinel server.");
 		this.sentinelHosts = sentinelServers;
-		this.threadPool = new ScheduledThreadPoolExecutor(this.sentinelHosts.size());
+		this.ownsResources = resources == null;
+		this.resources = resources == null ? new ClientResources() : resources;
 		this.interval = interval;
+		this.heartbeatConfig = heartbeatConfig == null ? new SentinelHeartbeatConfig() : heartbeatConfig;
+		this.discoveryConfig = discoveryConfig == null ? new MasterDiscoveryConfig() : discoveryConfig;
 
 		for (final HostConfiguration sentinelServer : sentinelHosts) {
 			SentinelClient client = SentinelClientFactory.INSTANCE.create(sentinelServer);
+			String address = address(sentinelServer.getHost(), sentinelServer.getPort());
 			availibleSentinelServers.add(client);
+			heartbeats.add(new SentinelHeartbeat(client, address, this.heartbeatConfig,
+					this.resources.getEventLoopGroup()));
+			seeds.add(address);
 		}
 	}
 
-	public void start() {
+	public synchronized void start() {
 		this.running = true;
-		this.startHeartbeatCheck();
-		//
 		sentinelServers = new CircularList<SentinelClient>(availibleSentinelServers);
+		this.startHeartbeatCheck();
+		this.startTopologyPolling();
 	}
 
 	public void stop() {
 		this.running = false;
-		for (final SentinelClient sentinelServer : availibleSentinelServers) {
-			sentinelServer.quit();
+		if (this.heartbeat != null) {
+			this.heartbeat.cancel(false);
 		}
-		for (final SentinelClient sentinelServer : unavailibleSentinelServers) {
-			sentinelServer.quit();
+		if (this.topologyPoll != null) {
+			this.topologyPoll.cancel(false);
+		}
+		//not while a topology is asked to them
+		synchronized (this.topologies) {
+			for (final SentinelClient sentinelServer : availibleSentinelServers) {
+				quit(sentinelServer);
+			}
+			for (final SentinelClient sentinelServer : unavailibleSentinelServers) {
+				quit(sentinelServer);
+			}
+		}
+		for (final SentinelHeartbeat heartbeat : heartbeats) {
+			heartbeat.close();
+		}
+		if (this.ownsResources) {
+			this.resources.shutdown();
 		}
-		this.threadPool.shutdown();
 	}
 	
 	public boolean healthy() {
 		return this.sentinelServers.size() > 0;
 	}
 	
+	/**
+	 * @return the master of the last snapshot, see {@link #getTopology(String)}.
+	 */
 	public HostConfiguration getMaster(String masterName) {
-		if(this.healthy()) {
-			//get sentinel client by round robin
-			SentinelClient sentinel = sentinelServers.next();
-			HostAndPort hostAndPort = sentinel.getMasterAddrByName(masterName);
-			return new HostConfiguration(hostAndPort.getHost(),hostAndPort.getPort());
-		}
-		throw new SentinelServerNotAvailibleException("All provided sentinels are not availible.");
+		return this.getTopology(masterName).getMaster();
 	}
 	
 	public List<HostConfiguration> getSlaves(String masterName) {
-		if(this.healthy()) {
+		List<HostConfiguration> slaves = this.getTopology(masterName).getSlaveConfigurations();
+		return slaves.isEmpty() ? null : slaves;
+	}
+	
+	/**
+	 * @return what sentinel reported about the slaves of the master which are
+	 * not flagged down in the last snapshot, never null.
+	 */
+	public List<RedisNodeInfo> getSlaveNodes(String masterName) {
+		return this.getTopology(masterName).getSlaves();
+	}
+
+	/**
+	 * @return the last snapshot of the master name, asked to sentinel on the
+	 * first call only. it is then kept up to date by the background poll and
+	 * by {@link #refreshTopologyAsync(String)}.
+	 */
+	public TopologySnapshot getTopology(String masterName) {
+		TopologySnapshot snapshot = this.topologies.get(masterName);
+		return snapshot == null ? this.refreshTopology(masterName) : snapshot;
+	}
+
+	/**
+	 * asks the master and the slaves to sentinel now, and publishes a new
+	 * snapshot if they changed. the listeners are notified after it was
+	 * published, outside of the lock of the queries, so that they may ask
+	 * the manager again.
+	 *
+	 * @return the current snapshot.
+	 */
+	public TopologySnapshot refreshTopology(String masterName) {
+		TopologySnapshot previous;
+		TopologySnapshot current;
+		//also serializes the queries on the sentinel connections
+		synchronized (this.topologies) {
+			if (!this.healthy()) {
+				throw new SentinelServerNotAvailibleException("All provided sentinels are not availible.");
+			}
+			HostConfiguration master = this.resolveMaster(masterName);
 			//get sentinel client by round robin
 			SentinelClient sentinel = sentinelServers.next();
-			List<RedisNodeInfo> slaves = sentinel.slaves(masterName);
-			if(!CollectionUtils.isEmpty(slaves)) {
-				List<HostConfiguration> result = new ArrayList<HostConfiguration>();
-				for(RedisNodeInfo slave : slaves) {
+			List<RedisNodeInfo> slaves = new ArrayList<RedisNodeInfo>();
+			List<RedisNodeInfo> nodes = sentinel.slaves(masterName);
+			if(!CollectionUtils.isEmpty(nodes)) {
+				for(RedisNodeInfo slave : nodes) {
 					if(slave.getFlags().equals("slave")) {
-						result.add(new HostConfiguration(slave.getIp(),slave.getPort()));
+						slaves.add(slave);
 					}
 				}
-				return result;
-			} 
-			return null;
+			}
+
+			previous = this.topologies.get(masterName);
+			if (previous != null && previous.sameNodes(master, slaves)) {
+				return previous;
+			}
+			current = new TopologySnapshot(masterName, previous == null ? 1 : previous.getVersion() + 1, master,
+					slaves, System.currentTimeMillis());
+			this.topologies.put(masterName, current);
+			log.info("topology of " + masterName + " is now " + current);
 		}
-		throw new SentinelServerNotAvailibleException("All provided sentinels are not availible.");
+		this.notifyTopologyListeners(previous, current);
+		return current;
 	}
-	
-	
 
+	/**
+	 * one snapshot at a time, and only if it was not replaced meanwhile: a
+	 * listener never sees a version older than one it was given.
+	 */
+	private void notifyTopologyListeners(TopologySnapshot previous, TopologySnapshot current) {
+		List<TopologyListener> listeners = this.topologyListeners.get(current.getMasterName());
+		if (listeners == null) {
+			return;
+		}
+		synchronized (listeners) {
+			if (this.topologies.get(current.getMasterName()) != current) {
+				return;
+			}
+			for (TopologyListener listener : listeners) {
+				try {
+					listener.topologyChanged(previous, current);
+				} catch (RuntimeException e) {
+					log.error("Failed to notify " + listener + " of " + current, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * asks every available sentinel for the master at once, and returns as
+	 * soon as a quorum of them agree, see {@link MasterDiscoveryConfig}. the
+	 * quorum is counted among all the sentinels, available or not. the
+	 * sentinels which do not agree are counted in the
+	 * {@link #getMasterDiscoveryStats() stats}.
+	 *
+	 * @return the address of the master, not cached.
+	 */
+	public HostConfiguration resolveMaster(String masterName) {
+		List<SentinelHeartbeat> sentinels = new ArrayList<SentinelHeartbeat>();
+		for (SentinelHeartbeat heartbeat : heartbeats) {
+			if (heartbeat.isAvailable()) {
+				sentinels.add(heartbeat);
+			}
+		}
+		if (sentinels.isEmpty()) {
+			throw new SentinelServerNotAvailibleException("All provided sentinels are not availible.");
+		}
+		//the unavailable sentinels count, a minority must not decide alone
+		int quorum = this.discoveryConfig.getQuorum() > 0 ? this.discoveryConfig.getQuorum()
+				: this.heartbeats.size() / 2 + 1;
+		TopologySnapshot snapshot = this.topologies.get(masterName);
+		Long epoch = this.resolvedEpochs.get(masterName);
+		final MasterVotes votes = new MasterVotes(masterName, quorum, sentinels.size(), this.masterDiscoveryStats,
+				snapshot == null ? null : snapshot.getMaster(), epoch == null ? -1 : epoch);
+		for (final SentinelHeartbeat sentinel : sentinels) {
+			//connects on this thread, the computation threads may all be waiting for a result
+			Futures.addCallback(sentinel.master(masterName, MoreExecutors.directExecutor()),
+					new FutureCallback<Map<String, String>>() {
+						@Override
+						public void onSuccess(Map<String, String> master) {
+							String epoch = master.get("config-epoch");
+							try {
+								votes.vote(new HostConfiguration(master.get("ip"), Integer.parseInt(master.get("port"))),
+										epoch == null ? -1 : Long.parseLong(epoch));
+							} catch (RuntimeException e) {
+								votes.failed(sentinel.getSentinel().toString(), e);
+							}
+						}
+
+						@Override
+						public void onFailure(Throwable t) {
+							votes.failed(sentinel.getSentinel().toString(), t);
+						}
+					});
+		}
+		HostConfiguration master;
+		try {
+			master = Uninterruptibles.getUninterruptibly(votes.getResult(), this.discoveryConfig.getTimeout(),
+					TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			votes.expire();
+			master = Futures.getUnchecked(votes.getResult());
+		} catch (ExecutionException e) {
+			throw Throwables.propagate(e.getCause());
+		}
+		this.resolved(masterName, votes.getEpoch(master));
+		return master;
+	}
+
+	private void resolved(String masterName, long epoch) {
+		for (;;) {
+			Long current = this.resolvedEpochs.putIfAbsent(masterName, epoch);
+			if (current == null || current >= epoch || this.resolvedEpochs.replace(masterName, current, epoch)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * asks the given sentinel for the config epoch of the master name on its
+	 * heart beat connection, without waiting for the answer.
+	 *
+	 * @return the epoch, -1 if the sentinel does not report one. fails if
+	 * the sentinel is not one of the heart beats.
+	 */
+	public ListenableFuture<Long> getConfigEpoch(HostConfiguration sentinel, String masterName) {
+		for (SentinelHeartbeat heartbeat : heartbeats) {
+			SentinelClient client = heartbeat.getSentinel();
+			if (client.getHost().equals(sentinel.getHost()) && client.getPort() == sentinel.getPort()) {
+				return Futures.transform(heartbeat.master(masterName, this.resources.getComputationExecutor()),
+						new Function<Map<String, String>, Long>() {
+							@Override
+							public Long apply(Map<String, String> master) {
+								String epoch = master.get("config-epoch");
+								return epoch == null ? -1 : Long.parseLong(epoch);
+							}
+						});
+			}
+		}
+		return Futures.immediateFailedFuture(new SentinelServerNotAvailibleException("sentinel " + sentinel
+				+ " is not monitored"));
+	}
+
+	/**
+	 * refreshes the topology on a background thread, e.g. when a sentinel
+	 * published an event about the master name. the requests made while one
+	 * is queued are merged into it.
+	 */
+	public void refreshTopologyAsync(final String masterName) {
+		if (!this.refreshing.add(masterName)) {
+			return;
+		}
+		try {
+			this.resources.getComputationExecutor().execute(new Runnable() {
+				public void run() {
+					refreshing.remove(masterName);
+					if (!running) {
+						return;
+					}
+					try {
+						refreshTopology(masterName);
+					} catch (Exception e) {
+						log.warn("Failed to refresh the topology of " + masterName, e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			this.refreshing.remove(masterName);
+		}
+	}
+
+	/**
+	 * the listener is notified of the following versions of the topology of
+	 * the master name, which is then polled even if never asked for.
+	 */
+	public void addTopologyListener(String masterName, TopologyListener listener) {
+		List<TopologyListener> listeners = this.topologyListeners.get(masterName);
+		if (listeners == null) {
+			this.topologyListeners.putIfAbsent(masterName, new CopyOnWriteArrayList<TopologyListener>());
+			listeners = this.topologyListeners.get(masterName);
+		}
+		listeners.add(listener);
+	}
+
+	public void removeTopologyListener(String masterName, TopologyListener listener) {
+		List<TopologyListener> listeners = this.topologyListeners.get(masterName);
+		if (listeners != null) {
+			listeners.remove(listener);
+		}
+	}
+
+	/**
+	 * the listener is notified of the sentinels added and retired from now on.
+	 */
+	public void addSentinelListener(SentinelListener listener) {
+		this.sentinelListeners.add(listener);
+	}
+
+	public void removeSentinelListener(SentinelListener listener) {
+		this.sentinelListeners.remove(listener);
+	}
+
+	protected void startTopologyPolling() {
+		this.topologyPoll = this.resources.getComputationExecutor().scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				Set<String> names = new HashSet<String>(topologies.keySet());
+				names.addAll(topologyListeners.keySet());
+				for (String masterName : names) {
+					try {
+						refreshTopology(masterName);
+					} catch (Exception e) {
+						log.warn("Failed to refresh the topology of " + masterName, e);
+					}
+				}
+				if (sentinelDiscovery && !names.isEmpty()) {
+					try {
+						discoverSentinels(names);
+					} catch (Exception e) {
+						log.warn("Failed to discover the sentinels of " + names, e);
+					}
+				}
+			}
+		}, this.topologyRefreshInterval, this.topologyRefreshInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * asks every available sentinel for the other sentinels monitoring the
+	 * masters, adds the ones not known yet and retires the ones found at a
+	 * previous round which are no longer reported, nor answering. nothing is
+	 * retired if no sentinel answered.
+	 */
+	protected void discoverSentinels(Collection<String> masterNames) {
+		Map<SentinelHeartbeat, List<ListenableFuture<List<Map<String, String>>>>> answers = new HashMap<SentinelHeartbeat, List<ListenableFuture<List<Map<String, String>>>>>();
+		for (SentinelHeartbeat heartbeat : heartbeats) {
+			if (heartbeat.isAvailable()) {
+				List<ListenableFuture<List<Map<String, String>>>> sentinels = new ArrayList<ListenableFuture<List<Map<String, String>>>>();
+				for (String masterName : masterNames) {
+					sentinels.add(heartbeat.sentinels(masterName, MoreExecutors.directExecutor()));
+				}
+				answers.put(heartbeat, sentinels);
+			}
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.discoveryConfig.getTimeout());
+		Map<String, HostConfiguration> reported = new HashMap<String, HostConfiguration>();
+		for (Map.Entry<SentinelHeartbeat, List<ListenableFuture<List<Map<String, String>>>>> entry : answers.entrySet()) {
+			SentinelClient sentinel = entry.getKey().getSentinel();
+			for (ListenableFuture<List<Map<String, String>>> answer : entry.getValue()) {
+				try {
+					List<Map<String, String>> peers = Uninterruptibles.getUninterruptibly(answer,
+							Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					//it answered, so it is still there
+					reported.put(entry.getKey().getAddress(), null);
+					for (Map<String, String> peer : peers) {
+						HostConfiguration configuration = new HostConfiguration(peer.get("ip"),
+								Integer.parseInt(peer.get("port")), sentinel.getTimeout(), sentinel.getDB().intValue());
+						reported.put(address(configuration.getHost(), configuration.getPort()), configuration);
+					}
+				} catch (Exception e) {
+					log.debug("sentinel node [" + sentinel + "] did not tell the other sentinels: " + e);
+				}
+			}
+		}
+		if (reported.isEmpty()) {
+			return;
+		}
+
+		Map<String, SentinelHeartbeat> known = new HashMap<String, SentinelHeartbeat>();
+		for (SentinelHeartbeat heartbeat : heartbeats) {
+			known.put(heartbeat.getAddress(), heartbeat);
+		}
+		for (Map.Entry<String, HostConfiguration> entry : reported.entrySet()) {
+			if (entry.getValue() != null && !known.containsKey(entry.getKey())) {
+				this.addSentinel(entry.getValue());
+			}
+		}
+		for (Map.Entry<String, SentinelHeartbeat> entry : known.entrySet()) {
+			if (!reported.containsKey(entry.getKey()) && !this.seeds.contains(entry.getKey())) {
+				this.retireSentinel(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * adds a sentinel to the heart beat and to the rotation, e.g. one just
+	 * deployed.
+	 */
+	public void addSentinel(HostConfiguration configuration) {
+		SentinelClient client = this.join(configuration);
+		if (client == null) {
+			return;
+		}
+		for (SentinelListener listener : this.sentinelListeners) {
+			try {
+				listener.sentinelAdded(configuration(client));
+			} catch (RuntimeException e) {
+				log.error("Failed to notify " + listener + " of the sentinel " + client + " added", e);
+			}
+		}
+	}
+
+	/**
+	 * @return the client of the sentinel, null if it was known already.
+	 */
+	private synchronized SentinelClient join(HostConfiguration configuration) {
+		String address = address(configuration.getHost(), configuration.getPort());
+		for (SentinelHeartbeat heartbeat : heartbeats) {
+			if (address.equals(heartbeat.getAddress())) {
+				return null;
+			}
+		}
+		SentinelClient client = SentinelClientFactory.INSTANCE.create(configuration);
+		heartbeats.add(new SentinelHeartbeat(client, address, this.heartbeatConfig, this.resources.getEventLoopGroup()));
+		availibleSentinelServers.add(client);
+		if (sentinelServers != null) {
+			sentinelServers.add(client);
+		}
+		log.info("sentinel node [" + client + "] added.");
+		return client;
+	}
+
+	private void retireSentinel(SentinelHeartbeat heartbeat) {
+		SentinelClient client = heartbeat.getSentinel();
+		if (!this.leave(heartbeat)) {
+			return;
+		}
+		for (SentinelListener listener : this.sentinelListeners) {
+			try {
+				listener.sentinelRetired(configuration(client));
+			} catch (RuntimeException e) {
+				log.error("Failed to notify " + listener + " of the sentinel " + client + " retired", e);
+			}
+		}
+	}
+
+	/**
+	 * @return false if the sentinel was retired already.
+	 */
+	private boolean leave(SentinelHeartbeat heartbeat) {
+		//not while a topology is asked to it
+		synchronized (this.topologies) {
+			synchronized (this) {
+				SentinelClient client = heartbeat.getSentinel();
+				if (!heartbeats.remove(heartbeat)) {
+					return false;
+				}
+				availibleSentinelServers.remove(client);
+				unavailibleSentinelServers.remove(client);
+				if (sentinelServers != null) {
+					sentinelServers.remove(client);
+				}
+				heartbeat.close();
+				//it may not be reachable any more, no QUIT
+				client.disconnect();
+				log.info("sentinel node [" + client + "] retired, no longer reported by the other sentinels.");
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @return the address of the sentinel, as told to the listeners.
+	 */
+	public static HostConfiguration configuration(SentinelClient sentinel) {
+		return new HostConfiguration(sentinel.getHost(), sentinel.getPort(), sentinel.getTimeout());
+	}
+
+	private static void quit(SentinelClient sentinel) {
+		try {
+			sentinel.quit();
+		} catch (Exception e) {
+			log.debug("Failed to close the connection to " + sentinel, e);
+			sentinel.disconnect();
+		}
+	}
+
+	/**
+	 * @return ip:port, so that a sentinel given by name and reported by ip is
+	 * known once.
+	 */
+	private static String address(String host, int port) {
+		try {
+			return InetAddress.getByName(host).getHostAddress() + ":" + port;
+		} catch (UnknownHostException e) {
+			return host + ":" + port;
+		}
+	}
+
+	/**
+	 * pings every sentinel at once each interval, the sentinels which did not
+	 * answer by the deadline of the round missed it. a hung sentinel only
+	 * delays its own detection.
+	 */
 	protected void startHeartbeatCheck() {
-		this.threadPool.scheduleAtFixedRate(new Runnable() {
+		final ListeningScheduledExecutorService executor = this.resources.getComputationExecutor();
+		final long deadline = Math.min(this.heartbeatConfig.getTimeout(), this.interval);
+		this.heartbeat = executor.scheduleAtFixedRate(new Runnable() {
 			public void run() {
-				if (running) { //ugly, need to be refactor
-					for (final SentinelClient sentinelServer : availibleSentinelServers) {
-						try {
-							if(log.isDebugEnabled()) {
-								//log.debug("checking sentinel server [" + sentinelServer + "]...");
+				if (!running) {
+					return;
+				}
+				for (final SentinelHeartbeat heartbeat : heartbeats) {
+					ListenableFuture<Long> ping = heartbeat.ping(executor);
+					if (ping == null) {
+						//the previous one is still unanswered
+						continue;
+					}
+					Futures.addCallback(ping, new FutureCallback<Long>() {
+						@Override
+						public void onSuccess(Long rtt) {
+							if (heartbeat.success(rtt)) {
+								availabilityChanged(heartbeat);
 							}
-							sentinelServer.ping();
-						} catch (Exception e) {
-							log.error("it seems the sentinel node [" + sentinelServer + "] is not availible, please check it.");
-							unavailibleSentinelServers.add(sentinelServer);
-							availibleSentinelServers.remove(sentinelServer);
 						}
-					}
-					
-					for (final SentinelClient sentinelServer : unavailibleSentinelServers) {
-						try {
-							if(log.isDebugEnabled()) {
-								//log.debug("checking sentinel server [" + sentinelServer + "]...");
+
+						@Override
+						public void onFailure(Throwable t) {
+							if (heartbeat.failure(t)) {
+								availabilityChanged(heartbeat);
 							}
-							sentinelServer.ping();
-							availibleSentinelServers.add(sentinelServer);
-							unavailibleSentinelServers.remove(sentinelServer);
-						} catch (Exception e) {
-							log.error("it seems the sentinel node [" + sentinelServer + "] is not availible, please check it.");
 						}
-					}
+					});
 				}
+				executor.schedule(new Runnable() {
+					public void run() {
+						for (SentinelHeartbeat heartbeat : heartbeats) {
+							if (heartbeat.expire()) {
+								availabilityChanged(heartbeat);
+							}
+						}
+					}
+				}, deadline, TimeUnit.MILLISECONDS);
 			}
 		}, 0, interval, TimeUnit.MILLISECONDS);
 	}
+
+	private synchronized void availabilityChanged(SentinelHeartbeat heartbeat) {
+		//retired meanwhile, it must not come back to the rotation
+		if (!heartbeats.contains(heartbeat)) {
+			return;
+		}
+		SentinelClient sentinelServer = heartbeat.getSentinel();
+		if (heartbeat.isAvailable()) {
+			log.info("sentinel node [" + sentinelServer + "] is availible again.");
+			unavailibleSentinelServers.remove(sentinelServer);
+			availibleSentinelServers.add(sentinelServer);
+			if (sentinelServers != null) {
+				sentinelServers.add(sentinelServer);
+			}
+		} else {
+			log.error("it seems the sentinel node [" + sentinelServer + "] is not availible, please check it. "
+					+ heartbeat.getLastError());
+			availibleSentinelServers.remove(sentinelServer);
+			unavailibleSentinelServers.add(sentinelServer);
+			if (sentinelServers != null) {
+				sentinelServers.remove(sentinelServer);
+			}
+		}
+	}
 }
@@ -0,0 +1,20 @@
+package io.doeasy.redis.client.sentinel;
+
+import io.doeasy.redis.model.TopologySnapshot;
+
+/**
+ * notified by {@link SentinelServersManager} of each new version of the
+ * topology of a master name, one version at a time and in order. called
+ * while the manager refreshes the topology, so it should return quickly.
+ *
+ * @author kriswang
+ *
+ */
+public interface TopologyListener {
+
+	/**
+	 * @param previous null for the first version.
+	 */
+	public void topologyChanged(TopologySnapshot previous, TopologySnapshot current);
+
+}
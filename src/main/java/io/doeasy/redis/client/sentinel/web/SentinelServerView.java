@@ -1,6 +1,7 @@
 package io.doeasy.redis.client.sentinel.web;
 
 import io.doeasy.redis.client.sentinel.SentinelClient;
+import io.doeasy.redis.client.sentinel.SentinelHeartbeat;
 import io.doeasy.redis.client.sentinel.SentinelServersManager;
 import io.doeasy.redis.config.HostConfiguration;
 
@@ -27,6 +28,10 @@ public class SentinelServerView {
 		return manager.getUnavailibleSentinelServers();
 	}
 	
+	public List<SentinelHeartbeat> getHeartbeats() {
+		return manager.getHeartbeats();
+	}
+	
 	public HostConfiguration getMaster() {
 		return manager.getMaster("mymaster");
 	}
@@ -0,0 +1,45 @@
+package io.doeasy.redis.config;
+
+import lombok.Data;
+
+/**
+ * sizing of the threads shared by the clients, see
+ * {@link io.doeasy.redis.client.ClientResources}.
+ *
+ * @author kriswang
+ *
+ */
+@Data
+public class ClientResourcesConfig {
+
+	public static final int DEFAULT_IO_THREADS = Runtime.getRuntime().availableProcessors();
+	public static final int DEFAULT_COMPUTATION_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+	public static final int DEFAULT_BLOCKING_THREADS = 64;
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT = 2000;
+
+	/**
+	 * threads of the netty event loop group running the connections to the
+	 * sentinels and the netty clients. started as the connections open, up
+	 * to this number.
+	 */
+	private int ioThreads = DEFAULT_IO_THREADS;
+
+	/**
+	 * threads running the periodic and background tasks: sentinel heart
+	 * beats, master switches, replication lag sampling, write buffer
+	 * retries, hot key windows and the timers of the hedged reads.
+	 */
+	private int computationThreads = DEFAULT_COMPUTATION_THREADS;
+
+	/**
+	 * threads running the reads hedged by the clients, a read waits on its
+	 * connection on one of them while the caller waits for the first reply.
+	 * started on demand, up to this number, stopped when idle.
+	 */
+	private int blockingThreads = DEFAULT_BLOCKING_THREADS;
+
+	/**
+	 * time given to the running tasks to complete on shutdown, in ms.
+	 */
+	private long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+}
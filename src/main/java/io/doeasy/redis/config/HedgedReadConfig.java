@@ -0,0 +1,44 @@
+package io.doeasy.redis.config;
+
+import lombok.Data;
+
+/**
+ * settings of the hedging of slave reads: a read the first slave has not
+ * answered in time is sent to a second one as well.
+ *
+ * @author kriswang
+ *
+ */
+@Data
+public class HedgedReadConfig {
+
+	public static final double DEFAULT_PERCENTILE = 95;
+	public static final long DEFAULT_MIN_DELAY = 500;
+	public static final double DEFAULT_BUDGET = 0.05;
+	public static final int DEFAULT_MAX_BURST = 10;
+
+	/**
+	 * percentile of the recent latency of the first slave after which the
+	 * read is hedged.
+	 */
+	private double percentile = DEFAULT_PERCENTILE;
+
+	/**
+	 * time waited at least before hedging, in microseconds, whatever the
+	 * latency of the slave. also used while its latency is not known yet.
+	 */
+	private long minDelay = DEFAULT_MIN_DELAY;
+
+	/**
+	 * fraction of the reads that may be hedged, a hedge beyond it waits for
+	 * the first slave only. caps the extra load put on the slaves when they
+	 * all get slow.
+	 */
+	private double budget = DEFAULT_BUDGET;
+
+	/**
+	 * number of hedges that may be sent in a row when the budget was saved
+	 * up by the reads before.
+	 */
+	private int maxBurst = DEFAULT_MAX_BURST;
+}
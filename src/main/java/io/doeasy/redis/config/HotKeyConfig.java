@@ -0,0 +1,61 @@
+package io.doeasy.redis.config;
+
+import lombok.Data;
+
+/**
+ * settings of the detection of the keys taking a disproportionate share of
+ * the traffic.
+ *
+ * @author kriswang
+ *
+ */
+@Data
+public class HotKeyConfig {
+
+	public static final int DEFAULT_DEPTH = 4;
+	public static final int DEFAULT_WIDTH = 1024;
+	public static final int DEFAULT_TOP_N = 10;
+	public static final long DEFAULT_WINDOW = 1000;
+	public static final int DEFAULT_SAMPLE_RATE = 1;
+	public static final long DEFAULT_PROMOTE_TTL = 100;
+
+	/**
+	 * number of rows of the count-min sketch, each row is indexed by another
+	 * hash of the key.
+	 */
+	private int depth = DEFAULT_DEPTH;
+
+	/**
+	 * number of counters per row, the wider the less a key is overestimated
+	 * because of the keys sharing its counters.
+	 */
+	private int width = DEFAULT_WIDTH;
+
+	/**
+	 * number of hot keys reported.
+	 */
+	private int topN = DEFAULT_TOP_N;
+
+	/**
+	 * period over which the accesses are counted, in ms. the rates reported
+	 * are those of the last complete period.
+	 */
+	private long window = DEFAULT_WINDOW;
+
+	/**
+	 * one access out of this many is counted, the rates are scaled back.
+	 */
+	private int sampleRate = DEFAULT_SAMPLE_RATE;
+
+	/**
+	 * rate, in accesses per second, above which the values of a hot key read
+	 * by get and hget are cached locally. 0 disables the promotion.
+	 */
+	private double promoteRate;
+
+	/**
+	 * time a value of a promoted key is cached, in ms. bounds how stale it
+	 * can get when another client changes it.
+	 */
+	private long promoteTtl = DEFAULT_PROMOTE_TTL;
+}
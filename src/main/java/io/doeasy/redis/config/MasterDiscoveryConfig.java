@@ -0,0 +1,33 @@
+package io.doeasy.redis.config;
+
+import lombok.Data;
+
+/**
+ * how the address of a master is agreed on: every available sentinel is
+ * asked at once, the address reported by {@link #quorum} sentinels is used
+ * as soon as they answered, unless another sentinel reports a master of a
+ * higher config epoch.
+ *
+ * @author kriswang
+ *
+ */
+@Data
+public class MasterDiscoveryConfig {
+
+	public static final long DEFAULT_TIMEOUT = 1000;
+
+	/**
+	 * number of sentinels which must agree, 0 for a majority of all the
+	 * sentinels, available or not. without a quorum by the timeout, the
+	 * master of the highest config epoch among the answers is only used if
+	 * its epoch is higher than the one of the master known before and than
+	 * the ones of the other answers. otherwise the master known before is
+	 * kept, or the resolution fails if there is none.
+	 */
+	private int quorum;
+
+	/**
+	 * time given to the sentinels to answer, in ms.
+	 */
+	private long timeout = DEFAULT_TIMEOUT;
+}
@@ -0,0 +1,29 @@
+package io.doeasy.redis.config;
+
+import lombok.Data;
+
+/**
+ * settings of the client side cache of slave reads, invalidated by the
+ * keyspace notifications of the master.
+ *
+ * @author kriswang
+ *
+ */
+@Data
+public class NearCacheConfig {
+
+	public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+	public static final long DEFAULT_TIME_TO_LIVE = 60000;
+
+	/**
+	 * number of keys kept, the least recently used keys are evicted beyond.
+	 * all the cached fields of a hash count as one key.
+	 */
+	private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+	/**
+	 * time a key is kept after it was cached, in ms, whether it is read or
+	 * not. bounds how stale a value can get if a notification is lost.
+	 */
+	private long timeToLive = DEFAULT_TIME_TO_LIVE;
+}
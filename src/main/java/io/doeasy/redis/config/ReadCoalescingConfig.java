@@ -0,0 +1,29 @@
+package io.doeasy.redis.config;
+
+import lombok.Data;
+
+/**
+ * settings of the coalescing of concurrent single key reads into one
+ * MGET/HMGET pipeline.
+ * 
+ * @author kriswang
+ *
+ */
+@Data
+public class ReadCoalescingConfig {
+
+	public static final long DEFAULT_WINDOW = 100;
+	public static final int DEFAULT_MAX_BATCH_SIZE = 128;
+
+	/**
+	 * time the first read of a batch waits for others to join, in
+	 * microseconds.
+	 */
+	private long window = DEFAULT_WINDOW;
+
+	/**
+	 * the batch is sent without waiting for the end of the window once it
+	 * holds this many reads.
+	 */
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+}
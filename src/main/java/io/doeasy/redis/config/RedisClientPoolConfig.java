@@ -0,0 +1,33 @@
+package io.doeasy.redis.config;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.jedis.Protocol;
+
+/**
+ * connection pool settings applied to every redis node (master and slaves).
+ * idle clients are validated with PING by the evictor and evicted after one
+ * minute. clients are not validated on borrow, which would cost a round trip
+ * per command, a client found broken by a command is returned broken.
+ * 
+ * @author kriswang
+ *
+ */
+public class RedisClientPoolConfig extends GenericObjectPoolConfig {
+
+	public static final int DEFAULT_MAX_TOTAL = 16;
+	public static final int DEFAULT_MAX_IDLE = 8;
+	public static final int DEFAULT_MIN_IDLE = 1;
+
+	public RedisClientPoolConfig() {
+		setMaxTotal(DEFAULT_MAX_TOTAL);
+		setMaxIdle(DEFAULT_MAX_IDLE);
+		setMinIdle(DEFAULT_MIN_IDLE);
+		setMaxWaitMillis(Protocol.DEFAULT_TIMEOUT);  //borrow timeout
+		setTestOnBorrow(false);
+		setTestWhileIdle(true);
+		setMinEvictableIdleTimeMillis(60000);
+		setTimeBetweenEvictionRunsMillis(30000);
+		setNumTestsPerEvictionRun(-1);
+	}
+}
@@ -0,0 +1,36 @@
+package io.doeasy.redis.config;
+
+import lombok.Data;
+
+/**
+ * bounds on how far a slave may lag behind its master and still serve reads.
+ * the lag is sampled every {@link #sampleInterval} ms with INFO replication.
+ * 
+ * @author kriswang
+ *
+ */
+@Data
+public class ReplicationLagConfig {
+
+	public static final long DEFAULT_MAX_LAG_BYTES = 1024 * 1024;
+	public static final long DEFAULT_MAX_LAG_SECONDS = 10;
+	public static final long DEFAULT_SAMPLE_INTERVAL = 1000;
+
+	/**
+	 * replication offset difference to the master, in bytes.
+	 */
+	private long maxLagBytes = DEFAULT_MAX_LAG_BYTES;
+
+	/**
+	 * seconds since the slave last acknowledged the replication stream.
+	 */
+	private long maxLagSeconds = DEFAULT_MAX_LAG_SECONDS;
+
+	private long sampleInterval = DEFAULT_SAMPLE_INTERVAL;
+
+	/**
+	 * when every slave lags too much, read from the master (true) or from the
+	 * least lagging slave (false).
+	 */
+	private boolean fallbackToMaster = true;
+}
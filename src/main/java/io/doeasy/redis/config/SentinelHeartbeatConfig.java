@@ -0,0 +1,35 @@
+package io.doeasy.redis.config;
+
+import lombok.Data;
+
+/**
+ * how the sentinels are checked: every sentinel is pinged at once each
+ * interval, a sentinel which did not answer within {@link #timeout} ms
+ * missed the round. it is taken out of the rotation after
+ * {@link #failureThreshold} failed rounds in a row, and put back after
+ * {@link #recoveryThreshold} successful ones.
+ *
+ * @author kriswang
+ *
+ */
+@Data
+public class SentinelHeartbeatConfig {
+
+	public static final long DEFAULT_TIMEOUT = 500;
+	public static final int DEFAULT_FAILURE_THRESHOLD = 2;
+	public static final int DEFAULT_RECOVERY_THRESHOLD = 1;
+
+	/**
+	 * deadline of a round, in ms. bounded by the interval.
+	 */
+	private long timeout = DEFAULT_TIMEOUT;
+
+	private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+	private int recoveryThreshold = DEFAULT_RECOVERY_THRESHOLD;
+
+	/**
+	 * weight of the last round trip in the average, between 0 and 1.
+	 */
+	private double rttWeight = 0.2;
+}
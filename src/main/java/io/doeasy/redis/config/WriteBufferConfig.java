@@ -0,0 +1,48 @@
+package io.doeasy.redis.config;
+
+import lombok.Data;
+
+/**
+ * settings of the buffering of writes while the master is not reachable,
+ * e.g. during a failover.
+ * 
+ * @author kriswang
+ *
+ */
+@Data
+public class WriteBufferConfig {
+
+	public static final int DEFAULT_CAPACITY = 1000;
+	public static final long DEFAULT_MAX_WAIT = 5000;
+	public static final long DEFAULT_RETRY_INTERVAL = 100;
+
+	public enum OverflowPolicy {
+		/**
+		 * the new write fails immediately.
+		 */
+		REJECT_NEW,
+		/**
+		 * the oldest buffered write fails to make room for the new one.
+		 */
+		FAIL_OLDEST
+	}
+
+	/**
+	 * maximum number of buffered writes.
+	 */
+	private int capacity = DEFAULT_CAPACITY;
+
+	/**
+	 * time a write may stay buffered before it fails, in ms.
+	 */
+	private long maxWait = DEFAULT_MAX_WAIT;
+
+	/**
+	 * interval between two attempts to replay the buffer on the current
+	 * master, in ms. the buffer is also replayed as soon as the master is
+	 * switched.
+	 */
+	private long retryInterval = DEFAULT_RETRY_INTERVAL;
+
+	private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT_NEW;
+}
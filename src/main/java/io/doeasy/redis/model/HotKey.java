@@ -0,0 +1,24 @@
+package io.doeasy.redis.model;
+
+import lombok.Data;
+
+/**
+ * key detected as hot and its rate
+ *
+ * @author kriswang
+ *
+ */
+@Data
+public class HotKey {
+	private final byte[] key;
+
+	/**
+	 * estimated number of accesses per second.
+	 */
+	private final double rate;
+
+	/**
+	 * whether the values read from it are cached locally.
+	 */
+	private final boolean promoted;
+}
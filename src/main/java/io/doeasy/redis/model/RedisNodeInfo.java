@@ -29,4 +29,10 @@ public class RedisNodeInfo {
 	private Integer quorum;
 	private Long failoverTimeout;
 	private Integer parallelSyncs;
+	private Long masterLinkDownTime;
+	private String masterLinkStatus;
+	private String masterHost;
+	private Integer masterPort;
+	private Integer slavePriority;
+	private Long slaveReplOffset;
 }
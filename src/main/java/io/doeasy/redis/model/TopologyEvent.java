@@ -0,0 +1,28 @@
+package io.doeasy.redis.model;
+
+import io.doeasy.redis.config.HostConfiguration;
+import lombok.Data;
+
+/**
+ * message published by a sentinel about the master or the slaves it
+ * monitors, e.g. on the +switch-master channel.
+ *
+ * @author kriswang
+ *
+ */
+@Data
+public class TopologyEvent {
+	private final String channel;
+
+	private final String message;
+
+	/**
+	 * the sentinel which published it.
+	 */
+	private final HostConfiguration sentinel;
+
+	/**
+	 * System.nanoTime() when it was received.
+	 */
+	private final long received;
+}
@@ -0,0 +1,76 @@
+package io.doeasy.redis.model;
+
+import io.doeasy.redis.config.HostConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * the master and the slaves of a master name as last reported by sentinel,
+ * never modified. the version is incremented each time the master or the
+ * set of slaves changes.
+ *
+ * @author kriswang
+ *
+ */
+@Data
+public class TopologySnapshot {
+	private final String masterName;
+
+	private final long version;
+
+	/**
+	 * null if sentinel does not know the master name.
+	 */
+	private final HostConfiguration master;
+
+	/**
+	 * the slaves not flagged down, unmodifiable.
+	 */
+	private final List<RedisNodeInfo> slaves;
+
+	/**
+	 * System.currentTimeMillis() when it was asked to sentinel.
+	 */
+	private final long updated;
+
+	public TopologySnapshot(String masterName, long version, HostConfiguration master, List<RedisNodeInfo> slaves,
+			long updated) {
+		this.masterName = masterName;
+		this.version = version;
+		this.master = master;
+		this.slaves = Collections.unmodifiableList(new ArrayList<RedisNodeInfo>(slaves));
+		this.updated = updated;
+	}
+
+	public List<HostConfiguration> getSlaveConfigurations() {
+		List<HostConfiguration> result = new ArrayList<HostConfiguration>();
+		for (RedisNodeInfo slave : this.slaves) {
+			result.add(new HostConfiguration(slave.getIp(), slave.getPort()));
+		}
+		return result;
+	}
+
+	/**
+	 * @return true if the master and the slaves are the same, whatever their
+	 * replication state.
+	 */
+	public boolean sameNodes(HostConfiguration master, List<RedisNodeInfo> slaves) {
+		if (this.master == null ? master != null : !this.master.equals(master)) {
+			return false;
+		}
+		List<HostConfiguration> current = this.getSlaveConfigurations();
+		if (current.size() != slaves.size()) {
+			return false;
+		}
+		for (RedisNodeInfo slave : slaves) {
+			if (!current.contains(new HostConfiguration(slave.getIp(), slave.getPort()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
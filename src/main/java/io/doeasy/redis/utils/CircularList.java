@@ -1,83 +1,109 @@
 package io.doeasy.redis.utils;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * 
+ * round robin list without locks: readers rotate an atomic counter over an
+ * immutable snapshot array, writers replace the snapshot by copy-on-write.
+ * membership changes are rare (topology events) while next() is called for
+ * every read, so the write side pays for the copy.
+ *
  * @author kriswang
  *
  * @param <T>
  */
 public class CircularList<T> implements Iterable<T> {
 
-	private final ReentrantLock lock = new ReentrantLock();
-	private final List<T> collection;
-	private int currentIndex;
+	private final AtomicReference<Object[]> snapshot;
+	private final AtomicInteger counter = new AtomicInteger();
 
 	public CircularList(Collection<T> iterator) {
-		this.collection = new ArrayList<T>(iterator);
+		this.snapshot = new AtomicReference<Object[]>(iterator.toArray());
 	}
 
 	public CircularList(@SuppressWarnings("unchecked") T... items) {
 		this(Arrays.asList(items));
 	}
-	
+
 	public int size() {
-		return this.collection.size();
+		return this.snapshot.get().length;
 	}
-	
+
 	public boolean empty() {
-		return this.collection.size() == 0;
+		return this.snapshot.get().length == 0;
 	}
-	
+
 	public void add(T t) {
-		try {
-			this.lock.lock();
-			this.collection.add(t);
-		} finally {
-			this.lock.unlock();
+		for (;;) {
+			Object[] current = this.snapshot.get();
+			Object[] updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = t;
+			if (this.snapshot.compareAndSet(current, updated)) {
+				return;
+			}
 		}
 	}
-	
+
 	public void remove(T t) {
-		try {
-			this.lock.lock();
-			for(T c : collection) {
-				if(c.equals(t)) {
-					this.collection.remove(t);
-				}
+		for (;;) {
+			Object[] current = this.snapshot.get();
+			int index = indexOf(current, t);
+			if (index < 0) {
+				return;
+			}
+			Object[] updated = new Object[current.length - 1];
+			System.arraycopy(current, 0, updated, 0, index);
+			System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+			if (this.snapshot.compareAndSet(current, updated)) {
+				return;
 			}
-		} finally {
-			this.lock.unlock();
 		}
 	}
-	
+
+	/**
+	 * @return the next item in round robin order, or null if the list is empty.
+	 */
 	public T next() {
-		try {
-			this.lock.lock();
-			
-			T item = this.collection.get(this.currentIndex);
-			
-			if(this.currentIndex >= (this.collection.size() - 1)) {
-				this.currentIndex = 0;
-			} else {
-				this.currentIndex++;
-			}
-			
-			return item;
-		} finally {
-			this.lock.unlock();
+		return this.get(this.counter.getAndIncrement() & Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return the item at the given position, wrapped around the current
+	 * size, or null if the list is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		Object[] current = this.snapshot.get();
+		if (current.length == 0) {
+			return null;
 		}
+		return (T) current[index % current.length];
 	}
 
+	/**
+	 * iterates over the snapshot taken when this method is called, concurrent
+	 * add/remove are not visible to the returned iterator.
+	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	public Iterator<T> iterator() {
-		return this.collection.iterator();
+		List<T> items = (List<T>) Arrays.asList(this.snapshot.get());
+		return Collections.unmodifiableList(items).iterator();
+	}
+
+	private static int indexOf(Object[] items, Object t) {
+		for (int i = 0; i < items.length; i++) {
+			if (t == null ? items[i] == null : t.equals(items[i])) {
+				return i;
+			}
+		}
+		return -1;
 	}
 
 }
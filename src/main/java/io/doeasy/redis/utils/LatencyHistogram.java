@@ -0,0 +1,115 @@
+package io.doeasy.redis.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * histogram of latencies without locks nor allocation when recording, with
+ * log-linear buckets in the manner of HdrHistogram: each power of two is
+ * split in 32 linear buckets, so a value is known within about 3% whatever
+ * its magnitude. values from 0 to about 18 minutes in nanoseconds are
+ * tracked, larger ones are counted in the last bucket.
+ *
+ * the percentiles are computed from a walk over the buckets while they may
+ * still be updated, a value recorded meanwhile may or may not be counted.
+ *
+ * @author kriswang
+ *
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int HALF = SUB_BUCKETS / 2;
+	private static final int HIGHEST_BIT = 39;
+	private static final long HIGHEST_VALUE = (1L << (HIGHEST_BIT + 1)) - 1;
+	private static final int BUCKETS = index(HIGHEST_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		this.counts.incrementAndGet(index(Math.min(value, HIGHEST_VALUE)));
+		this.sum.addAndGet(value);
+		this.count.incrementAndGet();
+		long current = this.max.get();
+		while (value > current && !this.max.compareAndSet(current, value)) {
+			current = this.max.get();
+		}
+	}
+
+	public long getCount() {
+		return this.count.get();
+	}
+
+	public long getMax() {
+		return this.max.get();
+	}
+
+	public double getMean() {
+		long count = this.count.get();
+		return count == 0 ? 0 : (double) this.sum.get() / count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100, e.g. 99.99.
+	 * @return the highest value of the bucket holding the given percentile,
+	 * 0 if nothing was recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = this.count.get();
+		if (count == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+		long seen = 0;
+		int last = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			long bucket = this.counts.get(i);
+			if (bucket == 0) {
+				continue;
+			}
+			last = i;
+			seen += bucket;
+			if (seen >= target) {
+				return Math.min(highest(i), this.max.get());
+			}
+		}
+		return Math.min(highest(last), this.max.get());
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram(count=" + this.getCount() + ", mean=" + (long) this.getMean() + ", p50="
+				+ this.getValueAtPercentile(50) + ", p99=" + this.getValueAtPercentile(99) + ", p99.99="
+				+ this.getValueAtPercentile(99.99) + ", max=" + this.getMax() + ")";
+	}
+
+	/**
+	 * values below SUB_BUCKETS have a bucket each, then each power of two
+	 * has HALF buckets.
+	 */
+	static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		int sub = (int) (value >>> shift);
+		return SUB_BUCKETS + (shift - 1) * HALF + (sub - HALF);
+	}
+
+	static long highest(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int relative = index - SUB_BUCKETS;
+		int shift = relative / HALF + 1;
+		long sub = relative % HALF + HALF;
+		return ((sub + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,112 @@
+package com.lambdaworks.redis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.Future;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Invalidation of a {@link ClientSideCache} by the pushes of a stub server
+ * tracking the keys read through the cache.
+ */
+public class ClientSideCacheTest {
+    private NioEventLoopGroup group;
+    private StubRedisServer server;
+    private RedisClient client;
+    private RedisAsyncConnection<String, String> tracked;
+    private RedisAsyncConnection<String, String> writer;
+    private ClientSideCache<String, String> cache;
+
+    @Before
+    public void setUp() throws Exception {
+        group = new NioEventLoopGroup(1);
+        server = new StubRedisServer(0);
+        server.start();
+        client = new RedisClient(group, "127.0.0.1", server.getPort(), 5000);
+        tracked = client.connectAsync();
+        writer = client.connectAsync();
+        writer.set("key", "v1").get();
+        cache = new ClientSideCache<String, String>(tracked, 100);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.close();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    public void invalidatePushEvictsCachedValue() throws Exception {
+        assertEquals(1, server.getCommandCount("HELLO"));
+        assertEquals("v1", cache.get("key").get());
+        assertEquals("v1", cache.get("key").get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, server.getCommandCount("GET"));
+
+        writer.set("key", "v2").get();
+        awaitInvalidations(1);
+        assertEquals(0, cache.size());
+        assertEquals("v2", cache.get("key").get());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void readRacingInvalidationIsNotCached() throws Exception {
+        server.setLatency(300, TimeUnit.MILLISECONDS);
+        Future<String> read = cache.get("key");
+        awaitCount("GET", 1);
+        // the push is not delayed, it overtakes the reply of the read
+        writer.set("key", "v2");
+        awaitInvalidations(1);
+        assertEquals("v1", read.get());
+        assertEquals(0, cache.size());
+
+        server.setLatency(0, TimeUnit.MILLISECONDS);
+        assertEquals("v2", cache.get("key").get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void trackingRestoredAfterReconnect() throws Exception {
+        cache.get("key").get();
+        assertEquals(1, cache.size());
+
+        server.stop();
+        server.start();
+        awaitCount("HELLO", 2);
+        // pushes may have been missed while disconnected
+        awaitInvalidations(1);
+        assertEquals(0, cache.size());
+
+        writer.set("key", "v2").get();
+        assertEquals("v2", cache.get("key").get());
+        assertEquals(1, cache.size());
+        writer.set("key", "v3").get();
+        awaitInvalidations(2);
+        assertEquals("v3", cache.get("key").get());
+    }
+
+    private void awaitInvalidations(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getInvalidationCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, cache.getInvalidationCount());
+    }
+
+    private void awaitCount(String command, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getCommandCount(command) < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(server.getCommandCount(command) >= count);
+    }
+}
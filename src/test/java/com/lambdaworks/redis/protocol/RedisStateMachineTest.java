@@ -0,0 +1,153 @@
+package com.lambdaworks.redis.protocol;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.lambdaworks.redis.codec.RedisCodec;
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.IntegerOutput;
+import com.lambdaworks.redis.output.NestedMultiOutput;
+import com.lambdaworks.redis.output.PushOutput;
+import com.lambdaworks.redis.output.StatusOutput;
+import com.lambdaworks.redis.output.ValueOutput;
+
+/**
+ * Decoding of the RESP3 types and of push replies mixed with command replies.
+ */
+public class RedisStateMachineTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private RedisCodec<String, String> codec = new Utf8StringCodec();
+    private RedisStateMachine<String, String> rsm;
+
+    @Before
+    public void setUp() {
+        rsm = new RedisStateMachine<String, String>();
+    }
+
+    @Test
+    public void resp3Null() {
+        ValueOutput<String, String> output = new ValueOutput<String, String>(codec);
+        output.set(Charsets.buffer("placeholder"));
+        assertTrue(rsm.decode(buffer("_\r\n"), output));
+        assertNull(output.get());
+    }
+
+    @Test
+    public void resp3Boolean() {
+        IntegerOutput<String, String> output = new IntegerOutput<String, String>(codec);
+        assertTrue(rsm.decode(buffer("#t\r\n"), output));
+        assertEquals(Long.valueOf(1), output.get());
+        assertTrue(rsm.decode(buffer("#f\r\n"), output));
+        assertEquals(Long.valueOf(0), output.get());
+    }
+
+    @Test
+    public void resp3DoubleAndBigNumber() {
+        StatusOutput<String, String> output = new StatusOutput<String, String>(codec);
+        assertTrue(rsm.decode(buffer(",3.14\r\n"), output));
+        assertEquals("3.14", output.get());
+        assertTrue(rsm.decode(buffer("(3492890328409238509324850943850943825024385\r\n"), output));
+        assertEquals("3492890328409238509324850943850943825024385", output.get());
+    }
+
+    @Test
+    public void resp3Map() {
+        NestedMultiOutput<String, String> output = new NestedMultiOutput<String, String>(codec);
+        assertTrue(rsm.decode(buffer("%2\r\n$5\r\nproto\r\n:3\r\n$7\r\nmodules\r\n*0\r\n"), output));
+        List<Object> properties = output.get();
+        assertEquals(4, properties.size());
+        assertEquals("proto", properties.get(0));
+        assertEquals(3L, properties.get(1));
+        assertEquals("modules", properties.get(2));
+        assertEquals(0, ((List<?>) properties.get(3)).size());
+    }
+
+    @Test
+    public void resp3Set() {
+        NestedMultiOutput<String, String> output = new NestedMultiOutput<String, String>(codec);
+        assertTrue(rsm.decode(buffer("~2\r\n$1\r\na\r\n$1\r\nb\r\n"), output));
+        assertEquals(Arrays.<Object> asList("a", "b"), output.get());
+    }
+
+    @Test
+    public void pushBeforeReply() {
+        ByteBuf buffer = buffer(">2\r\n$10\r\ninvalidate\r\n*1\r\n$3\r\nkey\r\n$5\r\nvalue\r\n");
+        ValueOutput<String, String> reply = new ValueOutput<String, String>(codec);
+
+        assertTrue(rsm.isPush(buffer));
+        PushOutput<String, String> push = new PushOutput<String, String>();
+        assertTrue(rsm.decode(buffer, push));
+        assertInvalidate(push, "key");
+
+        assertFalse(rsm.isPush(buffer));
+        assertTrue(rsm.decode(buffer, reply));
+        assertEquals("value", reply.get());
+    }
+
+    @Test
+    public void pushAfterPartialReply() {
+        ValueOutput<String, String> reply = new ValueOutput<String, String>(codec);
+        ByteBuf buffer = buffer("$5\r\nva");
+        assertFalse(rsm.isPush(buffer));
+        assertFalse(rsm.decode(buffer, reply));
+
+        // the rest of the reply is still a reply, the next frame a push
+        buffer.writeBytes("lue\r\n>2\r\n$10\r\ninvalidate\r\n_\r\n".getBytes(UTF8));
+        assertFalse(rsm.isPush(buffer));
+        assertTrue(rsm.decode(buffer, reply));
+        assertEquals("value", reply.get());
+
+        assertTrue(rsm.isPush(buffer));
+        PushOutput<String, String> push = new PushOutput<String, String>();
+        assertTrue(rsm.decode(buffer, push));
+        assertArrayEquals("invalidate".getBytes(UTF8), (byte[]) push.get().get(0));
+        assertNull(push.get().get(1));
+        assertFalse(buffer.isReadable());
+    }
+
+    @Test
+    public void partialPush() {
+        ByteBuf buffer = buffer(">2\r\n$10\r\ninvalidate\r\n*1\r\n$3\r\nk");
+        PushOutput<String, String> push = new PushOutput<String, String>();
+        assertTrue(rsm.isPush(buffer));
+        assertFalse(rsm.decode(buffer, push));
+
+        // still the push being decoded
+        buffer.writeBytes("ey\r\n+OK\r\n".getBytes(UTF8));
+        assertTrue(rsm.isPush(buffer));
+        assertTrue(rsm.decode(buffer, push));
+        assertInvalidate(push, "key");
+
+        StatusOutput<String, String> reply = new StatusOutput<String, String>(codec);
+        assertFalse(rsm.isPush(buffer));
+        assertTrue(rsm.decode(buffer, reply));
+        assertEquals("OK", reply.get());
+    }
+
+    private static void assertInvalidate(PushOutput<String, String> push, String key) {
+        List<Object> message = push.get();
+        assertEquals(2, message.size());
+        assertArrayEquals("invalidate".getBytes(UTF8), (byte[]) message.get(0));
+        List<?> keys = (List<?>) message.get(1);
+        assertEquals(1, keys.size());
+        assertArrayEquals(key.getBytes(UTF8), (byte[]) keys.get(0));
+    }
+
+    private static ByteBuf buffer(String content) {
+        return Unpooled.buffer().writeBytes(content.getBytes(UTF8));
+    }
+}
@@ -0,0 +1,133 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.client.balancer.NodeLoad;
+import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.doeasy.redis.stub.StubSentinelServer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.lambdaworks.redis.RedisException;
+
+/**
+ * routing and replies of the {@link AsyncClient}, against stub servers.
+ *
+ * @author kriswang
+ *
+ */
+public class AsyncClientTest {
+
+	private static final byte[] KEY = "key".getBytes();
+	private static final byte[] HASH = "hash".getBytes();
+	private static final byte[] FIELD = "field".getBytes();
+
+	private StubRedisServer master;
+	private StubRedisServer slave;
+	private StubSentinelServer sentinel;
+	private SentinelServersManager manager;
+	private NettyRedisClientFactory factory;
+	private AsyncClient client;
+
+	@Before
+	public void setUp() throws Exception {
+		master = new StubRedisServer(0);
+		master.start();
+		slave = new StubRedisServer(0, master);
+		slave.start();
+		sentinel = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		sentinel.start();
+
+		manager = new SentinelServersManager(Collections.singletonList(sentinel.getHostConfiguration()), 100);
+		manager.start();
+		factory = new NettyRedisClientFactory();
+		client = new AsyncClient(factory, manager, "mymaster");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		client.quit();
+		factory.shutdown();
+		manager.stop();
+		sentinel.close();
+		slave.close();
+		master.close();
+	}
+
+	@Test
+	public void testStringRoundTrip() throws Exception {
+		Assert.assertNull(get(client.get(KEY)));
+		Assert.assertEquals("OK", get(client.set(KEY, "v1".getBytes())));
+		Assert.assertArrayEquals("v1".getBytes(), get(client.get(KEY)));
+
+		//writes on the master, reads on the slave
+		Assert.assertEquals(1, master.getCommandCount("SET"));
+		Assert.assertEquals(0, master.getCommandCount("GET"));
+		Assert.assertEquals(2, slave.getCommandCount("GET"));
+		Assert.assertEquals(0, slave.getCommandCount("SET"));
+
+		List<byte[]> values = get(client.mget(KEY, "missing".getBytes()));
+		Assert.assertArrayEquals("v1".getBytes(), values.get(0));
+		Assert.assertNull(values.get(1));
+	}
+
+	@Test
+	public void testHashRoundTrip() throws Exception {
+		Assert.assertNull(get(client.hget(HASH, FIELD)));
+		Assert.assertEquals(Long.valueOf(1), get(client.hset(HASH, FIELD, "h1".getBytes())));
+		Assert.assertEquals(Long.valueOf(0), get(client.hset(HASH, FIELD, "h2".getBytes())));
+		Assert.assertArrayEquals("h2".getBytes(), get(client.hget(HASH, FIELD)));
+		Assert.assertEquals(2, master.getCommandCount("HSET"));
+		Assert.assertEquals(2, slave.getCommandCount("HGET"));
+	}
+
+	@Test
+	public void testErrorReplyFailsFuture() throws Exception {
+		get(client.hset(HASH, FIELD, "h1".getBytes()));
+		try {
+			get(client.get(HASH));
+			Assert.fail("not a string");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof RedisException);
+			Assert.assertTrue(e.getCause().getMessage(), e.getCause().getMessage().startsWith("WRONGTYPE"));
+		}
+
+		//an error reply is not a failure of the node
+		NodeLoad load = client.getClient().getSlaves().get(0).getLoad();
+		awaitInflight(load);
+		Assert.assertEquals(0, load.getInflight());
+		Assert.assertEquals("OK", get(client.set(KEY, "v1".getBytes())));
+	}
+
+	@Test
+	public void testClosedClientFailsFuture() throws Exception {
+		client.quit();
+		ListenableFuture<byte[]> future = client.get(KEY);
+		try {
+			get(future);
+			Assert.fail("the client is closed");
+		} catch (ExecutionException e) {
+			//failed, not left pending
+		}
+		Assert.assertTrue(future.isDone());
+	}
+
+	private static <T> T get(ListenableFuture<T> future) throws Exception {
+		return future.get(5, TimeUnit.SECONDS);
+	}
+
+	private static void awaitInflight(NodeLoad load) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (load.getInflight() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+}
@@ -0,0 +1,445 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.client.balancer.RoundRobinReadBalancer;
+import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.config.WriteBufferConfig;
+import io.doeasy.redis.config.WriteBufferConfig.OverflowPolicy;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.doeasy.redis.stub.StubSentinelServer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * master switch and slave events of {@link Client}, against stub servers.
+ *
+ * @author kriswang
+ *
+ */
+public class ClientFailoverTest {
+
+	private static final byte[] KEY = "key".getBytes();
+	private static final byte[] COUNTER = "counter".getBytes();
+
+	private StubRedisServer master;
+	private StubRedisServer slave;
+	private StubSentinelServer sentinel;
+	private SentinelServersManager manager;
+	private Client client;
+	private ExecutorService writers;
+
+	@Before
+	public void setUp() throws Exception {
+		master = new StubRedisServer(0);
+		master.start();
+		slave = new StubRedisServer(0, master);
+		slave.start();
+		sentinel = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		sentinel.start();
+
+		manager = new SentinelServersManager(Collections.singletonList(sentinel.getHostConfiguration()), 100);
+		manager.start();
+		client = new Client(RedisClientFactory.INSTANCE, manager, "mymaster");
+		await(sentinel, "SUBSCRIBE");
+		writers = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		writers.shutdownNow();
+		client.quit();
+		manager.stop();
+		sentinel.close();
+		slave.close();
+		master.close();
+	}
+
+	@Test
+	public void testWritesMoveToNewMaster() throws Exception {
+		Assert.assertEquals("OK", client.set(KEY, "v1".getBytes()));
+		long before = slave.getCommandCount("SET");
+
+		master.stop();
+		sentinel.failover("mymaster");
+
+		long deadline = System.currentTimeMillis() + 5000;
+		String reply = null;
+		while (reply == null && System.currentTimeMillis() < deadline) {
+			try {
+				reply = client.set(KEY, "v2".getBytes());
+			} catch (RuntimeException e) {
+				Thread.sleep(10);
+			}
+		}
+		Assert.assertEquals("OK", reply);
+		Assert.assertTrue(slave.getCommandCount("SET") > before);
+		Assert.assertArrayEquals("v2".getBytes(), client.get(KEY));
+	}
+
+	@Test
+	public void testReadsSkipDownSlave() throws Exception {
+		client.set(KEY, "v1".getBytes());
+		sentinel.slaveDown("mymaster", slave);
+		Thread.sleep(200);
+		//no slave left, reads fall back to the master
+		Assert.assertArrayEquals("v1".getBytes(), client.get(KEY));
+		Assert.assertEquals(1, master.getCommandCount("GET"));
+		Assert.assertEquals(0, slave.getCommandCount("GET"));
+	}
+
+	@Test
+	public void testOneSwitchPerFailover() throws Exception {
+		StubSentinelServer other = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		other.start();
+		SentinelServersManager both = new SentinelServersManager(Arrays.asList(sentinel.getHostConfiguration(),
+				other.getHostConfiguration()), 100);
+		both.start();
+		Client watched = new Client(RedisClientFactory.INSTANCE, both, "mymaster");
+		await(other, "SUBSCRIBE");
+		try {
+			//both sentinels report the same failover and slave
+			sentinel.failover("mymaster");
+			other.switchMaster("mymaster", slave);
+			sentinel.slaveUp("mymaster", master);
+			other.slaveUp("mymaster", master);
+
+			TopologyEventProcessor events = watched.getTopologyEvents();
+			long deadline = System.currentTimeMillis() + 5000;
+			while (events.getAppliedCount() + events.getDuplicateCount() < 4 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(1, events.getDuplicateCount());
+			//the old master once, next to the former slave
+			Assert.assertEquals(2, watched.getSlaves().size());
+		} finally {
+			watched.quit();
+			both.stop();
+			other.close();
+		}
+	}
+
+	@Test
+	public void testSwitchNotWaitingForSilentSentinel() throws Exception {
+		StubSentinelServer other = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		other.start();
+		SentinelServersManager both = new SentinelServersManager(Arrays.asList(sentinel.getHostConfiguration(),
+				other.getHostConfiguration()), 100);
+		both.start();
+		Client watched = new Client(RedisClientFactory.INSTANCE, both, "mymaster");
+		await(other, "SUBSCRIBE");
+		try {
+			//publishes but never answers its config epoch
+			other.setLatency(1, TimeUnit.MINUTES);
+			TopologyEventProcessor events = watched.getTopologyEvents();
+			long start = System.currentTimeMillis();
+			sentinel.failover("mymaster");
+			other.switchMaster("mymaster", slave);
+			awaitEvents(events, 2);
+			Assert.assertEquals(1, events.getDuplicateCount());
+
+			//and back, first reported by the silent one
+			other.switchMaster("mymaster", master);
+			sentinel.switchMaster("mymaster", master);
+			awaitEvents(events, 4);
+			Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+			Assert.assertEquals(2, events.getDuplicateCount());
+			Assert.assertEquals(0, events.getStaleCount());
+			Assert.assertEquals(0, events.getPending());
+
+			//the switches complete in the background
+			awaitMaster(watched, master);
+			long before = master.getCommandCount("SET");
+			Assert.assertEquals("OK", watched.set(KEY, "v1".getBytes()));
+			Assert.assertEquals(before + 1, master.getCommandCount("SET"));
+		} finally {
+			watched.quit();
+			both.stop();
+			other.close();
+		}
+	}
+
+	@Test
+	public void testSwitchAppliedAgainAfterFailure() throws Exception {
+		StubSentinelServer other = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		other.start();
+		SentinelServersManager both = new SentinelServersManager(Arrays.asList(sentinel.getHostConfiguration(),
+				other.getHostConfiguration()), 100);
+		both.start();
+		Client watched = new Client(RedisClientFactory.INSTANCE, both, "mymaster");
+		await(other, "SUBSCRIBE");
+		try {
+			//the new master can not be validated while it is down
+			slave.stop();
+			other.switchMaster("mymaster", slave);
+			TopologyEventProcessor events = watched.getTopologyEvents();
+			long deadline = System.currentTimeMillis() + 5000;
+			while (events.getFailedSwitchCount() < 1 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(1, events.getFailedSwitchCount());
+			Assert.assertEquals(master.getPort(), watched.getMaster().getHostConfiguration().getPort());
+
+			//the same switch reported by the other sentinel
+			slave.start();
+			sentinel.switchMaster("mymaster", slave);
+			awaitEvents(events, 2);
+			Assert.assertEquals(0, events.getDuplicateCount());
+			awaitMaster(watched, slave);
+			long before = slave.getCommandCount("SET");
+			Assert.assertEquals("OK", watched.set(KEY, "v1".getBytes()));
+			Assert.assertEquals(before + 1, slave.getCommandCount("SET"));
+		} finally {
+			watched.quit();
+			both.stop();
+			other.close();
+		}
+	}
+
+	@Test
+	public void testSubscribesToDiscoveredSentinels() throws Exception {
+		StubSentinelServer other = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		other.start();
+		sentinel.knows(other);
+		SentinelServersManager discovering = new SentinelServersManager(
+				Collections.singletonList(sentinel.getHostConfiguration()), 100);
+		discovering.setTopologyRefreshInterval(100);
+		discovering.start();
+		Client watched = new Client(RedisClientFactory.INSTANCE, discovering, "mymaster");
+		try {
+			await(other, "SUBSCRIBE");
+			Assert.assertEquals(1, other.getCommandCount("SUBSCRIBE"));
+			Assert.assertEquals(2, watched.getSubscribedSentinels().size());
+
+			//only reported by the discovered one
+			other.switchMaster("mymaster", slave);
+			awaitMaster(watched, slave);
+
+			//no longer reported nor answering
+			other.stop();
+			sentinel.forget(other);
+			long deadline = System.currentTimeMillis() + 5000;
+			while (watched.getSubscribedSentinels().size() > 1 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(Collections.singleton(sentinel.getHostConfiguration().getPort()),
+					Collections.singleton(watched.getSubscribedSentinels().iterator().next().getPort()));
+
+			//the retired one is not subscribed to again
+			other.start();
+			Thread.sleep(500);
+			Assert.assertEquals(1, other.getCommandCount("SUBSCRIBE"));
+		} finally {
+			watched.quit();
+			discovering.stop();
+			other.close();
+		}
+	}
+
+	@Test
+	public void testBufferedWritesReplayedInOrder() throws Exception {
+		Client buffered = buffered(new WriteBufferConfig());
+		try {
+			Assert.assertEquals(Long.valueOf(1), buffered.incr(COUNTER));
+			breakMaster(buffered);
+
+			List<Future<Long>> writes = new ArrayList<Future<Long>>();
+			for (int i = 0; i < 5; i++) {
+				writes.add(enqueue(buffered, append(buffered, i + ",")));
+			}
+			for (int i = 0; i < 5; i++) {
+				writes.add(enqueue(buffered, incr(buffered)));
+			}
+			sentinel.failover("mymaster");
+			for (Future<Long> write : writes) {
+				write.get(5, TimeUnit.SECONDS);
+			}
+
+			Assert.assertEquals(0, buffered.getWriteBuffer().size());
+			Assert.assertArrayEquals("0,1,2,3,4,".getBytes(), buffered.get(KEY));
+			//each buffered write once, the one which detected the outage never
+			Assert.assertEquals(5, slave.getCommandCount("APPEND"));
+			Assert.assertEquals(5, slave.getCommandCount("INCR"));
+			Assert.assertArrayEquals("6".getBytes(), buffered.get(COUNTER));
+		} finally {
+			buffered.quit();
+		}
+	}
+
+	@Test
+	public void testFullWriteBufferRejectsNewWrite() throws Exception {
+		WriteBufferConfig config = new WriteBufferConfig();
+		config.setCapacity(2);
+		config.setOverflowPolicy(OverflowPolicy.REJECT_NEW);
+		Client buffered = buffered(config);
+		try {
+			breakMaster(buffered);
+			Future<Long> first = enqueue(buffered, incr(buffered));
+			Future<Long> second = enqueue(buffered, incr(buffered));
+			try {
+				buffered.incr(COUNTER);
+				Assert.fail("the buffer is full");
+			} catch (JedisConnectionException e) {
+				Assert.assertTrue(e.getMessage(), e.getMessage().contains("full"));
+			}
+
+			sentinel.failover("mymaster");
+			Assert.assertEquals(Long.valueOf(1), first.get(5, TimeUnit.SECONDS));
+			Assert.assertEquals(Long.valueOf(2), second.get(5, TimeUnit.SECONDS));
+			Assert.assertEquals(2, slave.getCommandCount("INCR"));
+		} finally {
+			buffered.quit();
+		}
+	}
+
+	@Test
+	public void testFullWriteBufferFailsOldestWrite() throws Exception {
+		WriteBufferConfig config = new WriteBufferConfig();
+		config.setCapacity(2);
+		config.setOverflowPolicy(OverflowPolicy.FAIL_OLDEST);
+		Client buffered = buffered(config);
+		try {
+			breakMaster(buffered);
+			Future<Long> oldest = enqueue(buffered, append(buffered, "a"));
+			Future<Long> second = enqueue(buffered, append(buffered, "b"));
+			Future<Long> third = writers.submit(append(buffered, "c"));
+			try {
+				oldest.get(5, TimeUnit.SECONDS);
+				Assert.fail("the oldest write is evicted");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof JedisConnectionException);
+			}
+			Assert.assertEquals(2, buffered.getWriteBuffer().size());
+
+			sentinel.failover("mymaster");
+			second.get(5, TimeUnit.SECONDS);
+			third.get(5, TimeUnit.SECONDS);
+			Assert.assertArrayEquals("bc".getBytes(), buffered.get(KEY));
+			Assert.assertEquals(2, slave.getCommandCount("APPEND"));
+		} finally {
+			buffered.quit();
+		}
+	}
+
+	@Test
+	public void testBufferedWriteFailsAfterMaxWait() throws Exception {
+		WriteBufferConfig config = new WriteBufferConfig();
+		config.setMaxWait(200);
+		Client buffered = buffered(config);
+		try {
+			breakMaster(buffered);
+			long start = System.currentTimeMillis();
+			try {
+				buffered.incr(COUNTER);
+				Assert.fail("the master is still down");
+			} catch (JedisConnectionException e) {
+				Assert.assertTrue(System.currentTimeMillis() - start >= 150);
+			}
+			Assert.assertEquals(0, buffered.getWriteBuffer().size());
+
+			//the expired write is not replayed
+			sentinel.failover("mymaster");
+			Assert.assertEquals(Long.valueOf(1), buffered.incr(COUNTER));
+			Assert.assertEquals(1, slave.getCommandCount("INCR"));
+		} finally {
+			buffered.quit();
+		}
+	}
+
+	private Client buffered(WriteBufferConfig config) throws InterruptedException {
+		long subscriptions = sentinel.getCommandCount("SUBSCRIBE");
+		Client buffered = new Client(new RedisClientPoolFactory(RedisClientFactory.INSTANCE), manager, "mymaster",
+				RoundRobinReadBalancer.INSTANCE, null, config);
+		await(sentinel, "SUBSCRIBE", subscriptions + 1);
+		return buffered;
+	}
+
+	/**
+	 * stops the master, the next write fails and starts the buffering.
+	 */
+	private void breakMaster(Client buffered) {
+		master.stop();
+		try {
+			buffered.incr(COUNTER);
+			Assert.fail("the master is down");
+		} catch (JedisConnectionException e) {
+			//may have been applied, never replayed
+		}
+	}
+
+	/**
+	 * starts the write and waits until it is buffered.
+	 */
+	private Future<Long> enqueue(Client buffered, Callable<Long> write) throws InterruptedException {
+		int size = buffered.getWriteBuffer().size();
+		Future<Long> future = writers.submit(write);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (buffered.getWriteBuffer().size() == size && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		Assert.assertEquals(size + 1, buffered.getWriteBuffer().size());
+		return future;
+	}
+
+	private static Callable<Long> append(final Client buffered, final String value) {
+		return new Callable<Long>() {
+			@Override
+			public Long call() {
+				return buffered.append(KEY, value.getBytes());
+			}
+		};
+	}
+
+	private static Callable<Long> incr(final Client buffered) {
+		return new Callable<Long>() {
+			@Override
+			public Long call() {
+				return buffered.incr(COUNTER);
+			}
+		};
+	}
+
+	private static void await(StubSentinelServer sentinel, String command) throws InterruptedException {
+		await(sentinel, command, 1);
+	}
+
+	private static void await(StubSentinelServer sentinel, String command, long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (sentinel.getCommandCount(command) < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		//the command is counted before it is replied to
+		Thread.sleep(50);
+	}
+
+	private static void awaitMaster(Client client, StubRedisServer master) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (client.getMaster().getHostConfiguration().getPort() != master.getPort()
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(master.getPort(), client.getMaster().getHostConfiguration().getPort());
+	}
+
+	private static void awaitEvents(TopologyEventProcessor events, long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (events.getAppliedCount() + events.getDuplicateCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(count, events.getAppliedCount() + events.getDuplicateCount());
+	}
+}
@@ -0,0 +1,69 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.model.ClientType;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import com.lambdaworks.redis.RedisTimeoutException;
+
+/**
+ * recording of the latencies and failures by {@link ClientMetrics}.
+ *
+ * @author kriswang
+ *
+ */
+public class ClientMetricsTest {
+
+	private static final HostConfiguration NODE = new HostConfiguration("127.0.0.1", 6379);
+
+	@Test
+	public void testStatsByCommandTypeAndNode() {
+		ClientMetrics metrics = new ClientMetrics();
+		Assert.assertTrue(metrics.getCommandStats().isEmpty());
+
+		metrics.completed(ClientType.SLAVE, Command.GET, TimeUnit.MICROSECONDS.toNanos(100));
+		metrics.completed(ClientType.SLAVE, Command.GET, TimeUnit.MICROSECONDS.toNanos(300));
+		metrics.completed(ClientType.MASTER, Command.SET, TimeUnit.MICROSECONDS.toNanos(200));
+		metrics.completed(NODE, TimeUnit.MICROSECONDS.toNanos(150));
+
+		Assert.assertEquals(2, metrics.getCommandStats().size());
+		Assert.assertEquals(2, metrics.getCommandStats().get(Command.GET).getLatency().getCount());
+		Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(300), metrics.getCommandStats().get(Command.GET)
+				.getLatency().getMax());
+		Assert.assertEquals(2, metrics.getTypeStats(ClientType.SLAVE).getLatency().getCount());
+		Assert.assertEquals(1, metrics.getTypeStats(ClientType.MASTER).getLatency().getCount());
+		Assert.assertEquals(1, metrics.getNodeStats().get(NODE).getLatency().getCount());
+	}
+
+	@Test
+	public void testTimeoutsCountedApartFromErrors() {
+		ClientMetrics metrics = new ClientMetrics();
+		//jedis
+		metrics.failed(ClientType.SLAVE, Command.GET, new JedisConnectionException(new SocketTimeoutException()));
+		//netty clients, waiting for the reply or timed out by lettuce
+		metrics.failed(ClientType.SLAVE, Command.GET, new JedisConnectionException("Timed out",
+				new TimeoutException()));
+		metrics.failed(ClientType.SLAVE, Command.GET, new JedisConnectionException(new RedisTimeoutException()));
+		metrics.failed(ClientType.SLAVE, Command.GET, new JedisConnectionException("Connection refused"));
+		metrics.failed(ClientType.SLAVE, Command.GET, new JedisDataException("WRONGTYPE"));
+		metrics.failed(NODE, new JedisConnectionException(new RedisTimeoutException()));
+
+		LatencyStats get = metrics.getCommandStats().get(Command.GET);
+		Assert.assertEquals(3, get.getTimeoutCount());
+		Assert.assertEquals(2, get.getErrorCount());
+		Assert.assertEquals(3, metrics.getTypeStats(ClientType.SLAVE).getTimeoutCount());
+		Assert.assertEquals(0, metrics.getTypeStats(ClientType.MASTER).getErrorCount());
+		Assert.assertEquals(1, metrics.getNodeStats().get(NODE).getTimeoutCount());
+		Assert.assertEquals(0, metrics.getNodeStats().get(NODE).getErrorCount());
+	}
+}
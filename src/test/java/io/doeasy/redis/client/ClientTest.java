@@ -3,6 +3,8 @@ package io.doeasy.redis.client;
 import io.doeasy.redis.client.sentinel.SentinelServersManager;
 import io.doeasy.redis.client.sentinel.web.WebListener;
 import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.doeasy.redis.stub.StubSentinelServer;
 import io.doeasy.retry.spring.Policy;
 import io.doeasy.retry.spring.Recovery;
 import io.doeasy.retry.spring.SpringRetry;
@@ -27,13 +29,26 @@ public class ClientTest {
 	
 	private WebListener webListener;
 
+	private StubRedisServer master;
+
+	private StubRedisServer slave;
+
+	private StubSentinelServer sentinel;
+
 	public ClientTest() throws Exception {
 
+		master = new StubRedisServer(0);
+		master.start();
+		slave = new StubRedisServer(0, master);
+		slave.start();
+		sentinel = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		sentinel.start();
+
 		hosts = new ArrayList<HostConfiguration>();
 		HostConfiguration hostConfiguration1 = new HostConfiguration();
 		hostConfiguration1.setDatabase(0);
-		hostConfiguration1.setHost("10.128.17.8");
-		hostConfiguration1.setPort(26379);
+		hostConfiguration1.setHost("127.0.0.1");
+		hostConfiguration1.setPort(sentinel.getPort());
 		hostConfiguration1.setTimeout(1000);
 		hosts.add(hostConfiguration1);
 
@@ -65,6 +80,9 @@ public class ClientTest {
 			client.quit();
 			webListener.stop();
 			manager.stop();
+			sentinel.close();
+			slave.close();
+			master.close();
 		}
 	}
 }
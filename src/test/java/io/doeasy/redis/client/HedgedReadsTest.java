@@ -0,0 +1,220 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.client.balancer.ReadBalancer;
+import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.config.HedgedReadConfig;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.doeasy.redis.stub.StubSentinelServer;
+import io.doeasy.redis.utils.CircularList;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * hedging of the slave reads by {@link HedgedReads}, against stub servers.
+ * the reads go to the slow slave first whenever the balancer may pick it.
+ *
+ * @author kriswang
+ *
+ */
+public class HedgedReadsTest {
+
+	private static final byte[] KEY = "key".getBytes();
+
+	private StubRedisServer master;
+	private StubRedisServer slow;
+	private StubRedisServer fast;
+	private StubSentinelServer sentinel;
+	private SentinelServersManager manager;
+	private Client client;
+	private volatile boolean toMaster;
+
+	@Before
+	public void setUp() throws Exception {
+		master = new StubRedisServer(0);
+		master.start();
+		slow = new StubRedisServer(0, master);
+		slow.start();
+		fast = new StubRedisServer(0, master);
+		fast.start();
+		sentinel = new StubSentinelServer(0).monitor("mymaster", master, slow, fast);
+		sentinel.start();
+
+		manager = new SentinelServersManager(Collections.singletonList(sentinel.getHostConfiguration()), 100);
+		manager.start();
+		client = new Client(new RedisClientPoolFactory(RedisClientFactory.INSTANCE), manager, "mymaster",
+				new ReadBalancer() {
+					@Override
+					public RedisClientPool select(CircularList<RedisClientPool> slaves) {
+						if (toMaster) {
+							return null;
+						}
+						for (RedisClientPool slave : slaves) {
+							if (slave.getHostConfiguration().getPort() == slow.getPort()) {
+								return slave;
+							}
+						}
+						return slaves.next();
+					}
+				});
+		client.set(KEY, "value".getBytes());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		client.quit();
+		manager.stop();
+		sentinel.close();
+		fast.close();
+		slow.close();
+		master.close();
+	}
+
+	@Test
+	public void testFastReadNotHedged() {
+		client.setHedgedReads(config(TimeUnit.SECONDS.toMicros(1), 10));
+		Assert.assertArrayEquals("value".getBytes(), client.get(KEY));
+		Assert.assertEquals(1, slow.getCommandCount("GET"));
+		Assert.assertEquals(0, fast.getCommandCount("GET"));
+		Assert.assertEquals(0, client.getHedgedReads().getHedgeCount());
+	}
+
+	@Test
+	public void testHedgeAnswersBeforeSlowRead() throws Exception {
+		client.setHedgedReads(config(1000, 10));
+		slow.setLatency(500, TimeUnit.MILLISECONDS);
+		long start = System.currentTimeMillis();
+		Assert.assertArrayEquals("value".getBytes(), client.get(KEY));
+		//not waiting for the first read, which still succeeds
+		Assert.assertTrue(System.currentTimeMillis() - start < 400);
+
+		HedgedReads hedged = client.getHedgedReads();
+		Assert.assertEquals(1, hedged.getHedgeCount());
+		Assert.assertEquals(1, hedged.getHedgeWinCount());
+		Assert.assertEquals(1, fast.getCommandCount("GET"));
+
+		//the first read completes in the background
+		awaitCount(slow, "GET", 1);
+		RedisClientPool first = client.getSlave();
+		Assert.assertEquals(slow.getPort(), first.getHostConfiguration().getPort());
+		Assert.assertEquals(1, first.getLoad().getInflight());
+		long deadline = System.currentTimeMillis() + 5000;
+		while (first.getLoad().getInflight() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(0, first.getLoad().getInflight());
+
+		//and gives its connection back to the pool
+		slow.setLatency(0, TimeUnit.MILLISECONDS);
+		Assert.assertArrayEquals("value".getBytes(), client.get(KEY));
+		Assert.assertEquals(1, hedged.getHedgeCount());
+	}
+
+	@Test
+	public void testFirstSuccessfulReplyWins() throws Exception {
+		client.setHedgedReads(config(1000, 10));
+		slow.setLatency(500, TimeUnit.MILLISECONDS);
+
+		ExecutorService reader = Executors.newSingleThreadExecutor();
+		try {
+			Future<byte[]> read = reader.submit(new Callable<byte[]>() {
+				@Override
+				public byte[] call() {
+					return client.get(KEY);
+				}
+			});
+			awaitCount(fast, "GET", 1);
+			//the first read fails after the hedge answered
+			slow.stop();
+			Assert.assertArrayEquals("value".getBytes(), read.get(5, TimeUnit.SECONDS));
+		} finally {
+			reader.shutdownNow();
+		}
+		Assert.assertEquals(1, client.getHedgedReads().getHedgeCount());
+		Assert.assertEquals(1, client.getHedgedReads().getHedgeWinCount());
+	}
+
+	@Test
+	public void testHedgesCappedByBudget() {
+		//one hedge saved, none earned by the reads
+		client.setHedgedReads(config(1000, 1));
+		slow.setLatency(100, TimeUnit.MILLISECONDS);
+		fast.setLatency(200, TimeUnit.MILLISECONDS);
+		client.get(KEY);
+		//late again after the fastest read seen
+		slow.setLatency(300, TimeUnit.MILLISECONDS);
+		client.get(KEY);
+
+		HedgedReads hedged = client.getHedgedReads();
+		Assert.assertEquals(1, hedged.getHedgeCount());
+		Assert.assertEquals(1, hedged.getBudgetExceededCount());
+		Assert.assertEquals(1, fast.getCommandCount("GET"));
+	}
+
+	@Test
+	public void testReadOfMasterNotHedged() {
+		client.setHedgedReads(config(1000, 10));
+		toMaster = true;
+		Assert.assertArrayEquals("value".getBytes(), client.get(KEY));
+		Assert.assertEquals(1, master.getCommandCount("GET"));
+		Assert.assertEquals(0, slow.getCommandCount("GET") + fast.getCommandCount("GET"));
+		Assert.assertEquals(0, client.getHedgedReads().getHedgeCount());
+	}
+
+	@Test
+	public void testTokenBudget() {
+		HedgedReadConfig config = config(1000, 2);
+		config.setBudget(0.5);
+		HedgedReads hedged = new HedgedReads(client, config, null, null);
+		Assert.assertTrue(hedged.spend());
+		Assert.assertTrue(hedged.spend());
+		Assert.assertFalse(hedged.spend());
+
+		//two reads save a hedge
+		hedged.save();
+		Assert.assertFalse(hedged.spend());
+		hedged.save();
+		Assert.assertTrue(hedged.spend());
+
+		//no more than the maximum burst is saved
+		for (int i = 0; i < 10; i++) {
+			hedged.save();
+		}
+		Assert.assertTrue(hedged.spend());
+		Assert.assertTrue(hedged.spend());
+		Assert.assertFalse(hedged.spend());
+	}
+
+	/**
+	 * @param minDelay in microseconds.
+	 * @param maxBurst hedges saved up front, the reads earn none.
+	 */
+	private static HedgedReadConfig config(long minDelay, int maxBurst) {
+		HedgedReadConfig config = new HedgedReadConfig();
+		config.setMinDelay(minDelay);
+		config.setMaxBurst(maxBurst);
+		config.setBudget(0);
+		//hedged after the fastest recent read of the first slave
+		config.setPercentile(0);
+		return config;
+	}
+
+	private static void awaitCount(StubRedisServer server, String command, long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (server.getCommandCount(command) < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(count, server.getCommandCount(command));
+		//the command is counted before it is replied to
+		Thread.sleep(50);
+	}
+}
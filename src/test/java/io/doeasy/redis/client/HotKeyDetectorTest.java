@@ -0,0 +1,232 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.HotKeyConfig;
+import io.doeasy.redis.model.HotKey;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Supplier;
+
+/**
+ * counting, ranking and promotion of the hot keys by {@link HotKeyDetector}.
+ * the windows are rotated by hand unless the test is about the rotation,
+ * they are long enough not to end on their own.
+ *
+ * @author kriswang
+ *
+ */
+public class HotKeyDetectorTest {
+
+	private static final long LONG_WINDOW = TimeUnit.SECONDS.toMillis(60);
+
+	private ScheduledExecutorService executor;
+	private HotKeyDetector detector;
+
+	@Before
+	public void setUp() {
+		executor = new ScheduledThreadPoolExecutor(1);
+	}
+
+	@After
+	public void tearDown() {
+		if (detector != null) {
+			detector.close();
+		}
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testSketchCountsEachKey() {
+		detector = new HotKeyDetector(config(LONG_WINDOW, 20), executor);
+		for (int i = 1; i <= 20; i++) {
+			record("key" + i, i * 10);
+		}
+		detector.rotate();
+
+		List<HotKey> hot = detector.getHotKeys();
+		Assert.assertEquals(20, hot.size());
+		for (int i = 0; i < hot.size(); i++) {
+			//hottest first, a few keys in a wide sketch share no counter
+			Assert.assertEquals("key" + (20 - i), new String(hot.get(i).getKey()));
+			Assert.assertEquals((20 - i) * 10 * 1000.0 / LONG_WINDOW, hot.get(i).getRate(), 1e-9);
+		}
+	}
+
+	@Test
+	public void testSketchOverestimatesSharedCounters() {
+		HotKeyConfig config = config(LONG_WINDOW, 2);
+		config.setDepth(1);
+		config.setWidth(1);
+		detector = new HotKeyDetector(config, executor);
+		record("a", 3);
+		record("b", 1);
+		detector.rotate();
+
+		//a single counter: b is counted with the accesses of a
+		List<HotKey> hot = detector.getHotKeys();
+		Assert.assertEquals("b", new String(hot.get(0).getKey()));
+		Assert.assertEquals(4 * 1000.0 / LONG_WINDOW, hot.get(0).getRate(), 1e-9);
+		Assert.assertEquals("a", new String(hot.get(1).getKey()));
+	}
+
+	@Test
+	public void testTopKeysKept() {
+		detector = new HotKeyDetector(config(LONG_WINDOW, 2), executor);
+		//the hottest keys come last, after the candidates are full
+		for (int i = 1; i <= 50; i++) {
+			record("key" + i, i);
+		}
+		detector.rotate();
+
+		List<HotKey> hot = detector.getHotKeys();
+		Assert.assertEquals(2, hot.size());
+		Assert.assertEquals("key50", new String(hot.get(0).getKey()));
+		Assert.assertEquals("key49", new String(hot.get(1).getKey()));
+	}
+
+	@Test
+	public void testWindowRotation() throws Exception {
+		detector = new HotKeyDetector(config(100, 10), executor);
+		record("key", 10);
+		Assert.assertTrue(detector.getHotKeys().isEmpty());
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (detector.getHotKeys().isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(1, detector.getHotKeys().size());
+		Assert.assertEquals(100.0, detector.getHotKeys().get(0).getRate(), 1e-9);
+
+		//nothing counted in the next window
+		while (!detector.getHotKeys().isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertTrue(detector.getHotKeys().isEmpty());
+	}
+
+	@Test
+	public void testPromotedValueCachedForTtl() throws Exception {
+		detector = new HotKeyDetector(promoting(), executor);
+		Loader loader = new Loader();
+		Assert.assertArrayEquals("v1".getBytes(), read("key", loader));
+		Assert.assertEquals(1, loader.loads.get());
+
+		promote("key");
+		Assert.assertTrue(detector.getHotKeys().get(0).isPromoted());
+		read("key", loader);
+		read("key", loader);
+		Assert.assertEquals(2, loader.loads.get());
+		Assert.assertEquals(1, detector.getHitCount());
+		Assert.assertEquals(1, detector.getMissCount());
+
+		//cached for promoteTtl
+		Thread.sleep(150);
+		read("key", loader);
+		Assert.assertEquals(3, loader.loads.get());
+	}
+
+	@Test
+	public void testWriteInvalidatesPromotedValue() {
+		detector = new HotKeyDetector(promoting(), executor);
+		promote("key");
+		Loader loader = new Loader();
+		read("key", loader);
+		detector.invalidate("key".getBytes());
+		read("key", loader);
+		Assert.assertEquals(2, loader.loads.get());
+	}
+
+	@Test
+	public void testValueReadDuringWriteNotCached() {
+		detector = new HotKeyDetector(promoting(), executor);
+		promote("key");
+		final AtomicInteger loads = new AtomicInteger();
+		Supplier<byte[]> racing = new Supplier<byte[]>() {
+			@Override
+			public byte[] get() {
+				loads.incrementAndGet();
+				detector.invalidate("key".getBytes());
+				return "v1".getBytes();
+			}
+		};
+		detector.read("key".getBytes(), null, racing);
+		detector.read("key".getBytes(), null, racing);
+		Assert.assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testDemotedValueDropped() {
+		detector = new HotKeyDetector(promoting(), executor);
+		promote("key");
+		Loader loader = new Loader();
+		read("key", loader);
+		read("key", loader);
+		Assert.assertEquals(1, loader.loads.get());
+
+		//not read during the next window
+		detector.rotate();
+		Assert.assertTrue(detector.getHotKeys().isEmpty());
+		read("key", loader);
+		read("key", loader);
+		Assert.assertEquals(3, loader.loads.get());
+	}
+
+	@Test
+	public void testHashHalvesDiffer() {
+		long hash = HotKeyDetector.hash("key".getBytes());
+		Assert.assertNotEquals((int) hash, (int) (hash >>> 32));
+		Assert.assertEquals(hash, HotKeyDetector.hash("key".getBytes()));
+		Assert.assertNotEquals(hash, HotKeyDetector.hash("kez".getBytes()));
+	}
+
+	private static HotKeyConfig config(long window, int topN) {
+		HotKeyConfig config = new HotKeyConfig();
+		config.setWindow(window);
+		config.setTopN(topN);
+		return config;
+	}
+
+	/**
+	 * promotes the keys read more than once a minute, for 100 ms.
+	 */
+	private static HotKeyConfig promoting() {
+		HotKeyConfig config = config(LONG_WINDOW, 10);
+		config.setPromoteRate(1000.0 / LONG_WINDOW);
+		config.setPromoteTtl(100);
+		return config;
+	}
+
+	private void promote(String key) {
+		record(key, 2);
+		detector.rotate();
+	}
+
+	private void record(String key, int times) {
+		for (int i = 0; i < times; i++) {
+			detector.record(key.getBytes());
+		}
+	}
+
+	private byte[] read(String key, Loader loader) {
+		return detector.read(key.getBytes(), null, loader);
+	}
+
+	private static class Loader implements Supplier<byte[]> {
+		private final AtomicInteger loads = new AtomicInteger();
+
+		@Override
+		public byte[] get() {
+			this.loads.incrementAndGet();
+			return "v1".getBytes();
+		}
+	}
+}
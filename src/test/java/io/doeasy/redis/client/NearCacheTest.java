@@ -0,0 +1,171 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.config.NearCacheConfig;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.doeasy.redis.stub.StubSentinelServer;
+import io.doeasy.redis.stub.StubServer;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * invalidation of the {@link NearCache} by the keyspace notifications of
+ * the master, against stub servers.
+ *
+ * @author kriswang
+ *
+ */
+public class NearCacheTest {
+
+	private static final byte[] KEY = "key".getBytes();
+
+	private StubRedisServer master;
+	private StubRedisServer slave;
+	private StubSentinelServer sentinel;
+	private SentinelServersManager manager;
+	private Client client;
+
+	@Before
+	public void setUp() throws Exception {
+		master = new StubRedisServer(0);
+		master.setNotifyKeyspaceEvents("K$");
+		master.start();
+		slave = new StubRedisServer(0, master);
+		slave.setNotifyKeyspaceEvents("K$");
+		slave.start();
+		sentinel = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		sentinel.start();
+
+		manager = new SentinelServersManager(Collections.singletonList(sentinel.getHostConfiguration()), 100);
+		manager.start();
+		client = new Client(RedisClientFactory.INSTANCE, manager, "mymaster");
+		await(sentinel, "SUBSCRIBE");
+		//notified before the cache subscribes
+		client.set(KEY, "v1".getBytes());
+		client.setNearCache(new NearCacheConfig());
+		await(master, "PSUBSCRIBE");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		client.quit();
+		manager.stop();
+		sentinel.close();
+		slave.close();
+		master.close();
+	}
+
+	@Test
+	public void testWriteInvalidatesCachedValue() throws Exception {
+		NearCache cache = client.getNearCache();
+		Assert.assertArrayEquals("v1".getBytes(), client.get(KEY));
+		Assert.assertArrayEquals("v1".getBytes(), client.get(KEY));
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, slave.getCommandCount("GET"));
+
+		client.set(KEY, "v2".getBytes());
+		awaitInvalidations(cache, 1);
+		Assert.assertArrayEquals("v2".getBytes(), client.get(KEY));
+		Assert.assertEquals(2, slave.getCommandCount("GET"));
+	}
+
+	@Test
+	public void testValueReadDuringInvalidationIsNotCached() throws Exception {
+		final NearCache cache = client.getNearCache();
+		slave.setLatency(300, TimeUnit.MILLISECONDS);
+
+		ExecutorService reader = Executors.newSingleThreadExecutor();
+		try {
+			Future<byte[]> read = reader.submit(new Callable<byte[]>() {
+				@Override
+				public byte[] call() {
+					return client.get(KEY);
+				}
+			});
+			//answered by the slave before the write, replied after
+			awaitCount(slave, "GET", 1);
+			client.set(KEY, "v2".getBytes());
+			awaitInvalidations(cache, 1);
+			Assert.assertArrayEquals("v1".getBytes(), read.get(5, TimeUnit.SECONDS));
+		} finally {
+			reader.shutdownNow();
+		}
+
+		slave.setLatency(0, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(0, cache.size());
+		Assert.assertArrayEquals("v2".getBytes(), client.get(KEY));
+		Assert.assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void testResubscribedToNewMaster() throws Exception {
+		NearCache cache = client.getNearCache();
+		client.get(KEY);
+		Assert.assertEquals(1, cache.size());
+
+		sentinel.switchMaster("mymaster", slave);
+		await(slave, "PSUBSCRIBE");
+		//notifications may have been missed during the switch
+		Assert.assertEquals(0, cache.size());
+
+		client.get(KEY);
+		Assert.assertEquals(1, cache.size());
+		client.set(KEY, "v2".getBytes());
+		awaitInvalidations(cache, 1);
+		Assert.assertArrayEquals("v2".getBytes(), client.get(KEY));
+	}
+
+	@Test
+	public void testWriteInvalidatesNonAsciiKeys() throws Exception {
+		NearCache cache = client.getNearCache();
+		byte[] text = "cl\u00e9-\u952e".getBytes("UTF-8");
+		byte[] binary = new byte[] { 'k', (byte) 0x80, (byte) 0xff, 0, (byte) 0xc3 };
+		client.set(text, "v1".getBytes());
+		client.set(binary, "v1".getBytes());
+		client.get(text);
+		client.get(binary);
+		Assert.assertEquals(2, cache.size());
+
+		client.set(text, "v2".getBytes());
+		client.set(binary, "v2".getBytes());
+		awaitInvalidations(cache, 2);
+		Assert.assertEquals(0, cache.size());
+		Assert.assertArrayEquals("v2".getBytes(), client.get(text));
+		Assert.assertArrayEquals("v2".getBytes(), client.get(binary));
+	}
+
+	private static void awaitInvalidations(NearCache cache, long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (cache.getInvalidationCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(count, cache.getInvalidationCount());
+	}
+
+	private static void awaitCount(StubRedisServer server, String command, long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (server.getCommandCount(command) < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(count, server.getCommandCount(command));
+	}
+
+	private static void await(StubServer server, String command) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (server.getCommandCount(command) == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		//the command is counted before it is replied to
+		Thread.sleep(50);
+	}
+}
@@ -0,0 +1,179 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.stub.StubRedisServer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.lambdaworks.redis.RedisException;
+
+/**
+ * replies, errors and reconnects of the {@link NettyRedisClient}s created by a
+ * {@link NettyRedisClientFactory}, against a stub server.
+ *
+ * @author kriswang
+ *
+ */
+public class NettyRedisClientTest {
+
+	private static final byte[] KEY = "key".getBytes();
+	private static final byte[] HASH = "hash".getBytes();
+	private static final byte[] FIELD = "field".getBytes();
+	private static final int TIMEOUT = 500;
+
+	private StubRedisServer server;
+	private NettyRedisClientFactory factory;
+	private NettyRedisClient client;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubRedisServer(0);
+		server.start();
+		factory = new NettyRedisClientFactory();
+		client = factory.create(new HostConfiguration("127.0.0.1", server.getPort(), TIMEOUT));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		client.quit();
+		factory.shutdown();
+		server.close();
+	}
+
+	@Test
+	public void testReplies() throws Exception {
+		Assert.assertEquals("PONG", client.ping());
+		Assert.assertNull(client.get(KEY));
+		Assert.assertFalse(client.exists(KEY));
+		Assert.assertEquals("none", client.type(KEY));
+
+		Assert.assertEquals("OK", client.set(KEY, "v1".getBytes()));
+		Assert.assertArrayEquals("v1".getBytes(), client.get(KEY));
+		Assert.assertTrue(client.exists(KEY));
+		Assert.assertEquals("string", client.type(KEY));
+		Assert.assertEquals(Long.valueOf(-1), client.ttl(KEY));
+		Assert.assertEquals(Long.valueOf(4), client.append(KEY, "v2".getBytes()));
+		Assert.assertEquals(Long.valueOf(0), client.setnx(KEY, "v3".getBytes()));
+
+		Assert.assertEquals(Long.valueOf(1), client.incr("counter".getBytes()));
+		Assert.assertEquals(Long.valueOf(-2), client.decrBy("counter".getBytes(), 3));
+
+		Assert.assertEquals(Long.valueOf(1), client.hset(HASH, FIELD, "h1".getBytes()));
+		Assert.assertEquals(Long.valueOf(0), client.hset(HASH, FIELD, "h2".getBytes()));
+		Assert.assertArrayEquals("h2".getBytes(), client.hget(HASH, FIELD));
+		Assert.assertNull(client.hget(HASH, "missing".getBytes()));
+		Assert.assertTrue(client.hexists(HASH, FIELD));
+		Assert.assertEquals(Long.valueOf(1), client.hlen(HASH));
+		Map<byte[], byte[]> hash = client.hgetAll(HASH);
+		Assert.assertEquals(1, hash.size());
+		//looked up by content, not by identity
+		Assert.assertArrayEquals("h2".getBytes(), hash.get("field".getBytes()));
+		Assert.assertEquals("hash", client.type(HASH));
+
+		Assert.assertEquals(Arrays.asList("v1v2", null, null), strings(client.mget(KEY, HASH, "missing".getBytes())));
+		Assert.assertEquals(Long.valueOf(1), client.del(KEY));
+		Assert.assertEquals(Long.valueOf(0), client.del(KEY));
+	}
+
+	@Test
+	public void testErrorReply() throws Exception {
+		client.hset(HASH, FIELD, "h1".getBytes());
+		try {
+			client.get(HASH);
+			Assert.fail("not a string");
+		} catch (JedisDataException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("WRONGTYPE"));
+		}
+
+		//the future fails with the error of lettuce
+		ListenableFuture<byte[]> get = client.getAsync().get(HASH);
+		try {
+			get.get(TIMEOUT, TimeUnit.MILLISECONDS);
+			Assert.fail("not a string");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof RedisException);
+		}
+
+		//the connection is still usable
+		Assert.assertEquals("PONG", client.ping());
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		server.setLatency(2, TimeUnit.SECONDS);
+		long start = System.currentTimeMillis();
+		try {
+			client.get(KEY);
+			Assert.fail("the reply comes after the timeout");
+		} catch (JedisConnectionException e) {
+			Assert.assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		long elapsed = System.currentTimeMillis() - start;
+		Assert.assertTrue(String.valueOf(elapsed), elapsed >= TIMEOUT && elapsed < 2000);
+	}
+
+	@Test
+	public void testReconnect() throws Exception {
+		client.set(KEY, "v1".getBytes());
+		server.stop();
+		try {
+			client.get(KEY);
+			Assert.fail("the server is down");
+		} catch (JedisConnectionException e) {
+			//queued until the connection is back, then timed out
+		}
+
+		server.start();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (System.currentTimeMillis() < deadline) {
+			try {
+				client.ping();
+				break;
+			} catch (JedisConnectionException e) {
+				//not reconnected yet
+			}
+		}
+		Assert.assertArrayEquals("v1".getBytes(), client.get(KEY));
+		Assert.assertEquals("OK", client.set(KEY, "v2".getBytes()));
+		Assert.assertArrayEquals("v2".getBytes(), client.get(KEY));
+	}
+
+	@Test
+	public void testTracking() throws Exception {
+		Assert.assertNull(client.getAsync().getCache());
+		factory.setTrackingCacheSize(10);
+		NettyRedisClient tracked = factory.create(new HostConfiguration("127.0.0.1", server.getPort(), TIMEOUT));
+		try {
+			Assert.assertNotNull(tracked.getAsync().getCache());
+			client.set(KEY, "v1".getBytes());
+			Assert.assertArrayEquals("v1".getBytes(), tracked.get(KEY));
+			Assert.assertArrayEquals("v1".getBytes(), tracked.get(KEY));
+			Assert.assertEquals(1, server.getCommandCount("GET"));
+		} finally {
+			tracked.quit();
+		}
+	}
+
+	private static List<String> strings(List<byte[]> values) {
+		List<String> strings = new ArrayList<String>();
+		for (byte[] value : values) {
+			strings.add(value == null ? null : new String(value));
+		}
+		return strings;
+	}
+}
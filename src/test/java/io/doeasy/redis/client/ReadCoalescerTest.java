@@ -0,0 +1,148 @@
+package io.doeasy.redis.client;
+
+import io.doeasy.redis.client.sentinel.SentinelServersManager;
+import io.doeasy.redis.config.ReadCoalescingConfig;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.doeasy.redis.stub.StubSentinelServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * batching of concurrent reads by {@link ReadCoalescer}, against stub
+ * servers. the slave answers slowly so that the first read, sent right
+ * away, is still running when the others arrive.
+ *
+ * @author kriswang
+ *
+ */
+public class ReadCoalescerTest {
+
+	private StubRedisServer master;
+	private StubRedisServer slave;
+	private StubSentinelServer sentinel;
+	private SentinelServersManager manager;
+	private Client client;
+	private ExecutorService readers;
+
+	@Before
+	public void setUp() throws Exception {
+		master = new StubRedisServer(0);
+		master.start();
+		slave = new StubRedisServer(0, master);
+		slave.start();
+		sentinel = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		sentinel.start();
+
+		manager = new SentinelServersManager(Collections.singletonList(sentinel.getHostConfiguration()), 100);
+		manager.start();
+		client = new Client(RedisClientFactory.INSTANCE, manager, "mymaster");
+		for (int i = 0; i < 3; i++) {
+			client.set(("key" + i).getBytes(), ("value" + i).getBytes());
+		}
+		readers = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		readers.shutdownNow();
+		client.quit();
+		manager.stop();
+		sentinel.close();
+		slave.close();
+		master.close();
+	}
+
+	@Test
+	public void testConcurrentGetsShareOneMget() throws Exception {
+		client.setReadCoalescing(config(200000, 128));
+		slave.setLatency(100, TimeUnit.MILLISECONDS);
+
+		List<Future<byte[]>> reads = this.gets(8);
+		for (int i = 0; i < reads.size(); i++) {
+			//the duplicate keys get the value too
+			Assert.assertArrayEquals(("value" + i % 3).getBytes(), reads.get(i).get(5, TimeUnit.SECONDS));
+		}
+		//the first read alone, the others in one batch
+		Assert.assertEquals(1, slave.getCommandCount("GET"));
+		Assert.assertEquals(1, slave.getCommandCount("MGET"));
+	}
+
+	@Test
+	public void testFullBatchIsSentBeforeTheWindow() throws Exception {
+		//a window far longer than the test
+		client.setReadCoalescing(config(TimeUnit.SECONDS.toMicros(60), 3));
+		slave.setLatency(100, TimeUnit.MILLISECONDS);
+
+		long start = System.currentTimeMillis();
+		for (Future<byte[]> read : this.gets(7)) {
+			read.get(5, TimeUnit.SECONDS);
+		}
+		Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+		Assert.assertEquals(1, slave.getCommandCount("GET"));
+		Assert.assertEquals(2, slave.getCommandCount("MGET"));
+	}
+
+	@Test
+	public void testFailureReachesEveryRead() throws Exception {
+		client.setReadCoalescing(config(300000, 128));
+		slave.setLatency(200, TimeUnit.MILLISECONDS);
+
+		List<Future<byte[]>> reads = this.gets(8);
+		//while the batch waits for the end of the window
+		TimeUnit.MILLISECONDS.sleep(100);
+		slave.stop();
+
+		for (Future<byte[]> read : reads) {
+			try {
+				read.get(5, TimeUnit.SECONDS);
+				Assert.fail("the slave is down");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof JedisException);
+			}
+		}
+		Assert.assertEquals(0, slave.getCommandCount("MGET"));
+	}
+
+	private static ReadCoalescingConfig config(long window, int maxBatchSize) {
+		ReadCoalescingConfig config = new ReadCoalescingConfig();
+		config.setWindow(window);
+		config.setMaxBatchSize(maxBatchSize);
+		return config;
+	}
+
+	/**
+	 * starts the gets of key0, key1, key2, key0... at once.
+	 */
+	private List<Future<byte[]>> gets(int count) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Future<byte[]>> reads = new ArrayList<Future<byte[]>>();
+		for (int i = 0; i < count; i++) {
+			final byte[] key = ("key" + i % 3).getBytes();
+			reads.add(readers.submit(new Callable<byte[]>() {
+				@Override
+				public byte[] call() throws Exception {
+					start.await();
+					return client.get(key);
+				}
+			}));
+		}
+		start.countDown();
+		return reads;
+	}
+}
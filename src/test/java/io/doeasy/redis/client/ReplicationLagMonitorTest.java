@@ -0,0 +1,64 @@
+package io.doeasy.redis.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import io.doeasy.redis.client.balancer.LagAwareReadBalancer;
+import io.doeasy.redis.client.balancer.RoundRobinReadBalancer;
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.config.ReplicationLagConfig;
+import io.doeasy.redis.utils.CircularList;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author kriswang
+ *
+ */
+public class ReplicationLagMonitorTest {
+
+	private static final String MASTER_INFO = "# Replication\r\n" + "role:master\r\n" + "connected_slaves:2\r\n"
+			+ "slave0:ip=10.0.0.2,port=6380,state=online,offset=1000,lag=0\r\n"
+			+ "slave1:ip=10.0.0.3,port=6380,state=online,offset=200,lag=3\r\n" + "master_repl_offset:1200\r\n";
+
+	@Test
+	public void testParseMasterInfo() {
+		Map<String, String> master = ReplicationLagMonitor.parse(MASTER_INFO);
+		assertEquals("master", master.get("role"));
+		assertEquals("1200", master.get("master_repl_offset"));
+
+		Map<String, Map<String, String>> acks = ReplicationLagMonitor.slaveAcks(master);
+		assertEquals(2, acks.size());
+		assertEquals("200", acks.get("10.0.0.3:6380").get("offset"));
+		assertEquals("3", acks.get("10.0.0.3:6380").get("lag"));
+	}
+
+	@Test
+	public void testLaggingSlavesAreSkipped() {
+		ReplicationLagConfig config = new ReplicationLagConfig();
+		config.setMaxLagBytes(500);
+		RedisClientPool inSync = pool("10.0.0.2");
+		RedisClientPool lagging = pool("10.0.0.3");
+		inSync.getReplication().update(200, 0, true);
+		lagging.getReplication().update(1000, 3, true);
+
+		LagAwareReadBalancer balancer = new LagAwareReadBalancer(RoundRobinReadBalancer.INSTANCE, config);
+		CircularList<RedisClientPool> slaves = new CircularList<RedisClientPool>(lagging, inSync);
+		for (int i = 0; i < 4; i++) {
+			assertSame(inSync, balancer.select(slaves));
+		}
+
+		inSync.getReplication().failed();
+		assertNull(balancer.select(slaves));
+		config.setFallbackToMaster(false);
+		assertSame(lagging, balancer.select(slaves));
+	}
+
+	private static RedisClientPool pool(String host) {
+		return new RedisClientPool(new HostConfiguration(host, 6380)) {
+		};
+	}
+}
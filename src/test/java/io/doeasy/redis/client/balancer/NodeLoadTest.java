@@ -0,0 +1,110 @@
+package io.doeasy.redis.client.balancer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+/**
+ * moving average of {@link NodeLoad}, on a fake clock.
+ *
+ * @author kriswang
+ *
+ */
+public class NodeLoadTest {
+
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long DECAY = TimeUnit.SECONDS.toNanos(10);
+
+	private final FakeTicker ticker = new FakeTicker();
+	private final NodeLoad load = new NodeLoad(ticker);
+
+	@Test
+	public void testPeakReplacesAverage() {
+		assertEquals(0, load.getLatency(), 0);
+		sample(5 * MILLIS, false);
+		assertEquals(5 * MILLIS, load.getLatency(), 0);
+
+		//a faster sample shortly after barely lowers it
+		sample(1 * MILLIS, false);
+		assertEquals(5 * MILLIS, load.getLatency(), MILLIS / 100);
+
+		sample(8 * MILLIS, false);
+		assertEquals(8 * MILLIS, load.getLatency(), 0);
+	}
+
+	@Test
+	public void testAverageDecays() {
+		sample(5 * MILLIS, false);
+		ticker.advance(DECAY);
+		assertEquals(5 * MILLIS / Math.E, load.getLatency(), 1);
+		ticker.advance(DECAY);
+		assertEquals(5 * MILLIS / Math.E / Math.E, load.getLatency(), 1);
+
+		//blended in with the weight left to the old average
+		ticker.advance(-DECAY);
+		sample(1 * MILLIS, false);
+		double weight = Math.exp(-(DECAY + MILLIS) / (double) DECAY);
+		assertEquals(5 * MILLIS * weight + 1 * MILLIS * (1 - weight), load.getLatency(), 1);
+
+		//probed again once it has been idle long enough
+		ticker.advance(30 * DECAY);
+		assertEquals(0, load.getLatency(), 1);
+		assertEquals(1, load.cost(), 1e-3);
+	}
+
+	@Test
+	public void testInflight() {
+		long first = load.start();
+		load.start();
+		assertEquals(2, load.getInflight());
+		assertEquals(3, load.cost(), 0);
+
+		ticker.advance(2 * MILLIS);
+		load.complete(first, false);
+		assertEquals(1, load.getInflight());
+		assertEquals((2 * MILLIS + 1) * 2, load.cost(), 0);
+	}
+
+	@Test
+	public void testFailurePenalty() {
+		sample(1 * MILLIS, true);
+		assertEquals(TimeUnit.SECONDS.toNanos(1), load.getLatency(), 0);
+		//failures are not in the percentiles
+		assertEquals(0, load.getLatencyPercentile(50));
+	}
+
+	@Test
+	public void testPercentilesOfPreviousPeriod() {
+		for (int i = 0; i < 10; i++) {
+			sample(2 * MILLIS, false);
+		}
+		ticker.advance(DECAY + 1);
+		sample(1 * MILLIS, false);
+		//too few samples in the current period
+		assertEquals(2 * MILLIS, load.getLatencyPercentile(50), 2 * MILLIS / 32);
+	}
+
+	private void sample(long latency, boolean failed) {
+		long start = load.start();
+		ticker.advance(latency);
+		load.complete(start, failed);
+	}
+
+	private static class FakeTicker extends Ticker {
+
+		private long now = 1;
+
+		@Override
+		public long read() {
+			return this.now;
+		}
+
+		void advance(long nanos) {
+			this.now += nanos;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package io.doeasy.redis.client.balancer;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import io.doeasy.redis.client.RedisClientPool;
+import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.utils.CircularList;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * selection of {@link PowerOfTwoChoicesReadBalancer}, the loads only differ
+ * by their commands in flight so every comparison is known in advance.
+ *
+ * @author kriswang
+ *
+ */
+public class PowerOfTwoChoicesReadBalancerTest {
+
+	private static final int SELECTIONS = 200;
+
+	private final PowerOfTwoChoicesReadBalancer balancer = new PowerOfTwoChoicesReadBalancer();
+
+	@Test
+	public void testLessLoadedWins() {
+		RedisClientPool idle = pool(1);
+		RedisClientPool busy = pool(2, 2);
+		//with two slaves both are sampled every time
+		CircularList<RedisClientPool> slaves = new CircularList<RedisClientPool>(busy, idle);
+		for (int i = 0; i < SELECTIONS; i++) {
+			assertSame(idle, balancer.select(slaves));
+		}
+
+		idle.getLoad().start();
+		idle.getLoad().start();
+		idle.getLoad().start();
+		for (int i = 0; i < SELECTIONS; i++) {
+			assertSame(busy, balancer.select(slaves));
+		}
+	}
+
+	@Test
+	public void testMostLoadedNeverSelected() {
+		RedisClientPool stalled = pool(3, 5);
+		CircularList<RedisClientPool> slaves = new CircularList<RedisClientPool>(pool(1), stalled, pool(2, 1));
+		for (int i = 0; i < SELECTIONS; i++) {
+			//it loses whichever node it is compared with
+			if (balancer.select(slaves) == stalled) {
+				throw new AssertionError("selected the most loaded node");
+			}
+		}
+	}
+
+	@Test
+	public void testMissingNode() {
+		RedisClientPool only = pool(1);
+		for (int i = 0; i < SELECTIONS; i++) {
+			assertSame(only, balancer.select(new CircularList<RedisClientPool>(only)));
+			assertSame(only, balancer.select(new CircularList<RedisClientPool>(null, only)));
+		}
+		assertNull(balancer.select(new CircularList<RedisClientPool>(Collections.<RedisClientPool> emptyList())));
+	}
+
+	private static RedisClientPool pool(int id) {
+		return pool(id, 0);
+	}
+
+	/**
+	 * @param inflight number of commands left in flight on the node.
+	 */
+	private static RedisClientPool pool(int id, int inflight) {
+		RedisClientPool pool = new RedisClientPool(new HostConfiguration("127.0.0.1", 6379 + id)) {
+		};
+		for (int i = 0; i < inflight; i++) {
+			pool.getLoad().start();
+		}
+		return pool;
+	}
+}
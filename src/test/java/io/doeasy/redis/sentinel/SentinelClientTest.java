@@ -4,6 +4,8 @@ import io.doeasy.redis.client.sentinel.SentinelClient;
 import io.doeasy.redis.client.sentinel.SentinelClientFactory;
 import io.doeasy.redis.config.HostConfiguration;
 import io.doeasy.redis.model.RedisNodeInfo;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.doeasy.redis.stub.StubSentinelServer;
 
 import java.util.List;
 
@@ -16,13 +18,23 @@ import redis.clients.jedis.Protocol;
 
 public class SentinelClientTest {
 	
+	private StubRedisServer master;
+	private StubRedisServer slave;
+	private StubSentinelServer sentinel;
 	private SentinelClient sentinelClient;
 
 	@Before
 	public void setUp() throws Exception {
+		master = new StubRedisServer(0);
+		master.start();
+		slave = new StubRedisServer(0, master);
+		slave.start();
+		sentinel = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		sentinel.start();
+
 		HostConfiguration config = new HostConfiguration();
 		config.setHost("localhost");
-		config.setPort(26379);
+		config.setPort(sentinel.getPort());
 		config.setTimeout(1000);
 		config.setDatabase(Protocol.DEFAULT_DATABASE);
 		
@@ -32,6 +44,9 @@ public class SentinelClientTest {
 	@After
 	public void tearDown() throws Exception {
 		sentinelClient.quit();
+		sentinel.close();
+		slave.close();
+		master.close();
 	}
 
 	@Test
@@ -52,6 +67,23 @@ public class SentinelClientTest {
 	public void testGetMasterAddrByName() {
 		HostAndPort hp = this.sentinelClient.getMasterAddrByName("mymaster");
 		org.junit.Assert.assertEquals("127.0.0.1", hp.getHost());
+		org.junit.Assert.assertEquals(master.getPort(), hp.getPort());
+	}
+
+	@Test
+	public void testSlaves() {
+		List<RedisNodeInfo> slaves = this.sentinelClient.slaves("mymaster");
+		org.junit.Assert.assertEquals(1, slaves.size());
+		org.junit.Assert.assertEquals(Integer.valueOf(slave.getPort()), slaves.get(0).getPort());
+	}
+
+	@Test
+	public void testFailover() {
+		this.sentinel.failover("mymaster");
+		HostAndPort hp = this.sentinelClient.getMasterAddrByName("mymaster");
+		org.junit.Assert.assertEquals(slave.getPort(), hp.getPort());
+		org.junit.Assert.assertTrue(slave.isMaster());
+		org.junit.Assert.assertFalse(master.isMaster());
 	}
 
 }
@@ -1,35 +1,280 @@
 package io.doeasy.redis.sentinel;
 
+import io.doeasy.redis.client.sentinel.SentinelHeartbeat;
 import io.doeasy.redis.client.sentinel.SentinelServersManager;
-import io.doeasy.redis.client.sentinel.web.WebListener;
-import io.doeasy.redis.config.HostConfiguration;
+import io.doeasy.redis.client.sentinel.TopologyListener;
+import io.doeasy.redis.config.SentinelHeartbeatConfig;
+import io.doeasy.redis.model.TopologySnapshot;
+import io.doeasy.redis.stub.StubRedisServer;
+import io.doeasy.redis.stub.StubSentinelServer;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
 
 public class SentinelServersManagerTest {
-	
-	public static void main(String[] args) throws Exception{
-		List<HostConfiguration> hosts = new ArrayList<HostConfiguration>();
-		HostConfiguration hostConfiguration1 = new HostConfiguration();
-		hostConfiguration1.setDatabase(0);
-		hostConfiguration1.setHost("localhost");
-		hostConfiguration1.setPort(26379);
-		hostConfiguration1.setTimeout(1000);
-
-		HostConfiguration hostConfiguration2 = new HostConfiguration();
-		hostConfiguration2.setDatabase(0);
-		hostConfiguration2.setHost("localhost");
-		hostConfiguration2.setPort(26380);
-		hostConfiguration2.setTimeout(1000);
-		hosts.add(hostConfiguration1);
-		hosts.add(hostConfiguration2);
-
-		SentinelServersManager checker = new SentinelServersManager(hosts, 2000);
-		checker.start();
-		
-		WebListener webListener = new WebListener(checker);
-		webListener.start();
+
+	private StubRedisServer master;
+	private StubRedisServer slave;
+	private StubSentinelServer fast;
+	private StubSentinelServer other;
+	private SentinelServersManager manager;
+
+	@Before
+	public void setUp() throws Exception {
+		master = new StubRedisServer(0);
+		master.start();
+		slave = new StubRedisServer(0, master);
+		slave.start();
+		fast = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		fast.start();
+		other = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		other.start();
 	}
 
+	@After
+	public void tearDown() throws Exception {
+		manager.stop();
+		other.close();
+		fast.close();
+		slave.close();
+		master.close();
+	}
+
+	@Test
+	public void testHungSentinelIsTakenOutOfRotation() throws Exception {
+		other.setLatency(2, TimeUnit.SECONDS);
+		SentinelHeartbeatConfig config = new SentinelHeartbeatConfig();
+		config.setTimeout(50);
+		config.setFailureThreshold(2);
+		manager = new SentinelServersManager(Arrays.asList(fast.getHostConfiguration(), other.getHostConfiguration()),
+				100, config, null);
+		manager.start();
+
+		SentinelHeartbeat fastHeartbeat = manager.getHeartbeats().get(0);
+		SentinelHeartbeat hungHeartbeat = manager.getHeartbeats().get(1);
+		await(hungHeartbeat, false, 2000);
+		//the rotation is updated right after the heartbeat
+		awaitAvailable(1);
+		Assert.assertSame(hungHeartbeat.getSentinel(), manager.getUnavailibleSentinelServers().get(0));
+		Assert.assertTrue(fastHeartbeat.isAvailable());
+		Assert.assertEquals(0, fastHeartbeat.getConsecutiveFailures());
+		Assert.assertTrue(fastHeartbeat.getLastRtt() >= 0);
+		//the unanswered ping is not sent again
+		Assert.assertEquals(1, other.getCommandCount("PING"));
+
+		//only the fast sentinel is asked
+		long start = System.currentTimeMillis();
+		Assert.assertEquals(master.getHostConfiguration(), manager.refreshTopology("mymaster").getMaster());
+		Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+
+		other.setLatency(0, TimeUnit.MILLISECONDS);
+		await(hungHeartbeat, true, 3000);
+		awaitAvailable(2);
+	}
+
+	@Test
+	public void testTopologySnapshot() throws Exception {
+		manager = new SentinelServersManager(Arrays.asList(fast.getHostConfiguration()), 100);
+		manager.setTopologyRefreshInterval(100);
+		manager.start();
+
+		TopologySnapshot first = manager.getTopology("mymaster");
+		Assert.assertEquals(1, first.getVersion());
+		Assert.assertEquals(master.getHostConfiguration(), first.getMaster());
+		Assert.assertEquals(Arrays.asList(slave.getHostConfiguration()), first.getSlaveConfigurations());
+		//the lookups are served by the snapshot
+		long queries = fast.getCommandCount("SENTINEL");
+		for (int i = 0; i < 10; i++) {
+			Assert.assertSame(first, manager.getTopology("mymaster"));
+			Assert.assertEquals(master.getHostConfiguration(), manager.getMaster("mymaster"));
+		}
+		Assert.assertEquals(queries, fast.getCommandCount("SENTINEL"));
+
+		final BlockingQueue<TopologySnapshot> changes = new LinkedBlockingQueue<TopologySnapshot>();
+		manager.addTopologyListener("mymaster", new TopologyListener() {
+			@Override
+			public void topologyChanged(TopologySnapshot previous, TopologySnapshot current) {
+				changes.add(current);
+			}
+		});
+		fast.failover("mymaster");
+
+		//picked up by the poll
+		TopologySnapshot second = changes.poll(5, TimeUnit.SECONDS);
+		Assert.assertNotNull(second);
+		Assert.assertEquals(2, second.getVersion());
+		Assert.assertEquals(slave.getHostConfiguration(), second.getMaster());
+		Assert.assertSame(second, manager.getTopology("mymaster"));
+		//unchanged since
+		TimeUnit.MILLISECONDS.sleep(300);
+		Assert.assertTrue(changes.isEmpty());
+	}
+
+	@Test
+	public void testListenerMayAskManagerFromAnotherThread() throws Exception {
+		manager = new SentinelServersManager(Arrays.asList(fast.getHostConfiguration()), 100);
+		manager.start();
+		manager.getTopology("mymaster");
+
+		final ExecutorService asker = Executors.newSingleThreadExecutor();
+		final BlockingQueue<TopologySnapshot> seen = new LinkedBlockingQueue<TopologySnapshot>();
+		try {
+			manager.addTopologyListener("mymaster", new TopologyListener() {
+				@Override
+				public void topologyChanged(TopologySnapshot previous, TopologySnapshot current) {
+					Future<TopologySnapshot> refreshed = asker.submit(new Callable<TopologySnapshot>() {
+						@Override
+						public TopologySnapshot call() {
+							return manager.refreshTopology("mymaster");
+						}
+					});
+					try {
+						//would wait for the notifying thread if it held the lock
+						seen.add(refreshed.get(2, TimeUnit.SECONDS));
+					} catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+			fast.failover("mymaster");
+			TopologySnapshot current = manager.refreshTopology("mymaster");
+			Assert.assertSame(current, seen.poll(5, TimeUnit.SECONDS));
+		} finally {
+			asker.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testQuorumPrefersHighestConfigEpoch() throws Exception {
+		manager = new SentinelServersManager(Arrays.asList(fast.getHostConfiguration(), other.getHostConfiguration()),
+				60000);
+		manager.start();
+
+		Assert.assertEquals(master.getHostConfiguration(), manager.resolveMaster("mymaster"));
+		Assert.assertEquals(1, manager.getMasterDiscoveryStats().getResolutions());
+		Assert.assertEquals(0, manager.getMasterDiscoveryStats().getDisagreements());
+
+		//the other sentinel still reports the old master, of a lower epoch
+		fast.failover("mymaster");
+		Assert.assertEquals(slave.getHostConfiguration(), manager.resolveMaster("mymaster"));
+		Assert.assertEquals(2, manager.getMasterDiscoveryStats().getResolutions());
+		Assert.assertEquals(1, manager.getMasterDiscoveryStats().getDisagreements());
+		Assert.assertEquals(1, manager.getMasterDiscoveryStats().getWithoutQuorum());
+	}
+
+	@Test
+	public void testQuorumCountsUnavailableSentinels() throws Exception {
+		StubSentinelServer third = new StubSentinelServer(0).monitor("mymaster", master, slave);
+		third.start();
+		try {
+			//long enough for the first connections of a cold jvm
+			SentinelHeartbeatConfig config = new SentinelHeartbeatConfig();
+			config.setTimeout(300);
+			config.setFailureThreshold(2);
+			manager = new SentinelServersManager(Arrays.asList(fast.getHostConfiguration(),
+					other.getHostConfiguration(), third.getHostConfiguration()), 100, config, null);
+			manager.start();
+			Assert.assertEquals(master.getHostConfiguration(), manager.getTopology("mymaster").getMaster());
+
+			other.setLatency(2, TimeUnit.SECONDS);
+			third.setLatency(2, TimeUnit.SECONDS);
+			await(manager.getHeartbeats().get(1), false, 3000);
+			await(manager.getHeartbeats().get(2), false, 3000);
+
+			//one vote of three, for the master known before
+			Assert.assertEquals(master.getHostConfiguration(), manager.resolveMaster("mymaster"));
+			Assert.assertEquals(1, manager.getMasterDiscoveryStats().getWithoutQuorum());
+
+			//one vote still, of a newer epoch
+			fast.failover("mymaster");
+			Assert.assertEquals(slave.getHostConfiguration(), manager.resolveMaster("mymaster"));
+			Assert.assertEquals(2, manager.getMasterDiscoveryStats().getWithoutQuorum());
+		} finally {
+			third.close();
+		}
+	}
+
+	@Test
+	public void testNoQuorumKeepsPreviousMaster() throws Exception {
+		StubRedisServer third = new StubRedisServer(0, master);
+		third.start();
+		try {
+			fast.addSlave("mymaster", third);
+			manager = new SentinelServersManager(Arrays.asList(fast.getHostConfiguration(),
+					other.getHostConfiguration()), 60000);
+			manager.start();
+			Assert.assertEquals(master.getHostConfiguration(), manager.getTopology("mymaster").getMaster());
+
+			//each promotes another slave in the same epoch
+			fast.slaveDown("mymaster", slave);
+			Assert.assertSame(third, fast.failover("mymaster"));
+			Assert.assertSame(slave, other.failover("mymaster"));
+			Assert.assertEquals(fast.getConfigEpoch("mymaster"), other.getConfigEpoch("mymaster"));
+
+			Assert.assertEquals(master.getHostConfiguration(), manager.resolveMaster("mymaster"));
+			Assert.assertEquals(1, manager.getMasterDiscoveryStats().getWithoutQuorum());
+		} finally {
+			third.close();
+		}
+	}
+
+	@Test
+	public void testSentinelDiscovery() throws Exception {
+		fast.knows(other);
+		manager = new SentinelServersManager(Arrays.asList(fast.getHostConfiguration()), 100);
+		manager.setTopologyRefreshInterval(100);
+		manager.start();
+		manager.getTopology("mymaster");
+
+		awaitSentinels(2);
+		SentinelHeartbeat discovered = manager.getHeartbeats().get(1);
+		Assert.assertEquals(other.getPort(), discovered.getSentinel().getPort());
+		Assert.assertEquals(2, manager.getAvailibleSentinelServers().size());
+
+		//down, but still reported
+		other.stop();
+		await(discovered, false, 2000);
+		TimeUnit.MILLISECONDS.sleep(300);
+		Assert.assertEquals(2, manager.getHeartbeats().size());
+
+		fast.forget(other);
+		awaitSentinels(1);
+		Assert.assertEquals(1, manager.getAvailibleSentinelServers().size());
+		Assert.assertTrue(manager.getUnavailibleSentinelServers().isEmpty());
+	}
+
+	private void awaitSentinels(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (manager.getHeartbeats().size() != count && System.currentTimeMillis() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		Assert.assertEquals(count, manager.getHeartbeats().size());
+	}
+
+	private void awaitAvailable(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 1000;
+		while (manager.getAvailibleSentinelServers().size() != count && System.currentTimeMillis() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(5);
+		}
+		Assert.assertEquals(count, manager.getAvailibleSentinelServers().size());
+	}
+
+	private static void await(SentinelHeartbeat heartbeat, boolean available, long millis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + millis;
+		while (heartbeat.isAvailable() != available && System.currentTimeMillis() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		Assert.assertEquals(heartbeat.toString(), available, heartbeat.isAvailable());
+	}
 }
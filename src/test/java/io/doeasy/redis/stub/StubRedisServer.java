@@ -0,0 +1,313 @@
+package io.doeasy.redis.stub;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * in-process redis node keeping strings and hashes in memory. a slave
+ * created with {@link #StubRedisServer(int, StubRedisServer)} shares the
+ * data of its master, as if replicated without delay, and refuses writes
+ * until {@link #promote()}d. once {@link #setNotifyKeyspaceEvents(String)}
+ * includes K, a master publishes the writes of each key on
+ * __keyspace@0__:&lt;key&gt; as redis does. the writes of a master also
+ * invalidate the keys tracked by its connections, see
+ * {@link StubServer#invalidate(List)}.
+ *
+ * @author kriswang
+ *
+ */
+public class StubRedisServer extends StubServer {
+
+	private static final String READONLY = "READONLY You can't write against a read only slave.";
+
+	private final ConcurrentMap<ByteBuffer, Object> data;
+	private volatile StubRedisServer master;
+	private volatile long offset;
+	private volatile String keyspaceEvents = "";
+
+	public StubRedisServer(int port) {
+		super(port);
+		this.data = new ConcurrentHashMap<ByteBuffer, Object>();
+	}
+
+	/**
+	 * a slave of the given master, sharing its data.
+	 */
+	public StubRedisServer(int port, StubRedisServer master) {
+		super(port);
+		this.data = master.data;
+		this.master = master;
+	}
+
+	public boolean isMaster() {
+		return this.master == null;
+	}
+
+	public StubRedisServer getMaster() {
+		return this.master;
+	}
+
+	/**
+	 * turns the slave into a master, as sentinel does on failover.
+	 */
+	public void promote() {
+		StubRedisServer master = this.master;
+		if (master != null) {
+			//carries on the replication stream of the old master
+			this.offset = master.offset;
+		}
+		this.master = null;
+	}
+
+	/**
+	 * turns the node into a slave of the given master. the data is only
+	 * shared if the node was created as a slave of the same replication
+	 * group.
+	 */
+	public void slaveOf(StubRedisServer master) {
+		this.master = master;
+	}
+
+	/**
+	 * the notify-keyspace-events setting, only K (keyspace events of any
+	 * type) is honoured.
+	 */
+	public void setNotifyKeyspaceEvents(String events) {
+		this.keyspaceEvents = events;
+	}
+
+	@Override
+	protected Object execute(String name, List<byte[]> args) {
+		if ("INFO".equals(name)) {
+			return this.info();
+		}
+		if ("DBSIZE".equals(name)) {
+			return (long) this.data.size();
+		}
+		if ("GET".equals(name)) {
+			return this.get(args.get(0));
+		}
+		if ("MGET".equals(name)) {
+			List<Object> values = new ArrayList<Object>();
+			for (byte[] key : args) {
+				Object value = this.data.get(ByteBuffer.wrap(key));
+				values.add(value instanceof byte[] ? value : null);
+			}
+			return values;
+		}
+		if ("EXISTS".equals(name)) {
+			return this.data.containsKey(ByteBuffer.wrap(args.get(0))) ? 1L : 0L;
+		}
+		if ("TTL".equals(name) || "PTTL".equals(name)) {
+			return this.data.containsKey(ByteBuffer.wrap(args.get(0))) ? -1L : -2L;
+		}
+		if ("TYPE".equals(name)) {
+			Object value = this.data.get(ByteBuffer.wrap(args.get(0)));
+			return status(value == null ? "none" : value instanceof byte[] ? "string" : "hash");
+		}
+		if ("HGET".equals(name)) {
+			Map<ByteBuffer, byte[]> hash = this.hash(args.get(0), false);
+			return hash == null ? null : hash.get(ByteBuffer.wrap(args.get(1)));
+		}
+		if ("HMGET".equals(name)) {
+			Map<ByteBuffer, byte[]> hash = this.hash(args.get(0), false);
+			List<Object> values = new ArrayList<Object>();
+			for (byte[] field : args.subList(1, args.size())) {
+				values.add(hash == null ? null : hash.get(ByteBuffer.wrap(field)));
+			}
+			return values;
+		}
+		if ("HGETALL".equals(name)) {
+			Map<ByteBuffer, byte[]> hash = this.hash(args.get(0), false);
+			List<Object> values = new ArrayList<Object>();
+			if (hash != null) {
+				for (Map.Entry<ByteBuffer, byte[]> entry : hash.entrySet()) {
+					values.add(entry.getKey().array());
+					values.add(entry.getValue());
+				}
+			}
+			return values;
+		}
+		if ("HEXISTS".equals(name)) {
+			Map<ByteBuffer, byte[]> hash = this.hash(args.get(0), false);
+			return hash != null && hash.containsKey(ByteBuffer.wrap(args.get(1))) ? 1L : 0L;
+		}
+		if ("HLEN".equals(name)) {
+			Map<ByteBuffer, byte[]> hash = this.hash(args.get(0), false);
+			return hash == null ? 0L : (long) hash.size();
+		}
+
+		if (!this.isMaster()) {
+			return error(READONLY);
+		}
+		Object reply = this.write(name, args);
+		this.offset++;
+		if (!(reply instanceof Error)) {
+			List<byte[]> keys = written(name, args);
+			this.notifyKeyspace(name, keys);
+			this.invalidate(keys);
+		}
+		return reply;
+	}
+
+	/**
+	 * @return the keys written by the command, null for all of them.
+	 */
+	private static List<byte[]> written(String name, List<byte[]> args) {
+		if (name.startsWith("FLUSH")) {
+			return null;
+		}
+		return "DEL".equals(name) || args.isEmpty() ? args : args.subList(0, 1);
+	}
+
+	private void notifyKeyspace(String name, List<byte[]> keys) {
+		if (!this.keyspaceEvents.contains("K") || keys == null) {
+			return;
+		}
+		byte[] prefix = "__keyspace@0__:".getBytes(UTF8);
+		for (byte[] key : keys) {
+			byte[] channel = Arrays.copyOf(prefix, prefix.length + key.length);
+			System.arraycopy(key, 0, channel, prefix.length, key.length);
+			this.publish(channel, name.toLowerCase());
+		}
+	}
+
+	private Object write(String name, List<byte[]> args) {
+		if ("SET".equals(name)) {
+			this.data.put(ByteBuffer.wrap(args.get(0)), args.get(1));
+			return status("OK");
+		}
+		if ("SETEX".equals(name) || "PSETEX".equals(name)) {
+			this.data.put(ByteBuffer.wrap(args.get(0)), args.get(2));
+			return status("OK");
+		}
+		if ("SETNX".equals(name)) {
+			return this.data.putIfAbsent(ByteBuffer.wrap(args.get(0)), args.get(1)) == null ? 1L : 0L;
+		}
+		if ("DEL".equals(name)) {
+			long deleted = 0;
+			for (byte[] key : args) {
+				if (this.data.remove(ByteBuffer.wrap(key)) != null) {
+					deleted++;
+				}
+			}
+			return deleted;
+		}
+		if ("INCR".equals(name) || "INCRBY".equals(name) || "DECR".equals(name) || "DECRBY".equals(name)) {
+			long by = args.size() > 1 ? Long.parseLong(string(args.get(1))) : 1;
+			return this.incr(args.get(0), name.startsWith("DECR") ? -by : by);
+		}
+		if ("APPEND".equals(name)) {
+			return this.append(args.get(0), args.get(1));
+		}
+		if ("EXPIRE".equals(name) || "PEXPIRE".equals(name) || "EXPIREAT".equals(name) || "PERSIST".equals(name)) {
+			//keys never expire
+			return this.data.containsKey(ByteBuffer.wrap(args.get(0))) ? 1L : 0L;
+		}
+		if ("HSET".equals(name)) {
+			return this.hash(args.get(0), true).put(ByteBuffer.wrap(args.get(1)), args.get(2)) == null ? 1L : 0L;
+		}
+		if ("HMSET".equals(name)) {
+			Map<ByteBuffer, byte[]> hash = this.hash(args.get(0), true);
+			for (int i = 1; i + 1 < args.size(); i += 2) {
+				hash.put(ByteBuffer.wrap(args.get(i)), args.get(i + 1));
+			}
+			return status("OK");
+		}
+		if ("HDEL".equals(name)) {
+			Map<ByteBuffer, byte[]> hash = this.hash(args.get(0), false);
+			long deleted = 0;
+			for (byte[] field : args.subList(1, args.size())) {
+				if (hash != null && hash.remove(ByteBuffer.wrap(field)) != null) {
+					deleted++;
+				}
+			}
+			return deleted;
+		}
+		if ("FLUSHALL".equals(name) || "FLUSHDB".equals(name)) {
+			this.data.clear();
+			return status("OK");
+		}
+		return error("ERR unknown command '" + name + "'");
+	}
+
+	private Object get(byte[] key) {
+		Object value = this.data.get(ByteBuffer.wrap(key));
+		if (value != null && !(value instanceof byte[])) {
+			return error("WRONGTYPE Operation against a key holding the wrong kind of value");
+		}
+		return value;
+	}
+
+	private Object incr(byte[] key, long by) {
+		//the data may be shared with the replicas
+		synchronized (this.data) {
+			Object value = this.get(key);
+			if (value instanceof Error) {
+				return value;
+			}
+			long current;
+			try {
+				current = value == null ? 0 : Long.parseLong(string((byte[]) value));
+			} catch (NumberFormatException e) {
+				return error("ERR value is not an integer or out of range");
+			}
+			this.data.put(ByteBuffer.wrap(key), String.valueOf(current + by).getBytes(UTF8));
+			return current + by;
+		}
+	}
+
+	private Object append(byte[] key, byte[] suffix) {
+		synchronized (this.data) {
+			Object value = this.get(key);
+			if (value instanceof Error) {
+				return value;
+			}
+			byte[] current = value == null ? new byte[0] : (byte[]) value;
+			byte[] appended = new byte[current.length + suffix.length];
+			System.arraycopy(current, 0, appended, 0, current.length);
+			System.arraycopy(suffix, 0, appended, current.length, suffix.length);
+			this.data.put(ByteBuffer.wrap(key), appended);
+			return (long) appended.length;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<ByteBuffer, byte[]> hash(byte[] key, boolean create) {
+		ByteBuffer k = ByteBuffer.wrap(key);
+		Object value = this.data.get(k);
+		if (value == null && create) {
+			this.data.putIfAbsent(k, new ConcurrentHashMap<ByteBuffer, byte[]>());
+			value = this.data.get(k);
+		}
+		if (value != null && !(value instanceof Map)) {
+			throw new IllegalStateException("WRONGTYPE Operation against a key holding the wrong kind of value");
+		}
+		return (Map<ByteBuffer, byte[]>) value;
+	}
+
+	/**
+	 * the replication section, enough for the role and lag checks.
+	 */
+	private String info() {
+		StringBuilder info = new StringBuilder("# Replication\r\n");
+		StubRedisServer master = this.master;
+		if (master == null) {
+			info.append("role:master\r\n");
+			info.append("connected_slaves:0\r\n");
+			info.append("master_repl_offset:").append(this.offset).append("\r\n");
+		} else {
+			info.append("role:slave\r\n");
+			info.append("master_host:127.0.0.1\r\n");
+			info.append("master_port:").append(master.getPort()).append("\r\n");
+			info.append("master_link_status:").append(master.isRunning() ? "up" : "down").append("\r\n");
+			info.append("slave_repl_offset:").append(master.offset).append("\r\n");
+		}
+		return info.toString();
+	}
+}
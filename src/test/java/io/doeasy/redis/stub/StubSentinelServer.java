@@ -0,0 +1,224 @@
+package io.doeasy.redis.stub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * in-process sentinel answering SENTINEL masters, master, slaves, sentinels,
+ * get-master-addr-by-name and failover for the {@link StubRedisServer}s it
+ * monitors, and publishing +switch-master, +slave, +sdown and -sdown when
+ * told so. unlike a real sentinel it never detects failures by itself: a
+ * test stops a node then calls {@link #slaveDown} or {@link #failover}.
+ *
+ * @author kriswang
+ *
+ */
+public class StubSentinelServer extends StubServer {
+
+	private final Map<String, Group> groups = Maps.newConcurrentMap();
+	private final CopyOnWriteArrayList<StubSentinelServer> peers = new CopyOnWriteArrayList<StubSentinelServer>();
+
+	public StubSentinelServer(int port) {
+		super(port);
+	}
+
+	public StubSentinelServer monitor(String name, StubRedisServer master, StubRedisServer... slaves) {
+		Group group = new Group(master);
+		for (StubRedisServer slave : slaves) {
+			group.slaves.add(slave);
+		}
+		this.groups.put(name, group);
+		return this;
+	}
+
+	/**
+	 * the sentinels reported by SENTINEL sentinels, for every master.
+	 */
+	public StubSentinelServer knows(StubSentinelServer... peers) {
+		for (StubSentinelServer peer : peers) {
+			this.peers.addIfAbsent(peer);
+		}
+		return this;
+	}
+
+	/**
+	 * stops reporting the peer, as SENTINEL RESET does for the sentinels
+	 * gone.
+	 */
+	public void forget(StubSentinelServer peer) {
+		this.peers.remove(peer);
+	}
+
+	public StubRedisServer getMaster(String name) {
+		return this.group(name).master;
+	}
+
+	public long getConfigEpoch(String name) {
+		return this.group(name).configEpoch;
+	}
+
+	/**
+	 * adds a slave to the group and publishes +slave.
+	 */
+	public void addSlave(String name, StubRedisServer slave) {
+		Group group = this.group(name);
+		group.slaves.addIfAbsent(slave);
+		this.publish("+slave", this.slaveEvent(name, group, slave));
+	}
+
+	/**
+	 * flags the slave as down and publishes +sdown.
+	 */
+	public void slaveDown(String name, StubRedisServer slave) {
+		Group group = this.group(name);
+		group.down.add(slave);
+		this.publish("+sdown", this.slaveEvent(name, group, slave));
+	}
+
+	/**
+	 * clears the down flag of the slave and publishes -sdown.
+	 */
+	public void slaveUp(String name, StubRedisServer slave) {
+		Group group = this.group(name);
+		group.down.remove(slave);
+		this.publish("-sdown", this.slaveEvent(name, group, slave));
+	}
+
+	/**
+	 * promotes the first running slave not flagged as down, as SENTINEL
+	 * failover does.
+	 * @return the new master, null if no slave could be promoted.
+	 */
+	public StubRedisServer failover(String name) {
+		Group group = this.group(name);
+		for (StubRedisServer slave : group.slaves) {
+			if (slave.isRunning() && !group.down.contains(slave)) {
+				this.switchMaster(name, slave);
+				return slave;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * promotes the given slave, turns the old master into its slave, bumps
+	 * the config epoch and publishes +switch-master.
+	 */
+	public void switchMaster(String name, StubRedisServer master) {
+		Group group = this.group(name);
+		StubRedisServer old;
+		synchronized (group) {
+			old = group.master;
+			if (old == master) {
+				return;
+			}
+			master.promote();
+			old.slaveOf(master);
+			group.slaves.remove(master);
+			group.slaves.addIfAbsent(old);
+			group.master = master;
+			group.configEpoch++;
+		}
+		this.publish("+switch-master", String.format("%s %s %d %s %d", name, "127.0.0.1", old.getPort(),
+				"127.0.0.1", master.getPort()));
+	}
+
+	@Override
+	protected Object execute(String name, List<byte[]> args) {
+		if ("INFO".equals(name)) {
+			return "# Sentinel\r\nsentinel_masters:" + this.groups.size() + "\r\n";
+		}
+		if (!"SENTINEL".equals(name) || args.isEmpty()) {
+			return error("ERR unknown command '" + name + "'");
+		}
+		String subcommand = string(args.get(0)).toLowerCase();
+		if ("masters".equals(subcommand)) {
+			List<Object> masters = new ArrayList<Object>();
+			for (Map.Entry<String, Group> entry : this.groups.entrySet()) {
+				masters.add(this.masterInfo(entry.getKey(), entry.getValue()));
+			}
+			return masters;
+		}
+		if (args.size() < 2) {
+			return error("ERR wrong number of arguments for 'sentinel " + subcommand + "'");
+		}
+		String master = string(args.get(1));
+		Group group = this.groups.get(master);
+		if ("get-master-addr-by-name".equals(subcommand)) {
+			return group == null ? null : list("127.0.0.1", String.valueOf(group.master.getPort()));
+		}
+		if (group == null) {
+			return error("ERR No such master with that name");
+		}
+		if ("master".equals(subcommand)) {
+			return this.masterInfo(master, group);
+		}
+		if ("slaves".equals(subcommand)) {
+			List<Object> slaves = new ArrayList<Object>();
+			for (StubRedisServer slave : group.slaves) {
+				slaves.add(this.slaveInfo(group, slave));
+			}
+			return slaves;
+		}
+		if ("sentinels".equals(subcommand)) {
+			List<Object> sentinels = new ArrayList<Object>();
+			for (StubSentinelServer peer : this.peers) {
+				sentinels.add(list("name", "127.0.0.1:" + peer.getPort(), "ip", "127.0.0.1", "port",
+						String.valueOf(peer.getPort()), "runid", "stub-" + peer.getPort(), "flags",
+						peer.isRunning() ? "sentinel" : "s_down,sentinel"));
+			}
+			return sentinels;
+		}
+		if ("failover".equals(subcommand)) {
+			return this.failover(master) == null ? error("NOGOODSLAVE No suitable slave to promote") : status("OK");
+		}
+		return error("ERR Unknown sentinel subcommand '" + subcommand + "'");
+	}
+
+	private Group group(String name) {
+		Group group = this.groups.get(name);
+		if (group == null) {
+			throw new IllegalArgumentException("no master named " + name);
+		}
+		return group;
+	}
+
+	private String slaveEvent(String name, Group group, StubRedisServer slave) {
+		return String.format("slave 127.0.0.1:%d 127.0.0.1 %d @ %s 127.0.0.1 %d", slave.getPort(), slave.getPort(),
+				name, group.master.getPort());
+	}
+
+	private List<Object> masterInfo(String name, Group group) {
+		StubRedisServer master = group.master;
+		return list("name", name, "ip", "127.0.0.1", "port", String.valueOf(master.getPort()), "runid",
+				"stub-" + master.getPort(), "flags", master.isRunning() ? "master" : "s_down,master", "num-slaves",
+				String.valueOf(group.slaves.size()), "num-other-sentinels", "0", "quorum", "1", "config-epoch",
+				String.valueOf(group.configEpoch));
+	}
+
+	private List<Object> slaveInfo(Group group, StubRedisServer slave) {
+		boolean up = slave.isRunning() && !group.down.contains(slave);
+		return list("name", "127.0.0.1:" + slave.getPort(), "ip", "127.0.0.1", "port", String.valueOf(slave.getPort()),
+				"runid", "stub-" + slave.getPort(), "flags", up ? "slave" : "s_down,slave", "master-link-status",
+				group.master.isRunning() ? "ok" : "err", "master-host", "127.0.0.1", "master-port",
+				String.valueOf(group.master.getPort()), "slave-priority", "100");
+	}
+
+	private static class Group {
+		private volatile StubRedisServer master;
+		private final CopyOnWriteArrayList<StubRedisServer> slaves = new CopyOnWriteArrayList<StubRedisServer>();
+		private final Set<StubRedisServer> down = Sets.newSetFromMap(new ConcurrentHashMap<StubRedisServer, Boolean>());
+		private volatile long configEpoch;
+
+		Group(StubRedisServer master) {
+			this.master = master;
+		}
+	}
+}
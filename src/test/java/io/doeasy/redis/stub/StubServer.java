@@ -0,0 +1,553 @@
+package io.doeasy.redis.stub;
+
+import io.doeasy.redis.config.HostConfiguration;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.google.common.collect.Sets;
+
+/**
+ * in-process server speaking the redis protocol on a local port, for tests
+ * and benchmarks which can not rely on a real redis. handles the commands
+ * common to redis and sentinel (PING, ECHO, SELECT, AUTH, CLIENT, QUIT and
+ * pub/sub), subclasses handle the others.
+ *
+ * HELLO 3 switches a connection to RESP3, its null replies are then sent as
+ * RESP3 nulls. CLIENT TRACKING ON makes the server remember the keys the
+ * connection reads with GET, MGET and HGET, and push an invalidation once
+ * they are written, see {@link #invalidate(List)}.
+ *
+ * the server can be stopped, closing all the connections as a crashed node
+ * would, and started again on the same port. the replies can be delayed to
+ * emulate a slow node.
+ *
+ * @author kriswang
+ *
+ */
+public abstract class StubServer implements Closeable {
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final byte[] CRLF = "\r\n".getBytes(UTF8);
+	private static final AttributeKey<Set<String>> CHANNELS = AttributeKey.valueOf("channels");
+	private static final AttributeKey<Set<String>> PATTERNS = AttributeKey.valueOf("patterns");
+	private static final AttributeKey<Boolean> RESP3 = AttributeKey.valueOf("resp3");
+	private static final AttributeKey<Set<ByteBuffer>> TRACKED = AttributeKey.valueOf("tracked");
+
+	private final NioEventLoopGroup group = new NioEventLoopGroup(2);
+	private final ChannelGroup connections = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+	private final ConcurrentMap<String, AtomicLong> counts = new ConcurrentHashMap<String, AtomicLong>();
+	private volatile Channel server;
+	private volatile int port;
+	private volatile long latency;
+
+	/**
+	 * @param port 0 for any free port, see {@link #getPort()} once started.
+	 */
+	protected StubServer(int port) {
+		this.port = port;
+	}
+
+	public synchronized void start() {
+		if (this.server != null) {
+			return;
+		}
+		ServerBootstrap bootstrap = new ServerBootstrap().group(this.group).channel(NioServerSocketChannel.class)
+				.option(ChannelOption.SO_REUSEADDR, true).childOption(ChannelOption.TCP_NODELAY, true)
+				.childHandler(new ChannelInitializer<SocketChannel>() {
+					@Override
+					protected void initChannel(SocketChannel ch) {
+						connections.add(ch);
+						ch.pipeline().addLast(new CommandDecoder(), new CommandHandler());
+					}
+				});
+		this.server = bootstrap.bind("127.0.0.1", this.port).syncUninterruptibly().channel();
+		this.port = ((InetSocketAddress) this.server.localAddress()).getPort();
+	}
+
+	/**
+	 * stops listening and closes all the connections, as a crashed node.
+	 */
+	public synchronized void stop() {
+		if (this.server != null) {
+			this.server.close().syncUninterruptibly();
+			this.server = null;
+		}
+		this.connections.close().syncUninterruptibly();
+	}
+
+	public boolean isRunning() {
+		return this.server != null;
+	}
+
+	@Override
+	public void close() {
+		this.stop();
+		this.group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+	}
+
+	public int getPort() {
+		return this.port;
+	}
+
+	public HostConfiguration getHostConfiguration() {
+		return new HostConfiguration("127.0.0.1", this.port);
+	}
+
+	/**
+	 * delays every reply by the given time, 0 to reply at once.
+	 */
+	public void setLatency(long latency, TimeUnit unit) {
+		this.latency = unit.toNanos(latency);
+	}
+
+	/**
+	 * @return the number of times the command was received, e.g. "SET".
+	 */
+	public long getCommandCount(String command) {
+		AtomicLong count = this.counts.get(command.toUpperCase());
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * sends the message to the connections subscribed to the channel or to a
+	 * matching pattern.
+	 * @return the number of connections the message was sent to.
+	 */
+	public long publish(String channel, String message) {
+		return this.publish(channel.getBytes(UTF8), message);
+	}
+
+	/**
+	 * @param channel sent as is, e.g. the keyspace channel of a binary key.
+	 */
+	public long publish(byte[] channel, String message) {
+		String name = string(channel);
+		long receivers = 0;
+		for (Channel connection : this.connections) {
+			Set<String> channels = connection.attr(CHANNELS).get();
+			if (channels != null && channels.contains(name)) {
+				write(connection, reply(list("message", channel, message)));
+				receivers++;
+			}
+			Set<String> patterns = connection.attr(PATTERNS).get();
+			if (patterns != null) {
+				for (String pattern : patterns) {
+					if (matches(pattern, name)) {
+						write(connection, reply(list("pmessage", pattern, channel, message)));
+						receivers++;
+					}
+				}
+			}
+		}
+		return receivers;
+	}
+
+	/**
+	 * pushes an invalidation of the keys to the connections tracking them, and
+	 * forgets them as redis does until they are read again.
+	 * @param keys null for all the keys, as on FLUSHALL.
+	 */
+	public void invalidate(List<byte[]> keys) {
+		for (Channel connection : this.connections) {
+			Set<ByteBuffer> tracked = connection.attr(TRACKED).get();
+			if (tracked == null) {
+				continue;
+			}
+			if (keys == null) {
+				tracked.clear();
+				write(connection, reply(new Push(list("invalidate", null)), true));
+				continue;
+			}
+			List<Object> invalidated = new ArrayList<Object>();
+			for (byte[] key : keys) {
+				if (tracked.remove(ByteBuffer.wrap(key))) {
+					invalidated.add(key);
+				}
+			}
+			if (!invalidated.isEmpty()) {
+				write(connection, reply(new Push(list("invalidate", invalidated)), true));
+			}
+		}
+	}
+
+	/**
+	 * @param name the command in upper case.
+	 * @param args the arguments, without the command.
+	 * @return the reply: a {@link Status}, an {@link Error}, a Long for an
+	 * integer, a byte[] or String for a bulk string, a List for an array, a
+	 * Map for a RESP3 map, or null.
+	 */
+	protected abstract Object execute(String name, List<byte[]> args);
+
+	protected static Status status(String status) {
+		return new Status(status);
+	}
+
+	protected static Error error(String message) {
+		return new Error(message);
+	}
+
+	protected static String string(byte[] bytes) {
+		return new String(bytes, UTF8);
+	}
+
+	protected static List<Object> list(Object... items) {
+		List<Object> list = new ArrayList<Object>();
+		Collections.addAll(list, items);
+		return list;
+	}
+
+	private Object dispatch(Channel connection, String name, List<byte[]> args) {
+		if ("PING".equals(name)) {
+			return status("PONG");
+		}
+		if ("ECHO".equals(name)) {
+			return args.get(0);
+		}
+		if ("HELLO".equals(name)) {
+			return this.hello(connection, args);
+		}
+		if ("CLIENT".equals(name) && args.size() > 1 && "TRACKING".equalsIgnoreCase(string(args.get(0)))) {
+			return this.tracking(connection, "ON".equalsIgnoreCase(string(args.get(1))));
+		}
+		if ("SELECT".equals(name) || "AUTH".equals(name) || "CLIENT".equals(name) || "QUIT".equals(name)) {
+			return status("OK");
+		}
+		if ("PUBLISH".equals(name)) {
+			return this.publish(string(args.get(0)), string(args.get(1)));
+		}
+		if ("SUBSCRIBE".equals(name) || "PSUBSCRIBE".equals(name) || "UNSUBSCRIBE".equals(name)
+				|| "PUNSUBSCRIBE".equals(name)) {
+			return this.subscribe(connection, name.toLowerCase(), args);
+		}
+		Object reply = this.execute(name, args);
+		this.track(connection, name, args);
+		return reply;
+	}
+
+	private Object hello(Channel connection, List<byte[]> args) {
+		long protocol = args.isEmpty() ? 2 : Long.parseLong(string(args.get(0)));
+		if (protocol != 2 && protocol != 3) {
+			return error("NOPROTO unsupported protocol version");
+		}
+		connection.attr(RESP3).set(protocol == 3);
+		Map<Object, Object> properties = new LinkedHashMap<Object, Object>();
+		properties.put("server", "redis");
+		properties.put("version", "6.0.0");
+		properties.put("proto", protocol);
+		properties.put("mode", "standalone");
+		properties.put("role", "master");
+		properties.put("modules", list());
+		return properties;
+	}
+
+	private Object tracking(Channel connection, boolean enabled) {
+		if (enabled) {
+			connection.attr(TRACKED).setIfAbsent(Sets.newSetFromMap(new ConcurrentHashMap<ByteBuffer, Boolean>()));
+		} else {
+			connection.attr(TRACKED).remove();
+		}
+		return status("OK");
+	}
+
+	private void track(Channel connection, String name, List<byte[]> args) {
+		Set<ByteBuffer> tracked = connection.attr(TRACKED).get();
+		if (tracked == null || args.isEmpty()) {
+			return;
+		}
+		if ("MGET".equals(name)) {
+			for (byte[] key : args) {
+				tracked.add(ByteBuffer.wrap(key));
+			}
+		} else if ("GET".equals(name) || "HGET".equals(name)) {
+			tracked.add(ByteBuffer.wrap(args.get(0)));
+		}
+	}
+
+	/**
+	 * @return one reply per channel, written as they come unlike the reply
+	 * of a regular command.
+	 */
+	private Object subscribe(Channel connection, String kind, List<byte[]> args) {
+		AttributeKey<Set<String>> key = kind.startsWith("p") ? PATTERNS : CHANNELS;
+		connection.attr(key).setIfAbsent(Sets.newSetFromMap(new ConcurrentHashMap<String, Boolean>()));
+		Set<String> names = connection.attr(key).get();
+		List<Object> replies = new ArrayList<Object>();
+		List<String> targets = new ArrayList<String>();
+		for (byte[] arg : args) {
+			targets.add(string(arg));
+		}
+		if (targets.isEmpty() && kind.contains("unsubscribe")) {
+			targets.addAll(names);
+		}
+		for (String target : targets) {
+			if (kind.contains("unsubscribe")) {
+				names.remove(target);
+			} else {
+				names.add(target);
+			}
+			replies.add(list(kind, target, (long) this.subscriptions(connection)));
+		}
+		return new Multiple(replies);
+	}
+
+	private int subscriptions(Channel connection) {
+		Set<String> channels = connection.attr(CHANNELS).get();
+		Set<String> patterns = connection.attr(PATTERNS).get();
+		return (channels == null ? 0 : channels.size()) + (patterns == null ? 0 : patterns.size());
+	}
+
+	private void reply(final ChannelHandlerContext ctx, final byte[] reply, final boolean close) {
+		if (this.latency > 0) {
+			ctx.executor().schedule(new Runnable() {
+				@Override
+				public void run() {
+					send(ctx.channel(), reply, close);
+				}
+			}, this.latency, TimeUnit.NANOSECONDS);
+		} else {
+			send(ctx.channel(), reply, close);
+		}
+	}
+
+	private static void send(Channel channel, byte[] reply, boolean close) {
+		ByteBuf buffer = channel.alloc().buffer(reply.length);
+		buffer.writeBytes(reply);
+		if (close) {
+			channel.writeAndFlush(buffer).addListener(ChannelFutureListener.CLOSE);
+		} else {
+			channel.writeAndFlush(buffer);
+		}
+	}
+
+	private static void write(Channel channel, byte[] reply) {
+		send(channel, reply, false);
+	}
+
+	static byte[] reply(Object reply) {
+		return reply(reply, false);
+	}
+
+	static byte[] reply(Object reply, boolean resp3) {
+		ReplyBuffer out = new ReplyBuffer();
+		encode(out, reply, resp3);
+		return out.toByteArray();
+	}
+
+	private static boolean resp3(Channel connection) {
+		return Boolean.TRUE.equals(connection.attr(RESP3).get());
+	}
+
+	private static void encode(ReplyBuffer out, Object reply, boolean resp3) {
+		if (reply == null) {
+			out.append(resp3 ? "_" : "$-1").append(CRLF);
+		} else if (reply instanceof Status) {
+			out.append("+" + ((Status) reply).status).append(CRLF);
+		} else if (reply instanceof Error) {
+			out.append("-" + ((Error) reply).message).append(CRLF);
+		} else if (reply instanceof Long || reply instanceof Integer) {
+			out.append(":" + reply).append(CRLF);
+		} else if (reply instanceof String) {
+			encode(out, ((String) reply).getBytes(UTF8), resp3);
+		} else if (reply instanceof byte[]) {
+			byte[] bytes = (byte[]) reply;
+			out.append("$" + bytes.length).append(CRLF).append(bytes).append(CRLF);
+		} else if (reply instanceof Multiple) {
+			for (Object item : ((Multiple) reply).replies) {
+				encode(out, item, resp3);
+			}
+		} else if (reply instanceof Push) {
+			List<?> items = ((Push) reply).items;
+			out.append(">" + items.size()).append(CRLF);
+			for (Object item : items) {
+				encode(out, item, resp3);
+			}
+		} else if (reply instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) reply;
+			out.append((resp3 ? "%" + map.size() : "*" + map.size() * 2)).append(CRLF);
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				encode(out, entry.getKey(), resp3);
+				encode(out, entry.getValue(), resp3);
+			}
+		} else if (reply instanceof List) {
+			List<?> items = (List<?>) reply;
+			out.append("*" + items.size()).append(CRLF);
+			for (Object item : items) {
+				encode(out, item, resp3);
+			}
+		} else {
+			throw new IllegalArgumentException("unsupported reply " + reply);
+		}
+	}
+
+	/**
+	 * glob-style pattern with * and ? only.
+	 */
+	private static boolean matches(String pattern, String channel) {
+		StringBuilder regex = new StringBuilder();
+		for (char c : pattern.toCharArray()) {
+			if (c == '*') {
+				regex.append(".*");
+			} else if (c == '?') {
+				regex.append('.');
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return channel.matches(regex.toString());
+	}
+
+	protected static class Status {
+		private final String status;
+
+		Status(String status) {
+			this.status = status;
+		}
+	}
+
+	protected static class Error {
+		private final String message;
+
+		Error(String message) {
+			this.message = message;
+		}
+	}
+
+	/**
+	 * out of band reply of a RESP3 connection.
+	 */
+	private static class Push {
+		private final List<?> items;
+
+		Push(List<?> items) {
+			this.items = items;
+		}
+	}
+
+	/**
+	 * several replies to one command, as for SUBSCRIBE.
+	 */
+	private static class Multiple {
+		private final List<Object> replies;
+
+		Multiple(List<Object> replies) {
+			this.replies = replies;
+		}
+	}
+
+	private static class ReplyBuffer extends ByteArrayOutputStream {
+		ReplyBuffer append(String s) {
+			return this.append(s.getBytes(UTF8));
+		}
+
+		ReplyBuffer append(byte[] bytes) {
+			super.write(bytes, 0, bytes.length);
+			return this;
+		}
+	}
+
+	/**
+	 * decodes the commands sent as arrays of bulk strings, as all clients do.
+	 */
+	private static class CommandDecoder extends ByteToMessageDecoder {
+		@Override
+		protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+			while (in.isReadable()) {
+				in.markReaderIndex();
+				List<byte[]> command = read(in);
+				if (command == null) {
+					in.resetReaderIndex();
+					return;
+				}
+				out.add(command);
+			}
+		}
+
+		private static List<byte[]> read(ByteBuf in) {
+			Long count = line(in, '*');
+			if (count == null) {
+				return null;
+			}
+			List<byte[]> command = new ArrayList<byte[]>();
+			for (int i = 0; i < count; i++) {
+				Long length = line(in, '$');
+				if (length == null || in.readableBytes() < length + 2) {
+					return null;
+				}
+				byte[] arg = new byte[length.intValue()];
+				in.readBytes(arg);
+				in.skipBytes(2);
+				command.add(arg);
+			}
+			return command;
+		}
+
+		private static Long line(ByteBuf in, char type) {
+			int end = in.indexOf(in.readerIndex(), in.writerIndex(), (byte) '\n');
+			if (end < 0) {
+				return null;
+			}
+			byte first = in.readByte();
+			if (first != type) {
+				throw new IllegalStateException("expected '" + type + "' but got '" + (char) first + "'");
+			}
+			byte[] digits = new byte[end - in.readerIndex() - 1];
+			in.readBytes(digits);
+			in.skipBytes(2);
+			return Long.parseLong(new String(digits, UTF8));
+		}
+	}
+
+	private class CommandHandler extends SimpleChannelInboundHandler<List<byte[]>> {
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx, List<byte[]> command) {
+			String name = string(command.get(0)).toUpperCase();
+			counts.putIfAbsent(name, new AtomicLong());
+			counts.get(name).incrementAndGet();
+
+			Object reply;
+			try {
+				reply = dispatch(ctx.channel(), name, command.subList(1, command.size()));
+			} catch (RuntimeException e) {
+				reply = error("ERR " + e);
+			}
+			reply(ctx, StubServer.reply(reply, resp3(ctx.channel())), "QUIT".equals(name));
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+			ctx.close();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package io.doeasy.redis.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author kriswang
+ *
+ */
+public class CircularListTest {
+
+	@Test
+	public void testRoundRobin() {
+		CircularList<String> list = new CircularList<String>("a", "b", "c");
+		assertEquals("a", list.next());
+		assertEquals("b", list.next());
+		assertEquals("c", list.next());
+		assertEquals("a", list.next());
+	}
+
+	@Test
+	public void testAddRemove() {
+		CircularList<String> list = new CircularList<String>("a");
+		list.add("b");
+		assertEquals(2, list.size());
+		list.remove("a");
+		list.remove("x");
+		assertEquals(1, list.size());
+		assertEquals("b", list.next());
+		list.remove("b");
+		assertTrue(list.empty());
+		assertNull(list.next());
+		assertNull(list.get(3));
+	}
+
+	@Test
+	public void testIteratorIsSnapshot() {
+		CircularList<String> list = new CircularList<String>("a", "b");
+		List<String> seen = new ArrayList<String>();
+		for (String item : list) {
+			list.remove(item);
+			list.add(item + "'");
+			seen.add(item);
+		}
+		assertEquals(2, seen.size());
+		assertEquals(2, list.size());
+	}
+
+	@Test
+	public void testConcurrentNextWhileChanging() throws Exception {
+		final CircularList<String> list = new CircularList<String>("a", "b", "c");
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final CountDownLatch done = new CountDownLatch(4);
+		for (int i = 0; i < 3; i++) {
+			new Thread(new Runnable() {
+				public void run() {
+					try {
+						for (int j = 0; j < 100000; j++) {
+							if (list.next() == null) {
+								throw new IllegalStateException("next() returned null");
+							}
+						}
+					} catch (Throwable t) {
+						failure.set(t);
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+		new Thread(new Runnable() {
+			public void run() {
+				try {
+					for (int j = 0; j < 10000; j++) {
+						list.add("d");
+						list.remove("d");
+					}
+				} catch (Throwable t) {
+					failure.set(t);
+				} finally {
+					done.countDown();
+				}
+			}
+		}).start();
+		done.await();
+		assertNull(failure.get());
+		assertEquals(3, list.size());
+	}
+
+}
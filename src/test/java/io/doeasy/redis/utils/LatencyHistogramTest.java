@@ -0,0 +1,73 @@
+package io.doeasy.redis.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author kriswang
+ *
+ */
+public class LatencyHistogramTest {
+
+	private static final long HIGHEST_VALUE = (1L << 40) - 1;
+
+	@Test
+	public void testBucketsCoverEveryValue() {
+		assertEquals(0, LatencyHistogram.index(0));
+		assertEquals(63, LatencyHistogram.highest(63));
+		int last = LatencyHistogram.index(HIGHEST_VALUE);
+		assertEquals(HIGHEST_VALUE, LatencyHistogram.highest(last));
+
+		long lowest = 0;
+		for (int i = 0; i <= last; i++) {
+			long highest = LatencyHistogram.highest(i);
+			//contiguous buckets, each holding the values up to its highest
+			assertEquals(i, LatencyHistogram.index(lowest));
+			assertEquals(i, LatencyHistogram.index(highest));
+			//within about 3% of any of its values
+			assertTrue(highest - lowest <= Math.max(0, lowest / 32));
+			lowest = highest + 1;
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getValueAtPercentile(99));
+		for (long i = 1; i <= 1000; i++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+		}
+
+		assertEquals(1000, histogram.getCount());
+		assertWithin(TimeUnit.MICROSECONDS.toNanos(500), histogram.getValueAtPercentile(50));
+		assertWithin(TimeUnit.MICROSECONDS.toNanos(990), histogram.getValueAtPercentile(99));
+		assertWithin(TimeUnit.MICROSECONDS.toNanos(1), histogram.getValueAtPercentile(0));
+		//never above the largest value recorded
+		assertEquals(histogram.getMax(), histogram.getValueAtPercentile(100));
+		assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getMax());
+		assertEquals(TimeUnit.MICROSECONDS.toNanos(1001) / 2.0, histogram.getMean(), 1e-9);
+	}
+
+	@Test
+	public void testOutOfRangeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		assertEquals(0, histogram.getValueAtPercentile(100));
+		histogram.record(Long.MAX_VALUE / 2);
+		//counted in the last bucket
+		assertEquals(HIGHEST_VALUE, histogram.getValueAtPercentile(100));
+		assertEquals(Long.MAX_VALUE / 2, histogram.getMax());
+	}
+
+	/**
+	 * the percentile is the highest value of its bucket, at most 1/32 above.
+	 */
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(actual + " for " + expected, actual >= expected && actual <= expected + expected / 32);
+	}
+}